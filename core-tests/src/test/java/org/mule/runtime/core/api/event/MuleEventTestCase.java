@@ -25,7 +25,9 @@ import org.mule.runtime.core.api.security.DefaultMuleCredentials;
 import org.mule.runtime.core.api.transformer.AbstractTransformer;
 import org.mule.runtime.core.api.transformer.Transformer;
 import org.mule.runtime.core.api.transformer.TransformerException;
+import org.mule.runtime.core.api.util.CaseInsensitiveHashMap;
 import org.mule.runtime.core.internal.context.MuleContextWithRegistries;
+import org.mule.runtime.core.internal.event.DefaultEventBuilder.InternalEventImplementation;
 import org.mule.runtime.core.internal.security.DefaultSecurityContextFactory;
 import org.mule.runtime.core.privileged.event.PrivilegedEvent;
 import org.mule.runtime.core.privileged.transformer.simple.ByteArrayToObject;
@@ -38,6 +40,12 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.ObjectStreamField;
+import java.io.OutputStream;
 import java.io.Serializable;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
@@ -128,6 +136,71 @@ public class MuleEventTestCase extends AbstractMuleContextTestCase {
     assertArrayEquals((byte[]) testEvent.getMessage().getPayload().getValue(), payload.toString().getBytes());
   }
 
+  @Test
+  public void variablesSerialization() throws Exception {
+    CoreEvent event = CoreEvent.builder(testEvent()).addVariable("foo", "bar").build();
+    currentMuleContext.set(muleContext);
+    byte[] serializedEvent = muleContext.getObjectSerializer().getExternalProtocol().serialize(event);
+    CoreEvent deserialized = muleContext.getObjectSerializer().getExternalProtocol().deserialize(serializedEvent);
+
+    assertThat(deserialized.getVariables().get("FOO").getValue(), is("bar"));
+    CoreEvent copy = CoreEvent.builder(deserialized).addVariable("Foo", "bar2").build();
+    assertThat(copy.getVariables().get("foo").getValue(), is("bar2"));
+    assertThat(deserialized.getVariables().get("foo").getValue(), is("bar"));
+  }
+
+  @Test
+  public void previousVersionVariablesDeserialization() throws Exception {
+    CoreEvent event = CoreEvent.builder(testEvent()).addVariable("foo", "bar").build();
+    ByteArrayOutputStream serializedEvent = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new PreviousVersionObjectOutputStream(serializedEvent)) {
+      out.writeObject(event);
+    }
+
+    currentMuleContext.set(muleContext);
+    CoreEvent deserialized =
+        muleContext.getObjectSerializer().getExternalProtocol().deserialize(serializedEvent.toByteArray());
+
+    assertThat(deserialized.getVariables().get("FOO").getValue(), is("bar"));
+    CoreEvent copy = CoreEvent.builder(deserialized).addVariable("other", "value").build();
+    assertThat(copy.getVariables().get("foo").getValue(), is("bar"));
+    assertThat(copy.getVariables().get("other").getValue(), is("value"));
+  }
+
+  /**
+   * Writes events with the class descriptor of the versions in which the variables of the event were declared as a
+   * {@link CaseInsensitiveHashMap}.
+   */
+  private static class PreviousVersionObjectOutputStream extends ObjectOutputStream {
+
+    private static final String PREVIOUS_VARIABLES_TYPE = "L" + CaseInsensitiveHashMap.class.getName().replace('.', '/') + ";";
+
+    PreviousVersionObjectOutputStream(OutputStream out) throws IOException {
+      super(out);
+    }
+
+    @Override
+    protected void writeClassDescriptor(ObjectStreamClass desc) throws IOException {
+      if (!desc.getName().equals(InternalEventImplementation.class.getName())) {
+        super.writeClassDescriptor(desc);
+        return;
+      }
+
+      writeUTF(desc.getName());
+      writeLong(desc.getSerialVersionUID());
+      writeByte(SC_SERIALIZABLE | SC_WRITE_METHOD);
+      ObjectStreamField[] fields = desc.getFields();
+      writeShort(fields.length);
+      for (ObjectStreamField field : fields) {
+        writeByte(field.getTypeCode());
+        writeUTF(field.getName());
+        if (!field.isPrimitive()) {
+          writeObject(field.getName().equals("variables") ? PREVIOUS_VARIABLES_TYPE : field.getTypeString());
+        }
+      }
+    }
+  }
+
   private void createAndRegisterTransformersEndpointBuilderService() throws Exception {
     Transformer trans1 = new TestEventTransformer();
     trans1.setName("OptimusPrime");
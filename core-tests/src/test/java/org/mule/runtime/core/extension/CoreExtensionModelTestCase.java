@@ -123,7 +123,7 @@ public class CoreExtensionModelTestCase extends AbstractMuleContextTestCase {
     assertThat(coreExtensionModel.getImportedTypes(), empty());
     assertThat(coreExtensionModel.getConfigurationModels(), empty());
     assertThat(coreExtensionModel.getOperationModels(), hasSize(8));
-    assertThat(coreExtensionModel.getConstructModels(), hasSize(13));
+    assertThat(coreExtensionModel.getConstructModels(), hasSize(14));
     assertThat(coreExtensionModel.getConnectionProviders(), empty());
     assertThat(coreExtensionModel.getSourceModels(), hasSize(1));
 
@@ -282,6 +282,39 @@ public class CoreExtensionModelTestCase extends AbstractMuleContextTestCase {
     assertThat(counter.isRequired(), is(false));
   }
 
+  @Test
+  public void parallelForeach() {
+    final ConstructModel parallelForeach = coreExtensionModel.getConstructModel("parallelForeach").get();
+
+    assertThat(parallelForeach.getNestedComponents().size(), is(1));
+    NestableElementModel processorsChain = parallelForeach.getNestedComponents().get(0);
+    assertThat(processorsChain, instanceOf(NestedChainModel.class));
+    assertThat(processorsChain.isRequired(), is(true));
+
+    assertThat(parallelForeach.getAllParameterModels(), hasSize(5));
+
+    ParameterModel collection = parallelForeach.getAllParameterModels().get(0);
+    assertThat(collection.getName(), is("collection"));
+    assertThat(collection.getExpressionSupport(), is(REQUIRED));
+    assertThat(collection.getType(), instanceOf(ArrayType.class));
+    assertThat(collection.isRequired(), is(false));
+
+    ParameterModel timeout = parallelForeach.getAllParameterModels().get(1);
+    assertThat(timeout.getName(), is("timeout"));
+    assertThat(timeout.getExpressionSupport(), is(NOT_SUPPORTED));
+    assertThat(timeout.getType(), instanceOf(DefaultNumberType.class));
+    assertThat(timeout.isRequired(), is(false));
+
+    ParameterModel maxConcurrency = parallelForeach.getAllParameterModels().get(2);
+    assertThat(maxConcurrency.getName(), is("maxConcurrency"));
+    assertThat(maxConcurrency.getExpressionSupport(), is(NOT_SUPPORTED));
+    assertThat(maxConcurrency.getType(), instanceOf(DefaultNumberType.class));
+    assertThat(maxConcurrency.isRequired(), is(false));
+
+    assertThat(parallelForeach.getAllParameterModels().get(3).getName(), is(TARGET_PARAMETER_NAME));
+    assertThat(parallelForeach.getAllParameterModels().get(4).getName(), is(TARGET_VALUE_PARAMETER_NAME));
+  }
+
   @Test
   public void flowRef() {
     final OperationModel flowRefModel = coreExtensionModel.getOperationModel("flowRef").get();
@@ -0,0 +1,246 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.internal.connection;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyObject;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mule.runtime.api.config.PoolingProfile.DEFAULT_MAX_POOL_WAIT;
+import static org.mule.runtime.api.config.PoolingProfile.INITIALISE_NONE;
+import static org.mule.runtime.api.config.PoolingProfile.WHEN_EXHAUSTED_FAIL;
+import static org.mule.runtime.api.config.PoolingProfile.WHEN_EXHAUSTED_WAIT;
+
+import org.mule.runtime.api.config.PoolingProfile;
+import org.mule.runtime.api.connection.ConnectionException;
+import org.mule.runtime.api.connection.ConnectionHandler;
+import org.mule.runtime.api.connection.ConnectionProvider;
+import org.mule.runtime.api.connection.ConnectionValidationResult;
+import org.mule.runtime.api.lifecycle.Lifecycle;
+import org.mule.tck.junit4.AbstractMuleContextTestCase;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ConcurrentBagConnectionManagementStrategyTestCase extends AbstractMuleContextTestCase {
+
+  private static final int MAX_ACTIVE = 2;
+
+  private ConnectionProvider<Object> connectionProvider;
+
+  private PoolingProfile poolingProfile =
+      new PoolingProfile(MAX_ACTIVE, MAX_ACTIVE, DEFAULT_MAX_POOL_WAIT, WHEN_EXHAUSTED_WAIT, INITIALISE_NONE);
+  private ConcurrentBagConnectionManagementStrategy<Object> strategy;
+  private PoolingMetricsListener<Object> poolingListener;
+
+  private ConnectionHandler<Object> connection1;
+  private ConnectionHandler<Object> connection2;
+
+  @Before
+  public void before() throws Exception {
+    poolingListener = mock(PoolingMetricsListener.class);
+    muleContext.start();
+    resetConnectionProvider();
+
+    initStrategy();
+
+    connection1 = strategy.getConnectionHandler();
+    connection2 = strategy.getConnectionHandler();
+  }
+
+  @Test
+  public void getConnection() throws Exception {
+    assertThat(connection1, is(not(sameInstance(connection2))));
+    assertThat(connection1.getConnection(), is(not(sameInstance(connection2.getConnection()))));
+    verify(connectionProvider, times(2)).connect();
+    verify(poolingListener).onBorrow(connection1.getConnection());
+    verify(poolingListener).onBorrow(connection2.getConnection());
+    assertThat(strategy.getActiveConnections(), is(2));
+  }
+
+  @Test
+  public void sameConnectionReusedByThread() throws Exception {
+    Object connection = connection1.getConnection();
+    connection1.release();
+
+    assertThat(strategy.getConnectionHandler().getConnection(), is(sameInstance(connection)));
+    verify(connectionProvider, times(2)).connect();
+    verify(poolingListener).onReturn(connection);
+  }
+
+  @Test
+  public void poolingListenerFailsOnBorrow() throws Exception {
+    initStrategy();
+    final RuntimeException exception = new RuntimeException();
+
+    doThrow(exception).when(poolingListener).onBorrow(any(Lifecycle.class));
+
+    try {
+      strategy.getConnectionHandler();
+      fail("was expecting poolingListener to fail");
+    } catch (Exception e) {
+      assertThat(e.getCause(), is(sameInstance(exception)));
+      verify(connectionProvider).disconnect(any(Lifecycle.class));
+    }
+  }
+
+  @Test
+  public void exhaustion() throws Exception {
+    poolingProfile = new PoolingProfile(1, 1, DEFAULT_MAX_POOL_WAIT, WHEN_EXHAUSTED_FAIL, INITIALISE_NONE);
+    initStrategy();
+
+    ConnectionHandler<Object> connectionHandler = strategy.getConnectionHandler();
+    try {
+      strategy.getConnectionHandler();
+      fail("Was expecting the pool to be exhausted");
+    } catch (ConnectionException e) {
+      // expected
+    }
+
+    connectionHandler.release();
+    assertThat(strategy.getConnectionHandler(), is(notNullValue()));
+  }
+
+  @Test
+  public void waitingBorrowerGetsReleasedConnection() throws Exception {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<ConnectionHandler<Object>> borrowed = executor.submit(() -> strategy.getConnectionHandler());
+      while (strategy.getWaitingBorrowers() == 0) {
+        Thread.sleep(10);
+      }
+
+      Object connection = connection1.getConnection();
+      connection1.release();
+      assertThat(borrowed.get(5, SECONDS).getConnection(), is(sameInstance(connection)));
+      verify(connectionProvider, times(2)).connect();
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void zeroMaxWaitWaitsIndefinitely() throws Exception {
+    poolingProfile = new PoolingProfile(1, 1, 0, WHEN_EXHAUSTED_WAIT, INITIALISE_NONE);
+    initStrategy();
+    ConnectionHandler<Object> connectionHandler = strategy.getConnectionHandler();
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<ConnectionHandler<Object>> borrowed = executor.submit(() -> strategy.getConnectionHandler());
+      while (strategy.getWaitingBorrowers() == 0) {
+        Thread.sleep(10);
+      }
+
+      Thread.sleep(100);
+      assertThat(borrowed.isDone(), is(false));
+
+      Object connection = connectionHandler.getConnection();
+      connectionHandler.release();
+      assertThat(borrowed.get(5, SECONDS).getConnection(), is(sameInstance(connection)));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void waitingBorrowerGetsNewConnectionWhenInvalidated() throws Exception {
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<ConnectionHandler<Object>> borrowed = executor.submit(() -> strategy.getConnectionHandler());
+      while (strategy.getWaitingBorrowers() == 0) {
+        Thread.sleep(10);
+      }
+
+      connection1.invalidate();
+      assertThat(borrowed.get(5, SECONDS), is(notNullValue()));
+      verify(connectionProvider, times(3)).connect();
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void asyncBorrowCompletedOnRelease() throws Exception {
+    CompletableFuture<ConnectionHandler<Object>> borrowed = strategy.getConnectionHandlerAsync();
+    assertThat(borrowed.isDone(), is(false));
+
+    Object connection = connection2.getConnection();
+    connection2.release();
+    assertThat(borrowed.get(5, SECONDS).getConnection(), is(sameInstance(connection)));
+  }
+
+  @Test
+  public void cancelledAsyncBorrowDoesNotTakeConnection() throws Exception {
+    CompletableFuture<ConnectionHandler<Object>> borrowed = strategy.getConnectionHandlerAsync();
+    borrowed.cancel(false);
+
+    connection1.release();
+    assertThat(strategy.getActiveConnections(), is(1));
+    assertThat(strategy.getIdleConnections(), is(1));
+  }
+
+  @Test
+  public void metricsPublished() throws Exception {
+    verify(poolingListener, times(2)).onBorrowWaitTime(anyLong());
+    verify(poolingListener).onUtilisationChange(2, 2, MAX_ACTIVE);
+
+    connection1.release();
+    verify(poolingListener, atLeastOnce()).onUtilisationChange(eq(1), anyInt(), eq(MAX_ACTIVE));
+  }
+
+  @Test
+  public void release() throws Exception {
+    connection1.release();
+    connection2.release();
+
+    strategy.close();
+
+    verify(connectionProvider, times(2)).disconnect(any(Object.class));
+  }
+
+  @Test
+  public void connectionsBorrowedWhenClosedDisconnectedOnRelease() throws Exception {
+    connection1.release();
+    strategy.close();
+    verify(connectionProvider, times(1)).disconnect(any(Object.class));
+
+    connection2.release();
+    verify(connectionProvider, times(2)).disconnect(any(Object.class));
+  }
+
+  private void resetConnectionProvider() throws ConnectionException {
+    ConnectionProvider<Object> connectionProvider = mock(ConnectionProvider.class);
+    when(connectionProvider.connect()).thenAnswer(i -> mock(Lifecycle.class));
+    when(connectionProvider.validate(anyObject())).thenReturn(ConnectionValidationResult.success());
+    this.connectionProvider = spy(new DefaultConnectionProviderWrapper<>(connectionProvider, muleContext));
+  }
+
+  private void initStrategy() {
+    strategy = new ConcurrentBagConnectionManagementStrategy<>(connectionProvider, poolingProfile, poolingListener, muleContext);
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.internal.event;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.Matchers.contains;
+import static org.junit.Assert.assertThat;
+
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+@SmallTest
+public class PersistentCaseInsensitiveMapTestCase extends AbstractMuleTestCase {
+
+  @Test
+  public void caseInsensitiveKeys() {
+    PersistentCaseInsensitiveMap<String> map = PersistentCaseInsensitiveMap.<String>empty().with("FooBar", "value");
+
+    assertThat(map.get("foobar"), is("value"));
+    assertThat(map.get("FOOBAR"), is("value"));
+    assertThat(map.containsKey("fooBAR"), is(true));
+    assertThat(map.keySet(), contains("FooBar"));
+  }
+
+  @Test
+  public void replaceKeepsOriginalKeyCase() {
+    PersistentCaseInsensitiveMap<String> map = PersistentCaseInsensitiveMap.<String>empty().with("FooBar", "value");
+    PersistentCaseInsensitiveMap<String> replaced = map.with("FOOBAR", "other");
+
+    assertThat(replaced.size(), is(1));
+    assertThat(replaced.keySet(), contains("FooBar"));
+    assertThat(replaced.get("foobar"), is("other"));
+    assertThat(map.get("foobar"), is("value"));
+  }
+
+  @Test
+  public void derivedMapsDontModifyOriginal() {
+    PersistentCaseInsensitiveMap<Integer> map = PersistentCaseInsensitiveMap.empty();
+    for (int i = 0; i < 1000; i++) {
+      map = map.with("key" + i, i);
+    }
+
+    PersistentCaseInsensitiveMap<Integer> removed = map;
+    for (int i = 0; i < 1000; i += 2) {
+      removed = removed.without("KEY" + i);
+    }
+
+    assertThat(map.size(), is(1000));
+    assertThat(removed.size(), is(500));
+    for (int i = 0; i < 1000; i++) {
+      assertThat(map.get("key" + i), is(i));
+      if (i % 2 == 0) {
+        assertThat(removed.get("key" + i), is(nullValue()));
+      } else {
+        assertThat(removed.get("key" + i), is(i));
+      }
+    }
+    assertThat(removed.entrySet().size(), is(500));
+  }
+
+  @Test
+  public void removeAll() {
+    PersistentCaseInsensitiveMap<Integer> map = PersistentCaseInsensitiveMap.empty();
+    for (int i = 0; i < 100; i++) {
+      map = map.with("key" + i, i);
+    }
+    for (int i = 0; i < 100; i++) {
+      map = map.without("key" + i);
+    }
+
+    assertThat(map, is(sameInstance(PersistentCaseInsensitiveMap.empty())));
+    assertThat(map.isEmpty(), is(true));
+  }
+
+  @Test
+  public void missingKeysDontCreateNewMaps() {
+    PersistentCaseInsensitiveMap<String> map = PersistentCaseInsensitiveMap.<String>empty().with("key", "value");
+
+    assertThat(map.without("other"), is(sameInstance(map)));
+    assertThat(map.without(null), is(sameInstance(map)));
+    assertThat(map.with("KEY", "value"), is(sameInstance(map)));
+  }
+
+  @Test
+  public void collidingHashes() {
+    // "a@" and "b!" have the same hash code
+    PersistentCaseInsensitiveMap<String> map = PersistentCaseInsensitiveMap.<String>empty()
+        .with("a@", "1").with("B!", "2").with("a@a@", "3").with("b!b!", "4").with("a@b!", "5").with("b!a@", "6");
+
+    assertThat(map.size(), is(6));
+    assertThat(map.get("A@"), is("1"));
+    assertThat(map.get("b!"), is("2"));
+    assertThat(map.get("A@B!"), is("5"));
+
+    map = map.without("a@").without("a@a@").without("b!b!");
+    assertThat(map.size(), is(3));
+    assertThat(map.get("b!"), is("2"));
+    assertThat(map.get("b!a@"), is("6"));
+    assertThat(map.get("a@"), is(nullValue()));
+  }
+
+  @Test
+  public void equalToOtherMaps() {
+    Map<String, String> expected = new HashMap<>();
+    expected.put("key1", "value1");
+    expected.put("key2", "value2");
+
+    assertThat(PersistentCaseInsensitiveMap.copyOf(expected), is(expected));
+  }
+
+  @Test
+  public void serialization() throws Exception {
+    PersistentCaseInsensitiveMap<String> map = PersistentCaseInsensitiveMap.<String>empty().with("Key1", "value1")
+        .with("key2", "value2");
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(map);
+    }
+    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      PersistentCaseInsensitiveMap<String> deserialized = (PersistentCaseInsensitiveMap<String>) in.readObject();
+      assertThat(deserialized, is(map));
+      assertThat(deserialized.get("KEY1"), is("value1"));
+    }
+  }
+}
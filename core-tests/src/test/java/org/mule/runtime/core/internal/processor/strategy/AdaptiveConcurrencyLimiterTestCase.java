@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.internal.processor.strategy;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.mule.test.allure.AllureConstants.ProcessingStrategiesFeature.PROCESSING_STRATEGIES;
+import static org.mule.test.allure.AllureConstants.ProcessingStrategiesFeature.ProcessingStrategiesStory.PROACTOR;
+import static reactor.core.publisher.Flux.from;
+
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.qameta.allure.Feature;
+import io.qameta.allure.Story;
+import org.junit.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoProcessor;
+
+@SmallTest
+@Feature(PROCESSING_STRATEGIES)
+@Story(PROACTOR)
+public class AdaptiveConcurrencyLimiterTestCase extends AbstractMuleTestCase {
+
+  private final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 8, 0.5, 2.0);
+
+  @Test
+  public void queuesWhenLimitReached() {
+    MonoProcessor<String> first = MonoProcessor.create();
+    MonoProcessor<String> second = MonoProcessor.create();
+    AtomicInteger completed = new AtomicInteger();
+
+    from(limiter.limit(first)).subscribe(v -> completed.incrementAndGet());
+    from(limiter.limit(second)).subscribe(v -> completed.incrementAndGet());
+    from(limiter.limit(Mono.just("third"))).subscribe(v -> completed.incrementAndGet());
+
+    assertThat(limiter.getInFlight(), is(2));
+    assertThat(completed.get(), is(0));
+
+    first.onNext("first");
+    assertThat(completed.get(), is(2));
+    assertThat(limiter.getInFlight(), is(1));
+
+    second.onNext("second");
+    assertThat(completed.get(), is(3));
+    assertThat(limiter.getInFlight(), is(0));
+  }
+
+  @Test
+  public void waitingExecutionIsGrantedThroughExecutor() {
+    MonoProcessor<String> first = MonoProcessor.create();
+    MonoProcessor<String> second = MonoProcessor.create();
+    List<Runnable> grants = new ArrayList<>();
+    AtomicInteger completed = new AtomicInteger();
+
+    from(limiter.limit(first, grants::add)).subscribe(v -> completed.incrementAndGet());
+    from(limiter.limit(second, grants::add)).subscribe(v -> completed.incrementAndGet());
+    from(limiter.limit(Mono.just("third"), grants::add)).subscribe(v -> completed.incrementAndGet());
+    assertThat(grants.size(), is(0));
+
+    first.onNext("first");
+    assertThat(completed.get(), is(1));
+    assertThat(grants.size(), is(1));
+
+    grants.get(0).run();
+    assertThat(completed.get(), is(2));
+    assertThat(limiter.getInFlight(), is(1));
+  }
+
+  @Test
+  public void cancelledWhileWaitingReleasesPermit() {
+    MonoProcessor<String> first = MonoProcessor.create();
+    MonoProcessor<String> second = MonoProcessor.create();
+
+    from(limiter.limit(first)).subscribe();
+    from(limiter.limit(second)).subscribe();
+    Disposable waiting = from(limiter.limit(Mono.just("third"))).subscribe();
+    waiting.dispose();
+
+    first.onNext("first");
+    second.onNext("second");
+    assertThat(limiter.getInFlight(), is(0));
+  }
+
+  @Test
+  public void rejectionDecreasesLimit() {
+    from(limiter.limit(Mono.error(new RejectedExecutionException()))).subscribe(v -> {
+    }, e -> {
+    });
+    assertThat(limiter.getLimit(), is(1));
+    assertThat(limiter.getInFlight(), is(0));
+
+    limiter.onDrop();
+    assertThat(limiter.getLimit(), is(1));
+  }
+
+  @Test
+  public void rejectedPermitReleasedBeforeErrorIsPropagated() {
+    AtomicInteger inFlightOnError = new AtomicInteger(-1);
+    from(limiter.limit(Mono.error(new RejectedExecutionException()))).subscribe(v -> {
+    }, e -> inFlightOnError.set(limiter.getInFlight()));
+    assertThat(inFlightOnError.get(), is(0));
+    assertThat(limiter.getInFlight(), is(0));
+  }
+
+  @Test
+  public void rejectionWaitsForReleaseOfOtherPermits() {
+    MonoProcessor<String> pending = MonoProcessor.create();
+    from(limiter.limit(pending)).subscribe();
+
+    AtomicBoolean released = new AtomicBoolean();
+    from(limiter.limit(Mono.error(new RejectedExecutionException()))).subscribe(v -> {
+    }, e -> {
+      assertThat(limiter.getInFlight(), is(1));
+      limiter.nextRelease().subscribe(v -> {
+      }, e2 -> {
+      }, () -> released.set(true));
+    });
+    // the release of the rejected permit must not be what completes the retry signal
+    assertThat(released.get(), is(false));
+
+    pending.onNext("done");
+    assertThat(released.get(), is(true));
+  }
+
+  @Test
+  public void nextReleaseWhenNothingInFlight() {
+    AtomicBoolean released = new AtomicBoolean();
+    limiter.nextRelease().subscribe(v -> {
+    }, e -> {
+    }, () -> released.set(true));
+    assertThat(released.get(), is(true));
+  }
+
+  @Test
+  public void limitGrowsWhileLatencyIsStable() {
+    MonoProcessor<String> pending = MonoProcessor.create();
+    from(limiter.limit(pending)).subscribe();
+
+    limiter.onSample(MILLISECONDS.toNanos(10));
+    limiter.onSample(MILLISECONDS.toNanos(10));
+    assertThat(limiter.getLimit(), greaterThan(2));
+  }
+
+  @Test
+  public void limitShrinksWhenLatencyDegrades() {
+    MonoProcessor<String> pending = MonoProcessor.create();
+    from(limiter.limit(pending)).subscribe();
+
+    limiter.onSample(MILLISECONDS.toNanos(10));
+    limiter.onSample(MILLISECONDS.toNanos(10));
+    int grownLimit = limiter.getLimit();
+    limiter.onSample(MILLISECONDS.toNanos(100));
+    assertThat(limiter.getLimit(), lessThan(grownLimit));
+  }
+
+  @Test
+  public void limitListenerNotified() {
+    AtomicInteger lastLimit = new AtomicInteger();
+    limiter.setLimitListener(lastLimit::set);
+    assertThat(lastLimit.get(), is(2));
+
+    limiter.onDrop();
+    assertThat(lastLimit.get(), is(1));
+  }
+
+}
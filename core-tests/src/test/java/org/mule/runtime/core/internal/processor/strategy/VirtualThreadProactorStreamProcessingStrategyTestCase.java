@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.internal.processor.strategy;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.startsWith;
+import static org.hamcrest.core.IsCollectionContaining.hasItem;
+import static org.junit.internal.matchers.ThrowableMessageMatcher.hasMessage;
+import static org.mule.runtime.core.internal.processor.strategy.AbstractProcessingStrategy.TRANSACTIONAL_ERROR_MESSAGE;
+import static org.mule.runtime.core.internal.processor.strategy.AbstractStreamProcessingStrategyFactory.DEFAULT_BUFFER_SIZE;
+import static org.mule.runtime.core.internal.processor.strategy.AbstractStreamProcessingStrategyFactory.DEFAULT_SUBSCRIBER_COUNT;
+import static org.mule.runtime.core.internal.processor.strategy.AbstractStreamProcessingStrategyFactory.DEFAULT_WAIT_STRATEGY;
+import static org.mule.runtime.core.internal.processor.strategy.VirtualThreadProactorStreamProcessingStrategyFactory.isVirtualThreadsSupported;
+import static org.mule.test.allure.AllureConstants.ProcessingStrategiesFeature.PROCESSING_STRATEGIES;
+import static org.mule.test.allure.AllureConstants.ProcessingStrategiesFeature.ProcessingStrategiesStory.PROACTOR;
+import static reactor.util.concurrent.Queues.XS_BUFFER_SIZE;
+
+import org.mule.runtime.api.exception.DefaultMuleException;
+import org.mule.runtime.api.scheduler.Scheduler;
+import org.mule.runtime.core.api.MuleContext;
+import org.mule.runtime.core.api.processor.strategy.ProcessingStrategy;
+import org.mule.runtime.core.api.transaction.TransactionCoordination;
+import org.mule.runtime.core.internal.exception.MessagingException;
+import org.mule.runtime.core.internal.processor.strategy.ProactorStreamProcessingStrategyFactory.ProactorStreamProcessingStrategy;
+import org.mule.runtime.core.internal.processor.strategy.VirtualThreadProactorStreamProcessingStrategyFactory.VirtualThreadProactorStreamProcessingStrategy;
+import org.mule.tck.testmodels.mule.TestTransaction;
+
+import io.qameta.allure.Description;
+import io.qameta.allure.Feature;
+import io.qameta.allure.Story;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+@Feature(PROCESSING_STRATEGIES)
+@Story(PROACTOR)
+public class VirtualThreadProactorStreamProcessingStrategyTestCase extends AbstractProcessingStrategyTestCase {
+
+  protected static final String VIRTUAL = "virtual";
+
+  // Stands for the virtual thread executor, so that the behaviour of the strategy is verified on any JVM.
+  private Scheduler virtual;
+
+  public VirtualThreadProactorStreamProcessingStrategyTestCase(Mode mode) {
+    super(mode);
+  }
+
+  @Before
+  public void createVirtualExecutor() {
+    virtual = new TestScheduler(8, VIRTUAL, false);
+  }
+
+  @After
+  public void stopVirtualExecutor() {
+    virtual.stop();
+  }
+
+  @Override
+  protected ProcessingStrategy createProcessingStrategy(MuleContext muleContext, String schedulersNamePrefix) {
+    return new VirtualThreadProactorStreamProcessingStrategy(() -> ringBuffer,
+                                                             XS_BUFFER_SIZE,
+                                                             DEFAULT_SUBSCRIBER_COUNT,
+                                                             DEFAULT_WAIT_STRATEGY,
+                                                             () -> cpuLight,
+                                                             () -> virtual,
+                                                             () -> cpuIntensive,
+                                                             4);
+  }
+
+  @Override
+  @Description("With the VirtualThreadProactorProcessingStrategy, a BLOCKING message processor is scheduled on a virtual thread.")
+  public void singleBlocking() throws Exception {
+    super.singleBlocking();
+    assertThat(threads, hasSize(equalTo(1)));
+    assertThat(threads.stream().filter(name -> name.startsWith(VIRTUAL)).count(), equalTo(1l));
+    assertThat(threads, not(hasItem(startsWith(IO))));
+    assertThat(threads, not(hasItem(startsWith(CPU_LIGHT))));
+    assertThat(threads, not(hasItem(startsWith(CPU_INTENSIVE))));
+    assertThat(threads, not(hasItem(startsWith(CUSTOM))));
+  }
+
+  @Override
+  @Description("With the VirtualThreadProactorProcessingStrategy, each BLOCKING message processor is scheduled on a virtual "
+      + "thread, never on the IO scheduler.")
+  public void multipleBlocking() throws Exception {
+    super.multipleBlocking();
+    assertThat(threads, hasSize(between(1, 3)));
+    assertThat(threads.stream().filter(name -> name.startsWith(VIRTUAL)).count(), between(1l, 3l));
+    assertThat(threads, not(hasItem(startsWith(IO))));
+    assertThat(threads, not(hasItem(startsWith(CPU_LIGHT))));
+    assertThat(threads, not(hasItem(startsWith(CPU_INTENSIVE))));
+    assertThat(threads, not(hasItem(startsWith(CUSTOM))));
+  }
+
+  @Override
+  @Description("With the VirtualThreadProactorProcessingStrategy, a CPU_INTENSIVE message processor is still scheduled on a CPU "
+      + "intensive thread.")
+  public void singleCpuIntensive() throws Exception {
+    super.singleCpuIntensive();
+    assertThat(threads, hasSize(equalTo(1)));
+    assertThat(threads.stream().filter(name -> name.startsWith(CPU_INTENSIVE)).count(), equalTo(1l));
+    assertThat(threads, not(hasItem(startsWith(VIRTUAL))));
+    assertThat(threads, not(hasItem(startsWith(IO))));
+    assertThat(threads, not(hasItem(startsWith(CPU_LIGHT))));
+    assertThat(threads, not(hasItem(startsWith(CUSTOM))));
+  }
+
+  @Override
+  @Description("With the VirtualThreadProactorProcessingStrategy, when there is a mix of processor processing types, each "
+      + "processor is scheduled on the correct scheduler.")
+  public void mix() throws Exception {
+    super.mix();
+    assertThat(threads, hasSize(equalTo(3)));
+    assertThat(threads.stream().filter(name -> name.startsWith(CPU_INTENSIVE)).count(), equalTo(1l));
+    assertThat(threads.stream().filter(name -> name.startsWith(VIRTUAL)).count(), equalTo(1l));
+    assertThat(threads.stream().filter(name -> name.startsWith(CPU_LIGHT)).count(), equalTo(1l));
+    assertThat(threads, not(hasItem(startsWith(IO))));
+    assertThat(threads, not(hasItem(startsWith(CUSTOM))));
+  }
+
+  @Override
+  @Description("When the VirtualThreadProactorProcessingStrategy is configured and a transaction is active processing fails "
+      + "with an error")
+  public void tx() throws Exception {
+    flow = flowBuilder.get().processors(cpuLightProcessor, cpuIntensiveProcessor, blockingProcessor).build();
+    flow.initialise();
+    flow.start();
+
+    TransactionCoordination.getInstance().bindTransaction(new TestTransaction(muleContext));
+
+    expectedException.expect(MessagingException.class);
+    expectedException.expectCause(instanceOf(DefaultMuleException.class));
+    expectedException.expectCause(hasMessage(equalTo(TRANSACTIONAL_ERROR_MESSAGE)));
+    processFlow(testEvent());
+  }
+
+  @Test
+  @Description("The virtual thread executor only rejects tasks once it is shut down, so a rejected BLOCKING task is not retried "
+      + "and fails with an OVERLOAD error.")
+  public void blockingRejectedExecution() throws Exception {
+    flow = flowBuilder.get().processors(blockingProcessor)
+        .processingStrategyFactory((context, prefix) -> new VirtualThreadProactorStreamProcessingStrategy(() -> ringBuffer,
+                                                                                                          DEFAULT_BUFFER_SIZE,
+                                                                                                          DEFAULT_SUBSCRIBER_COUNT,
+                                                                                                          DEFAULT_WAIT_STRATEGY,
+                                                                                                          () -> cpuLight,
+                                                                                                          () -> new RejectingScheduler(virtual),
+                                                                                                          () -> cpuIntensive,
+                                                                                                          4))
+        .build();
+    flow.initialise();
+    flow.start();
+    expectRejected();
+    processFlow(testEvent());
+  }
+
+  @Test
+  @Description("Stopping the flow shuts down the virtual thread executor, which is created again when the flow is restarted.")
+  public void stopShutsDownVirtualExecutor() throws Exception {
+    flow = flowBuilder.get().processors(blockingProcessor)
+        .processingStrategyFactory((context, prefix) -> new VirtualThreadProactorStreamProcessingStrategy(() -> ringBuffer,
+                                                                                                          DEFAULT_BUFFER_SIZE,
+                                                                                                          DEFAULT_SUBSCRIBER_COUNT,
+                                                                                                          DEFAULT_WAIT_STRATEGY,
+                                                                                                          () -> cpuLight,
+                                                                                                          () -> virtual,
+                                                                                                          () -> cpuIntensive,
+                                                                                                          4))
+        .build();
+    flow.initialise();
+    flow.start();
+    processFlow(testEvent());
+    assertThat(virtual.isShutdown(), is(false));
+
+    flow.stop();
+    assertThat(virtual.isShutdown(), is(true));
+
+    flow.dispose();
+    flow = null;
+  }
+
+  @Test
+  @Description("On a JVM without virtual threads the factory falls back to the ProactorProcessingStrategy.")
+  public void factoryStrategyType() {
+    assertThat(new VirtualThreadProactorStreamProcessingStrategyFactory().getProcessingStrategyType(),
+               equalTo(isVirtualThreadsSupported() ? VirtualThreadProactorStreamProcessingStrategy.class
+                   : ProactorStreamProcessingStrategy.class));
+  }
+
+}
@@ -16,6 +16,8 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mule.tck.util.MuleContextUtils.eventBuilder;
 
@@ -259,6 +261,45 @@ public class EventGroupTestCase extends AbstractMuleContextTestCase {
     assertThat(messages.get(2).getPayload().getValue(), is("foo2"));
   }
 
+  @Test
+  public void accumulatedEventsAreNotReadFromStore() throws Exception {
+    PartitionableObjectStore<CoreEvent> spiedObjectStore = spy(objectStore);
+    EventGroup eventGroup = new EventGroup(UUID.getUUID(), muleContext);
+    eventGroup.initEventsStore(spiedObjectStore);
+
+    for (int i = 0; i < 3; i++) {
+      eventGroup.addEvent(eventBuilder(muleContext).message(Message.of("foo" + i)).build());
+    }
+
+    assertThat(eventGroup.size(), is(3));
+    assertThat(eventGroup.toArray().length, is(3));
+    assertNotNull(eventGroup.getMessageCollectionEvent());
+    verify(spiedObjectStore, times(1)).allKeys(anyString());
+  }
+
+  @Test
+  public void accumulatedEventsAreRecoveredFromStore() throws Exception {
+    String groupId = UUID.getUUID();
+    EventGroup eventGroup = new EventGroup(groupId, muleContext);
+    eventGroup.initEventsStore(objectStore);
+
+    for (int i = 0; i < 3; i++) {
+      eventGroup.addEvent(eventBuilder(muleContext).message(Message.of("foo" + i)).build());
+    }
+
+    EventGroup recoveredGroup = new EventGroup(groupId, muleContext);
+    recoveredGroup.initEventsStore(objectStore);
+    assertThat(recoveredGroup.size(), is(3));
+
+    recoveredGroup.addEvent(eventBuilder(muleContext).message(Message.of("foo3")).build());
+
+    List<Message> messages = (List<Message>) recoveredGroup.getMessageCollectionEvent().getMessage().getPayload().getValue();
+    assertThat(messages.size(), is(4));
+    for (int i = 0; i < 4; i++) {
+      assertThat(messages.get(i).getPayload().getValue(), is("foo" + i));
+    }
+  }
+
   @Test
   public void isDisposedEventGroupPartition() throws Exception {
     EventGroup eventGroup = new EventGroup(UUID.getUUID(), muleContext);
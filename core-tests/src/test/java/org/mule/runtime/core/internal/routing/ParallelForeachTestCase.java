@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.internal.routing;
+
+import static java.lang.Runtime.getRuntime;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mule.runtime.api.component.location.ConfigurationComponentLocator.REGISTRY_KEY;
+import static org.mule.runtime.api.message.Message.of;
+import static org.mule.runtime.api.metadata.DataType.MULE_MESSAGE_LIST;
+import static org.mule.tck.MuleTestUtils.APPLE_FLOW;
+import static org.mule.test.allure.AllureConstants.RoutersFeature.ParallelForeachStory.PARALLEL_FOREACH;
+import static org.mule.test.allure.AllureConstants.RoutersFeature.ROUTERS;
+
+import org.mule.runtime.api.component.location.Location;
+import org.mule.runtime.api.message.ErrorType;
+import org.mule.runtime.api.message.Message;
+import org.mule.runtime.api.scheduler.Scheduler;
+import org.mule.runtime.core.api.construct.Flow;
+import org.mule.runtime.core.api.event.CoreEvent;
+import org.mule.runtime.core.api.processor.strategy.ProcessingStrategy;
+import org.mule.runtime.core.internal.routing.forkjoin.CollectListForkJoinStrategyFactory;
+import org.mule.tck.junit4.AbstractMuleContextTestCase;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+import io.qameta.allure.Description;
+import io.qameta.allure.Feature;
+import io.qameta.allure.Story;
+
+@Feature(ROUTERS)
+@Story(PARALLEL_FOREACH)
+public class ParallelForeachTestCase extends AbstractMuleContextTestCase {
+
+  private ParallelForeach router = new ParallelForeach();
+
+  @Override
+  protected Map<String, Object> getStartUpRegistryObjects() {
+    when(componentLocator.find(Location.builder().globalName(APPLE_FLOW).build())).thenReturn(Optional.of(mock(Flow.class)));
+    return singletonMap(REGISTRY_KEY, componentLocator);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    router.dispose();
+  }
+
+  @Test
+  @Description("Results are aggregated in the order of the collection into a message with a List<Message> payload.")
+  public void resultsInCollectionOrder() throws Exception {
+    router.setMessageProcessors(singletonList(event -> CoreEvent.builder(event)
+        .message(of(event.getMessage().getPayload().getValue() + ":foo")).build()));
+    initialiseRouter();
+
+    CoreEvent result = router.process(CoreEvent.builder(testEvent()).message(of(asList("a", "b", "c"))).build());
+
+    List<Message> resultList = (List<Message>) result.getMessage().getPayload().getValue();
+    assertThat(resultList.stream().map(message -> message.getPayload().getValue()).collect(toList()),
+               equalTo(asList("a:foo", "b:foo", "c:foo")));
+  }
+
+  @Test
+  @Description("Elements are read from the collection iterator as they are processed, and never more than maxConcurrency ahead.")
+  public void collectionReadAsProcessed() throws Exception {
+    final int concurrency = 2;
+    final int elements = 10;
+    AtomicInteger read = new AtomicInteger();
+    AtomicInteger processed = new AtomicInteger();
+    AtomicInteger maxAhead = new AtomicInteger();
+
+    router.setMaxConcurrency(concurrency);
+    router.setMessageProcessors(singletonList(event -> {
+      maxAhead.accumulateAndGet(read.get() - processed.incrementAndGet(), Math::max);
+      return event;
+    }));
+    initialiseRouter();
+
+    Iterator<Integer> iterator = new Iterator<Integer>() {
+
+      @Override
+      public boolean hasNext() {
+        return read.get() < elements;
+      }
+
+      @Override
+      public Integer next() {
+        return read.incrementAndGet();
+      }
+    };
+    router.process(CoreEvent.builder(testEvent()).message(of(iterator)).build());
+
+    assertThat(processed.get(), is(elements));
+    assertThat(maxAhead.get(), lessThanOrEqualTo(concurrency));
+  }
+
+  @Test
+  @Description("The router uses a fork-join strategy with concurrency and timeout configured via the router and delayErrors true.")
+  public void forkJoinStrategyConfiguration() throws Exception {
+    final int concurrency = 3;
+    final long timeout = 123;
+    ForkJoinStrategyFactory mockForkJoinStrategyFactory = mock(ForkJoinStrategyFactory.class);
+
+    router.setMaxConcurrency(concurrency);
+    router.setTimeout(timeout);
+    router.setMessageProcessors(singletonList(event -> event));
+    router.setForkJoinStrategyFactory(mockForkJoinStrategyFactory);
+    initialiseRouter();
+
+    verify(mockForkJoinStrategyFactory).createForkJoinStrategy(any(ProcessingStrategy.class), eq(concurrency), eq(true),
+                                                               eq(timeout), any(Scheduler.class), any(ErrorType.class));
+  }
+
+  @Test
+  @Description("By default CollectListForkJoinStrategyFactory is used which aggregates results into a message with a List<Message> payload.")
+  public void defaultForkJoinStrategyFactory() throws Exception {
+    assertThat(router.getDefaultForkJoinStrategyFactory(), instanceOf(CollectListForkJoinStrategyFactory.class));
+    assertThat(router.getDefaultForkJoinStrategyFactory().getResultDataType(), equalTo(MULE_MESSAGE_LIST));
+  }
+
+  @Test
+  @Description("By default as many elements as available processors are processed in parallel.")
+  public void defaultMaxConcurrency() throws Exception {
+    assertThat(router.getDefaultMaxConcurrency(), is(getRuntime().availableProcessors()));
+  }
+
+  private void initialiseRouter() throws Exception {
+    muleContext.getInjector().inject(router);
+    router.setAnnotations(getAppleFlowComponentLocationAnnotations());
+    router.initialise();
+  }
+}
@@ -6,18 +6,29 @@
  */
 package org.mule.runtime.core.internal.routing.correlation;
 
+import static java.util.Optional.of;
+import static org.apache.commons.lang3.SerializationUtils.clone;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyObject;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mule.runtime.api.metadata.DataType.OBJECT;
 import static org.mule.runtime.core.api.config.MuleProperties.OBJECT_STORE_MANAGER;
+import static org.mule.tck.util.MuleContextUtils.eventBuilder;
 import static org.mule.tck.util.MuleContextUtils.mockContextWithServices;
 import static org.mule.tck.util.MuleContextUtils.registerIntoMockContext;
 import static org.slf4j.LoggerFactory.getLogger;
 
+import org.mule.runtime.api.exception.MuleException;
 import org.mule.runtime.api.lifecycle.Disposable;
+import org.mule.runtime.api.message.Message;
 import org.mule.runtime.api.metadata.TypedValue;
 import org.mule.runtime.api.store.ObjectStore;
 import org.mule.runtime.api.store.ObjectStoreException;
@@ -30,6 +41,7 @@ import org.mule.runtime.core.internal.context.MuleContextWithRegistries;
 import org.mule.runtime.core.internal.message.InternalMessage;
 import org.mule.runtime.core.internal.routing.EventGroup;
 import org.mule.runtime.core.internal.store.PartitionedInMemoryObjectStore;
+import org.mule.runtime.core.privileged.event.PrivilegedEvent;
 import org.mule.runtime.core.privileged.registry.RegistrationException;
 import org.mule.tck.junit4.AbstractMuleTestCase;
 import org.mule.tck.probe.PollingProber;
@@ -46,6 +58,8 @@ import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.slf4j.Logger;
 
+import java.io.Serializable;
+
 import io.qameta.allure.Issue;
 
 @SmallTest
@@ -174,6 +188,43 @@ public class EventCorrelatorTestCase extends AbstractMuleTestCase {
     verify(mockEventGroup, times(1)).getMessageCollectionEvent();
   }
 
+  @Test
+  public void groupSharedThroughStoreAggregatesEventsOfEveryCorrelator() throws Exception {
+    PartitionableObjectStore<Serializable> sharedStore = new PartitionedInMemoryObjectStore<Serializable>() {
+
+      @Override
+      protected Serializable doRetrieve(String key, String partitionName) throws ObjectStoreException {
+        // as a persistent or clustered store does, retrieve a copy of the group instead of the stored instance
+        Serializable value = super.doRetrieve(key, partitionName);
+        return value instanceof EventGroup ? clone(value) : value;
+      }
+    };
+    ObjectStore<Long> sharedProcessedGroups = new PartitionedInMemoryObjectStore<>();
+    when(mockFlowConstruct.getName()).thenReturn("flowName");
+    when(mockEventCorrelatorCallback.createEventGroup(any(CoreEvent.class), anyObject()))
+        .thenAnswer(invocation -> new EventGroup(invocation.getArguments()[1], mockMuleContext, of(3), "prefix"));
+    when(mockEventCorrelatorCallback.shouldAggregateEvents(any(EventGroup.class)))
+        .thenAnswer(invocation -> ((EventGroup) invocation.getArguments()[0]).size() == 3);
+    when(mockEventCorrelatorCallback.aggregateEvents(any(EventGroup.class))).thenReturn(mockMuleEvent);
+
+    EventCorrelator firstCorrelator =
+        new EventCorrelator(mockEventCorrelatorCallback, mockTimeoutMessageProcessor, mockMuleContext, mockFlowConstruct,
+                            sharedStore, "prefix", sharedProcessedGroups);
+    EventCorrelator secondCorrelator =
+        new EventCorrelator(mockEventCorrelatorCallback, mockTimeoutMessageProcessor, mockMuleContext, mockFlowConstruct,
+                            sharedStore, "prefix", sharedProcessedGroups);
+
+    assertThat(firstCorrelator.process(createGroupEvent()), is(nullValue()));
+    assertThat(secondCorrelator.process(createGroupEvent()), is(nullValue()));
+    assertThat(firstCorrelator.process(createGroupEvent()), is(sameInstance(mockMuleEvent)));
+    assertThat(sharedProcessedGroups.contains(TEST_GROUP_ID), is(true));
+  }
+
+  private CoreEvent createGroupEvent() throws MuleException {
+    PrivilegedEvent.Builder builder = eventBuilder(mockMuleContext);
+    return builder.message(Message.of(TEST_PAYLOAD)).correlationId(TEST_GROUP_ID).build();
+  }
+
   private EventCorrelator createEventCorrelator() throws Exception {
     registerIntoMockContext(mockMuleContext, OBJECT_STORE_MANAGER, mockObjectStoreManager);
     memoryObjectStore.store(TEST_GROUP_ID, mockEventGroup, "prefix.eventGroups");
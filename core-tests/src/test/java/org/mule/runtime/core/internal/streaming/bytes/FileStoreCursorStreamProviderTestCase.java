@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.internal.streaming.bytes;
+
+import static org.mule.runtime.api.util.DataUnit.BYTE;
+import static org.mule.test.allure.AllureConstants.StreamingFeature.STREAMING;
+
+import org.mule.runtime.api.streaming.bytes.CursorStreamProvider;
+import org.mule.runtime.api.util.DataSize;
+import org.mule.tck.size.SmallTest;
+
+import java.io.ByteArrayInputStream;
+
+import io.qameta.allure.Feature;
+
+@SmallTest
+@Feature(STREAMING)
+public class FileStoreCursorStreamProviderTestCase extends CursorStreamProviderTestCase {
+
+  public FileStoreCursorStreamProviderTestCase(String name, int dataSize, int bufferSize, int maxBufferSize) {
+    super(name, dataSize, bufferSize, maxBufferSize);
+  }
+
+  @Override
+  protected CursorStreamProvider createStreamProvider(int bufferSize, int maxBufferSize, ByteArrayInputStream dataStream) {
+    return new FileStoreCursorStreamProvider(dataStream, new FileStoreCursorStreamConfig(new DataSize(bufferSize, BYTE)),
+                                             bufferManager);
+  }
+}
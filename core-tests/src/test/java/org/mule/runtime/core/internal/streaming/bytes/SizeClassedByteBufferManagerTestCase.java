@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.internal.streaming.bytes;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mule.test.allure.AllureConstants.StreamingFeature.STREAMING;
+
+import org.mule.runtime.core.api.streaming.bytes.ByteBufferManager;
+import org.mule.runtime.core.internal.streaming.MemoryManager;
+import org.mule.runtime.core.internal.streaming.MutableStreamingStatistics;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.nio.ByteBuffer;
+
+import io.qameta.allure.Feature;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+@SmallTest
+@Feature(STREAMING)
+public class SizeClassedByteBufferManagerTestCase extends AbstractMuleTestCase {
+
+  private static final int CAPACITY = 100;
+  private static final int SAME_CLASS_CAPACITY = CAPACITY + 1;
+  private static final int OTHER_CLASS_CAPACITY = 4000;
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private final MutableStreamingStatistics statistics = new MutableStreamingStatistics();
+  private SizeClassedByteBufferManager bufferManager = new SizeClassedByteBufferManager(statistics);
+
+  @After
+  public void after() {
+    bufferManager.dispose();
+  }
+
+  @Test
+  public void exactCapacity() {
+    ByteBuffer buffer = bufferManager.allocate(CAPACITY);
+    assertThat(buffer.capacity(), is(CAPACITY));
+    assertThat(buffer.remaining(), is(CAPACITY));
+    assertThat(buffer.arrayOffset(), is(0));
+  }
+
+  @Test
+  public void poolingWithinSizeClass() {
+    ByteBuffer buffer = bufferManager.allocate(CAPACITY);
+    bufferManager.deallocate(buffer);
+
+    ByteBuffer newBuffer = bufferManager.allocate(SAME_CLASS_CAPACITY);
+    assertThat(newBuffer.array(), is(sameInstance(buffer.array())));
+    assertThat(newBuffer.capacity(), is(SAME_CLASS_CAPACITY));
+  }
+
+  @Test
+  public void grow() {
+    ByteBuffer buffer = bufferManager.allocate(CAPACITY);
+    ByteBuffer newBuffer = bufferManager.allocate(CAPACITY);
+
+    assertThat(newBuffer.array(), not(sameInstance(buffer.array())));
+  }
+
+  @Test
+  public void differentSizeClasses() {
+    ByteBuffer buffer = bufferManager.allocate(CAPACITY);
+    bufferManager.deallocate(buffer);
+
+    ByteBuffer otherBuffer = bufferManager.allocate(OTHER_CLASS_CAPACITY);
+    assertThat(otherBuffer.array(), not(sameInstance(buffer.array())));
+  }
+
+  @Test
+  public void recycledFromOtherThread() throws Exception {
+    ByteBuffer buffer = bufferManager.allocate(CAPACITY);
+    Thread thread = new Thread(() -> bufferManager.deallocate(buffer));
+    thread.start();
+    thread.join();
+
+    ByteBuffer newBuffer = bufferManager.allocate(CAPACITY);
+    assertThat(newBuffer.array(), not(sameInstance(buffer.array())));
+    bufferManager.deallocate(newBuffer);
+  }
+
+  @Test
+  public void directBuffers() {
+    bufferManager.dispose();
+    bufferManager = new SizeClassedByteBufferManager(memoryManager(1024 * 1024), 0, true, statistics);
+    ByteBufferManager directBufferManager = bufferManager.getDirectBufferManager();
+
+    ByteBuffer buffer = directBufferManager.allocate(CAPACITY);
+    assertThat(buffer.isDirect(), is(true));
+    assertThat(buffer.capacity(), is(CAPACITY));
+    assertThat(buffer.remaining(), is(CAPACITY));
+    directBufferManager.deallocate(buffer);
+
+    directBufferManager.deallocate(directBufferManager.allocate(SAME_CLASS_CAPACITY));
+    assertThat(statistics.getBufferAllocationHitsCount(), is(1L));
+    assertThat(statistics.getBufferRecycleHitRate(), is(1.0));
+  }
+
+  @Test
+  public void heapBuffersWhenDirectEnabled() {
+    bufferManager.dispose();
+    bufferManager = new SizeClassedByteBufferManager(memoryManager(1024 * 1024), 0, true, statistics);
+
+    ByteBuffer buffer = bufferManager.allocate(CAPACITY);
+    assertThat(buffer.isDirect(), is(false));
+    assertThat(buffer.hasArray(), is(true));
+  }
+
+  @Test
+  public void directBuffersDisabled() {
+    assertThat(bufferManager.getDirectBufferManager(), is(sameInstance(bufferManager)));
+  }
+
+  @Test
+  public void memoryReleasedOnDeallocate() {
+    bufferManager.dispose();
+    bufferManager = new SizeClassedByteBufferManager(memoryManager(2 * 1024), 0, true, statistics);
+    ByteBufferManager directBufferManager = bufferManager.getDirectBufferManager();
+
+    for (int i = 0; i < 10; i++) {
+      ByteBuffer heapBuffer = bufferManager.allocate(CAPACITY);
+      ByteBuffer directBuffer = directBufferManager.allocate(SAME_CLASS_CAPACITY);
+      bufferManager.deallocate(heapBuffer);
+      directBufferManager.deallocate(directBuffer);
+    }
+  }
+
+  @Test
+  public void directAndHeapShareMaxMemory() {
+    bufferManager.dispose();
+    bufferManager = new SizeClassedByteBufferManager(memoryManager(2 * 1024), 0, true, statistics);
+
+    bufferManager.allocate(CAPACITY);
+    bufferManager.getDirectBufferManager().allocate(CAPACITY);
+
+    expectedException.expect(MaxStreamingMemoryExceededException.class);
+    bufferManager.getDirectBufferManager().allocate(CAPACITY);
+  }
+
+  @Test
+  public void statistics() {
+    ByteBuffer buffer = bufferManager.allocate(CAPACITY);
+    bufferManager.deallocate(buffer);
+    bufferManager.deallocate(bufferManager.allocate(CAPACITY));
+
+    assertThat(statistics.getBufferAllocationsCount(), is(2L));
+    assertThat(statistics.getBufferAllocationHitsCount(), is(1L));
+    assertThat(statistics.getBufferAllocationHitRate(), is(0.5));
+    assertThat(statistics.getBufferRecyclesCount(), is(2L));
+    assertThat(statistics.getBufferRecycleHitRate(), is(1.0));
+  }
+
+  @Test
+  public void maxMemoryExceeded() {
+    bufferManager.dispose();
+    bufferManager = new SizeClassedByteBufferManager(memoryManager(2 * 1024), 10, false, statistics);
+
+    bufferManager.allocate(CAPACITY);
+    bufferManager.allocate(CAPACITY);
+
+    expectedException.expect(MaxStreamingMemoryExceededException.class);
+    bufferManager.allocate(CAPACITY);
+  }
+
+  @Test
+  public void pooledBuffersReclaimedWhenMemoryExhausted() throws Exception {
+    bufferManager.dispose();
+    bufferManager = new SizeClassedByteBufferManager(memoryManager(2 * 1024), 10, false, statistics);
+
+    // Pooled in the magazine of another thread, so this thread can't reuse it
+    ByteBuffer buffer = bufferManager.allocate(CAPACITY);
+    Thread thread = new Thread(() -> bufferManager.deallocate(buffer));
+    thread.start();
+    thread.join();
+
+    bufferManager.allocate(CAPACITY);
+    bufferManager.allocate(CAPACITY);
+  }
+
+  @Test
+  public void pooledBuffersCountTowardsMaxMemory() {
+    bufferManager.dispose();
+    bufferManager = new SizeClassedByteBufferManager(memoryManager(2 * 1024), 10, false, statistics);
+
+    ByteBuffer buffer = bufferManager.allocate(CAPACITY);
+    bufferManager.deallocate(buffer);
+    // Only fits once the pooled buffer is dropped
+    bufferManager.deallocate(bufferManager.allocate(2 * 1024));
+
+    assertThat(bufferManager.allocate(CAPACITY).array(), not(sameInstance(buffer.array())));
+    assertThat(statistics.getBufferAllocationHitsCount(), is(0L));
+  }
+
+  @Test
+  public void pooledBuffersDroppedOnDispose() {
+    ByteBuffer buffer = bufferManager.allocate(CAPACITY);
+    bufferManager.deallocate(buffer);
+    bufferManager.dispose();
+
+    assertThat(bufferManager.allocate(CAPACITY).array(), not(sameInstance(buffer.array())));
+  }
+
+  private MemoryManager memoryManager(long maxMemory) {
+    MemoryManager memoryManager = mock(MemoryManager.class);
+    when(memoryManager.getMaxMemory()).thenReturn(maxMemory * 2);
+    return memoryManager;
+  }
+}
@@ -9,6 +9,7 @@ package org.mule.runtime.core.internal.util.journal;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.junit.Assert.assertThat;
 import org.mule.runtime.core.internal.util.journal.queue.LocalQueueTxJournalEntry;
 import org.mule.runtime.core.internal.util.journal.queue.LocalTxQueueTransactionJournal;
@@ -16,7 +17,9 @@ import org.mule.tck.junit4.AbstractMuleContextTestCase;
 
 import java.io.File;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 import org.apache.commons.lang3.RandomStringUtils;
 import org.junit.Rule;
@@ -51,6 +54,57 @@ public class TransactionJournalFileTestCase extends AbstractMuleContextTestCase
     assertThat(entry.getValue(), equalTo(payload));
   }
 
+  @Test
+  public void groupCommitEntriesDurableWhenReleased() throws Exception {
+    final TransactionJournalFile<Integer, LocalQueueTxJournalEntry> journal = openGroupCommitJournal();
+    List<Thread> threads = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      final int txId = i;
+      threads.add(new Thread(() -> {
+        for (int j = 0; j < 10; j++) {
+          journal.awaitDurable(journal.logOperation(new LocalQueueTxJournalEntry(txId, (byte) 6, "queue", "value" + j)));
+        }
+      }));
+    }
+    threads.forEach(Thread::start);
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertThat(journal.fileLength(), greaterThan(0L));
+
+    // Simulate a crash, without closing the journal
+    final TransactionJournalFile<Integer, LocalQueueTxJournalEntry> restored = openGroupCommitJournal();
+    for (int i = 0; i < 8; i++) {
+      assertThat(restored.getLogEntries(i).size(), equalTo(10));
+    }
+    journal.close();
+    restored.close();
+  }
+
+  @Test
+  public void groupCommitPendingEntriesWrittenOnClose() throws Exception {
+    TransactionJournalFile<Integer, LocalQueueTxJournalEntry> journal = openGroupCommitJournal();
+    journal.logOperation(new LocalQueueTxJournalEntry(1, (byte) 6, "queue", "value"));
+    journal.close();
+
+    journal = openGroupCommitJournal();
+    assertThat(journal.getLogEntries(1).size(), equalTo(1));
+    journal.close();
+  }
+
+  @Test
+  public void groupCommitClearDiscardsPendingEntries() throws Exception {
+    TransactionJournalFile<Integer, LocalQueueTxJournalEntry> journal = openGroupCommitJournal();
+    long sequence = journal.logOperation(new LocalQueueTxJournalEntry(1, (byte) 6, "queue", "value"));
+    journal.clear();
+    journal.awaitDurable(sequence);
+    journal.close();
+
+    journal = openGroupCommitJournal();
+    assertThat(journal.getLogEntries(1).isEmpty(), is(true));
+    journal.close();
+  }
+
   private TransactionJournalFile<Integer, LocalQueueTxJournalEntry> openJournal() {
     File journalFile = new File(temporaryFolder.getRoot(), "journal");
     JournalEntrySerializer serializer = LocalTxQueueTransactionJournal.createLocalTxQueueJournalEntrySerializer(muleContext);
@@ -58,4 +112,11 @@ public class TransactionJournalFileTestCase extends AbstractMuleContextTestCase
     return new TransactionJournalFile(journalFile, serializer, journalEntry -> false, KB_500);
   }
 
+  private TransactionJournalFile<Integer, LocalQueueTxJournalEntry> openGroupCommitJournal() {
+    File journalFile = new File(temporaryFolder.getRoot(), "journal");
+    JournalEntrySerializer serializer = LocalTxQueueTransactionJournal.createLocalTxQueueJournalEntrySerializer(muleContext);
+
+    return new TransactionJournalFile(journalFile, serializer, journalEntry -> false, KB_500, true, 100000);
+  }
+
 }
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.internal.util.monitor;
+
+import static java.lang.System.currentTimeMillis;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import org.mule.runtime.core.privileged.util.monitor.HashedWheelExpiryMonitor;
+import org.mule.runtime.core.privileged.util.monitor.HashedWheelExpiryMonitor.Timeout;
+import org.mule.tck.junit4.AbstractMuleContextTestCase;
+import org.mule.tck.probe.JUnitLambdaProbe;
+import org.mule.tck.probe.PollingProber;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class HashedWheelExpiryMonitorTestCase extends AbstractMuleContextTestCase {
+
+  private static final int EXPIRE_TIME = 300;
+  private static final int TICK_DURATION = 20;
+  // a small wheel, so that deadlines take several rounds
+  private static final int TICKS_PER_WHEEL = 4;
+  private static final int EXPIRE_TIMEOUT = EXPIRE_TIME + TICK_DURATION + 200;
+  private static final long DELTA_TIME = 10;
+
+  private volatile boolean expired = false;
+  private volatile long expiredTime = -1;
+
+  private HashedWheelExpiryMonitor monitor;
+
+  @Before
+  public void before() throws Exception {
+    expired = false;
+    monitor = new HashedWheelExpiryMonitor("test", TICK_DURATION, TICKS_PER_WHEEL, muleContext, false);
+  }
+
+  @After
+  public void after() {
+    monitor.dispose();
+  }
+
+  @Test
+  public void testExpiry() throws InterruptedException {
+    long startTime = currentTimeMillis();
+    Timeout timeout = monitor.addExpirable(EXPIRE_TIME, MILLISECONDS, () -> expire());
+    monitor.run();
+    assertThat(expired, is(false));
+
+    new PollingProber(EXPIRE_TIMEOUT, 50).check(new JUnitLambdaProbe(() -> {
+      assertThat(timeout.isExpired(), is(true));
+      assertThat(expired, is(true));
+      return true;
+    }, ae -> {
+      ae.printStackTrace();
+      return "" + currentTimeMillis() + " - " + monitor.toString();
+    }));
+    assertThat(expiredTime - startTime, greaterThanOrEqualTo(EXPIRE_TIME - DELTA_TIME));
+    assertThat(monitor.getMonitoredCount(), is(0L));
+  }
+
+  @Test
+  public void testExpiryOfReachedDeadline() throws InterruptedException {
+    monitor.addExpirable(0, MILLISECONDS, () -> expire());
+
+    new PollingProber(TICK_DURATION + 200, 10).check(new JUnitLambdaProbe(() -> {
+      assertThat(expired, is(true));
+      return true;
+    }));
+  }
+
+  @Test
+  public void testNotExpiryWithCancel() throws InterruptedException {
+    Timeout timeout = monitor.addExpirable(EXPIRE_TIME, MILLISECONDS, () -> expire());
+    monitor.run();
+    assertThat(timeout.cancel(), is(true));
+    assertThat(monitor.getMonitoredCount(), is(0L));
+
+    Thread.sleep(EXPIRE_TIMEOUT);
+    assertThat(timeout.isCancelled(), is(true));
+    assertThat(expired, is(false));
+  }
+
+  @Test
+  public void testExpiryOfEachRegistration() throws InterruptedException {
+    AtomicInteger expirations = new AtomicInteger();
+    for (int i = 0; i < 10; i++) {
+      monitor.addExpirable(i * TICK_DURATION, MILLISECONDS, () -> expirations.incrementAndGet());
+    }
+    Timeout cancelled = monitor.addExpirable(EXPIRE_TIME, MILLISECONDS, () -> expirations.incrementAndGet());
+    cancelled.cancel();
+
+    new PollingProber(EXPIRE_TIMEOUT, 50).check(new JUnitLambdaProbe(() -> {
+      assertThat(expirations.get(), is(10));
+      assertThat(monitor.getMonitoredCount(), is(0L));
+      return true;
+    }));
+  }
+
+  private void expire() {
+    expiredTime = currentTimeMillis();
+    expired = true;
+  }
+
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.internal.util.queue;
+
+import static java.util.Arrays.fill;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mule.runtime.core.internal.util.queue.RingBufferQueueStoreDelegate.MAX_RING_SIZE;
+
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+@SmallTest
+public class RingBufferQueueStoreDelegateTestCase extends AbstractMuleTestCase {
+
+  private static final int PRODUCERS = 4;
+  private static final int CONSUMERS = 4;
+  private static final int ITEMS_PER_PRODUCER = 10000;
+
+  @Test
+  public void elementsBeyondTheRingKeepTheirOrder() throws Exception {
+    RingBufferQueueStoreDelegate queueStore = new RingBufferQueueStoreDelegate(0);
+    int items = MAX_RING_SIZE * 2;
+    for (int i = 0; i < items; i++) {
+      queueStore.putNow(i);
+    }
+    assertThat(queueStore.getSize(), is(items));
+
+    queueStore.poll(0);
+    queueStore.putNow(items);
+    for (int i = 1; i <= items; i++) {
+      assertThat(queueStore.poll(0), is(i));
+    }
+    assertThat(queueStore.poll(0), is(nullValue()));
+    assertThat(queueStore.getSize(), is(0));
+  }
+
+  @Test
+  public void untakenElementsAreReadFirst() throws Exception {
+    RingBufferQueueStoreDelegate queueStore = new RingBufferQueueStoreDelegate(0);
+    queueStore.putNow("a");
+    queueStore.putNow("b");
+    queueStore.untake(queueStore.poll(0));
+    queueStore.untake("c");
+
+    assertThat(queueStore.peek(), is("c"));
+    assertThat(queueStore.poll(0), is("c"));
+    assertThat(queueStore.poll(0), is("a"));
+    assertThat(queueStore.poll(0), is("b"));
+  }
+
+  @Test
+  public void blockedOfferCompletesWhenElementIsTaken() throws Exception {
+    RingBufferQueueStoreDelegate queueStore = new RingBufferQueueStoreDelegate(1);
+    queueStore.putNow("a");
+
+    ExecutorService executor = newFixedThreadPool(1);
+    try {
+      Future<Boolean> offer = executor.submit(() -> queueStore.offer("b", 0, -1));
+      assertThat(queueStore.poll(0), is("a"));
+      assertThat(offer.get(5, SECONDS), is(true));
+      assertThat(queueStore.poll(0), is("b"));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void concurrentProducersAndConsumersTakeEveryElementOnce() throws Exception {
+    RingBufferQueueStoreDelegate queueStore = new RingBufferQueueStoreDelegate(16);
+    ExecutorService executor = newFixedThreadPool(PRODUCERS + CONSUMERS);
+    Set<Serializable> taken = ConcurrentHashMap.newKeySet();
+    AtomicInteger remaining = new AtomicInteger(PRODUCERS * ITEMS_PER_PRODUCER);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> tasks = new ArrayList<>();
+    try {
+      for (int p = 0; p < PRODUCERS; p++) {
+        int producer = p;
+        tasks.add(executor.submit(() -> {
+          start.await();
+          for (int i = 0; i < ITEMS_PER_PRODUCER; i++) {
+            queueStore.offer(producer * ITEMS_PER_PRODUCER + i, 0, -1);
+          }
+          return null;
+        }));
+      }
+      for (int c = 0; c < CONSUMERS; c++) {
+        tasks.add(executor.submit(() -> {
+          start.await();
+          while (remaining.get() > 0) {
+            Serializable item = queueStore.poll(10);
+            if (item != null) {
+              taken.add(item);
+              remaining.decrementAndGet();
+            }
+          }
+          return null;
+        }));
+      }
+      start.countDown();
+      for (Future<?> task : tasks) {
+        task.get(30, SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertThat(taken.size(), is(PRODUCERS * ITEMS_PER_PRODUCER));
+    assertThat(queueStore.getSize(), is(0));
+  }
+
+  @Test
+  public void concurrentProducersKeepTheirOrderAcrossRingAndOverflow() throws Exception {
+    // A small ring makes producers spill into the overflow while the consumer drains the ring
+    RingBufferQueueStoreDelegate queueStore = new RingBufferQueueStoreDelegate(4);
+    ExecutorService executor = newFixedThreadPool(PRODUCERS);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> producers = new ArrayList<>();
+    int[] lastTaken = new int[PRODUCERS];
+    fill(lastTaken, -1);
+    try {
+      for (int p = 0; p < PRODUCERS; p++) {
+        int producer = p;
+        producers.add(executor.submit(() -> {
+          start.await();
+          for (int i = 0; i < ITEMS_PER_PRODUCER; i++) {
+            queueStore.putNow(producer * ITEMS_PER_PRODUCER + i);
+          }
+          return null;
+        }));
+      }
+      start.countDown();
+
+      for (int taken = 0; taken < PRODUCERS * ITEMS_PER_PRODUCER; taken++) {
+        int item = (Integer) queueStore.poll(5000);
+        int producer = item / ITEMS_PER_PRODUCER;
+        assertThat(item % ITEMS_PER_PRODUCER, is(lastTaken[producer] + 1));
+        lastTaken[producer] = item % ITEMS_PER_PRODUCER;
+      }
+      for (Future<?> producer : producers) {
+        producer.get(30, SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertThat(queueStore.poll(0), is(nullValue()));
+    assertThat(queueStore.getSize(), is(0));
+  }
+}
@@ -0,0 +1,28 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.internal.util.queue;
+
+import static org.mule.runtime.core.internal.util.queue.DefaultQueueStore.RING_BUFFER_TRANSIENT_QUEUE_STORE_PROPERTY_KEY;
+
+import org.mule.runtime.core.api.MuleContext;
+import org.mule.runtime.core.api.util.queue.DefaultQueueConfiguration;
+import org.mule.tck.core.util.queue.QueueStoreTestCase;
+import org.mule.tck.junit4.rule.SystemProperty;
+
+import org.junit.Rule;
+
+public class RingBufferQueueStoreTestCase extends QueueStoreTestCase {
+
+  @Rule
+  public SystemProperty ringBufferStore = new SystemProperty(RING_BUFFER_TRANSIENT_QUEUE_STORE_PROPERTY_KEY, "true");
+
+  @Override
+  protected QueueStore createQueueInfoDelegate(int capacity, MuleContext mockMuleContext) {
+    return new DefaultQueueStore("testQueue", mockMuleContext, new DefaultQueueConfiguration(capacity, false));
+  }
+
+}
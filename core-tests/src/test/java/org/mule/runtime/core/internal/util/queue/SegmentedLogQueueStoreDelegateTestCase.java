@@ -0,0 +1,277 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.internal.util.queue;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mule.runtime.core.internal.util.queue.DefaultQueueStore.SEGMENTED_LOG_PERSISTENT_QUEUE_STORE_PROPERTY_KEY;
+import static org.mule.runtime.core.internal.util.queue.SegmentedLogQueueStoreDelegate.SEGMENT_SIZE_PROPERTY_KEY;
+import static org.mule.tck.MuleTestUtils.testWithSystemProperty;
+import static org.mule.tck.SerializationTestUtils.addJavaSerializerToMockMuleContext;
+
+import org.mule.runtime.core.api.MuleContext;
+import org.mule.runtime.core.api.config.MuleConfiguration;
+import org.mule.runtime.core.api.util.queue.DefaultQueueConfiguration;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+@SmallTest
+public class SegmentedLogQueueStoreDelegateTestCase extends AbstractMuleTestCase {
+
+  private static final String TEST_QUEUE_NAME = "test-queue";
+
+  @Rule
+  public TemporaryFolder workingDirectory = new TemporaryFolder();
+
+  private MuleContext mockMuleContext;
+
+  @Before
+  public void before() {
+    mockMuleContext = mock(MuleContext.class);
+    when(mockMuleContext.getExecutionClassLoader()).thenReturn(getClass().getClassLoader());
+    addJavaSerializerToMockMuleContext(mockMuleContext);
+  }
+
+  @Test
+  public void elementsRecoveredInOrder() throws Exception {
+    SegmentedLogQueueStoreDelegate queueStore = createTestQueueStore();
+    queueStore.putNow("a");
+    queueStore.putNow("b");
+    queueStore.putNow("c");
+    assertThat(queueStore.poll(0), is("a"));
+    queueStore.close();
+
+    queueStore = createTestQueueStore();
+    assertThat(queueStore.getSize(), is(2));
+    assertThat(queueStore.poll(0), is("b"));
+    assertThat(queueStore.poll(0), is("c"));
+    assertThat(queueStore.poll(0), is(nullValue()));
+    queueStore.close();
+  }
+
+  @Test
+  public void untakenElementRecoveredFirst() throws Exception {
+    SegmentedLogQueueStoreDelegate queueStore = createTestQueueStore();
+    queueStore.putNow("a");
+    queueStore.putNow("b");
+    queueStore.untake(queueStore.poll(0));
+    queueStore.untake("c");
+    queueStore.close();
+
+    queueStore = createTestQueueStore();
+    assertThat(queueStore.poll(0), is("c"));
+    assertThat(queueStore.poll(0), is("a"));
+    assertThat(queueStore.poll(0), is("b"));
+    queueStore.close();
+  }
+
+  @Test
+  public void segmentsWithoutElementsDeleted() throws Exception {
+    testWithSystemProperty(SEGMENT_SIZE_PROPERTY_KEY, "256", () -> {
+      SegmentedLogQueueStoreDelegate queueStore = createTestQueueStore();
+      for (int i = 0; i < 100; ++i) {
+        queueStore.putNow("value " + i);
+      }
+      assertThat(countSegments(queueStore), is(greaterThan(10)));
+
+      for (int i = 0; i < 99; ++i) {
+        assertThat(queueStore.poll(0), is("value " + i));
+      }
+      queueStore.putNow("last value");
+      queueStore.putNow("last value");
+      assertThat(countSegments(queueStore), is(lessThan(4)));
+      queueStore.close();
+
+      queueStore = createTestQueueStore();
+      assertThat(queueStore.getSize(), is(3));
+      assertThat(queueStore.poll(0), is("value 99"));
+      queueStore.close();
+    });
+  }
+
+  @Test
+  public void consumedSegmentsReleasedWithoutRolling() throws Exception {
+    testWithSystemProperty(SEGMENT_SIZE_PROPERTY_KEY, "256", () -> {
+      SegmentedLogQueueStoreDelegate queueStore = createTestQueueStore();
+      for (int i = 0; i < 20; ++i) {
+        queueStore.putNow("value " + i);
+      }
+      assertThat(countSegments(queueStore), is(greaterThan(2)));
+
+      for (int i = 0; i < 20; ++i) {
+        assertThat(queueStore.poll(0), is("value " + i));
+      }
+      assertThat(countSegments(queueStore), is(1));
+      queueStore.close();
+
+      queueStore = createTestQueueStore();
+      assertThat(queueStore.getSize(), is(0));
+      queueStore.close();
+    });
+  }
+
+  @Test
+  public void corruptedCheckpointReplaysLog() throws Exception {
+    SegmentedLogQueueStoreDelegate queueStore = createTestQueueStore();
+    queueStore.putNow("a");
+    queueStore.putNow("b");
+    queueStore.poll(0);
+    queueStore.close();
+
+    try (RandomAccessFile checkpoint = new RandomAccessFile(new File(queueStore.getLogDirectory(), "checkpoint"), "rw")) {
+      checkpoint.seek(0);
+      checkpoint.writeLong(-1);
+    }
+
+    queueStore = createTestQueueStore();
+    assertThat(queueStore.getSize(), is(1));
+    assertThat(queueStore.poll(0), is("b"));
+    queueStore.close();
+  }
+
+  @Test
+  public void partiallyWrittenRecordDiscarded() throws Exception {
+    SegmentedLogQueueStoreDelegate queueStore = createTestQueueStore();
+    queueStore.putNow("a");
+    queueStore.putNow("b");
+    queueStore.close();
+
+    File[] segmentFiles = queueStore.getLogDirectory().listFiles((dir, name) -> name.endsWith(".seg"));
+    try (RandomAccessFile segment =
+        new RandomAccessFile(new File(queueStore.getLogDirectory(), String.format("%010d.seg", segmentFiles.length)), "rw")) {
+      ByteBuffer record = ByteBuffer.allocate(20);
+      record.putInt(3);
+      record.put((byte) 1);
+      record.putLong(0);
+      record.putInt(12345);
+      record.put(new byte[] {1, 2, 3});
+      segment.write(record.array());
+    }
+
+    queueStore = createTestQueueStore();
+    assertThat(queueStore.getSize(), is(2));
+    assertThat(queueStore.poll(0), is("a"));
+    assertThat(queueStore.poll(0), is("b"));
+    queueStore.close();
+  }
+
+  @Test
+  public void removeAndContains() throws Exception {
+    SegmentedLogQueueStoreDelegate queueStore = createTestQueueStore();
+    queueStore.putNow("a");
+    queueStore.putNow("b");
+    queueStore.putNow("c");
+    assertThat(queueStore.contains("b"), is(true));
+
+    queueStore.remove("b");
+    assertThat(queueStore.contains("b"), is(false));
+    queueStore.close();
+
+    queueStore = createTestQueueStore();
+    assertThat(queueStore.contains("b"), is(false));
+    assertThat(queueStore.poll(0), is("a"));
+    assertThat(queueStore.poll(0), is("c"));
+    queueStore.close();
+  }
+
+  @Test
+  public void offerTimesOutWhenFull() throws Exception {
+    SegmentedLogQueueStoreDelegate queueStore =
+        new SegmentedLogQueueStoreDelegate(TEST_QUEUE_NAME, workingDirectory.getRoot().getAbsolutePath(), mockMuleContext, 1);
+    assertThat(queueStore.offer("a", 0, 10), is(true));
+    assertThat(queueStore.offer("b", 0, 10), is(false));
+    queueStore.dispose();
+  }
+
+  @Test
+  public void allFilesDeletedAfterDispose() throws Exception {
+    SegmentedLogQueueStoreDelegate queueStore = createTestQueueStore();
+    queueStore.putNow("item");
+    assertThat(queueStore.getLogDirectory().exists(), is(true));
+
+    queueStore.dispose();
+    assertThat(queueStore.getLogDirectory().exists(), is(false));
+  }
+
+  @Test
+  public void nameWithInvalidCharacters() {
+    String[] testNames = new String[] {"test-test", "test:/test", "test?test", "test:\\test", "test&test", "test|test",
+        "seda.queue(post:\\Customer:ApiTest-config.1)"};
+
+    for (String testName : testNames) {
+      new SegmentedLogQueueStoreDelegate(testName, workingDirectory.getRoot().getAbsolutePath(), mockMuleContext, 0).dispose();
+    }
+  }
+
+  @Test
+  public void queueFilesMigratedWhenLogEnabled() throws Exception {
+    DualRandomAccessFileQueueStoreDelegate filesQueueStore =
+        new DualRandomAccessFileQueueStoreDelegate(TEST_QUEUE_NAME, workingDirectory.getRoot().getAbsolutePath(),
+                                                   mockMuleContext, 0);
+    filesQueueStore.putNow("a");
+    filesQueueStore.putNow("b");
+    filesQueueStore.close();
+
+    testWithSystemProperty(SEGMENTED_LOG_PERSISTENT_QUEUE_STORE_PROPERTY_KEY, "true", () -> {
+      DefaultQueueStore queueStore = createTestDefaultQueueStore();
+
+      assertThat(DualRandomAccessFileQueueStoreDelegate.queueFilesExist(TEST_QUEUE_NAME,
+                                                                         workingDirectory.getRoot().getAbsolutePath()),
+                 is(false));
+      assertThat(queueStore.poll(0), is("a"));
+      assertThat(queueStore.poll(0), is("b"));
+      queueStore.dispose();
+    });
+  }
+
+  @Test
+  public void logMigratedWhenLogDisabled() throws Exception {
+    SegmentedLogQueueStoreDelegate logQueueStore = createTestQueueStore();
+    logQueueStore.putNow("a");
+    logQueueStore.putNow("b");
+    logQueueStore.close();
+
+    DefaultQueueStore queueStore = createTestDefaultQueueStore();
+
+    assertThat(SegmentedLogQueueStoreDelegate.logExists(TEST_QUEUE_NAME, workingDirectory.getRoot().getAbsolutePath()),
+               is(false));
+    assertThat(queueStore.poll(0), is("a"));
+    assertThat(queueStore.poll(0), is("b"));
+    queueStore.dispose();
+  }
+
+  private DefaultQueueStore createTestDefaultQueueStore() {
+    MuleConfiguration configuration = mock(MuleConfiguration.class);
+    when(configuration.getWorkingDirectory()).thenReturn(workingDirectory.getRoot().getAbsolutePath());
+    when(mockMuleContext.getConfiguration()).thenReturn(configuration);
+    return new DefaultQueueStore(TEST_QUEUE_NAME, mockMuleContext, new DefaultQueueConfiguration(0, true));
+  }
+
+  private int countSegments(SegmentedLogQueueStoreDelegate queueStore) {
+    return queueStore.getLogDirectory().listFiles((dir, name) -> name.endsWith(".seg")).length;
+  }
+
+  private SegmentedLogQueueStoreDelegate createTestQueueStore() {
+    return new SegmentedLogQueueStoreDelegate(TEST_QUEUE_NAME, workingDirectory.getRoot().getAbsolutePath(), mockMuleContext, 0);
+  }
+
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.internal.util.store;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+import static org.mule.runtime.core.internal.util.store.MuleObjectStoreManager.UNBOUNDED;
+import static org.mule.tck.SerializationTestUtils.addJavaSerializerToMockMuleContext;
+import static org.mule.tck.util.MuleContextUtils.mockMuleContext;
+
+import org.mule.runtime.api.store.ObjectStoreException;
+import org.mule.runtime.core.api.MuleContext;
+import org.mule.runtime.core.api.config.MuleConfiguration;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@SmallTest
+@RunWith(MockitoJUnitRunner.class)
+public class LogStructuredObjectStorePartitionTestCase extends AbstractMuleTestCase {
+
+  @Rule
+  public TemporaryFolder objectStoreFolder = new TemporaryFolder();
+
+  private MuleContext muleContext = mockMuleContext();
+
+  @Mock
+  private MuleConfiguration muleConfiguration;
+
+  private LogStructuredObjectStorePartition<String> partition;
+
+  @Before
+  public void setUp() throws Exception {
+    when(muleContext.getExecutionClassLoader()).thenReturn(getClass().getClassLoader());
+    when(muleContext.getConfiguration()).thenReturn(muleConfiguration);
+    when(muleConfiguration.getWorkingDirectory()).thenReturn(objectStoreFolder.getRoot().getParentFile().getPath());
+    addJavaSerializerToMockMuleContext(muleContext);
+    partition = new LogStructuredObjectStorePartition<>(muleContext, "test", objectStoreFolder.getRoot());
+    partition.open();
+  }
+
+  @Test
+  public void storeRetrieveAndRemove() throws ObjectStoreException {
+    partition.store("key", "value");
+    assertTrue(partition.contains("key"));
+    assertEquals("value", partition.retrieve("key"));
+
+    assertEquals("value", partition.remove("key"));
+    assertFalse(partition.contains("key"));
+  }
+
+  @Test
+  public void entriesRestoredFromIndexAndLog() throws Exception {
+    partition.store("key1", "value1");
+    partition.store("key2", "value2");
+    partition.close();
+    partition.open();
+
+    partition.remove("key1");
+    partition.store("key3", "value3");
+
+    // Simulate a crash, so the last records are only in the data file
+    LogStructuredObjectStorePartition<String> restored = reopen();
+    assertThat(restored.allKeys(), contains("key2", "key3"));
+    assertEquals("value3", restored.retrieve("key3"));
+    assertEquals("test", restored.getPartitionName());
+  }
+
+  @Test
+  public void incompleteRecordDiscarded() throws Exception {
+    partition.store("key1", "value1");
+    partition.close();
+
+    try (RandomAccessFile dataFile = new RandomAccessFile(new File(objectStoreFolder.getRoot(), "data-0.log"), "rw")) {
+      dataFile.seek(dataFile.length());
+      dataFile.writeInt(1000);
+      dataFile.writeInt(1234);
+    }
+
+    LogStructuredObjectStorePartition<String> restored = reopen();
+    assertThat(restored.allKeys(), contains("key1"));
+    restored.store("key2", "value2");
+    assertThat(reopen().allKeys(), contains("key1", "key2"));
+  }
+
+  @Test
+  public void expireByMaxEntries() throws ObjectStoreException {
+    for (int i = 0; i < 5; i++) {
+      partition.store("key" + i, "value" + i);
+    }
+
+    partition.expire(UNBOUNDED, 2);
+    assertThat(partition.allKeys(), contains("key3", "key4"));
+  }
+
+  @Test
+  public void expireByTtl() throws Exception {
+    partition.store("key1", "value1");
+    Thread.sleep(50);
+    partition.store("key2", "value2");
+
+    partition.expire(30, UNBOUNDED);
+    assertThat(partition.allKeys(), contains("key2"));
+  }
+
+  @Test
+  public void compactedOnExpire() throws Exception {
+    final String value = new String(new char[10 * 1024]);
+    for (int i = 0; i < 200; i++) {
+      partition.store("key" + i, value);
+    }
+    final File dataFile = new File(objectStoreFolder.getRoot(), "data-0.log");
+    final long lengthBeforeCompaction = dataFile.length();
+
+    partition.expire(UNBOUNDED, 10);
+
+    assertFalse(dataFile.exists());
+    assertThat(new File(objectStoreFolder.getRoot(), "data-1.log").length(), lessThan(lengthBeforeCompaction / 10));
+    assertThat(partition.allKeys().size(), lessThan(11));
+    assertEquals(value, partition.retrieve("key199"));
+
+    partition.store("key200", "value200");
+    assertThat(reopen().allKeys().containsAll(asList("key190", "key199", "key200")), is(true));
+  }
+
+  @Test
+  public void clear() throws Exception {
+    partition.store("key", "value");
+    partition.clear();
+    assertFalse(partition.contains("key"));
+    assertEquals(0, reopen().allKeys().size());
+  }
+
+  @Test
+  public void detectsLogStructuredPartition() throws Exception {
+    assertTrue(LogStructuredObjectStorePartition.isLogStructuredPartition(objectStoreFolder.getRoot()));
+    assertFalse(LogStructuredObjectStorePartition.isLogStructuredPartition(objectStoreFolder.newFolder()));
+  }
+
+  private LogStructuredObjectStorePartition<String> reopen() throws ObjectStoreException {
+    LogStructuredObjectStorePartition<String> restored =
+        new LogStructuredObjectStorePartition<>(muleContext, objectStoreFolder.getRoot());
+    restored.open();
+    return restored;
+  }
+}
@@ -11,6 +11,8 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
+import static org.mule.runtime.core.api.config.MuleProperties.MULE_OBJECT_STORE_LOG_STRUCTURED_PARTITIONS;
+import static org.mule.tck.MuleTestUtils.testWithSystemProperty;
 import static org.mule.tck.SerializationTestUtils.addJavaSerializerToMockMuleContext;
 import org.mule.runtime.core.api.MuleContext;
 import org.mule.runtime.api.store.ObjectAlreadyExistsException;
@@ -88,6 +90,24 @@ public class PartitionedPersistentObjectStoreTestCase extends AbstractMuleTestCa
     assertAllValuesExistsInPartitionAreUnique(OBJECT_KEY, OBJECT_BASE_VALUE);
   }
 
+  @Test
+  public void disposeClosesPartitions() throws Exception {
+    testWithSystemProperty(MULE_OBJECT_STORE_LOG_STRUCTURED_PARTITIONS, "true", () -> {
+      openPartitions();
+      storeInPartitions(OBJECT_KEY, OBJECT_BASE_VALUE);
+      os.dispose();
+
+      File[] indexFiles = new File(PartitionedPersistentObjectStore.OBJECT_STORE_DIR)
+          .listFiles((dir, name) -> new File(dir, name).isDirectory() && new File(dir, name + File.separator + "index").exists());
+      assertThat(indexFiles.length, is(numberOfPartitions + 1));
+
+      os = new PartitionedPersistentObjectStore<>(mockMuleContext);
+      openPartitions();
+      assertAllValuesExistsInPartitionAreUnique(OBJECT_KEY, OBJECT_BASE_VALUE);
+      os.dispose();
+    });
+  }
+
   @Test
   public void clear() throws ObjectStoreException {
     this.openPartitions();
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.internal.util.store;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.junit.Assert.assertThat;
+import static org.mule.runtime.core.internal.util.store.MuleObjectStoreManager.UNBOUNDED;
+
+import org.mule.runtime.api.store.ObjectAlreadyExistsException;
+import org.mule.runtime.api.store.ObjectStoreException;
+import org.mule.runtime.core.internal.store.ShardedInMemoryObjectStore;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import org.junit.Before;
+import org.junit.Test;
+
+@SmallTest
+public class ShardedInMemoryObjectStoreTestCase extends AbstractMuleTestCase {
+
+  private static final String TEST_PARTITION = "testPartition";
+  private static final String TEST_VALUE = "testValue";
+  private static final String TEST_KEY1 = "testKey1";
+  private static final String TEST_KEY2 = "testKey2";
+  private static final String TEST_KEY3 = "testKey3";
+
+  private ShardedInMemoryObjectStore<String> store;
+
+  private long currentNanoTime = MILLISECONDS.toNanos(1);
+
+  @Before
+  public void setup() {
+    store = new ShardedInMemoryObjectStore() {
+
+      @Override
+      protected long getCurrentNanoTime() {
+        return currentNanoTime;
+      }
+    };
+  }
+
+  @Test
+  public void expireByTtlMultipleKeysInsertedInTheSameNanoSecond() throws ObjectStoreException {
+    store.store(TEST_KEY1, TEST_VALUE, TEST_PARTITION);
+    store.store(TEST_KEY2, TEST_VALUE, TEST_PARTITION);
+
+    currentNanoTime = MILLISECONDS.toNanos(2);
+
+    store.store(TEST_KEY3, TEST_VALUE, TEST_PARTITION);
+    store.expire(1, 100, TEST_PARTITION);
+
+    assertThat(store.contains(TEST_KEY1, TEST_PARTITION), is(false));
+    assertThat(store.contains(TEST_KEY2, TEST_PARTITION), is(false));
+    assertThat(store.retrieve(TEST_KEY3, TEST_PARTITION), equalTo(TEST_VALUE));
+    assertThat(store.getExpiredEntriesCount(), is(2L));
+    assertThat(store.getEvictedEntriesCount(), is(0L));
+  }
+
+  @Test
+  public void expireByNumberOfEntriesMultipleKeysInsertedInTheSameNanoSecond() throws ObjectStoreException {
+    store.store(TEST_KEY1, TEST_VALUE, TEST_PARTITION);
+    store.store(TEST_KEY2, TEST_VALUE, TEST_PARTITION);
+
+    currentNanoTime = MILLISECONDS.toNanos(2);
+
+    store.store(TEST_KEY3, TEST_VALUE, TEST_PARTITION);
+    store.expire(10, 1, TEST_PARTITION);
+
+    assertThat(store.contains(TEST_KEY1, TEST_PARTITION), is(false));
+    assertThat(store.contains(TEST_KEY2, TEST_PARTITION), is(false));
+    assertThat(store.retrieve(TEST_KEY3, TEST_PARTITION), equalTo(TEST_VALUE));
+    assertThat(store.getEvictedEntriesCount(), is(2L));
+  }
+
+  @Test
+  public void expireOldestEntriesAcrossShards() throws ObjectStoreException {
+    for (int i = 0; i < 1000; i++) {
+      currentNanoTime = MILLISECONDS.toNanos(i);
+      store.store("key" + i, TEST_VALUE, TEST_PARTITION);
+    }
+
+    store.expire(UNBOUNDED, 600, TEST_PARTITION);
+    assertThat(store.allKeys(TEST_PARTITION).size(), is(600));
+    assertThat(store.contains("key399", TEST_PARTITION), is(false));
+    assertThat(store.contains("key400", TEST_PARTITION), is(true));
+
+    store.expire(100, UNBOUNDED, TEST_PARTITION);
+    assertThat(store.allKeys(TEST_PARTITION).size(), is(100));
+    assertThat(store.contains("key899", TEST_PARTITION), is(false));
+    assertThat(store.contains("key900", TEST_PARTITION), is(true));
+
+    assertThat(store.getEvictedEntriesCount(), is(400L));
+    assertThat(store.getExpiredEntriesCount(), is(500L));
+  }
+
+  @Test
+  public void removeKeyInsertedInTheSameNanosecondThanOther() throws ObjectStoreException {
+    store.store(TEST_KEY1, TEST_VALUE, TEST_PARTITION);
+    store.store(TEST_KEY2, TEST_VALUE, TEST_PARTITION);
+
+    currentNanoTime = MILLISECONDS.toNanos(2);
+
+    store.store(TEST_KEY3, TEST_VALUE, TEST_PARTITION);
+
+    store.remove(TEST_KEY2, TEST_PARTITION);
+    store.expire(UNBOUNDED, 1, TEST_PARTITION);
+
+    assertThat(store.contains(TEST_KEY1, TEST_PARTITION), is(false));
+    assertThat(store.contains(TEST_KEY2, TEST_PARTITION), is(false));
+    assertThat(store.retrieve(TEST_KEY3, TEST_PARTITION), equalTo(TEST_VALUE));
+    assertThat(store.getEvictedEntriesCount(), is(1L));
+  }
+
+  @Test(expected = ObjectAlreadyExistsException.class)
+  public void storeExistingKey() throws ObjectStoreException {
+    store.store(TEST_KEY1, TEST_VALUE, TEST_PARTITION);
+    store.store(TEST_KEY1, TEST_VALUE, TEST_PARTITION);
+  }
+
+  @Test
+  public void clearPartition() throws ObjectStoreException {
+    store.store(TEST_KEY1, TEST_VALUE, TEST_PARTITION);
+    store.store(TEST_KEY2, TEST_VALUE);
+
+    store.clear(TEST_PARTITION);
+    store.store(TEST_KEY3, TEST_VALUE, TEST_PARTITION);
+    store.expire(UNBOUNDED, 1, TEST_PARTITION);
+
+    assertThat(store.allKeys(TEST_PARTITION), containsInAnyOrder(TEST_KEY3));
+    assertThat(store.contains(TEST_KEY2), is(true));
+    assertThat(store.getEvictedEntriesCount(), is(0L));
+  }
+}
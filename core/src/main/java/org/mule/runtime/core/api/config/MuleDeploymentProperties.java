@@ -17,4 +17,14 @@ public class MuleDeploymentProperties {
   public static final String MULE_LAZY_INIT_ENABLE_XML_VALIDATIONS_DEPLOYMENT_PROPERTY =
       MULE_LAZY_INIT_DEPLOYMENT_PROPERTY + ".enableXmlValidations";
 
+  /**
+   * When {@code true}, only the flows with a message source, along with their dependencies, are created when the application is
+   * deployed. Any other flow, and the configuration elements only they depend on, are created and started in the background once
+   * the application is started. If any of them can't be activated, the deployment of the application fails and it is
+   * stopped.
+   *
+   * @since 4.1
+   */
+  public static final String MULE_LAZY_ACTIVATION_DEPLOYMENT_PROPERTY = DEPLOYMENT_PROPERTY_PREFIX + ".lazyActivation";
+
 }
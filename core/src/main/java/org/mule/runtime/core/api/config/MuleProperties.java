@@ -195,11 +195,22 @@ public class MuleProperties {
   public static final String MULE_SECURITY_PROVIDER_PROPERTY = SYSTEM_PROPERTY_PREFIX + "security.provider";
   public static final String MULE_STREAMING_BUFFER_SIZE = SYSTEM_PROPERTY_PREFIX + "streaming.bufferSize";
   public static final String MULE_STREAMING_MAX_MEMORY = SYSTEM_PROPERTY_PREFIX + "max.streaming.memory";
+  public static final String MULE_STREAMING_SIZE_CLASSED_BUFFERS = SYSTEM_PROPERTY_PREFIX + "streaming.sizeClassedBuffers";
+  public static final String MULE_STREAMING_DIRECT_BUFFERS = SYSTEM_PROPERTY_PREFIX + "streaming.directBuffers";
+  public static final String MULE_OBJECT_STORE_LOG_STRUCTURED_PARTITIONS =
+      SYSTEM_PROPERTY_PREFIX + "objectStore.logStructuredPartitions";
+  public static final String MULE_OBJECT_STORE_SHARDED_IN_MEMORY = SYSTEM_PROPERTY_PREFIX + "objectStore.shardedInMemory";
+  public static final String MULE_CONNECTION_POOL_CONCURRENT_BAG = SYSTEM_PROPERTY_PREFIX + "connection.pool.concurrentBag";
+  public static final String MULE_DYNAMIC_CONFIG_MAX_CACHED_INSTANCES =
+      SYSTEM_PROPERTY_PREFIX + "dynamicConfig.maxCachedInstances";
+  public static final String MULE_LIFECYCLE_PARALLEL = SYSTEM_PROPERTY_PREFIX + "lifecycle.parallel";
+  public static final String MULE_LIFECYCLE_PARALLELISM = SYSTEM_PROPERTY_PREFIX + "lifecycle.parallelism";
   public static final String MULE_SIMPLE_LOG = SYSTEM_PROPERTY_PREFIX + "simpleLog";
   public static final String MULE_FORCE_CONSOLE_LOG = SYSTEM_PROPERTY_PREFIX + "forceConsoleLog";
   public static final String MULE_LOG_CONTEXT_DISPOSE_DELAY_MILLIS = SYSTEM_PROPERTY_PREFIX + "log.context.dispose.delay.millis";
   public static final String MULE_FLOW_TRACE = SYSTEM_PROPERTY_PREFIX + "flowTrace";
   public static final String MULE_LOG_VERBOSE_CLASSLOADING = SYSTEM_PROPERTY_PREFIX + "classloading.verbose";
+  public static final String MULE_CLASSLOADING_RESOURCE_INDEX = SYSTEM_PROPERTY_PREFIX + "classloading.resourceIndex";
   public static final String MULE_MEL_AS_DEFAULT = SYSTEM_PROPERTY_PREFIX + "test.mel.default";
   public static final String MULE_DISABLE_RESPONSE_TIMEOUT = SYSTEM_PROPERTY_PREFIX + "timeout.disable";
 
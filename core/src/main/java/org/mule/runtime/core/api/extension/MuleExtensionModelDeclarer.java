@@ -138,6 +138,7 @@ class MuleExtensionModelDeclarer {
     declareConfigurationProperties(extensionDeclarer, typeLoader);
     declareAsync(extensionDeclarer, typeLoader);
     declareForEach(extensionDeclarer, typeLoader);
+    declareParallelForEach(extensionDeclarer, typeLoader);
     declareUntilSuccessful(extensionDeclarer, typeLoader);
 
     // operations
@@ -444,6 +445,55 @@ class MuleExtensionModelDeclarer {
 
   }
 
+  private void declareParallelForEach(ExtensionDeclarer extensionDeclarer, ClassTypeLoader typeLoader) {
+    ConstructDeclarer parallelForeach = extensionDeclarer.withConstruct("parallelForeach")
+        .describedAs("Processes each element of a collection with the nested processors in parallel, and aggregates the results"
+            + " in the order of the collection.")
+        .withErrorModel(compositeRoutingError);
+
+    parallelForeach.withChain();
+
+    parallelForeach.onDefaultParameterGroup()
+        .withOptionalParameter("collection")
+        .ofType(typeLoader.load(new TypeToken<Iterable<Object>>() {
+
+        }.getType()))
+        .defaultingTo("#[payload]")
+        .withExpressionSupport(REQUIRED)
+        .describedAs("An expression to that returns a java collection, object array, map or DOM nodes.");
+
+    parallelForeach.onDefaultParameterGroup()
+        .withOptionalParameter("timeout")
+        .ofType(typeLoader.load(Long.class))
+        .defaultingTo(Long.MAX_VALUE)
+        .withExpressionSupport(NOT_SUPPORTED)
+        .describedAs("Sets a timeout in milliseconds for each element. Values lower or equals than zero means no timeout.");
+
+    parallelForeach.onDefaultParameterGroup()
+        .withOptionalParameter("maxConcurrency")
+        .ofType(typeLoader.load(Integer.class))
+        .withExpressionSupport(NOT_SUPPORTED)
+        .describedAs("The maximum amount of elements processed in parallel. Defaults to the number of available processors.");
+
+    parallelForeach.onDefaultParameterGroup()
+        .withOptionalParameter(TARGET_PARAMETER_NAME)
+        .ofType(typeLoader.load(String.class))
+        .withExpressionSupport(NOT_SUPPORTED)
+        .describedAs(TARGET_PARAMETER_DESCRIPTION)
+        .withLayout(LayoutModel.builder().tabName(ADVANCED_TAB).build());
+
+    parallelForeach.onDefaultParameterGroup()
+        .withOptionalParameter(TARGET_VALUE_PARAMETER_NAME)
+        .ofType(typeLoader.load(String.class))
+        .defaultingTo(PAYLOAD)
+        .withExpressionSupport(REQUIRED)
+        .describedAs(TARGET_VALUE_PARAMETER_DESCRIPTION)
+        .withRole(BEHAVIOUR)
+        .withDisplayModel(DisplayModel.builder().displayName(TARGET_VALUE_PARAMETER_DISPLAY_NAME).build())
+        .withLayout(LayoutModel.builder().tabName(ADVANCED_TAB).build())
+        .withModelProperty(new TargetModelProperty());
+  }
+
   private void declareUntilSuccessful(ExtensionDeclarer extensionDeclarer, ClassTypeLoader typeLoader) {
     ConstructDeclarer untilSuccessful = extensionDeclarer.withConstruct("untilSuccessful")
         .describedAs("Attempts to route a message to the message processor it contains in an asynchronous manner. " +
@@ -6,6 +6,10 @@
  */
 package org.mule.runtime.core.api.streaming;
 
+import static java.lang.Boolean.getBoolean;
+import static org.mule.runtime.api.config.PoolingProfile.DEFAULT_MAX_POOL_WAIT;
+import static org.mule.runtime.core.api.config.MuleProperties.MULE_STREAMING_DIRECT_BUFFERS;
+import static org.mule.runtime.core.api.config.MuleProperties.MULE_STREAMING_SIZE_CLASSED_BUFFERS;
 import static org.mule.runtime.core.api.lifecycle.LifecycleUtils.disposeIfNeeded;
 import static org.mule.runtime.core.api.lifecycle.LifecycleUtils.initialiseIfNeeded;
 import static org.mule.runtime.core.api.util.IOUtils.closeQuietly;
@@ -24,10 +28,12 @@ import org.mule.runtime.core.api.streaming.bytes.ByteBufferManager;
 import org.mule.runtime.core.api.streaming.bytes.ByteStreamingManager;
 import org.mule.runtime.core.api.streaming.object.ObjectStreamingManager;
 import org.mule.runtime.core.internal.streaming.CursorManager;
+import org.mule.runtime.core.internal.streaming.DefaultMemoryManager;
 import org.mule.runtime.core.internal.streaming.ManagedCursorProvider;
 import org.mule.runtime.core.internal.streaming.MutableStreamingStatistics;
 import org.mule.runtime.core.internal.streaming.bytes.DefaultByteStreamingManager;
 import org.mule.runtime.core.internal.streaming.bytes.PoolingByteBufferManager;
+import org.mule.runtime.core.internal.streaming.bytes.SizeClassedByteBufferManager;
 import org.mule.runtime.core.internal.streaming.object.DefaultObjectStreamingManager;
 import org.mule.runtime.core.privileged.event.BaseEventContext;
 
@@ -66,7 +72,7 @@ public class DefaultStreamingManager implements StreamingManager, Initialisable,
       disposalScheduler =
           schedulerService.cpuIntensiveScheduler(muleContext.getSchedulerBaseConfig().withName("StreamingManager-dispose"));
       cursorManager = new CursorManager(statistics, disposalScheduler);
-      bufferManager = new PoolingByteBufferManager();
+      bufferManager = createBufferManager();
       byteStreamingManager = createByteStreamingManager();
       objectStreamingManager = createObjectStreamingManager();
 
@@ -76,7 +82,20 @@ public class DefaultStreamingManager implements StreamingManager, Initialisable,
     }
   }
 
+  protected ByteBufferManager createBufferManager() {
+    if (getBoolean(MULE_STREAMING_SIZE_CLASSED_BUFFERS)) {
+      return new SizeClassedByteBufferManager(new DefaultMemoryManager(), DEFAULT_MAX_POOL_WAIT,
+                                              getBoolean(MULE_STREAMING_DIRECT_BUFFERS), statistics);
+    }
+    return new PoolingByteBufferManager();
+  }
+
   protected ByteStreamingManager createByteStreamingManager() {
+    if (bufferManager instanceof SizeClassedByteBufferManager) {
+      // Direct buffers, if enabled, are only used by the file store buffers, since the in memory ones rely on the backing array
+      return new DefaultByteStreamingManager(bufferManager,
+                                             ((SizeClassedByteBufferManager) bufferManager).getDirectBufferManager(), this);
+    }
     return new DefaultByteStreamingManager(bufferManager, this);
   }
 
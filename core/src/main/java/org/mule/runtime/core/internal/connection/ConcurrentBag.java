@@ -0,0 +1,290 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.internal.connection;
+
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.locks.LockSupport.parkNanos;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A lock-free collection of pooled items, which favors giving each thread the same items it used before.
+ * <p>
+ * Items returned by a thread are remembered in a list local to that thread, so the next time it borrows it will most likely
+ * obtain the same item without contending with other threads. Otherwise, a free item is looked for in the list shared by all
+ * threads. When there is none, the borrower waits until some thread returns an item, which is then handed off directly to it.
+ * <p>
+ * The state of each {@link BagEntry} is changed atomically, so the same item is never given to two borrowers. Entries that were
+ * removed from the bag may still be referenced by the thread local lists, but will never be borrowed again.
+ *
+ * @param <T> the type of the pooled items
+ * @since 4.1
+ */
+final class ConcurrentBag<T> {
+
+  static final int STATE_REMOVED = -1;
+  static final int STATE_NOT_IN_USE = 0;
+  static final int STATE_IN_USE = 1;
+
+  private static final int MAX_THREAD_LOCAL_ENTRIES = 16;
+  private static final long HANDOFF_PARK_NANOS = MICROSECONDS.toNanos(10);
+  private static final long MIN_WAIT_NANOS = MICROSECONDS.toNanos(10);
+
+  private final CopyOnWriteArrayList<BagEntry<T>> sharedList = new CopyOnWriteArrayList<>();
+  private final ThreadLocal<List<WeakReference<BagEntry<T>>>> threadList =
+      ThreadLocal.withInitial(() -> new ArrayList<>(MAX_THREAD_LOCAL_ENTRIES));
+  private final AtomicInteger waiters = new AtomicInteger();
+  private final SynchronousQueue<BagEntry<T>> handoffQueue = new SynchronousQueue<>(true);
+  private final Queue<CompletableFuture<BagEntry<T>>> asyncWaiters = new ConcurrentLinkedQueue<>();
+
+  /**
+   * Borrows an item, waiting for one to become available up to the given {@code timeout}.
+   *
+   * @param timeout how long to wait if there's no available item. Zero means not to wait at all
+   * @param unit    the unit of the {@code timeout}
+   * @return a borrowed entry, or {@code null} if none became available before the {@code timeout} elapsed
+   * @throws InterruptedException if interrupted while waiting
+   */
+  BagEntry<T> borrow(long timeout, TimeUnit unit) throws InterruptedException {
+    final List<WeakReference<BagEntry<T>>> localEntries = threadList.get();
+    for (int i = localEntries.size() - 1; i >= 0; i--) {
+      final BagEntry<T> entry = localEntries.remove(i).get();
+      if (entry != null && entry.compareAndSetState(STATE_NOT_IN_USE, STATE_IN_USE)) {
+        return entry;
+      }
+    }
+
+    waiters.incrementAndGet();
+    try {
+      BagEntry<T> entry = borrowShared();
+      if (entry != null) {
+        return entry;
+      }
+
+      long remainingNanos = unit.toNanos(timeout);
+      while (remainingNanos > MIN_WAIT_NANOS) {
+        final long start = nanoTime();
+        entry = handoffQueue.poll(remainingNanos, NANOSECONDS);
+        if (entry == null || entry.compareAndSetState(STATE_NOT_IN_USE, STATE_IN_USE)) {
+          return entry;
+        }
+        remainingNanos -= nanoTime() - start;
+      }
+      return null;
+    } finally {
+      waiters.decrementAndGet();
+    }
+  }
+
+  /**
+   * Borrows an item without blocking the calling thread.
+   *
+   * @return a future completed with the borrowed entry, as soon as one is available. If the future is cancelled before that,
+   *         no entry is borrowed.
+   */
+  CompletableFuture<BagEntry<T>> borrowAsync() {
+    BagEntry<T> entry = borrowShared();
+    if (entry != null) {
+      return CompletableFuture.completedFuture(entry);
+    }
+
+    final CompletableFuture<BagEntry<T>> future = new CompletableFuture<>();
+    asyncWaiters.add(future);
+
+    // An entry may have been returned after looking into the shared list but before registering the future
+    entry = borrowShared();
+    if (entry != null) {
+      asyncWaiters.remove(future);
+      if (!future.complete(entry)) {
+        requite(entry);
+      }
+    }
+    return future;
+  }
+
+  private BagEntry<T> borrowShared() {
+    for (BagEntry<T> entry : sharedList) {
+      if (entry.compareAndSetState(STATE_NOT_IN_USE, STATE_IN_USE)) {
+        return entry;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns a borrowed entry to the bag, handing it off to a waiting borrower if there is any.
+   *
+   * @param entry the entry to return
+   */
+  void requite(BagEntry<T> entry) {
+    entry.lastAccessed = nanoTime();
+    entry.setState(STATE_NOT_IN_USE);
+
+    if (handOff(entry)) {
+      return;
+    }
+
+    final List<WeakReference<BagEntry<T>>> localEntries = threadList.get();
+    if (localEntries.size() < MAX_THREAD_LOCAL_ENTRIES) {
+      localEntries.add(new WeakReference<>(entry));
+    }
+  }
+
+  /**
+   * Adds a new entry to the bag, handing it off to a waiting borrower if there is any.
+   *
+   * @param entry an entry either in the {@link #STATE_NOT_IN_USE} or {@link #STATE_IN_USE} state
+   */
+  void add(BagEntry<T> entry) {
+    sharedList.add(entry);
+    handOff(entry);
+  }
+
+  /**
+   * Removes an entry from the bag. The entry must be either borrowed or reserved.
+   *
+   * @param entry the entry to remove
+   * @return whether the entry was removed
+   */
+  boolean remove(BagEntry<T> entry) {
+    if (!entry.compareAndSetState(STATE_IN_USE, STATE_REMOVED)) {
+      return false;
+    }
+    return sharedList.remove(entry);
+  }
+
+  /**
+   * Marks an entry which is not in use as borrowed, without handing it to anyone, so it may be removed.
+   *
+   * @param entry the entry to reserve
+   * @return whether the entry was reserved
+   */
+  boolean reserve(BagEntry<T> entry) {
+    return entry.compareAndSetState(STATE_NOT_IN_USE, STATE_IN_USE);
+  }
+
+  private boolean handOff(BagEntry<T> entry) {
+    CompletableFuture<BagEntry<T>> future;
+    while ((future = asyncWaiters.poll()) != null) {
+      if (!entry.compareAndSetState(STATE_NOT_IN_USE, STATE_IN_USE)) {
+        // Someone else took the entry, the future has to keep waiting
+        asyncWaiters.add(future);
+        return true;
+      }
+      if (future.complete(entry)) {
+        return true;
+      }
+      entry.setState(STATE_NOT_IN_USE);
+    }
+
+    for (int i = 0; waiters.get() > 0; i++) {
+      if (entry.getState() != STATE_NOT_IN_USE || handoffQueue.offer(entry)) {
+        return true;
+      } else if ((i & 0xff) == 0xff) {
+        parkNanos(HANDOFF_PARK_NANOS);
+      } else {
+        Thread.yield();
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Completes exceptionally the futures of the pending asynchronous borrows.
+   *
+   * @param cause the exception to complete the futures with
+   */
+  void failAsyncWaiters(Throwable cause) {
+    CompletableFuture<BagEntry<T>> future;
+    while ((future = asyncWaiters.poll()) != null) {
+      future.completeExceptionally(cause);
+    }
+  }
+
+  /**
+   * @return a snapshot of the entries in the bag
+   */
+  List<BagEntry<T>> values() {
+    return new ArrayList<>(sharedList);
+  }
+
+  /**
+   * @return the number of threads waiting for an entry, including asynchronous borrows
+   */
+  int getWaitingBorrowers() {
+    return waiters.get() + asyncWaiters.size();
+  }
+
+  /**
+   * @param state one of the {@code STATE_*} constants
+   * @return the number of entries in the given state
+   */
+  int getCount(int state) {
+    int count = 0;
+    for (BagEntry<T> entry : sharedList) {
+      if (entry.getState() == state) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * @return the number of entries in the bag
+   */
+  int size() {
+    return sharedList.size();
+  }
+
+  /**
+   * Holds an item of the bag and its state.
+   *
+   * @param <T> the type of the pooled item
+   */
+  static final class BagEntry<T> {
+
+    private final T value;
+    private final AtomicInteger state;
+    private volatile long lastAccessed = nanoTime();
+
+    BagEntry(T value, int initialState) {
+      this.value = value;
+      this.state = new AtomicInteger(initialState);
+    }
+
+    T getValue() {
+      return value;
+    }
+
+    long getLastAccessed() {
+      return lastAccessed;
+    }
+
+    int getState() {
+      return state.get();
+    }
+
+    private void setState(int newState) {
+      state.set(newState);
+    }
+
+    private boolean compareAndSetState(int expect, int update) {
+      return state.compareAndSet(expect, update);
+    }
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.internal.connection;
+
+import static org.mule.runtime.api.util.Preconditions.checkState;
+
+import org.mule.runtime.api.connection.ConnectionException;
+import org.mule.runtime.api.connection.ConnectionProvider;
+import org.mule.runtime.api.connection.PoolingListener;
+import org.mule.runtime.api.exception.MuleException;
+import org.mule.runtime.core.internal.connection.ConcurrentBag.BagEntry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Implementation of {@link ConnectionHandlerAdapter} which wraps a {@code Connection} obtained from a
+ * {@link ConcurrentBagConnectionManagementStrategy}.
+ *
+ * @param <C> the generic type of the connection to be returned
+ * @since 4.1
+ */
+final class ConcurrentBagConnectionHandler<C> implements ConnectionHandlerAdapter<C> {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ConcurrentBagConnectionHandler.class);
+
+  private BagEntry<C> entry;
+  private final ConcurrentBagConnectionManagementStrategy<C> pool;
+  private final PoolingListener<C> poolingListener;
+  private final ConnectionProvider<C> connectionProvider;
+
+  /**
+   * Creates a new instance
+   *
+   * @param entry the bag entry of the connection to be wrapped
+   * @param pool  the pool from which the {@code connection} was obtained and to which it has to be returned
+   */
+  ConcurrentBagConnectionHandler(BagEntry<C> entry, ConcurrentBagConnectionManagementStrategy<C> pool,
+                                 PoolingListener<C> poolingListener, ConnectionProvider<C> connectionProvider) {
+    this.entry = entry;
+    this.pool = pool;
+    this.poolingListener = poolingListener;
+    this.connectionProvider = connectionProvider;
+  }
+
+  /**
+   * @return the wrapped connection
+   */
+  @Override
+  public C getConnection() throws ConnectionException {
+    checkState(entry != null, "Connection has been either released or invalidated");
+    return entry.getValue();
+  }
+
+  /**
+   * Returns the connection to the pool
+   */
+  @Override
+  public void release() {
+    if (entry == null) {
+      return;
+    }
+
+    final BagEntry<C> released = entry;
+    entry = null;
+    try {
+      poolingListener.onReturn(released.getValue());
+    } catch (Exception e) {
+      LOGGER.warn("Could not return connection to the pool. Connection will be destroyed", e);
+      pool.destroyConnection(released);
+      return;
+    }
+    pool.releaseConnection(released);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void invalidate() {
+    if (entry == null) {
+      return;
+    }
+
+    try {
+      pool.destroyConnection(entry);
+    } catch (Exception e) {
+      LOGGER.warn("Exception was found trying to invalidate connection of type " + entry.getValue().getClass().getName(), e);
+    } finally {
+      entry = null;
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public ConnectionProvider getConnectionProvider() {
+    return connectionProvider;
+  }
+
+  /**
+   * Does nothing for this implementation. Connections are only closed when the pool is.
+   */
+  @Override
+  public void close() throws MuleException {
+
+  }
+}
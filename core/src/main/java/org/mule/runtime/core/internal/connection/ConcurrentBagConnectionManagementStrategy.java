@@ -0,0 +1,373 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.internal.connection;
+
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.mule.runtime.api.config.PoolingProfile.WHEN_EXHAUSTED_FAIL;
+import static org.mule.runtime.api.config.PoolingProfile.WHEN_EXHAUSTED_GROW;
+import static org.mule.runtime.core.internal.connection.ConcurrentBag.STATE_IN_USE;
+import static org.mule.runtime.core.internal.connection.ConcurrentBag.STATE_NOT_IN_USE;
+
+import org.mule.runtime.api.config.PoolingProfile;
+import org.mule.runtime.api.connection.ConnectionException;
+import org.mule.runtime.api.connection.ConnectionHandler;
+import org.mule.runtime.api.connection.ConnectionProvider;
+import org.mule.runtime.api.connection.PoolingListener;
+import org.mule.runtime.api.exception.MuleException;
+import org.mule.runtime.core.api.MuleContext;
+import org.mule.runtime.core.internal.connection.ConcurrentBag.BagEntry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@link ConnectionManagementStrategy} which returns connections obtained from a lock-free {@link ConcurrentBag}.
+ * <p>
+ * Unlike {@link PoolingConnectionManagementStrategy}, borrowing and returning connections doesn't synchronize on a pool monitor,
+ * and threads most likely get the same connection they used last time. Connections may also be borrowed without blocking through
+ * {@link #getConnectionHandlerAsync()}.
+ * <p>
+ * The {@link PoolingProfile} is honored as follows:
+ * <ul>
+ * <li>{@code maxActive}: no more connections are created once reached, unless the exhausted action is
+ * {@link PoolingProfile#WHEN_EXHAUSTED_GROW}. A negative value means no limit</li>
+ * <li>{@code maxIdle}: returned connections are destroyed if there are already that many idle ones. A negative value means no
+ * limit</li>
+ * <li>{@code maxWait}: how long to wait for a connection when exhausted, if the exhausted action is
+ * {@link PoolingProfile#WHEN_EXHAUSTED_WAIT}. A zero or negative value means to wait indefinitely, as with the commons-pool
+ * based strategy</li>
+ * <li>{@code minEvictionMillis} and {@code evictionCheckIntervalMillis}: connections idle for longer than the former are
+ * destroyed, checking at most once per the latter when connections are borrowed or returned</li>
+ * </ul>
+ * If the {@link PoolingListener} is a {@link PoolingMetricsListener}, it's also notified about the wait times and utilisation of
+ * the pool.
+ *
+ * @param <C> the generic type of the connections to be managed
+ * @since 4.1
+ */
+final class ConcurrentBagConnectionManagementStrategy<C> extends ConnectionManagementStrategy<C> {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ConcurrentBagConnectionManagementStrategy.class);
+
+  private final PoolingProfile poolingProfile;
+  private final PoolingListener<C> poolingListener;
+  private final PoolingMetricsListener<C> metricsListener;
+
+  private final ConcurrentBag<C> bag = new ConcurrentBag<>();
+  private final AtomicInteger totalConnections = new AtomicInteger();
+  private final AtomicInteger activeConnections = new AtomicInteger();
+  private final AtomicLong nextEvictionCheck;
+
+  private volatile boolean closed = false;
+
+  /**
+   * Creates a new instance
+   *
+   * @param connectionProvider the {@link ConnectionProvider} used to manage the connections
+   * @param poolingProfile     the {@link PoolingProfile} which configures the pool
+   * @param poolingListener    a {@link PoolingListener}
+   * @param muleContext        the application's {@link MuleContext}
+   */
+  ConcurrentBagConnectionManagementStrategy(ConnectionProvider<C> connectionProvider, PoolingProfile poolingProfile,
+                                            PoolingListener<C> poolingListener, MuleContext muleContext) {
+    super(connectionProvider, muleContext);
+    this.poolingProfile = poolingProfile;
+    this.poolingListener = poolingListener;
+    this.metricsListener = poolingListener instanceof PoolingMetricsListener ? (PoolingMetricsListener<C>) poolingListener : null;
+    this.nextEvictionCheck = new AtomicLong(nanoTime() + MILLISECONDS.toNanos(poolingProfile.getEvictionCheckIntervalMillis()));
+  }
+
+  /**
+   * Returns a {@link ConnectionHandler} which wraps a connection obtained from the pool
+   *
+   * @return a {@link ConnectionHandler}
+   * @throws ConnectionException if the connection could not be obtained
+   */
+  @Override
+  public ConnectionHandler<C> getConnectionHandler() throws ConnectionException {
+    checkNotClosed();
+    final long start = nanoTime();
+    evictIdleConnectionsIfNeeded();
+
+    BagEntry<C> entry;
+    try {
+      entry = bag.borrow(0, NANOSECONDS);
+      if (entry == null) {
+        entry = createConnectionIfAllowed();
+      }
+      if (entry == null) {
+        if (poolingProfile.getExhaustedAction() == WHEN_EXHAUSTED_FAIL) {
+          throw new ConnectionException("Connection pool is exhausted");
+        }
+        final long maxWait = poolingProfile.getMaxWait();
+        entry = bag.borrow(maxWait <= 0 ? Long.MAX_VALUE : maxWait, MILLISECONDS);
+        if (entry == null) {
+          throw new ConnectionException("Connection pool is exhausted");
+        }
+      }
+    } catch (ConnectionException e) {
+      throw e;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ConnectionException("Interrupted while waiting for a connection from the pool", e);
+    } catch (Exception e) {
+      throw new ConnectionException("An exception was found trying to obtain a connection: " + e.getMessage(), e);
+    }
+
+    return onBorrow(entry, start);
+  }
+
+  /**
+   * Obtains a connection from the pool without blocking the calling thread. If the pool is exhausted, the returned future is
+   * completed as soon as a connection is returned to the pool, regardless of the configured exhausted action and wait time.
+   * Cancelling the future gives up on the connection.
+   *
+   * @return a future to be completed with a {@link ConnectionHandler}, or exceptionally with a {@link ConnectionException}
+   */
+  public CompletableFuture<ConnectionHandler<C>> getConnectionHandlerAsync() {
+    final long start = nanoTime();
+    final CompletableFuture<BagEntry<C>> entryFuture;
+    try {
+      checkNotClosed();
+      evictIdleConnectionsIfNeeded();
+      BagEntry<C> entry = bag.borrow(0, NANOSECONDS);
+      if (entry == null) {
+        entry = createConnectionIfAllowed();
+      }
+      entryFuture = entry != null ? completedFuture(entry) : bag.borrowAsync();
+    } catch (ConnectionException e) {
+      return failedFuture(e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return failedFuture(new ConnectionException("Interrupted while obtaining a connection from the pool", e));
+    }
+
+    final CompletableFuture<ConnectionHandler<C>> handlerFuture = new CompletableFuture<>();
+    entryFuture.whenComplete((entry, failure) -> {
+      if (failure != null) {
+        handlerFuture.completeExceptionally(failure);
+        return;
+      }
+      try {
+        ConnectionHandler<C> handler = onBorrow(entry, start);
+        if (!handlerFuture.complete(handler)) {
+          handler.release();
+        }
+      } catch (ConnectionException e) {
+        handlerFuture.completeExceptionally(e);
+      }
+    });
+    handlerFuture.whenComplete((handler, failure) -> {
+      if (handlerFuture.isCancelled()) {
+        entryFuture.cancel(false);
+      }
+    });
+    return handlerFuture;
+  }
+
+  private BagEntry<C> createConnectionIfAllowed() throws ConnectionException {
+    if (!reserveConnectionSlot()) {
+      return null;
+    }
+
+    try {
+      BagEntry<C> entry = new BagEntry<>(connectionProvider.connect(), STATE_IN_USE);
+      bag.add(entry);
+      return entry;
+    } catch (ConnectionException e) {
+      totalConnections.decrementAndGet();
+      throw e;
+    } catch (Exception e) {
+      totalConnections.decrementAndGet();
+      throw new ConnectionException("An exception was found trying to obtain a connection: " + e.getMessage(), e);
+    }
+  }
+
+  private boolean reserveConnectionSlot() {
+    final int maxActive = poolingProfile.getMaxActive();
+    if (maxActive < 0 || poolingProfile.getExhaustedAction() == WHEN_EXHAUSTED_GROW) {
+      totalConnections.incrementAndGet();
+      return true;
+    }
+
+    int total;
+    do {
+      total = totalConnections.get();
+      if (total >= maxActive) {
+        return false;
+      }
+    } while (!totalConnections.compareAndSet(total, total + 1));
+    return true;
+  }
+
+  private ConnectionHandler<C> onBorrow(BagEntry<C> entry, long start) throws ConnectionException {
+    activeConnections.incrementAndGet();
+    try {
+      poolingListener.onBorrow(entry.getValue());
+    } catch (Exception e) {
+      destroyConnection(entry);
+      throw new ConnectionException("An exception was found trying to obtain a connection: " + e.getMessage(), e);
+    }
+
+    if (metricsListener != null) {
+      metricsListener.onBorrowWaitTime(nanoTime() - start);
+      publishUtilisation();
+    }
+    return new ConcurrentBagConnectionHandler<>(entry, this, poolingListener, connectionProvider);
+  }
+
+  /**
+   * Returns the connection of the given {@code entry} to the pool, or destroys it if there are too many idle connections or the
+   * pool is closed.
+   *
+   * @param entry the entry of a borrowed connection
+   */
+  void releaseConnection(BagEntry<C> entry) {
+    final int maxIdle = poolingProfile.getMaxIdle();
+    if (closed || (maxIdle >= 0 && totalConnections.get() - activeConnections.get() >= maxIdle)) {
+      destroyConnection(entry);
+      return;
+    }
+
+    activeConnections.decrementAndGet();
+    bag.requite(entry);
+    if (metricsListener != null) {
+      publishUtilisation();
+    }
+    evictIdleConnectionsIfNeeded();
+  }
+
+  /**
+   * Removes the connection of the given {@code entry} from the pool and disconnects it. If there are borrowers waiting for a
+   * connection, a new one is created for them.
+   *
+   * @param entry the entry of a borrowed connection
+   */
+  void destroyConnection(BagEntry<C> entry) {
+    if (!bag.remove(entry)) {
+      return;
+    }
+    activeConnections.decrementAndGet();
+    totalConnections.decrementAndGet();
+    disconnect(entry.getValue());
+    if (metricsListener != null) {
+      publishUtilisation();
+    }
+
+    if (!closed && bag.getWaitingBorrowers() > 0) {
+      replenish();
+    }
+  }
+
+  private void replenish() {
+    if (!reserveConnectionSlot()) {
+      return;
+    }
+    try {
+      bag.add(new BagEntry<>(connectionProvider.connect(), STATE_NOT_IN_USE));
+    } catch (Exception e) {
+      totalConnections.decrementAndGet();
+      LOGGER.warn("Could not create a connection for the threads waiting on the pool", e);
+    }
+  }
+
+  private void evictIdleConnectionsIfNeeded() {
+    final long evictionCheckInterval = poolingProfile.getEvictionCheckIntervalMillis();
+    final long minEvictionMillis = poolingProfile.getMinEvictionMillis();
+    if (evictionCheckInterval <= 0 || minEvictionMillis <= 0) {
+      return;
+    }
+
+    final long now = nanoTime();
+    final long nextCheck = nextEvictionCheck.get();
+    if (now - nextCheck < 0
+        || !nextEvictionCheck.compareAndSet(nextCheck, now + MILLISECONDS.toNanos(evictionCheckInterval))) {
+      return;
+    }
+
+    final long minEvictionNanos = MILLISECONDS.toNanos(minEvictionMillis);
+    for (BagEntry<C> entry : bag.values()) {
+      if (now - entry.getLastAccessed() > minEvictionNanos && bag.reserve(entry)) {
+        activeConnections.incrementAndGet();
+        destroyConnection(entry);
+      }
+    }
+  }
+
+  private void disconnect(C connection) {
+    try {
+      connectionProvider.disconnect(connection);
+    } catch (Exception e) {
+      LOGGER.warn("Exception was found trying to disconnect connection of type " + connection.getClass().getName(), e);
+    }
+  }
+
+  private void publishUtilisation() {
+    metricsListener.onUtilisationChange(activeConnections.get(), totalConnections.get(), poolingProfile.getMaxActive());
+  }
+
+  private void checkNotClosed() throws ConnectionException {
+    if (closed) {
+      throw new ConnectionException("Connection pool is closed");
+    }
+  }
+
+  private static <T> CompletableFuture<T> failedFuture(Throwable failure) {
+    CompletableFuture<T> future = new CompletableFuture<>();
+    future.completeExceptionally(failure);
+    return future;
+  }
+
+  /**
+   * Closes the pool, disconnecting the idle connections. Connections currently borrowed are disconnected when returned.
+   *
+   * @throws MuleException
+   */
+  @Override
+  public void close() throws MuleException {
+    closed = true;
+    bag.failAsyncWaiters(new ConnectionException("Connection pool is closed"));
+    for (BagEntry<C> entry : bag.values()) {
+      if (bag.reserve(entry)) {
+        activeConnections.incrementAndGet();
+        destroyConnection(entry);
+      }
+    }
+  }
+
+  public PoolingProfile getPoolingProfile() {
+    return poolingProfile;
+  }
+
+  /**
+   * @return the number of connections currently borrowed
+   */
+  int getActiveConnections() {
+    return activeConnections.get();
+  }
+
+  /**
+   * @return the number of connections in the pool which are not borrowed
+   */
+  int getIdleConnections() {
+    return bag.getCount(STATE_NOT_IN_USE);
+  }
+
+  /**
+   * @return the number of borrowers waiting for a connection
+   */
+  int getWaitingBorrowers() {
+    return bag.getWaitingBorrowers();
+  }
+}
@@ -6,9 +6,11 @@
  */
 package org.mule.runtime.core.internal.connection;
 
+import static java.lang.Boolean.getBoolean;
 import static org.mule.runtime.api.meta.model.connection.ConnectionManagementType.CACHED;
 import static org.mule.runtime.api.meta.model.connection.ConnectionManagementType.NONE;
 import static org.mule.runtime.api.meta.model.connection.ConnectionManagementType.POOLING;
+import static org.mule.runtime.core.api.config.MuleProperties.MULE_CONNECTION_POOL_CONCURRENT_BAG;
 import static org.mule.runtime.core.api.connection.util.ConnectionProviderUtils.unwrapProviderWrapper;
 
 import org.mule.runtime.api.config.PoolingProfile;
@@ -76,11 +78,15 @@ final class ConnectionManagementStrategyFactory {
           (PoolingProfile) ((ConnectionProviderWrapper) connectionProvider).getPoolingProfile().orElse(poolingProfile);
     }
 
-    return poolingProfile.isDisabled() ? withoutManagement(connectionProvider)
-        : new PoolingConnectionManagementStrategy<>(connectionProvider, poolingProfile,
-                                                    (PoolingListener<C>) unwrapProviderWrapper(connectionProvider,
-                                                                                               PoolingConnectionProvider.class),
-                                                    muleContext);
+    if (poolingProfile.isDisabled()) {
+      return withoutManagement(connectionProvider);
+    }
+
+    PoolingListener<C> poolingListener =
+        (PoolingListener<C>) unwrapProviderWrapper(connectionProvider, PoolingConnectionProvider.class);
+    return getBoolean(MULE_CONNECTION_POOL_CONCURRENT_BAG)
+        ? new ConcurrentBagConnectionManagementStrategy<>(connectionProvider, poolingProfile, poolingListener, muleContext)
+        : new PoolingConnectionManagementStrategy<>(connectionProvider, poolingProfile, poolingListener, muleContext);
   }
 
   private <C> ConnectionManagementType getManagementType(ConnectionProvider<C> connectionProvider) {
@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.internal.connection;
+
+import org.mule.runtime.api.connection.PoolingListener;
+
+/**
+ * A {@link PoolingListener} which is also notified about the usage metrics of the pool.
+ * <p>
+ * Only pools created by {@link ConcurrentBagConnectionManagementStrategy} publish these metrics.
+ *
+ * @param <C> the generic type for the pooled connection
+ * @since 4.1
+ */
+public interface PoolingMetricsListener<C> extends PoolingListener<C> {
+
+  /**
+   * Invoked each time a connection is borrowed.
+   *
+   * @param waitTimeNanos how long the borrower had to wait for the connection, in nanoseconds
+   */
+  default void onBorrowWaitTime(long waitTimeNanos) {}
+
+  /**
+   * Invoked each time a connection is borrowed, returned, created or destroyed.
+   *
+   * @param activeConnections the number of connections currently borrowed
+   * @param totalConnections  the number of connections in the pool, either borrowed or idle
+   * @param maxActive         the maximum number of connections that may be borrowed at the same time, or a negative value if
+   *                          there's no limit
+   */
+  default void onUtilisationChange(int activeConnections, int totalConnections, int maxActive) {}
+}
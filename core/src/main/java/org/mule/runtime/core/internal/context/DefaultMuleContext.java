@@ -43,6 +43,7 @@ import static org.mule.runtime.core.api.lifecycle.LifecycleUtils.initialiseIfNee
 import static org.mule.runtime.core.api.lifecycle.LifecycleUtils.startIfNeeded;
 import static org.mule.runtime.core.api.lifecycle.LifecycleUtils.stopIfNeeded;
 import static org.mule.runtime.core.api.util.UUID.getClusterUUID;
+import static org.mule.runtime.core.internal.lifecycle.RegistryLifecycleCallback.withDelegatedLifecycleLock;
 import static org.mule.runtime.core.internal.util.FunctionalUtils.safely;
 import static org.mule.runtime.core.internal.util.JdkVersionUtils.getSupportedJdks;
 import static org.slf4j.LoggerFactory.getLogger;
@@ -503,6 +504,10 @@ public class DefaultMuleContext implements MuleContextWithRegistries, Privileged
 
   @Override
   public void withLifecycleLock(Runnable command) {
+    if (withDelegatedLifecycleLock(command)) {
+      return;
+    }
+
     synchronized (lifecycleStateLock) {
       command.run();
     }
@@ -49,6 +49,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.nio.charset.Charset;
@@ -62,7 +63,7 @@ public class DefaultEventBuilder implements InternalEvent.Builder {
 
   private BaseEventContext context;
   private Message message;
-  private Map<String, TypedValue<?>> flowVariables = new HashMap<>();
+  private PersistentCaseInsensitiveMap<TypedValue<?>> flowVariables = PersistentCaseInsensitiveMap.empty();
   private Map<String, Object> internalParameters = new HashMap<>(4);
   private Error error;
   private Optional<GroupCorrelation> groupCorrelation = empty();
@@ -93,7 +94,7 @@ public class DefaultEventBuilder implements InternalEvent.Builder {
     this.error = event.getError().orElse(null);
     this.notificationsEnabled = event.isNotificationsEnabled();
 
-    this.flowVariables.putAll(event.getVariables());
+    this.flowVariables = PersistentCaseInsensitiveMap.copyOf(event.getVariables());
     this.internalParameters.putAll(event.getInternalParameters());
   }
 
@@ -113,13 +114,21 @@ public class DefaultEventBuilder implements InternalEvent.Builder {
 
   @Override
   public DefaultEventBuilder variables(Map<String, ?> flowVariables) {
-    copyFromTo(flowVariables, this.flowVariables);
+    PersistentCaseInsensitiveMap<TypedValue<?>> variables = PersistentCaseInsensitiveMap.empty();
+    for (Map.Entry<String, ?> entry : flowVariables.entrySet()) {
+      Object value = entry.getValue();
+      variables = variables.with(entry.getKey(),
+                                 value instanceof TypedValue ? (TypedValue<?>) value
+                                     : new TypedValue<>(value, DataType.fromObject(value)));
+    }
+    this.flowVariables = variables;
+    this.modified = true;
     return this;
   }
 
   @Override
   public DefaultEventBuilder addVariable(String key, Object value) {
-    flowVariables.put(key, new TypedValue<>(value, DataType.fromObject(value)));
+    flowVariables = flowVariables.with(key, new TypedValue<>(value, DataType.fromObject(value)));
     this.modified = true;
     return this;
 
@@ -127,14 +136,16 @@ public class DefaultEventBuilder implements InternalEvent.Builder {
 
   @Override
   public DefaultEventBuilder addVariable(String key, Object value, DataType dataType) {
-    flowVariables.put(key, new TypedValue<>(value, dataType));
+    flowVariables = flowVariables.with(key, new TypedValue<>(value, dataType));
     this.modified = true;
     return this;
   }
 
   @Override
   public DefaultEventBuilder removeVariable(String key) {
-    this.modified = flowVariables.remove(key) != null || modified;
+    PersistentCaseInsensitiveMap<TypedValue<?>> variables = flowVariables.without(key);
+    this.modified = variables != flowVariables || modified;
+    this.flowVariables = variables;
     return this;
   }
 
@@ -231,13 +242,6 @@ public class DefaultEventBuilder implements InternalEvent.Builder {
     }
   }
 
-  private void copyFromTo(Map<String, ?> source, Map<String, TypedValue<?>> target) {
-    target.clear();
-    source.forEach((s, o) -> target
-        .put(s, o instanceof TypedValue ? (TypedValue<Object>) o : new TypedValue<>(o, DataType.fromObject(o))));
-    this.modified = true;
-  }
-
   /**
    * <code>EventImplementation</code> represents any data event occurring in the Mule environment. All data sent or received
    * within the Mule environment will be passed between components as an MuleEvent.
@@ -265,14 +269,17 @@ public class DefaultEventBuilder implements InternalEvent.Builder {
 
     private final boolean notificationsEnabled;
 
-    private final CaseInsensitiveHashMap<String, TypedValue<?>> variables;
+    // Declared as a Map so that events serialized by previous versions, with a CaseInsensitiveHashMap, can be deserialized. It is
+    // always a PersistentCaseInsensitiveMap, though.
+    private Map<String, TypedValue<?>> variables;
     private final Map<String, ?> internalParameters;
 
     private final String legacyCorrelationId;
     private final Error error;
 
     // Use this constructor from the builder
-    private InternalEventImplementation(BaseEventContext context, Message message, Map<String, TypedValue<?>> variables,
+    private InternalEventImplementation(BaseEventContext context, Message message,
+                                        PersistentCaseInsensitiveMap<TypedValue<?>> variables,
                                         Map<String, ?> internalParameters, MuleSession session, SecurityContext securityContext,
                                         Object replyToDestination, ReplyToHandler replyToHandler,
                                         Optional<GroupCorrelation> groupCorrelation, Error error,
@@ -281,7 +288,7 @@ public class DefaultEventBuilder implements InternalEvent.Builder {
       this.session = session;
       this.securityContext = securityContext;
       this.message = message;
-      this.variables = new CaseInsensitiveHashMap<>(variables);
+      this.variables = variables;
       this.internalParameters = internalParameters;
 
       this.replyToHandler = replyToHandler;
@@ -426,8 +433,24 @@ public class DefaultEventBuilder implements InternalEvent.Builder {
     // //////////////////////////
 
     private void writeObject(ObjectOutputStream out) throws IOException {
+      // Variables are written as a CaseInsensitiveHashMap, as previous versions did, so that the serialized form doesn't depend on
+      // the map implementation and events can be exchanged with them.
+      ObjectOutputStream.PutField fields = out.putFields();
+      fields.put("context", context);
+      fields.put("message", message);
+      fields.put("session", session);
+      fields.put("securityContext", securityContext);
+      fields.put("replyToHandler", replyToHandler);
+      fields.put("replyToDestination", replyToDestination);
+      fields.put("notificationsEnabled", notificationsEnabled);
+      fields.put("variables", new CaseInsensitiveHashMap<>(variables));
+      fields.put("internalParameters", internalParameters);
+      fields.put("legacyCorrelationId", legacyCorrelationId);
+      fields.put("error", error);
+      fields.put("groupCorrelation", groupCorrelation);
+      out.writeFields();
+
       // TODO MULE-10013 remove this logic from here
-      out.defaultWriteObject();
       for (Map.Entry<String, TypedValue<?>> entry : variables.entrySet()) {
         Object value = entry.getValue();
         if (value != null && !(value instanceof Serializable)) {
@@ -438,13 +461,18 @@ public class DefaultEventBuilder implements InternalEvent.Builder {
       }
     }
 
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+      in.defaultReadObject();
+      variables = PersistentCaseInsensitiveMap.copyOf(variables);
+    }
+
     private void setMessage(Message message) {
       this.message = message;
     }
 
     @Override
     public Map<String, TypedValue<?>> getVariables() {
-      return unmodifiableMap(variables);
+      return variables;
     }
 
     @Override
@@ -0,0 +1,452 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.internal.event;
+
+import static java.lang.Integer.bitCount;
+import static java.lang.System.arraycopy;
+import static java.util.Objects.requireNonNull;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An immutable, case-insensitive {@link Map} with {@link String} keys.
+ * <p>
+ * The map is a hash array mapped trie, so deriving a new map with one added or removed entry through {@link #with(String, Object)}
+ * or {@link #without(String)} only copies the O(log n) nodes in the path to that entry, sharing the rest with the original map.
+ * <p>
+ * Same as {@link org.mule.runtime.core.api.util.CaseInsensitiveHashMap}, keys are compared by their lower case representation
+ * and the case of the key that was added first is preserved. The mutator methods of {@link Map} are not supported.
+ *
+ * @param <V> the type of the values
+ * @since 4.1
+ */
+final class PersistentCaseInsensitiveMap<V> extends AbstractMap<String, V> implements Serializable {
+
+  private static final long serialVersionUID = 4337395612386937735L;
+
+  private static final int BITS_PER_LEVEL = 5;
+  private static final int LEVEL_MASK = (1 << BITS_PER_LEVEL) - 1;
+  private static final int MAX_DEPTH = 8;
+
+  private static final PersistentCaseInsensitiveMap<?> EMPTY =
+      new PersistentCaseInsensitiveMap<>(new BitmapNode(0, new Object[0]), 0);
+
+  private final transient BitmapNode root;
+  private final transient int size;
+  private transient Set<Entry<String, V>> entrySet;
+
+  private PersistentCaseInsensitiveMap(BitmapNode root, int size) {
+    this.root = root;
+    this.size = size;
+  }
+
+  /**
+   * @return an empty map
+   */
+  static <V> PersistentCaseInsensitiveMap<V> empty() {
+    return (PersistentCaseInsensitiveMap<V>) EMPTY;
+  }
+
+  /**
+   * @param map the entries of the new map
+   * @return a map with the entries of the given {@code map}, or the same instance if it already is a
+   *         {@link PersistentCaseInsensitiveMap}
+   */
+  static <V> PersistentCaseInsensitiveMap<V> copyOf(Map<String, ? extends V> map) {
+    if (map instanceof PersistentCaseInsensitiveMap) {
+      return (PersistentCaseInsensitiveMap<V>) map;
+    }
+    PersistentCaseInsensitiveMap<V> copy = empty();
+    for (Entry<String, ? extends V> entry : map.entrySet()) {
+      copy = copy.with(entry.getKey(), entry.getValue());
+    }
+    return copy;
+  }
+
+  /**
+   * @param key   the key of the entry. If the map already has an entry with a key that only differs in case, that key is kept
+   * @param value the value of the entry
+   * @return a new map with the given entry, replacing the existing one for the same key if any
+   */
+  PersistentCaseInsensitiveMap<V> with(String key, V value) {
+    requireNonNull(key);
+    final String lowerKey = key.toLowerCase();
+    final int hash = hash(lowerKey);
+    final Leaf<V> existing = root.find(hash, 0, lowerKey);
+    if (existing != null && existing.getValue() == value) {
+      return this;
+    }
+
+    final Leaf<V> leaf = new Leaf<>(existing != null ? existing.getKey() : key, lowerKey, hash, value);
+    return new PersistentCaseInsensitiveMap<>(root.put(leaf, 0), existing != null ? size : size + 1);
+  }
+
+  /**
+   * @param key the key of the entry to remove, in any case
+   * @return a new map without the entry for the given key, or the same instance if there is no such entry
+   */
+  PersistentCaseInsensitiveMap<V> without(String key) {
+    if (key == null) {
+      return this;
+    }
+    final String lowerKey = key.toLowerCase();
+    final int hash = hash(lowerKey);
+    if (root.find(hash, 0, lowerKey) == null) {
+      return this;
+    }
+
+    final Object newRoot = root.remove(hash, 0, lowerKey);
+    if (newRoot == null) {
+      return empty();
+    } else if (newRoot instanceof Leaf) {
+      final Leaf<V> leaf = (Leaf<V>) newRoot;
+      return new PersistentCaseInsensitiveMap<>(new BitmapNode(bit(leaf.hash, 0), new Object[] {leaf}), 1);
+    } else {
+      return new PersistentCaseInsensitiveMap<>((BitmapNode) newRoot, size - 1);
+    }
+  }
+
+  @Override
+  public V get(Object key) {
+    final Leaf<V> leaf = find(key);
+    return leaf != null ? leaf.getValue() : null;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return find(key) != null;
+  }
+
+  private Leaf<V> find(Object key) {
+    if (key == null || size == 0) {
+      return null;
+    }
+    final String lowerKey = key.toString().toLowerCase();
+    return root.find(hash(lowerKey), 0, lowerKey);
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public Set<Entry<String, V>> entrySet() {
+    if (entrySet == null) {
+      entrySet = new AbstractSet<Entry<String, V>>() {
+
+        @Override
+        public Iterator<Entry<String, V>> iterator() {
+          return new EntryIterator<>(root);
+        }
+
+        @Override
+        public int size() {
+          return size;
+        }
+      };
+    }
+    return entrySet;
+  }
+
+  private Object writeReplace() {
+    return new SerializedForm(new HashMap<>(this));
+  }
+
+  private static int hash(String lowerKey) {
+    final int h = lowerKey.hashCode();
+    return h ^ (h >>> 16);
+  }
+
+  private static int bit(int hash, int shift) {
+    return 1 << ((hash >>> shift) & LEVEL_MASK);
+  }
+
+  /**
+   * Creates the node holding both the given {@code existing} child and the new {@code leaf}, which were both on the same slot of
+   * a node at the previous level.
+   */
+  private static Object merge(Object existing, int existingHash, Leaf<?> leaf, int shift) {
+    if (existingHash == leaf.hash) {
+      final CollisionNode collisionNode = existing instanceof CollisionNode
+          ? (CollisionNode) existing
+          : new CollisionNode(existingHash, new Leaf[] {(Leaf) existing});
+      return collisionNode.put(leaf);
+    }
+
+    final int existingBit = bit(existingHash, shift);
+    final int leafBit = bit(leaf.hash, shift);
+    if (existingBit == leafBit) {
+      return new BitmapNode(existingBit, new Object[] {merge(existing, existingHash, leaf, shift + BITS_PER_LEVEL)});
+    } else if (Integer.compareUnsigned(existingBit, leafBit) < 0) {
+      return new BitmapNode(existingBit | leafBit, new Object[] {existing, leaf});
+    } else {
+      return new BitmapNode(existingBit | leafBit, new Object[] {leaf, existing});
+    }
+  }
+
+  /**
+   * An entry of the map.
+   */
+  private static final class Leaf<V> extends SimpleImmutableEntry<String, V> {
+
+    private static final long serialVersionUID = -1592327744361622543L;
+
+    private final String lowerKey;
+    private final int hash;
+
+    private Leaf(String key, String lowerKey, int hash, V value) {
+      super(key, value);
+      this.lowerKey = lowerKey;
+      this.hash = hash;
+    }
+  }
+
+  /**
+   * A node of the trie, which has a slot for each of the possible values of {@link #BITS_PER_LEVEL} bits of the key hashes. Only
+   * the used slots are stored, in the order of the set bits of the {@code bitmap}. Each of them has either a {@link Leaf}, a
+   * {@link BitmapNode} for the next level or a {@link CollisionNode}.
+   */
+  private static final class BitmapNode {
+
+    private final int bitmap;
+    private final Object[] children;
+
+    private BitmapNode(int bitmap, Object[] children) {
+      this.bitmap = bitmap;
+      this.children = children;
+    }
+
+    private <V> Leaf<V> find(int hash, int shift, String lowerKey) {
+      final int bit = bit(hash, shift);
+      if ((bitmap & bit) == 0) {
+        return null;
+      }
+
+      final Object child = children[index(bit)];
+      if (child instanceof Leaf) {
+        final Leaf<V> leaf = (Leaf<V>) child;
+        return leaf.hash == hash && leaf.lowerKey.equals(lowerKey) ? leaf : null;
+      } else if (child instanceof BitmapNode) {
+        return ((BitmapNode) child).find(hash, shift + BITS_PER_LEVEL, lowerKey);
+      } else {
+        return ((CollisionNode) child).find(hash, lowerKey);
+      }
+    }
+
+    private BitmapNode put(Leaf<?> leaf, int shift) {
+      final int bit = bit(leaf.hash, shift);
+      final int index = index(bit);
+      if ((bitmap & bit) == 0) {
+        final Object[] newChildren = new Object[children.length + 1];
+        arraycopy(children, 0, newChildren, 0, index);
+        newChildren[index] = leaf;
+        arraycopy(children, index, newChildren, index + 1, children.length - index);
+        return new BitmapNode(bitmap | bit, newChildren);
+      }
+
+      final Object child = children[index];
+      final Object newChild;
+      if (child instanceof Leaf) {
+        final Leaf<?> existing = (Leaf<?>) child;
+        newChild = existing.hash == leaf.hash && existing.lowerKey.equals(leaf.lowerKey)
+            ? leaf
+            : merge(existing, existing.hash, leaf, shift + BITS_PER_LEVEL);
+      } else if (child instanceof BitmapNode) {
+        newChild = ((BitmapNode) child).put(leaf, shift + BITS_PER_LEVEL);
+      } else {
+        final CollisionNode collisionNode = (CollisionNode) child;
+        newChild = collisionNode.hash == leaf.hash
+            ? collisionNode.put(leaf)
+            : merge(collisionNode, collisionNode.hash, leaf, shift + BITS_PER_LEVEL);
+      }
+
+      final Object[] newChildren = children.clone();
+      newChildren[index] = newChild;
+      return new BitmapNode(bitmap, newChildren);
+    }
+
+    /**
+     * Must only be called for keys present in the node.
+     *
+     * @return the node without the entry for the given key, its only {@link Leaf} if there is just one left so the parent may
+     *         inline it, or {@code null} if it is left empty
+     */
+    private Object remove(int hash, int shift, String lowerKey) {
+      final int bit = bit(hash, shift);
+      final int index = index(bit);
+      final Object child = children[index];
+
+      final Object newChild;
+      if (child instanceof Leaf) {
+        newChild = null;
+      } else if (child instanceof BitmapNode) {
+        newChild = ((BitmapNode) child).remove(hash, shift + BITS_PER_LEVEL, lowerKey);
+      } else {
+        newChild = ((CollisionNode) child).remove(lowerKey);
+      }
+
+      if (newChild != null) {
+        if (children.length == 1 && newChild instanceof Leaf) {
+          return newChild;
+        }
+        final Object[] newChildren = children.clone();
+        newChildren[index] = newChild;
+        return new BitmapNode(bitmap, newChildren);
+      }
+
+      if (children.length == 1) {
+        return null;
+      } else if (children.length == 2 && children[1 - index] instanceof Leaf) {
+        return children[1 - index];
+      }
+      final Object[] newChildren = new Object[children.length - 1];
+      arraycopy(children, 0, newChildren, 0, index);
+      arraycopy(children, index + 1, newChildren, index, children.length - index - 1);
+      return new BitmapNode(bitmap & ~bit, newChildren);
+    }
+
+    private int index(int bit) {
+      return bitCount(bitmap & (bit - 1));
+    }
+  }
+
+  /**
+   * A node holding the entries of different keys with the same hash.
+   */
+  private static final class CollisionNode {
+
+    private final int hash;
+    private final Leaf[] leaves;
+
+    private CollisionNode(int hash, Leaf[] leaves) {
+      this.hash = hash;
+      this.leaves = leaves;
+    }
+
+    private <V> Leaf<V> find(int hash, String lowerKey) {
+      if (this.hash != hash) {
+        return null;
+      }
+      for (Leaf leaf : leaves) {
+        if (leaf.lowerKey.equals(lowerKey)) {
+          return leaf;
+        }
+      }
+      return null;
+    }
+
+    private CollisionNode put(Leaf<?> leaf) {
+      for (int i = 0; i < leaves.length; i++) {
+        if (leaves[i].lowerKey.equals(leaf.lowerKey)) {
+          final Leaf[] newLeaves = leaves.clone();
+          newLeaves[i] = leaf;
+          return new CollisionNode(hash, newLeaves);
+        }
+      }
+      final Leaf[] newLeaves = new Leaf[leaves.length + 1];
+      arraycopy(leaves, 0, newLeaves, 0, leaves.length);
+      newLeaves[leaves.length] = leaf;
+      return new CollisionNode(hash, newLeaves);
+    }
+
+    private Object remove(String lowerKey) {
+      int index = 0;
+      while (!leaves[index].lowerKey.equals(lowerKey)) {
+        index++;
+      }
+      if (leaves.length == 2) {
+        return leaves[1 - index];
+      }
+      final Leaf[] newLeaves = new Leaf[leaves.length - 1];
+      arraycopy(leaves, 0, newLeaves, 0, index);
+      arraycopy(leaves, index + 1, newLeaves, index, leaves.length - index - 1);
+      return new CollisionNode(hash, newLeaves);
+    }
+  }
+
+  /**
+   * Depth-first iterator over the leaves of the trie.
+   */
+  private static final class EntryIterator<V> implements Iterator<Entry<String, V>> {
+
+    private final Object[][] stack = new Object[MAX_DEPTH][];
+    private final int[] indexes = new int[MAX_DEPTH];
+    private int depth = 0;
+    private Leaf<V> next;
+
+    private EntryIterator(BitmapNode root) {
+      stack[0] = root.children;
+      advance();
+    }
+
+    private void advance() {
+      while (depth >= 0) {
+        final Object[] nodes = stack[depth];
+        if (indexes[depth] < nodes.length) {
+          final Object child = nodes[indexes[depth]++];
+          if (child instanceof Leaf) {
+            next = (Leaf<V>) child;
+            return;
+          }
+          depth++;
+          stack[depth] = child instanceof BitmapNode ? ((BitmapNode) child).children : ((CollisionNode) child).leaves;
+          indexes[depth] = 0;
+        } else {
+          stack[depth] = null;
+          depth--;
+        }
+      }
+      next = null;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next != null;
+    }
+
+    @Override
+    public Entry<String, V> next() {
+      if (next == null) {
+        throw new NoSuchElementException();
+      }
+      final Leaf<V> current = next;
+      advance();
+      return current;
+    }
+  }
+
+  /**
+   * Serialized representation of the map, so the structure of the trie isn't part of the serialized form.
+   */
+  private static final class SerializedForm implements Serializable {
+
+    private static final long serialVersionUID = -3400218470211224409L;
+
+    private final HashMap<String, ?> entries;
+
+    private SerializedForm(HashMap<String, ?> entries) {
+      this.entries = entries;
+    }
+
+    private Object readResolve() {
+      return copyOf(entries);
+    }
+  }
+}
@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.internal.lifecycle;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Resolves which objects need to go through a lifecycle phase before others do.
+ * <p>
+ * Registries implementing this interface allow {@link RegistryLifecycleCallback} to apply a lifecycle phase in parallel to
+ * the objects which don't depend on each other.
+ *
+ * @since 4.1
+ */
+public interface LifecycleDependencyResolver {
+
+  /**
+   * Resolves the dependencies of each of the given {@code objects} among the {@code objects}. An object depends on another if
+   * it does so directly or through any other objects, including objects which are not part of {@code objects}.
+   *
+   * @param objects the objects to resolve the dependencies for
+   * @return a {@link Map} from each object (compared by identity) to the {@code objects} it depends on. Objects which are not
+   *         known to this resolver are not included.
+   */
+  Map<Object, Collection<Object>> resolveLifecycleDependencies(Collection<?> objects);
+}
@@ -6,19 +6,34 @@
  */
 package org.mule.runtime.core.internal.lifecycle;
 
+import static java.lang.Boolean.getBoolean;
+import static java.lang.Integer.getInteger;
+import static java.lang.Runtime.getRuntime;
 import static java.lang.String.format;
+import static java.lang.System.nanoTime;
+import static java.lang.Thread.currentThread;
+import static java.util.Comparator.comparingLong;
 import static java.util.Optional.empty;
 import static java.util.Optional.of;
+import static java.util.concurrent.CompletableFuture.allOf;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.mule.runtime.core.api.config.MuleProperties.MULE_LIFECYCLE_PARALLEL;
+import static org.mule.runtime.core.api.config.MuleProperties.MULE_LIFECYCLE_PARALLELISM;
 import static org.slf4j.LoggerFactory.getLogger;
 
 import org.mule.runtime.api.exception.MuleException;
 import org.mule.runtime.api.exception.MuleRuntimeException;
 import org.mule.runtime.api.lifecycle.Disposable;
+import org.mule.runtime.api.lifecycle.Initialisable;
 import org.mule.runtime.api.lifecycle.LifecycleException;
+import org.mule.runtime.api.lifecycle.Startable;
 import org.mule.runtime.api.lifecycle.Stoppable;
 import org.mule.runtime.api.notification.NotificationDispatcher;
 import org.mule.runtime.core.api.lifecycle.LifecycleCallback;
 import org.mule.runtime.core.api.lifecycle.LifecycleObject;
+import org.mule.runtime.core.api.util.concurrent.NamedThreadFactory;
 import org.mule.runtime.core.api.util.func.CheckedRunnable;
 import org.mule.runtime.core.internal.context.MuleContextWithRegistries;
 import org.mule.runtime.core.internal.lifecycle.phases.ContainerManagedLifecyclePhase;
@@ -28,12 +43,31 @@ import org.mule.runtime.core.internal.registry.Registry;
 import org.apache.commons.collections.CollectionUtils;
 import org.slf4j.Logger;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 
 /**
  * An implementation of {@link LifecycleCallback} for applying {@link Registry} lifecycles
+ * <p>
+ * When the {@link org.mule.runtime.core.api.config.MuleProperties#MULE_LIFECYCLE_PARALLEL} system property is set and the
+ * registry is a {@link LifecycleDependencyResolver}, the initialise and start phases are applied in parallel to the objects of
+ * each {@link LifecycleObject} type. The types are still processed one after the other, and an object only goes through the
+ * phase after all its dependencies did. Objects with unknown dependencies are processed after every object before them, and
+ * before every object after them. In this mode the time spent on each object is measured, and the slowest ones are logged.
+ * <p>
+ * The lifecycle lock is held while a phase is applied, in parallel or not. Since the objects that go through a parallel phase
+ * may need to take that lock from the worker threads, for instance to register new objects, the workers take a lock of the
+ * phase instead, see {@link #withDelegatedLifecycleLock(Runnable)}.
  *
  * @since 3.7.0
  */
@@ -41,6 +75,11 @@ public class RegistryLifecycleCallback<T> implements LifecycleCallback<T>, HasLi
 
   private static final Logger LOGGER = getLogger(RegistryLifecycleCallback.class);
 
+  private static final int SLOWEST_OBJECTS_TO_LOG = 5;
+
+  // Set on the worker threads of a parallel phase, which act on behalf of the thread holding the lifecycle lock
+  private static final ThreadLocal<Object> DELEGATED_LIFECYCLE_LOCK = new ThreadLocal<>();
+
   protected final RegistryLifecycleManager registryLifecycleManager;
   private LifecycleInterceptor interceptor = new NullLifecycleInterceptor();
 
@@ -48,6 +87,26 @@ public class RegistryLifecycleCallback<T> implements LifecycleCallback<T>, HasLi
     this.registryLifecycleManager = registryLifecycleManager;
   }
 
+  /**
+   * Runs the given {@code command} if the current thread is applying a parallel lifecycle phase on behalf of a thread which holds
+   * the lifecycle lock. The command is run holding a lock of the phase, so it is not run concurrently with the commands of the
+   * other threads applying the same phase, nor with anything else that requires the lifecycle lock.
+   *
+   * @param command the command that requires the lifecycle lock
+   * @return whether the command was run, {@code false} if the current thread has to take the lifecycle lock itself
+   */
+  public static boolean withDelegatedLifecycleLock(Runnable command) {
+    final Object phaseLock = DELEGATED_LIFECYCLE_LOCK.get();
+    if (phaseLock == null) {
+      return false;
+    }
+
+    synchronized (phaseLock) {
+      command.run();
+    }
+    return true;
+  }
+
   @Override
   public void onTransition(String phaseName, T object) throws MuleException {
     try {
@@ -77,39 +136,50 @@ public class RegistryLifecycleCallback<T> implements LifecycleCallback<T>, HasLi
     // overlapping interfaces can cause duplicates
     // TODO: each LifecycleManager should keep this set per executing phase
     // and clear it when the phase is fully applied
-    Set<Object> duplicates = new HashSet<>();
+    Set<Object> duplicates = ConcurrentHashMap.newKeySet();
 
     final NotificationDispatcher notificationFirer = ((MuleContextWithRegistries) registryLifecycleManager.muleContext)
         .getRegistry().lookupObject(NotificationDispatcher.class);
-    for (LifecycleObject lifecycleObject : phase.getOrderedLifecycleObjects()) {
-      lifecycleObject.firePreNotification(notificationFirer);
+    final ExecutorService executor = isParallel(phaseName) ? createExecutor(phaseName) : null;
+    try {
+      for (LifecycleObject lifecycleObject : phase.getOrderedLifecycleObjects()) {
+        lifecycleObject.firePreNotification(notificationFirer);
 
-      // TODO Collection -> List API refactoring
-      Collection<?> targetsObj = lookupObjectsForLifecycle(lifecycleObject);
-      doApplyLifecycle(phase, duplicates, lifecycleObject, targetsObj);
-      lifecycleObject.firePostNotification(notificationFirer);
+        // TODO Collection -> List API refactoring
+        Collection<?> targetsObj = lookupObjectsForLifecycle(lifecycleObject);
+        doApplyLifecycle(phase, duplicates, lifecycleObject, targetsObj, executor);
+        lifecycleObject.firePostNotification(notificationFirer);
+      }
+    } finally {
+      if (executor != null) {
+        executor.shutdownNow();
+      }
     }
 
     interceptor.onPhaseCompleted(phase);
   }
 
   private void doApplyLifecycle(LifecyclePhase phase, Set<Object> duplicates, LifecycleObject lifecycleObject,
-                                Collection<?> targetObjects)
+                                Collection<?> targetObjects, ExecutorService executor)
       throws LifecycleException {
     if (CollectionUtils.isEmpty(targetObjects)) {
       return;
     }
 
-    for (Object target : targetObjects) {
-      if (duplicates.contains(target) || target == null) {
-        continue;
-      }
+    if (executor != null) {
+      applyLifecycleInParallel(phase, duplicates, targetObjects, executor);
+    } else {
+      for (Object target : targetObjects) {
+        if (duplicates.contains(target) || target == null) {
+          continue;
+        }
 
-      if (LOGGER.isDebugEnabled()) {
-        LOGGER.debug("lifecycle phase: " + phase.getName() + " for object: " + target);
-      }
+        if (LOGGER.isDebugEnabled()) {
+          LOGGER.debug("lifecycle phase: " + phase.getName() + " for object: " + target);
+        }
 
-      applyLifecycle(phase, duplicates, target);
+        applyLifecycle(phase, duplicates, target);
+      }
     }
 
     // the target object might have created and registered a new object
@@ -118,16 +188,121 @@ public class RegistryLifecycleCallback<T> implements LifecycleCallback<T>, HasLi
     int originalTargetCount = targetObjects.size();
     targetObjects = lookupObjectsForLifecycle(lifecycleObject);
     if (targetObjects.size() > originalTargetCount) {
-      doApplyLifecycle(phase, duplicates, lifecycleObject, targetObjects);
+      doApplyLifecycle(phase, duplicates, lifecycleObject, targetObjects, executor);
+    }
+  }
+
+  /**
+   * Applies the {@code phase} to each of the {@code targetObjects} as soon as the phase was applied to all its dependencies.
+   * Waits for all of them to finish before returning, even if the phase fails for any of them.
+   */
+  private void applyLifecycleInParallel(LifecyclePhase phase, Set<Object> duplicates, Collection<?> targetObjects,
+                                        ExecutorService executor)
+      throws LifecycleException {
+    final Set<Object> targets = new LinkedHashSet<>();
+    for (Object target : targetObjects) {
+      if (target != null && !duplicates.contains(target)) {
+        targets.add(target);
+      }
+    }
+
+    final Map<Object, Collection<Object>> dependencies = lookupDependenciesForLifecycle(targets);
+    final Object phaseLock = new Object();
+    final Map<Object, CompletableFuture<Void>> scheduled = new IdentityHashMap<>();
+    final List<CompletableFuture<Void>> inOrder = new ArrayList<>(targets.size());
+    final Map<Object, Long> elapsedNanos = new ConcurrentHashMap<>();
+    final List<CompletableFuture<Void>> sinceBarrier = new ArrayList<>();
+    CompletableFuture<Void> barrier = completedFuture(null);
+
+    for (Object target : targets) {
+      final Collection<Object> targetDependencies = dependencies.get(target);
+      final CompletableFuture<Void> ready;
+      if (targetDependencies == null) {
+        // unknown dependencies, so wait for everything scheduled so far
+        sinceBarrier.add(barrier);
+        ready = allOf(sinceBarrier.toArray(new CompletableFuture[sinceBarrier.size()]));
+      } else {
+        final List<CompletableFuture<Void>> required = new ArrayList<>();
+        required.add(barrier);
+        for (Object dependency : targetDependencies) {
+          CompletableFuture<Void> dependencyFuture = scheduled.get(dependency);
+          if (dependencyFuture != null) {
+            required.add(dependencyFuture);
+          }
+        }
+        ready = allOf(required.toArray(new CompletableFuture[required.size()]));
+      }
+
+      final CompletableFuture<Void> applied = ready.thenRunAsync(() -> {
+        if (LOGGER.isDebugEnabled()) {
+          LOGGER.debug("lifecycle phase: " + phase.getName() + " for object: " + target);
+        }
+
+        final long start = nanoTime();
+        DELEGATED_LIFECYCLE_LOCK.set(phaseLock);
+        try {
+          applyLifecycle(phase, duplicates, target);
+        } catch (LifecycleException e) {
+          throw new CompletionException(e);
+        } finally {
+          DELEGATED_LIFECYCLE_LOCK.remove();
+          elapsedNanos.put(target, nanoTime() - start);
+        }
+      }, executor);
+
+      scheduled.put(target, applied);
+      inOrder.add(applied);
+      if (targetDependencies == null) {
+        barrier = applied;
+        sinceBarrier.clear();
+      } else {
+        sinceBarrier.add(applied);
+      }
+    }
+
+    // Every future is joined before propagating the first failure, so no lifecycle is still being applied once this returns
+    Throwable failure = null;
+    for (CompletableFuture<Void> applied : inOrder) {
+      try {
+        applied.join();
+      } catch (CompletionException e) {
+        if (failure == null) {
+          failure = e.getCause() != null ? e.getCause() : e;
+        }
+      }
+    }
+
+    logSlowestObjects(phase, elapsedNanos);
+    if (failure instanceof LifecycleException) {
+      throw (LifecycleException) failure;
+    } else if (failure instanceof RuntimeException) {
+      throw (RuntimeException) failure;
+    } else if (failure instanceof Error) {
+      throw (Error) failure;
+    } else if (failure != null) {
+      throw new CompletionException(failure);
+    }
+  }
+
+  private void logSlowestObjects(LifecyclePhase phase, Map<Object, Long> elapsedNanos) {
+    if (!LOGGER.isInfoEnabled() || elapsedNanos.isEmpty()) {
+      return;
     }
+
+    StringBuilder message = new StringBuilder("Slowest objects for lifecycle phase ").append(phase.getName()).append(':');
+    elapsedNanos.entrySet().stream()
+        .sorted(comparingLong((Map.Entry<Object, Long> entry) -> entry.getValue()).reversed())
+        .limit(SLOWEST_OBJECTS_TO_LOG)
+        .forEach(entry -> message.append(format("%n  %d ms - %s", NANOSECONDS.toMillis(entry.getValue()), entry.getKey())));
+    LOGGER.info(message.toString());
   }
 
   private void applyLifecycle(LifecyclePhase phase, Set<Object> duplicates, Object target) throws LifecycleException {
     try {
-      if (interceptor.beforePhaseExecution(phase, target)) {
+      if (beforePhaseExecution(phase, target)) {
         phase.applyLifecycle(target);
         duplicates.add(target);
-        interceptor.afterPhaseExecution(phase, target, empty());
+        afterPhaseExecution(phase, target, empty());
       } else {
         if (LOGGER.isDebugEnabled()) {
           LOGGER.debug(format(
@@ -138,7 +313,7 @@ public class RegistryLifecycleCallback<T> implements LifecycleCallback<T>, HasLi
         }
       }
     } catch (Exception e) {
-      interceptor.afterPhaseExecution(phase, target, of(e));
+      afterPhaseExecution(phase, target, of(e));
       if (phase.getName().equals(Disposable.PHASE_NAME) || phase.getName().equals(Stoppable.PHASE_NAME)) {
         LOGGER.info(format("Failure executing phase %s over object %s, error message is: %s", phase.getName(), target,
                            e.getMessage()),
@@ -152,10 +327,42 @@ public class RegistryLifecycleCallback<T> implements LifecycleCallback<T>, HasLi
     }
   }
 
+  // interceptors are not thread safe, and may be invoked concurrently when the phase is applied in parallel
+  private boolean beforePhaseExecution(LifecyclePhase phase, Object target) {
+    synchronized (interceptor) {
+      return interceptor.beforePhaseExecution(phase, target);
+    }
+  }
+
+  private void afterPhaseExecution(LifecyclePhase phase, Object target, Optional<Exception> exceptionThrownOptional) {
+    synchronized (interceptor) {
+      interceptor.afterPhaseExecution(phase, target, exceptionThrownOptional);
+    }
+  }
+
   protected Collection<?> lookupObjectsForLifecycle(LifecycleObject lo) {
     return registryLifecycleManager.getLifecycleObject().lookupObjectsForLifecycle(lo.getType());
   }
 
+  /**
+   * @param targets the objects to which a lifecycle phase is about to be applied
+   * @return the dependencies of each of the {@code targets} among the {@code targets}, compared by identity
+   */
+  protected Map<Object, Collection<Object>> lookupDependenciesForLifecycle(Collection<?> targets) {
+    return ((LifecycleDependencyResolver) registryLifecycleManager.getLifecycleObject()).resolveLifecycleDependencies(targets);
+  }
+
+  private boolean isParallel(String phaseName) {
+    return getBoolean(MULE_LIFECYCLE_PARALLEL)
+        && (Initialisable.PHASE_NAME.equals(phaseName) || Startable.PHASE_NAME.equals(phaseName))
+        && registryLifecycleManager.getLifecycleObject() instanceof LifecycleDependencyResolver;
+  }
+
+  private ExecutorService createExecutor(String phaseName) {
+    return newFixedThreadPool(getInteger(MULE_LIFECYCLE_PARALLELISM, getRuntime().availableProcessors()),
+                              new NamedThreadFactory("mule.lifecycle." + phaseName, currentThread().getContextClassLoader()));
+  }
+
   @Override
   public void setLifecycleInterceptor(LifecycleInterceptor interceptor) {
     this.interceptor = interceptor;
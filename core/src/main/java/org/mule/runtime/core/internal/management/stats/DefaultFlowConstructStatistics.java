@@ -6,7 +6,10 @@
  */
 package org.mule.runtime.core.internal.management.stats;
 
+import static org.mule.runtime.core.api.processor.ReactiveProcessor.ProcessingType.BLOCKING;
+
 import org.mule.runtime.core.api.management.stats.ComponentStatistics;
+import org.mule.runtime.core.api.processor.ReactiveProcessor.ProcessingType;
 
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -15,6 +18,8 @@ public class DefaultFlowConstructStatistics extends AbstractFlowConstructStatist
   private static final long serialVersionUID = 5337576392583767442L;
   private final AtomicLong executionError = new AtomicLong(0);
   private final AtomicLong fatalError = new AtomicLong(0);
+  private final AtomicLong blockingConcurrencyLimit = new AtomicLong(-1);
+  private final AtomicLong cpuIntensiveConcurrencyLimit = new AtomicLong(-1);
   protected final ComponentStatistics flowStatistics = new ComponentStatistics();
 
   public DefaultFlowConstructStatistics(String flowConstructType, String name) {
@@ -108,4 +113,30 @@ public class DefaultFlowConstructStatistics extends AbstractFlowConstructStatist
     return fatalError.get();
   }
 
+  /**
+   * Updates the current limit of events processed concurrently by the processors of the given type in the flow, as determined by
+   * its processing strategy.
+   *
+   * @param processingType the type of the processors the limit applies to, {@link ProcessingType#BLOCKING} or
+   *        {@link ProcessingType#CPU_INTENSIVE}.
+   * @param limit the current concurrency limit.
+   */
+  public void setConcurrencyLimit(ProcessingType processingType, long limit) {
+    getConcurrencyLimitHolder(processingType).set(limit);
+  }
+
+  /**
+   * @param processingType the type of the processors the limit applies to, {@link ProcessingType#BLOCKING} or
+   *        {@link ProcessingType#CPU_INTENSIVE}.
+   * @return the current limit of events processed concurrently by the processors of the given type in the flow, or {@code -1} if
+   *         its processing strategy doesn't adjust it dynamically.
+   */
+  public long getConcurrencyLimit(ProcessingType processingType) {
+    return getConcurrencyLimitHolder(processingType).get();
+  }
+
+  private AtomicLong getConcurrencyLimitHolder(ProcessingType processingType) {
+    return processingType == BLOCKING ? blockingConcurrencyLimit : cpuIntensiveConcurrencyLimit;
+  }
+
 }
@@ -0,0 +1,295 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.internal.processor.strategy;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.System.nanoTime;
+import static reactor.core.publisher.Flux.from;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+/**
+ * Limits the number of in-flight executions using an additive-increase/multiplicative-decrease (AIMD) algorithm.
+ * <p>
+ * The limit grows by one every time an execution completes with a latency close to the observed baseline while the limiter is
+ * being used, and is reduced multiplicatively when a {@link RejectedExecutionException} is observed or the latency of an
+ * execution exceeds the baseline by more than the configured tolerance. The limit never goes below {@code minLimit} nor above
+ * {@code maxLimit}.
+ * <p>
+ * Executions that can't be admitted because the limit is reached are queued and admitted, in order, as soon as a permit is
+ * released, rather than being retried. A queued execution is subscribed to through the executor given when it was limited, not
+ * on the thread that released the permit.
+ *
+ * @since 4.1
+ */
+final class AdaptiveConcurrencyLimiter {
+
+  private static final double BASELINE_SMOOTHING = 0.05;
+
+  private final int minLimit;
+  private final int maxLimit;
+  private final double backoffRatio;
+  private final double latencyTolerance;
+
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+  private final Queue<MonoSink<Object>> releaseListeners = new ConcurrentLinkedQueue<>();
+
+  private volatile int limit;
+  private IntConsumer limitListener = limit -> {
+  };
+
+  private double baselineLatency = -1;
+
+  /**
+   * Creates a new limiter.
+   *
+   * @param initialLimit the limit to use before any execution latency has been observed.
+   * @param minLimit the lower bound of the limit.
+   * @param maxLimit the upper bound of the limit.
+   * @param backoffRatio the ratio, between 0 and 1, to apply to the limit when a drop is detected.
+   * @param latencyTolerance how many times the baseline latency an execution can take before it is considered a drop.
+   */
+  AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double backoffRatio, double latencyTolerance) {
+    if (minLimit < 1 || maxLimit < minLimit) {
+      throw new IllegalArgumentException("Invalid limit bounds [" + minLimit + ", " + maxLimit + "]");
+    }
+    if (backoffRatio <= 0 || backoffRatio >= 1) {
+      throw new IllegalArgumentException("backoffRatio must be between 0 and 1: " + backoffRatio);
+    }
+    this.limit = min(max(initialLimit, minLimit), maxLimit);
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.backoffRatio = backoffRatio;
+    this.latencyTolerance = latencyTolerance;
+  }
+
+  /**
+   * Decorates the given {@code publisher} so that it is only subscribed to when a permit is available, and the permit is released
+   * when it terminates. Permits are granted on the thread that releases them.
+   *
+   * @param publisher the execution to limit.
+   * @return the limited execution.
+   * @see #limit(Publisher, Executor)
+   */
+  <T> Publisher<T> limit(Publisher<T> publisher) {
+    return limit(publisher, Runnable::run);
+  }
+
+  /**
+   * Decorates the given {@code publisher} so that it is only subscribed to when a permit is available, and the permit is released
+   * when it terminates.
+   * <p>
+   * If a permit is available right away, the {@code publisher} is subscribed to on the calling thread. Otherwise, it is
+   * subscribed to through {@code grantExecutor} once a permit is released.
+   * <p>
+   * If the execution is rejected, its permit is released before the {@link RejectedExecutionException} is propagated, so that
+   * whoever handles it sees only the permits held by other executions.
+   *
+   * @param publisher the execution to limit.
+   * @param grantExecutor the executor to subscribe to {@code publisher} when it was waiting for a permit.
+   * @return the limited execution.
+   */
+  <T> Publisher<T> limit(Publisher<T> publisher, Executor grantExecutor) {
+    return Mono.<Long>create(sink -> {
+      Waiter waiter = new Waiter(sink, grantExecutor);
+      sink.onCancel(waiter::cancel);
+      acquire(waiter);
+    }).flatMapMany(start -> {
+      AtomicBoolean released = new AtomicBoolean();
+      Runnable releaseOnce = () -> {
+        if (released.compareAndSet(false, true)) {
+          release();
+        }
+      };
+      return from(publisher)
+          .doOnError(RejectedExecutionException.class, e -> {
+            releaseOnce.run();
+            onDrop();
+          })
+          .doOnComplete(() -> onSample(nanoTime() - start))
+          .doFinally(signal -> releaseOnce.run());
+    });
+  }
+
+  /**
+   * Provides a {@link Publisher} that completes the next time a permit is released. If there are no executions in-flight, it
+   * completes immediately.
+   *
+   * @return a publisher signalling the release of a permit.
+   */
+  Mono<Object> nextRelease() {
+    return Mono.create(sink -> {
+      releaseListeners.offer(sink);
+      if (inFlight.get() == 0 && releaseListeners.remove(sink)) {
+        sink.success();
+      }
+    });
+  }
+
+  /**
+   * Registers a listener to be notified each time the limit changes.
+   *
+   * @param limitListener the listener.
+   */
+  void setLimitListener(IntConsumer limitListener) {
+    this.limitListener = limitListener;
+    limitListener.accept(limit);
+  }
+
+  /**
+   * @return the current limit.
+   */
+  int getLimit() {
+    return limit;
+  }
+
+  /**
+   * @return the number of executions currently admitted.
+   */
+  int getInFlight() {
+    return inFlight.get();
+  }
+
+  /**
+   * Callback for when an admitted execution completes successfully.
+   *
+   * @param latencyNanos the time elapsed between the execution was admitted and its completion.
+   */
+  synchronized void onSample(long latencyNanos) {
+    if (baselineLatency < 0) {
+      baselineLatency = latencyNanos;
+    } else if (latencyNanos > baselineLatency * latencyTolerance) {
+      baselineLatency += (latencyNanos - baselineLatency) * BASELINE_SMOOTHING;
+      updateLimit((int) (limit * backoffRatio));
+      return;
+    } else {
+      baselineLatency += (latencyNanos - baselineLatency) * BASELINE_SMOOTHING;
+    }
+
+    // Only grow the limit when it is actually being used, otherwise it would grow unbounded for lightly loaded flows.
+    if (getInFlight() * 2 >= limit) {
+      updateLimit(limit + 1);
+    }
+  }
+
+  /**
+   * Callback for when an admitted execution is rejected by the underlying resource.
+   */
+  synchronized void onDrop() {
+    updateLimit((int) (limit * backoffRatio));
+  }
+
+  private void updateLimit(int newLimit) {
+    newLimit = min(max(newLimit, minLimit), maxLimit);
+    if (newLimit != limit) {
+      int previous = limit;
+      limit = newLimit;
+      limitListener.accept(newLimit);
+      if (newLimit > previous) {
+        drain();
+      }
+    }
+  }
+
+  private void acquire(Waiter waiter) {
+    if (tryAcquire()) {
+      waiter.grant();
+    } else {
+      waiters.offer(waiter);
+      // capacity may have been released between the failed attempt and the offer
+      drain();
+    }
+  }
+
+  private boolean tryAcquire() {
+    for (;;) {
+      int current = inFlight.get();
+      if (current >= limit) {
+        return false;
+      }
+      if (inFlight.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  private void release() {
+    inFlight.decrementAndGet();
+    drain();
+
+    MonoSink<Object> releaseListener;
+    while ((releaseListener = releaseListeners.poll()) != null) {
+      releaseListener.success();
+    }
+  }
+
+  private void drain() {
+    while (!waiters.isEmpty() && tryAcquire()) {
+      Waiter waiter = waiters.poll();
+      if (waiter == null) {
+        inFlight.decrementAndGet();
+      } else {
+        waiter.dispatchGrant();
+      }
+    }
+  }
+
+  /**
+   * An execution waiting to be admitted.
+   */
+  private final class Waiter {
+
+    private static final int WAITING = 0;
+    private static final int GRANTED = 1;
+    private static final int CANCELLED = 2;
+
+    private final MonoSink<Long> sink;
+    private final Executor grantExecutor;
+    private final AtomicInteger state = new AtomicInteger(WAITING);
+
+    Waiter(MonoSink<Long> sink, Executor grantExecutor) {
+      this.sink = sink;
+      this.grantExecutor = grantExecutor;
+    }
+
+    /**
+     * Grants the permit through the executor of this waiter, so the thread that released the permit doesn't run the execution.
+     */
+    void dispatchGrant() {
+      try {
+        grantExecutor.execute(this::grant);
+      } catch (RejectedExecutionException e) {
+        grant();
+      }
+    }
+
+    void grant() {
+      if (state.compareAndSet(WAITING, GRANTED)) {
+        sink.success(nanoTime());
+      } else {
+        // The execution was cancelled while waiting, so the permit given to it must be returned.
+        release();
+      }
+    }
+
+    void cancel() {
+      state.compareAndSet(WAITING, CANCELLED);
+    }
+  }
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.internal.processor.strategy;
+
+import static java.lang.Integer.getInteger;
+import static java.lang.Math.min;
+import static java.lang.Runtime.getRuntime;
+import static java.time.Duration.ofMillis;
+import static org.mule.runtime.core.api.processor.ReactiveProcessor.ProcessingType.BLOCKING;
+import static org.mule.runtime.core.api.processor.ReactiveProcessor.ProcessingType.CPU_INTENSIVE;
+import static org.mule.runtime.core.api.processor.ReactiveProcessor.ProcessingType.CPU_LITE;
+import static org.slf4j.LoggerFactory.getLogger;
+import static reactor.core.publisher.Flux.error;
+import static reactor.core.publisher.Flux.from;
+import static reactor.core.publisher.Flux.just;
+import static reactor.core.publisher.Mono.delay;
+import static reactor.core.scheduler.Schedulers.fromExecutorService;
+
+import org.mule.runtime.api.scheduler.Scheduler;
+import org.mule.runtime.core.api.MuleContext;
+import org.mule.runtime.core.api.construct.FlowConstruct;
+import org.mule.runtime.core.api.processor.ReactiveProcessor;
+import org.mule.runtime.core.api.processor.Sink;
+import org.mule.runtime.core.api.processor.strategy.ProcessingStrategy;
+import org.mule.runtime.core.internal.management.stats.DefaultFlowConstructStatistics;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+
+/**
+ * Creates {@link AdaptiveProactorStreamProcessingStrategy} instances. These behave like the ones created by
+ * {@link ProactorStreamProcessingStrategyFactory}, but instead of using a fixed {@code maxConcurrency} for the
+ * {@link ReactiveProcessor.ProcessingType#BLOCKING} and {@link ReactiveProcessor.ProcessingType#CPU_INTENSIVE} processors, the
+ * number of events being processed concurrently by those processors in a flow is adjusted by an
+ * {@link AdaptiveConcurrencyLimiter} based on the observed latency and on the rejections of the schedulers.
+ * <p>
+ * Blocking and cpu intensive processors have a limiter each, so the latency of blocking operations doesn't throttle cpu
+ * intensive ones. The configured {@code maxConcurrency} is used as the upper bound of both limits. The current limits are
+ * published through the statistics of the flow.
+ * <p>
+ * This processing strategy is not suitable for transactional flows and will fail if used with an active transaction.
+ *
+ * @since 4.1
+ */
+public class AdaptiveProactorStreamProcessingStrategyFactory extends ProactorStreamProcessingStrategyFactory {
+
+  private static final String SYSTEM_PROPERTY_PREFIX = AdaptiveProactorStreamProcessingStrategyFactory.class.getName() + ".";
+
+  public static final int DEFAULT_INITIAL_LIMIT =
+      getInteger(SYSTEM_PROPERTY_PREFIX + "DEFAULT_INITIAL_LIMIT", getRuntime().availableProcessors() * 2);
+  public static final int DEFAULT_MIN_LIMIT = getInteger(SYSTEM_PROPERTY_PREFIX + "DEFAULT_MIN_LIMIT", 1);
+  public static final double DEFAULT_BACKOFF_RATIO = 0.9;
+  public static final double DEFAULT_LATENCY_TOLERANCE = 2.0;
+
+  private int initialLimit = DEFAULT_INITIAL_LIMIT;
+  private int minLimit = DEFAULT_MIN_LIMIT;
+  private double backoffRatio = DEFAULT_BACKOFF_RATIO;
+  private double latencyTolerance = DEFAULT_LATENCY_TOLERANCE;
+
+  /**
+   * Configure the concurrency limit to use before any latency has been observed.
+   *
+   * @param initialLimit the initial limit.
+   */
+  public void setInitialLimit(int initialLimit) {
+    this.initialLimit = initialLimit;
+  }
+
+  /**
+   * Configure the lower bound for the concurrency limit.
+   *
+   * @param minLimit the minimum limit. Must be greater than 0.
+   */
+  public void setMinLimit(int minLimit) {
+    if (minLimit < 1) {
+      throw new IllegalArgumentException("minLimit must be greater than 0: " + minLimit);
+    }
+    this.minLimit = minLimit;
+  }
+
+  /**
+   * Configure the ratio to apply to the concurrency limit when a scheduler rejects a task or latency degrades.
+   *
+   * @param backoffRatio a value between 0 and 1.
+   */
+  public void setBackoffRatio(double backoffRatio) {
+    if (backoffRatio <= 0 || backoffRatio >= 1) {
+      throw new IllegalArgumentException("backoffRatio must be between 0 and 1: " + backoffRatio);
+    }
+    this.backoffRatio = backoffRatio;
+  }
+
+  /**
+   * Configure how many times the baseline latency the processing of an event can take before the concurrency limit is reduced.
+   *
+   * @param latencyTolerance a value greater than 1.
+   */
+  public void setLatencyTolerance(double latencyTolerance) {
+    if (latencyTolerance <= 1) {
+      throw new IllegalArgumentException("latencyTolerance must be greater than 1: " + latencyTolerance);
+    }
+    this.latencyTolerance = latencyTolerance;
+  }
+
+  @Override
+  public ProcessingStrategy create(MuleContext muleContext, String schedulersNamePrefix) {
+    if (getMaxConcurrency() == 1) {
+      return super.create(muleContext, schedulersNamePrefix);
+    } else {
+      return new AdaptiveProactorStreamProcessingStrategy(() -> muleContext.getSchedulerService()
+          .customScheduler(muleContext.getSchedulerBaseConfig()
+              .withName(schedulersNamePrefix + RING_BUFFER_SCHEDULER_NAME_SUFFIX)
+              .withMaxConcurrentTasks(getSubscriberCount() + 1)),
+                                                          getBufferSize(),
+                                                          getSubscriberCount(),
+                                                          getWaitStrategy(), () -> muleContext.getSchedulerService()
+                                                              .cpuLightScheduler(muleContext.getSchedulerBaseConfig()
+                                                                  .withName(schedulersNamePrefix + "." + CPU_LITE.name())),
+                                                          () -> muleContext.getSchedulerService()
+                                                              .ioScheduler(muleContext.getSchedulerBaseConfig()
+                                                                  .withName(schedulersNamePrefix + "." + BLOCKING.name())),
+                                                          () -> muleContext.getSchedulerService()
+                                                              .cpuIntensiveScheduler(muleContext.getSchedulerBaseConfig()
+                                                                  .withName(schedulersNamePrefix + "."
+                                                                      + CPU_INTENSIVE.name())),
+                                                          getMaxConcurrency(),
+                                                          createLimiter(),
+                                                          createLimiter());
+    }
+  }
+
+  private AdaptiveConcurrencyLimiter createLimiter() {
+    return new AdaptiveConcurrencyLimiter(min(initialLimit, getMaxConcurrency()), min(minLimit, getMaxConcurrency()),
+                                          getMaxConcurrency(), backoffRatio, latencyTolerance);
+  }
+
+  @Override
+  public Class<? extends ProcessingStrategy> getProcessingStrategyType() {
+    if (getMaxConcurrency() == 1) {
+      return super.getProcessingStrategyType();
+    } else {
+      return AdaptiveProactorStreamProcessingStrategy.class;
+    }
+  }
+
+  static class AdaptiveProactorStreamProcessingStrategy extends ProactorStreamProcessingStrategy {
+
+    private static Logger LOGGER = getLogger(AdaptiveProactorStreamProcessingStrategy.class);
+    private static int SCHEDULER_BUSY_RETRY_INTERVAL_MS = 10;
+
+    private final AdaptiveConcurrencyLimiter blockingLimiter;
+    private final AdaptiveConcurrencyLimiter cpuIntensiveLimiter;
+
+    AdaptiveProactorStreamProcessingStrategy(Supplier<Scheduler> ringBufferSchedulerSupplier,
+                                             int bufferSize,
+                                             int subscriberCount,
+                                             String waitStrategy,
+                                             Supplier<Scheduler> cpuLightSchedulerSupplier,
+                                             Supplier<Scheduler> blockingSchedulerSupplier,
+                                             Supplier<Scheduler> cpuIntensiveSchedulerSupplier,
+                                             int maxConcurrency,
+                                             AdaptiveConcurrencyLimiter blockingLimiter,
+                                             AdaptiveConcurrencyLimiter cpuIntensiveLimiter) {
+      super(ringBufferSchedulerSupplier, bufferSize, subscriberCount, waitStrategy, cpuLightSchedulerSupplier,
+            blockingSchedulerSupplier, cpuIntensiveSchedulerSupplier, maxConcurrency);
+      this.blockingLimiter = blockingLimiter;
+      this.cpuIntensiveLimiter = cpuIntensiveLimiter;
+    }
+
+    @Override
+    public Sink createSink(FlowConstruct flowConstruct, ReactiveProcessor function) {
+      if (flowConstruct.getStatistics() instanceof DefaultFlowConstructStatistics) {
+        DefaultFlowConstructStatistics statistics = (DefaultFlowConstructStatistics) flowConstruct.getStatistics();
+        blockingLimiter.setLimitListener(limit -> statistics.setConcurrencyLimit(BLOCKING, limit));
+        cpuIntensiveLimiter.setLimitListener(limit -> statistics.setConcurrencyLimit(CPU_INTENSIVE, limit));
+      }
+      return super.createSink(flowConstruct, function);
+    }
+
+    @Override
+    public ReactiveProcessor onProcessor(ReactiveProcessor processor) {
+      if (processor.getProcessingType() == BLOCKING && maxConcurrency > subscribers) {
+        return limit(processor, getBlockingScheduler(), blockingLimiter);
+      } else if (processor.getProcessingType() == CPU_INTENSIVE && maxConcurrency > subscribers) {
+        return limit(processor, getCpuIntensiveScheduler(), cpuIntensiveLimiter);
+      } else {
+        return super.onProcessor(processor);
+      }
+    }
+
+    private ReactiveProcessor limit(ReactiveProcessor processor, Scheduler scheduler, AdaptiveConcurrencyLimiter limiter) {
+      return publisher -> from(publisher)
+          .flatMap(event -> from(limiter.limit(just(event).transform(processor)
+              .publishOn(fromExecutorService(decorateScheduler(getCpuLightScheduler())))
+              .subscribeOn(fromExecutorService(decorateScheduler(scheduler))), getCpuLightScheduler()))
+                  .retryWhen(errors -> errors.<Object>flatMap(throwable -> {
+                    if (!(throwable instanceof RejectedExecutionException)) {
+                      return error(throwable);
+                    } else if (limiter.getInFlight() > 0) {
+                      // The permit of the rejected attempt is already released, so this counts other events only. One of them
+                      // will release its permit when done, so retry then instead of polling, off the releasing thread.
+                      return limiter.nextRelease().publishOn(fromExecutorService(getCpuLightScheduler()));
+                    } else {
+                      LOGGER.trace("Shared scheduler " + scheduler.getName() + " is busy and no events of this "
+                          + "processing type are in-flight for this flow. Scheduling of the current event will be retried after "
+                          + SCHEDULER_BUSY_RETRY_INTERVAL_MS + "ms.");
+                      return delay(ofMillis(SCHEDULER_BUSY_RETRY_INTERVAL_MS), fromExecutorService(getCpuLightScheduler()));
+                    }
+                  })),
+                   maxConcurrency);
+    }
+
+    AdaptiveConcurrencyLimiter getBlockingLimiter() {
+      return blockingLimiter;
+    }
+
+    AdaptiveConcurrencyLimiter getCpuIntensiveLimiter() {
+      return cpuIntensiveLimiter;
+    }
+  }
+
+}
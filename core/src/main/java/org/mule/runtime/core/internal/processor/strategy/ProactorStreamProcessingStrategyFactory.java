@@ -133,7 +133,15 @@ public class ProactorStreamProcessingStrategyFactory extends ReactorStreamProces
       }
     }
 
-    private ReactiveProcessor proactor(ReactiveProcessor processor, Scheduler scheduler) {
+    protected Scheduler getBlockingScheduler() {
+      return blockingScheduler;
+    }
+
+    protected Scheduler getCpuIntensiveScheduler() {
+      return cpuIntensiveScheduler;
+    }
+
+    protected ReactiveProcessor proactor(ReactiveProcessor processor, Scheduler scheduler) {
       return publisher -> from(publisher)
           .flatMap(event -> just(event).transform(processor)
               .publishOn(fromExecutorService(decorateScheduler(getCpuLightScheduler())))
@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.internal.processor.strategy;
+
+import static org.mule.runtime.core.api.processor.ReactiveProcessor.ProcessingType.BLOCKING;
+import static org.mule.runtime.core.api.processor.ReactiveProcessor.ProcessingType.CPU_INTENSIVE;
+import static org.mule.runtime.core.api.processor.ReactiveProcessor.ProcessingType.CPU_LITE;
+import static org.slf4j.LoggerFactory.getLogger;
+import static reactor.core.publisher.Flux.from;
+import static reactor.core.publisher.Flux.just;
+import static reactor.core.scheduler.Schedulers.fromExecutorService;
+
+import org.mule.runtime.api.exception.MuleException;
+import org.mule.runtime.api.scheduler.Scheduler;
+import org.mule.runtime.api.scheduler.SchedulerService;
+import org.mule.runtime.core.api.MuleContext;
+import org.mule.runtime.core.api.processor.ReactiveProcessor;
+import org.mule.runtime.core.api.processor.strategy.ProcessingStrategy;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+
+/**
+ * Creates {@link VirtualThreadProactorStreamProcessingStrategy} instances. These behave like the ones created by
+ * {@link ProactorStreamProcessingStrategyFactory}, but {@link ReactiveProcessor.ProcessingType#BLOCKING} processors are executed
+ * each on its own virtual thread instead of on the bounded {@link SchedulerService#ioScheduler()}, so the number of concurrent
+ * blocking operations is not limited by the size of a platform thread pool.
+ * <p>
+ * Virtual threads are only available on JVMs that support them. When running on a JVM without virtual threads support, this
+ * factory creates the same processing strategy as {@link ProactorStreamProcessingStrategyFactory}.
+ * <p>
+ * This processing strategy is not suitable for transactional flows and will fail if used with an active transaction.
+ *
+ * @since 4.1
+ */
+public class VirtualThreadProactorStreamProcessingStrategyFactory extends ProactorStreamProcessingStrategyFactory {
+
+  private static final Logger LOGGER = getLogger(VirtualThreadProactorStreamProcessingStrategyFactory.class);
+
+  private static final boolean VIRTUAL_THREADS_SUPPORTED = isVirtualThreadsSupported();
+
+  @Override
+  public ProcessingStrategy create(MuleContext muleContext, String schedulersNamePrefix) {
+    if (getMaxConcurrency() == 1 || !VIRTUAL_THREADS_SUPPORTED) {
+      return super.create(muleContext, schedulersNamePrefix);
+    } else {
+      return new VirtualThreadProactorStreamProcessingStrategy(() -> muleContext.getSchedulerService()
+          .customScheduler(muleContext.getSchedulerBaseConfig()
+              .withName(schedulersNamePrefix + RING_BUFFER_SCHEDULER_NAME_SUFFIX)
+              .withMaxConcurrentTasks(getSubscriberCount() + 1)),
+                                                               getBufferSize(),
+                                                               getSubscriberCount(),
+                                                               getWaitStrategy(), () -> muleContext.getSchedulerService()
+                                                                   .cpuLightScheduler(muleContext.getSchedulerBaseConfig()
+                                                                       .withName(schedulersNamePrefix + "." + CPU_LITE.name())),
+                                                               () -> createVirtualThreadExecutor(schedulersNamePrefix + "."
+                                                                   + BLOCKING.name() + ".virtual-"),
+                                                               () -> muleContext.getSchedulerService()
+                                                                   .cpuIntensiveScheduler(muleContext.getSchedulerBaseConfig()
+                                                                       .withName(schedulersNamePrefix + "."
+                                                                           + CPU_INTENSIVE.name())),
+                                                               getMaxConcurrency());
+    }
+  }
+
+  @Override
+  public Class<? extends ProcessingStrategy> getProcessingStrategyType() {
+    if (getMaxConcurrency() == 1 || !VIRTUAL_THREADS_SUPPORTED) {
+      return super.getProcessingStrategyType();
+    } else {
+      return VirtualThreadProactorStreamProcessingStrategy.class;
+    }
+  }
+
+  /**
+   * @return whether the running JVM supports virtual threads.
+   */
+  public static boolean isVirtualThreadsSupported() {
+    ExecutorService executor = createVirtualThreadExecutor("virtual-threads-check-");
+    if (executor == null) {
+      return false;
+    } else {
+      executor.shutdown();
+      return true;
+    }
+  }
+
+  /**
+   * Creates an {@link ExecutorService} that starts a new virtual thread for each task, by reflection so that this class can be
+   * loaded on JVMs without virtual threads support.
+   *
+   * @param namePrefix the prefix for the names of the created threads.
+   * @return the executor, or {@code null} if the running JVM doesn't support virtual threads.
+   */
+  static ExecutorService createVirtualThreadExecutor(String namePrefix) {
+    try {
+      Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+      Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+      ThreadFactory threadFactory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+      return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+          .invoke(null, threadFactory);
+    } catch (ReflectiveOperationException | LinkageError e) {
+      LOGGER.debug("Virtual threads are not supported by the running JVM", e);
+      return null;
+    }
+  }
+
+  static class VirtualThreadProactorStreamProcessingStrategy extends ProactorStreamProcessingStrategy {
+
+    private Supplier<ExecutorService> virtualThreadExecutorSupplier;
+    private ExecutorService virtualThreadExecutor;
+
+    VirtualThreadProactorStreamProcessingStrategy(Supplier<Scheduler> ringBufferSchedulerSupplier,
+                                                  int bufferSize,
+                                                  int subscriberCount,
+                                                  String waitStrategy,
+                                                  Supplier<Scheduler> cpuLightSchedulerSupplier,
+                                                  Supplier<ExecutorService> virtualThreadExecutorSupplier,
+                                                  Supplier<Scheduler> cpuIntensiveSchedulerSupplier,
+                                                  int maxConcurrency) {
+      // No IO scheduler is needed, blocking processors are run on virtual threads.
+      super(ringBufferSchedulerSupplier, bufferSize, subscriberCount, waitStrategy, cpuLightSchedulerSupplier, () -> null,
+            cpuIntensiveSchedulerSupplier, maxConcurrency);
+      this.virtualThreadExecutorSupplier = virtualThreadExecutorSupplier;
+    }
+
+    @Override
+    public void start() throws MuleException {
+      super.start();
+      this.virtualThreadExecutor = virtualThreadExecutorSupplier.get();
+    }
+
+    @Override
+    public void stop() throws MuleException {
+      if (virtualThreadExecutor != null) {
+        virtualThreadExecutor.shutdownNow();
+      }
+      super.stop();
+    }
+
+    @Override
+    public ReactiveProcessor onProcessor(ReactiveProcessor processor) {
+      if (processor.getProcessingType() == BLOCKING && maxConcurrency > subscribers) {
+        return publisher -> from(publisher)
+            .flatMap(event -> just(event).transform(processor)
+                .publishOn(fromExecutorService(decorateScheduler(getCpuLightScheduler())))
+                .subscribeOn(fromExecutorService(virtualThreadExecutor)),
+                     maxConcurrency);
+      } else {
+        return super.onProcessor(processor);
+      }
+    }
+  }
+
+}
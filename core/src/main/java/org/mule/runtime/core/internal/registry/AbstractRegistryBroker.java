@@ -11,6 +11,7 @@ import org.mule.runtime.api.lifecycle.Initialisable;
 import org.mule.runtime.api.lifecycle.InitialisationException;
 import org.mule.runtime.api.lifecycle.LifecycleException;
 import org.mule.runtime.core.api.MuleContext;
+import org.mule.runtime.core.internal.lifecycle.LifecycleDependencyResolver;
 import org.mule.runtime.core.internal.lifecycle.LifecycleInterceptor;
 import org.mule.runtime.core.internal.lifecycle.RegistryBrokerLifecycleManager;
 import org.mule.runtime.core.privileged.registry.RegistrationException;
@@ -18,6 +19,7 @@ import org.mule.runtime.core.privileged.registry.RegistrationException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
@@ -26,7 +28,7 @@ import java.util.Set;
  * @deprecated as of 3.7.0. This will be removed in Mule 4.0
  */
 @Deprecated
-public abstract class AbstractRegistryBroker implements RegistryBroker, RegistryProvider {
+public abstract class AbstractRegistryBroker implements RegistryBroker, RegistryProvider, LifecycleDependencyResolver {
 
   private RegistryBrokerLifecycleManager lifecycleManager;
 
@@ -185,6 +187,21 @@ public abstract class AbstractRegistryBroker implements RegistryBroker, Registry
     return objects;
   }
 
+  /**
+   * Merges the dependencies resolved by each of the registries which are a {@link LifecycleDependencyResolver}
+   */
+  @Override
+  public Map<Object, Collection<Object>> resolveLifecycleDependencies(Collection<?> objects) {
+    Map<Object, Collection<Object>> dependencies = new IdentityHashMap<>();
+    for (Registry registry : getRegistries()) {
+      if (registry instanceof LifecycleDependencyResolver) {
+        dependencies.putAll(((LifecycleDependencyResolver) registry).resolveLifecycleDependencies(objects));
+      }
+    }
+
+    return dependencies;
+  }
+
   @Override
   public boolean isSingleton(String key) {
     boolean singleton = false;
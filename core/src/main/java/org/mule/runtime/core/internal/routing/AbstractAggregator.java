@@ -7,6 +7,7 @@
 package org.mule.runtime.core.internal.routing;
 
 import static java.lang.String.format;
+import static org.apache.commons.lang3.StringUtils.isEmpty;
 import static org.mule.runtime.api.store.ObjectStoreManager.BASE_IN_MEMORY_OBJECT_STORE_KEY;
 import static org.mule.runtime.api.store.ObjectStoreManager.BASE_PERSISTENT_OBJECT_STORE_KEY;
 import static org.mule.runtime.core.api.config.MuleProperties.OBJECT_STORE_MANAGER;
@@ -63,6 +64,7 @@ public abstract class AbstractAggregator extends AbstractInterceptingMessageProc
 
   private ObjectStore<Long> processedGroupsObjectStore;
   private PartitionableObjectStore eventGroupsObjectStore;
+  private boolean eventGroupsObjectStoreProvided = false;
 
   protected boolean persistentStores;
   protected String storePrefix = null;
@@ -85,6 +87,9 @@ public abstract class AbstractAggregator extends AbstractInterceptingMessageProc
 
     eventCorrelator.setTimeout(timeout);
     eventCorrelator.setFailOnTimeout(isFailOnTimeout());
+    // a store provided by the user may be shared with other components, and a persistent or clustered one with other nodes
+    eventCorrelator.setExclusiveStore(!persistentStores && !eventGroupsObjectStoreProvided
+        && isEmpty(muleContext.getClusterId()));
   }
 
   protected void initProcessedGroupsObjectStore() {
@@ -194,6 +199,7 @@ public abstract class AbstractAggregator extends AbstractInterceptingMessageProc
   }
 
   public void setEventGroupsObjectStore(PartitionableObjectStore<CoreEvent> eventGroupsObjectStore) {
+    this.eventGroupsObjectStoreProvided = eventGroupsObjectStore != null;
     this.eventGroupsObjectStore =
         //TODO: Delete ProvidedObjectStoreWrapper if not needed when moving this to compatibility
         new ProvidedPartitionableObjectStoreWrapper(eventGroupsObjectStore, internalEventsGroupsObjectStoreSupplier());
@@ -6,6 +6,7 @@
  */
 package org.mule.runtime.core.internal.routing;
 
+import static java.lang.Math.max;
 import static java.util.stream.Collectors.toList;
 import static org.mule.runtime.core.api.message.GroupCorrelation.NOT_SET;
 import static org.mule.runtime.core.api.util.StringUtils.DASH;
@@ -26,6 +27,7 @@ import org.mule.runtime.core.privileged.event.PrivilegedEvent;
 import org.apache.commons.collections.IteratorUtils;
 
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Iterator;
@@ -35,6 +37,13 @@ import java.util.Optional;
 /**
  * <code>EventGroup</code> is a holder over events grouped by a common group Id. This can be used by components such as routers to
  * managed related events.
+ * <p>
+ * Events are kept in the events object store so the group can be recovered, and are also folded on arrival into an in-memory
+ * accumulator that holds them in arrival order along with their merged session. Reading the group only goes to the object store
+ * the first time after this instance is created or deserialized, to rebuild that accumulator.
+ * <p>
+ * The accumulator assumes this instance is the only writer of the group. Events stored in its partition by another instance, for
+ * example by another node sharing a persistent object store, are not seen until the group is retrieved from the store again.
  */
 // @ThreadSafe
 public class EventGroup implements Comparable<EventGroup>, Serializable, DeserializationPostInitialisable {
@@ -57,6 +66,11 @@ public class EventGroup implements Comparable<EventGroup>, Serializable, Deseria
   transient private MuleContext muleContext;
   private int arrivalOrderCounter = 0;
 
+  // @GuardedBy this
+  private transient List<PrivilegedEvent> arrivedEvents;
+  // @GuardedBy this
+  private transient MuleSession mergedSession;
+
   public static final String DEFAULT_STORE_PREFIX = "DEFAULT_STORE";
 
   public EventGroup(Object groupId, MuleContext muleContext) {
@@ -163,7 +177,7 @@ public class EventGroup implements Comparable<EventGroup>, Serializable, Deseria
   @SuppressWarnings("unchecked")
   public Iterator<CoreEvent> iterator(boolean sortByArrival) throws ObjectStoreException {
     synchronized (this) {
-      if (eventsObjectStore.allKeys(eventsPartitionKey).isEmpty()) {
+      if (getArrivedEvents().isEmpty()) {
         return IteratorUtils.emptyIterator();
       } else {
         return IteratorUtils.arrayIterator(this.toArray(sortByArrival));
@@ -183,25 +197,19 @@ public class EventGroup implements Comparable<EventGroup>, Serializable, Deseria
   }
 
   /**
-   * Returns a snapshot of collected events in this group, optionally sorted by their arrival time.
+   * Returns a snapshot of collected events in this group. Events are always kept in their arrival order, so
+   * {@code sortByArrival} has no effect.
    *
    * @return an array of collected {@link CoreEvent}s.
    * @throws ObjectStoreException
    */
   public PrivilegedEvent[] toArray(boolean sortByArrival) throws ObjectStoreException {
     synchronized (this) {
-      if (eventsObjectStore.allKeys(eventsPartitionKey).isEmpty()) {
+      List<PrivilegedEvent> events = getArrivedEvents();
+      if (events.isEmpty()) {
         return EMPTY_EVENTS_ARRAY;
       }
-      List<String> keys = eventsObjectStore.allKeys(eventsPartitionKey);
-      PrivilegedEvent[] eventArray = new PrivilegedEvent[keys.size()];
-      for (int i = 0; i < keys.size(); i++) {
-        eventArray[i] = (PrivilegedEvent) eventsObjectStore.retrieve(keys.get(i), eventsPartitionKey);
-      }
-      if (sortByArrival) {
-        Arrays.sort(eventArray, new ArrivalOrderEventComparator());
-      }
-      return eventArray;
+      return events.toArray(new PrivilegedEvent[events.size()]);
     }
   }
 
@@ -213,11 +221,53 @@ public class EventGroup implements Comparable<EventGroup>, Serializable, Deseria
    */
   public void addEvent(CoreEvent event) throws ObjectStoreException {
     synchronized (this) {
+      // rebuilding the events first restores the arrival order counter of a deserialized group
+      List<PrivilegedEvent> events = getArrivedEvents();
       event = CoreEvent.builder(event).addVariable(MULE_ARRIVAL_ORDER_PROPERTY, ++arrivalOrderCounter).build();
       // Using both event ID and CorrelationSequence since in certain instances
       // when an event is split up, the same event IDs are used.
       String key = getEventKey(event);
       eventsObjectStore.store(key, event, eventsPartitionKey);
+      accumulate(events, (PrivilegedEvent) event);
+    }
+  }
+
+  /**
+   * Returns the events of this group in arrival order, rebuilding them from the events object store if this instance does not
+   * have them yet.
+   */
+  // @GuardedBy this
+  private List<PrivilegedEvent> getArrivedEvents() throws ObjectStoreException {
+    if (arrivedEvents == null) {
+      List<String> keys = eventsObjectStore.allKeys(eventsPartitionKey);
+      PrivilegedEvent[] storedEvents = new PrivilegedEvent[keys.size()];
+      for (int i = 0; i < keys.size(); i++) {
+        storedEvents[i] = (PrivilegedEvent) eventsObjectStore.retrieve(keys.get(i), eventsPartitionKey);
+      }
+      Arrays.sort(storedEvents, new ArrivalOrderEventComparator());
+
+      List<PrivilegedEvent> events = new ArrayList<>(storedEvents.length);
+      mergedSession = null;
+      for (PrivilegedEvent storedEvent : storedEvents) {
+        accumulate(events, storedEvent);
+      }
+      if (storedEvents.length > 0) {
+        // the counter stored with this group may be older than its events
+        arrivalOrderCounter = max(arrivalOrderCounter, new ArrivalOrderEventComparator()
+            .getEventOrder(storedEvents[storedEvents.length - 1]));
+      }
+      arrivedEvents = events;
+    }
+    return arrivedEvents;
+  }
+
+  // @GuardedBy this
+  private void accumulate(List<PrivilegedEvent> events, PrivilegedEvent event) {
+    events.add(event);
+    if (mergedSession == null) {
+      mergedSession = new DefaultMuleSession(event.getSession());
+    } else {
+      addAndOverrideSessionProperties(mergedSession, event);
     }
   }
 
@@ -247,7 +297,7 @@ public class EventGroup implements Comparable<EventGroup>, Serializable, Deseria
   public int size() {
     synchronized (this) {
       try {
-        return eventsObjectStore.allKeys(eventsPartitionKey).size();
+        return getArrivedEvents().size();
       } catch (ObjectStoreException e) {
         // TODO Check if this is ok.
         return -1;
@@ -273,6 +323,8 @@ public class EventGroup implements Comparable<EventGroup>, Serializable, Deseria
     synchronized (this) {
       eventsObjectStore.clear(eventsPartitionKey);
       eventsObjectStore.disposePartition(eventsPartitionKey);
+      arrivedEvents = new ArrayList<>();
+      mergedSession = null;
     }
   }
 
@@ -286,18 +338,16 @@ public class EventGroup implements Comparable<EventGroup>, Serializable, Deseria
 
     try {
       synchronized (this) {
-        int currentSize;
-
-        currentSize = eventsObjectStore.allKeys(eventsPartitionKey).size();
+        List<PrivilegedEvent> events = getArrivedEvents();
+        int currentSize = events.size();
 
         buf.append(", current events=").append(currentSize);
 
         if (currentSize > 0) {
           buf.append(" [");
-          Iterator<String> i = eventsObjectStore.allKeys(eventsPartitionKey).iterator();
+          Iterator<PrivilegedEvent> i = events.iterator();
           while (i.hasNext()) {
-            String id = i.next();
-            buf.append(eventsObjectStore.retrieve(id, eventsPartitionKey).getCorrelationId());
+            buf.append(i.next().getCorrelationId());
             if (i.hasNext()) {
               buf.append(", ");
             }
@@ -316,19 +366,20 @@ public class EventGroup implements Comparable<EventGroup>, Serializable, Deseria
 
   public CoreEvent getMessageCollectionEvent() {
     try {
-      if (size() > 0) {
-
-        PrivilegedEvent[] muleEvents = toArray(true);
-        CoreEvent lastEvent = muleEvents[muleEvents.length - 1];
-
-        List<Message> messageList = Arrays.stream(muleEvents).map(event -> event.getMessage()).collect(toList());
-
-        final Message.Builder builder = Message.builder().collectionValue(messageList, Message.class);
-        PrivilegedEvent muleEvent =
-            PrivilegedEvent.builder(lastEvent).message(builder.build()).session(getMergedSession(muleEvents)).build();
-        return muleEvent;
-      } else {
-        return null;
+      synchronized (this) {
+        List<PrivilegedEvent> events = getArrivedEvents();
+        if (events.size() > 0) {
+          CoreEvent lastEvent = events.get(events.size() - 1);
+
+          List<Message> messageList = events.stream().map(event -> event.getMessage()).collect(toList());
+
+          final Message.Builder builder = Message.builder().collectionValue(messageList, Message.class);
+          PrivilegedEvent muleEvent = PrivilegedEvent.builder(lastEvent).message(builder.build())
+              .session(new DefaultMuleSession(mergedSession)).build();
+          return muleEvent;
+        } else {
+          return null;
+        }
       }
     } catch (ObjectStoreException e) {
       // Nothing to do...
@@ -356,7 +407,13 @@ public class EventGroup implements Comparable<EventGroup>, Serializable, Deseria
   }
 
   public void initEventsStore(PartitionableObjectStore<CoreEvent> events) throws ObjectStoreException {
-    this.eventsObjectStore = events;
+    synchronized (this) {
+      if (this.eventsObjectStore != events) {
+        arrivedEvents = null;
+        mergedSession = null;
+      }
+      this.eventsObjectStore = events;
+    }
     events.open(eventsPartitionKey);
   }
 
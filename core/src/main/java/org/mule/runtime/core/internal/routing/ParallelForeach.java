@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.internal.routing;
+
+import static java.lang.Runtime.getRuntime;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.mule.runtime.core.api.event.CoreEvent.builder;
+import static org.mule.runtime.core.internal.routing.ExpressionSplittingStrategy.DEFAULT_SPLIT_EXPRESSION;
+import static org.mule.runtime.core.internal.routing.ForkJoinStrategy.RoutingPair.of;
+import static org.mule.runtime.core.privileged.processor.MessageProcessors.getProcessingStrategy;
+import static org.mule.runtime.core.privileged.processor.MessageProcessors.newChain;
+import static reactor.core.publisher.Flux.fromIterable;
+
+import org.mule.runtime.api.lifecycle.InitialisationException;
+import org.mule.runtime.api.message.Message;
+import org.mule.runtime.api.metadata.TypedValue;
+import org.mule.runtime.core.api.event.CoreEvent;
+import org.mule.runtime.core.api.processor.Processor;
+import org.mule.runtime.core.internal.routing.ForkJoinStrategy.RoutingPair;
+import org.mule.runtime.core.internal.routing.forkjoin.CollectListForkJoinStrategyFactory;
+import org.mule.runtime.core.privileged.processor.chain.MessageProcessorChain;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.reactivestreams.Publisher;
+
+/**
+ * The {@code parallel-foreach} {@link Processor} allows iterating over a collection payload, or any collection obtained by an
+ * expression, processing each element with the nested chain in parallel subject to {@code maxConcurrency}.
+ * <p>
+ * Elements are read from the collection iterator as the processing of previous ones completes, so no more than
+ * {@code maxConcurrency} elements are in process at the same time. By default results are aggregated, in the same order as the
+ * elements of the collection, into a {@link List<Message>} payload.
+ * <p>
+ * For advanced use cases, a custom {@link ForkJoinStrategyFactory} can be applied to customize the logic used to aggregate the
+ * results back into one single Event.
+ *
+ * @since 4.1
+ */
+public class ParallelForeach extends AbstractForkJoinRouter {
+
+  private List<Processor> messageProcessors;
+  private String collectionExpression = DEFAULT_SPLIT_EXPRESSION;
+  private SplittingStrategy<CoreEvent, Iterator<TypedValue<?>>> splittingStrategy;
+  private MessageProcessorChain nestedChain;
+
+  @Override
+  protected Consumer<CoreEvent> onEvent() {
+    return event -> {
+      if (collectionExpression.equals(DEFAULT_SPLIT_EXPRESSION)
+          && Map.class.isAssignableFrom(event.getMessage().getPayload().getDataType().getType())) {
+        throw new IllegalArgumentException(Foreach.MAP_NOT_SUPPORTED_MESSAGE);
+      }
+    };
+  }
+
+  @Override
+  protected Publisher<RoutingPair> getRoutingPairs(CoreEvent event) {
+    // The iterator is consumed as the fork-join strategy requests routing pairs, so the collection is never fully loaded.
+    return fromIterable(() -> splittingStrategy.split(event))
+        .map(typedValue -> of(createPartEvent(event, typedValue), nestedChain));
+  }
+
+  private CoreEvent createPartEvent(CoreEvent event, TypedValue<?> typedValue) {
+    if (typedValue.getValue() instanceof Message) {
+      // If value is a Message then use it directly conserving attributes and properties.
+      return builder(event).message((Message) typedValue.getValue()).build();
+    } else {
+      return builder(event).message(Message.builder().payload(typedValue).build()).build();
+    }
+  }
+
+  @Override
+  public void initialise() throws InitialisationException {
+    nestedChain = newChain(getProcessingStrategy(locator, getRootContainerLocation()), messageProcessors);
+    splittingStrategy = new ExpressionSplittingStrategy(muleContext.getExpressionManager(), collectionExpression);
+    super.initialise();
+  }
+
+  @Override
+  protected List<MessageProcessorChain> getOwnedObjects() {
+    return nestedChain != null ? singletonList(nestedChain) : emptyList();
+  }
+
+  public void setMessageProcessors(List<Processor> messageProcessors) {
+    this.messageProcessors = messageProcessors;
+  }
+
+  public void setCollectionExpression(String collectionExpression) {
+    this.collectionExpression = collectionExpression;
+  }
+
+  @Override
+  protected boolean isDelayErrors() {
+    return true;
+  }
+
+  /**
+   * Bounded by default, so that elements are only read from the collection as they can be processed.
+   */
+  @Override
+  protected int getDefaultMaxConcurrency() {
+    return getRuntime().availableProcessors();
+  }
+
+  @Override
+  protected ForkJoinStrategyFactory getDefaultForkJoinStrategyFactory() {
+    return new CollectListForkJoinStrategyFactory();
+  }
+}
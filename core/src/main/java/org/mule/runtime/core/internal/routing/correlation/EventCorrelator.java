@@ -6,6 +6,7 @@
  */
 package org.mule.runtime.core.internal.routing.correlation;
 
+import static java.lang.Math.max;
 import static java.lang.String.format;
 import static java.lang.System.currentTimeMillis;
 import static java.util.concurrent.TimeUnit.DAYS;
@@ -22,7 +23,6 @@ import static org.mule.runtime.core.api.util.StringMessageUtils.truncate;
 import org.mule.runtime.api.exception.DefaultMuleException;
 import org.mule.runtime.api.exception.MuleException;
 import org.mule.runtime.api.exception.MuleRuntimeException;
-import org.mule.runtime.api.lifecycle.Disposable;
 import org.mule.runtime.api.lifecycle.Startable;
 import org.mule.runtime.api.lifecycle.Stoppable;
 import org.mule.runtime.api.notification.NotificationDispatcher;
@@ -44,16 +44,26 @@ import org.mule.runtime.core.internal.routing.EventGroup;
 import org.mule.runtime.core.privileged.registry.RegistrationException;
 import org.mule.runtime.core.privileged.routing.RoutingException;
 import org.mule.runtime.core.privileged.store.DeserializationPostInitialisable;
-import org.mule.runtime.core.privileged.util.monitor.Expirable;
-import org.mule.runtime.core.privileged.util.monitor.ExpiryMonitor;
+import org.mule.runtime.core.privileged.util.monitor.HashedWheelExpiryMonitor;
+import org.mule.runtime.core.privileged.util.monitor.HashedWheelExpiryMonitor.Timeout;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.text.MessageFormat;
-import java.util.ArrayList;
 import java.util.List;
-
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Correlates events into {@link EventGroup}s by their group id, and aggregates each group once it is complete or expires.
+ * <p>
+ * When this correlator is the only writer of its object store, open groups are kept in memory, so the events of a group
+ * accumulate in the same {@link EventGroup} instance. Otherwise, such as when the object store is persistent, provided by the
+ * user or clustered, each group is retrieved from the object store for every event, so the events correlated by other
+ * correlators or nodes are seen as well.
+ */
 public class EventCorrelator implements Startable, Stoppable {
 
   /**
@@ -63,13 +73,34 @@ public class EventCorrelator implements Startable, Stoppable {
 
   public static final String NO_CORRELATION_ID = "no-id";
 
+  /**
+   * Time spanned by each bucket of the expiry wheel, which bounds how late a group expires.
+   */
   private static final long DELAY_TIME = 10;
 
-  protected final Object groupsLock = new Object();
+  private static final int TICKS_PER_WHEEL = 512;
+
+  private static final long RECOVERY_INTERVAL = MINUTES.toMillis(1);
+
+  /**
+   * Amount of locks among which groups are distributed, so events for different groups are correlated concurrently.
+   */
+  private static final int GROUP_LOCK_STRIPES = 64;
 
-  // @GuardedBy groupsLock
+  private final Object[] groupLocks = new Object[GROUP_LOCK_STRIPES];
+
+  // @GuardedBy the lock of each group
   protected ObjectStore<Long> processedGroups = null;
 
+  /**
+   * The groups that are open in this correlator, so their events are accumulated in the same {@link EventGroup} instance instead
+   * of retrieving it from the object store for every event. Only used when {@link #exclusiveStore} is set.
+   */
+  // @GuardedBy the lock of each group
+  private final Map<Object, EventGroup> activeGroups = new ConcurrentHashMap<>();
+
+  private boolean exclusiveStore = false;
+
   private long timeout = -1; // undefined
 
   private boolean failOnTimeout = true;
@@ -90,7 +121,8 @@ public class EventCorrelator implements Startable, Stoppable {
   private String storePrefix;
 
   private Scheduler scheduler;
-  private ExpiringGroupMonitoringRunnable expiringGroupRunnable;
+  private volatile HashedWheelExpiryMonitor groupExpiryMonitor;
+  private final Map<Object, Timeout> groupTimeouts = new ConcurrentHashMap<>();
   private final String name;
 
   private final FlowConstruct flowConstruct;
@@ -118,6 +150,18 @@ public class EventCorrelator implements Startable, Stoppable {
     this.correlatorStore = correlatorStore;
     this.storePrefix = storePrefix;
     this.processedGroups = processedGroups;
+
+    for (int i = 0; i < groupLocks.length; i++) {
+      groupLocks[i] = new Object();
+    }
+  }
+
+  /**
+   * @return the lock that guards the group with the given id
+   */
+  protected Object getGroupLock(Object groupId) {
+    int hash = groupId == null ? 0 : groupId.hashCode();
+    return groupLocks[(hash ^ (hash >>> 16)) & (GROUP_LOCK_STRIPES - 1)];
   }
 
   public void forceGroupExpiry(String groupId) throws MuleException {
@@ -147,8 +191,8 @@ public class EventCorrelator implements Startable, Stoppable {
       }
     }
 
-    // spinloop for the EventGroup lookup
-    while (true) {
+    // ensure that only one thread at a time evaluates this EventGroup
+    synchronized (getGroupLock(groupId)) {
       try {
         if (isGroupAlreadyProcessed(groupId)) {
           if (logger.isDebugEnabled()) {
@@ -185,97 +229,123 @@ public class EventCorrelator implements Startable, Stoppable {
         }
       }
 
-      // ensure that only one thread at a time evaluates this EventGroup
-      synchronized (groupsLock) {
-        if (logger.isDebugEnabled()) {
-          logger.debug("Adding event to aggregator group: " + groupId);
-        }
+      if (logger.isDebugEnabled()) {
+        logger.debug("Adding event to aggregator group: " + groupId);
+      }
 
-        // add the incoming event to the group
-        try {
-          group.addEvent(event);
-        } catch (ObjectStoreException e) {
-          throw new RoutingException(timeoutMessageProcessor, e);
-        }
+      // add the incoming event to the group
+      try {
+        group.addEvent(event);
+      } catch (ObjectStoreException e) {
+        throw new RoutingException(timeoutMessageProcessor, e);
+      }
 
-        // check to see if the event group is ready to be aggregated
-        if (callback.shouldAggregateEvents(group)) {
-          // create the response event
-          CoreEvent returnEvent = null;
-          try {
-            returnEvent = callback.aggregateEvents(group);
-          } catch (RoutingException routingException) {
-            try {
-              this.removeEventGroup(group);
-              group.clear();
-            } catch (ObjectStoreException objectStoreException) {
-              throw new RoutingException(timeoutMessageProcessor, objectStoreException);
-            }
-            throw routingException;
-          }
-          // remove the eventGroup as no further message will be received
-          // for this group once we aggregate
+      // check to see if the event group is ready to be aggregated
+      if (callback.shouldAggregateEvents(group)) {
+        // create the response event
+        CoreEvent returnEvent = null;
+        try {
+          returnEvent = callback.aggregateEvents(group);
+        } catch (RoutingException routingException) {
           try {
             this.removeEventGroup(group);
             group.clear();
-          } catch (ObjectStoreException e) {
-            throw new RoutingException(timeoutMessageProcessor, e);
+          } catch (ObjectStoreException objectStoreException) {
+            throw new RoutingException(timeoutMessageProcessor, objectStoreException);
           }
-
-          return returnEvent;
-        } else {
-          return null;
+          throw routingException;
         }
+        // remove the eventGroup as no further message will be received
+        // for this group once we aggregate
+        try {
+          this.removeEventGroup(group);
+          group.clear();
+        } catch (ObjectStoreException e) {
+          throw new RoutingException(timeoutMessageProcessor, e);
+        }
+
+        return returnEvent;
+      } else {
+        return null;
       }
     }
   }
 
   protected EventGroup getEventGroup(String groupId) throws ObjectStoreException {
-    try {
-      EventGroup eventGroup = (EventGroup) correlatorStore.retrieve(groupId, getEventGroupsPartitionKey());
-      if (!eventGroup.isInitialised()) {
-        try {
-          DeserializationPostInitialisable.Implementation.init(eventGroup, muleContext);
-        } catch (Exception e) {
-          throw new ObjectStoreException(e);
+    if (exclusiveStore) {
+      EventGroup activeGroup = groupId != null ? activeGroups.get(groupId) : null;
+      if (activeGroup != null) {
+        return activeGroup;
+      }
+    }
+
+    synchronized (getGroupLock(groupId)) {
+      try {
+        EventGroup eventGroup = (EventGroup) correlatorStore.retrieve(groupId, getEventGroupsPartitionKey());
+        if (!eventGroup.isInitialised()) {
+          try {
+            DeserializationPostInitialisable.Implementation.init(eventGroup, muleContext);
+          } catch (Exception e) {
+            throw new ObjectStoreException(e);
+          }
         }
+        eventGroup.initEventsStore(correlatorStore);
+        activate(eventGroup);
+        return eventGroup;
+      } catch (ObjectDoesNotExistException e) {
+        return null;
       }
-      eventGroup.initEventsStore(correlatorStore);
-      return eventGroup;
-    } catch (ObjectDoesNotExistException e) {
-      return null;
     }
   }
 
   protected EventGroup addEventGroup(EventGroup group) throws ObjectStoreException {
-    try {
-      correlatorStore.store((String) group.getGroupId(), group, getEventGroupsPartitionKey());
-      return group;
-    } catch (ObjectAlreadyExistsException e) {
-      return getEventGroup((String) group.getGroupId());
+    synchronized (getGroupLock(group.getGroupId())) {
+      try {
+        correlatorStore.store((String) group.getGroupId(), group, getEventGroupsPartitionKey());
+        activate(group);
+        return group;
+      } catch (ObjectAlreadyExistsException e) {
+        return getEventGroup((String) group.getGroupId());
+      }
     }
   }
 
-  protected void removeEventGroup(EventGroup group) throws ObjectStoreException {
+  private void activate(EventGroup group) {
+    if (group.getGroupId() != null) {
+      if (exclusiveStore) {
+        activeGroups.put(group.getGroupId(), group);
+      }
+      scheduleGroupExpiry(group);
+    }
+  }
+
+  /**
+   * Removes the group from this correlator and marks it as processed.
+   *
+   * @return {@code true} if the group was removed, {@code false} if it had already been processed
+   */
+  protected boolean removeEventGroup(EventGroup group) throws ObjectStoreException {
     final Object groupId = group.getGroupId();
-    synchronized (groupsLock) {
+    synchronized (getGroupLock(groupId)) {
+      if (groupId != null) {
+        activeGroups.remove(groupId);
+        cancelGroupExpiry(groupId);
+      }
       if (!isGroupAlreadyProcessed(groupId)) {
         correlatorStore.remove((String) groupId, getEventGroupsPartitionKey());
         addProcessedGroup(groupId);
+        return true;
       }
+      return false;
     }
   }
 
   protected void addProcessedGroup(Object id) throws ObjectStoreException {
-    synchronized (groupsLock) {
-      processedGroups.store((String) id, currentTimeMillis());
-    }
+    processedGroups.store((String) id, currentTimeMillis());
   }
 
   protected boolean isGroupAlreadyProcessed(Object id) throws ObjectStoreException {
-    synchronized (groupsLock) {
-      return processedGroups.contains((String) id);
-    }
+    return processedGroups.contains((String) id);
   }
 
   public boolean isFailOnTimeout() {
@@ -286,6 +356,18 @@ public class EventCorrelator implements Startable, Stoppable {
     this.failOnTimeout = failOnTimeout;
   }
 
+  public boolean isExclusiveStore() {
+    return exclusiveStore;
+  }
+
+  /**
+   * @param exclusiveStore whether this correlator is the only one that writes the groups of its object store, so open groups can
+   *        be kept in memory instead of being retrieved from the object store for every event.
+   */
+  public void setExclusiveStore(boolean exclusiveStore) {
+    this.exclusiveStore = exclusiveStore;
+  }
+
   public long getTimeout() {
     return timeout;
   }
@@ -296,7 +378,10 @@ public class EventCorrelator implements Startable, Stoppable {
 
   protected void handleGroupExpiry(EventGroup group) throws MuleException {
     try {
-      removeEventGroup(group);
+      if (!removeEventGroup(group)) {
+        // the group was aggregated or expired by another thread in the meantime
+        return;
+      }
     } catch (ObjectStoreException e) {
       throw new DefaultMuleException(e);
     }
@@ -354,8 +439,8 @@ public class EventCorrelator implements Startable, Stoppable {
     if (timeout != 0) {
       scheduler = muleContext.getSchedulerService().customScheduler(muleContext.getSchedulerBaseConfig().withName(name)
           .withMaxConcurrentTasks(1).withShutdownTimeout(0, MILLISECONDS));
-      expiringGroupRunnable = new ExpiringGroupMonitoringRunnable();
-      scheduler.scheduleWithFixedDelay(expiringGroupRunnable, 0, DELAY_TIME, MILLISECONDS);
+      groupExpiryMonitor = new HashedWheelExpiryMonitor(name, DELAY_TIME, TICKS_PER_WHEEL, muleContext, true);
+      scheduler.scheduleWithFixedDelay(new GroupRecoveryRunnable(), 0, RECOVERY_INTERVAL, MILLISECONDS);
     }
   }
 
@@ -365,38 +450,69 @@ public class EventCorrelator implements Startable, Stoppable {
     if (scheduler != null) {
       scheduler.stop();
     }
-    if (expiringGroupRunnable != null) {
-      expiringGroupRunnable.dispose();
-      expiringGroupRunnable = null;
+    if (groupExpiryMonitor != null) {
+      groupExpiryMonitor.dispose();
+      groupExpiryMonitor = null;
     }
+    // open groups are recovered from the object store when needed again
+    groupTimeouts.clear();
+    activeGroups.clear();
   }
 
-  private final class ExpiringGroupMonitoringRunnable implements Runnable, Expirable, Disposable {
+  /**
+   * Registers the deadline of the group in the expiry monitor, unless it is already registered or this correlator is not started.
+   */
+  private void scheduleGroupExpiry(EventGroup group) {
+    final HashedWheelExpiryMonitor expiryMonitor = groupExpiryMonitor;
+    if (expiryMonitor == null || group.getGroupId() == null) {
+      return;
+    }
+    long delay = max(group.getCreated() + getTimeout() - currentTimeMillis(), 0L);
+    groupTimeouts.computeIfAbsent(group.getGroupId(), groupId -> expiryMonitor
+        .addExpirable(delay, MILLISECONDS, () -> dispatchGroupExpiry(groupId)));
+  }
 
-    private ExpiryMonitor expiryMonitor;
+  /**
+   * Expires the group in the scheduler of this correlator, so the timeout processing of a group does not hold the expiry monitor
+   * from expiring other groups.
+   */
+  private void dispatchGroupExpiry(Object groupId) {
+    groupTimeouts.remove(groupId);
+    try {
+      scheduler.submit(() -> expireGroup(groupId));
+    } catch (RejectedExecutionException e) {
+      // The group is no longer registered in the expiry monitor, so the recovery task registers it again
+      logger.debug("Could not dispatch the expiry of group {}", groupId, e);
+    }
+  }
 
-    public ExpiringGroupMonitoringRunnable() {
-      this.expiryMonitor = new ExpiryMonitor(name, MINUTES.toMillis(1), muleContext, true);
-      this.expiryMonitor.addExpirable(30, MINUTES, this);
+  private void cancelGroupExpiry(Object groupId) {
+    Timeout groupTimeout = groupTimeouts.remove(groupId);
+    if (groupTimeout != null) {
+      groupTimeout.cancel();
     }
+  }
 
-    /**
-     * Removes the elements in expiredAndDispatchedGroups when groupLife is reached
-     */
-    @Override
-    public void expired() {
-      try {
-        for (String o : (List<String>) correlatorStore.allKeys(getExpiredAndDispatchedPartitionKey())) {
-          Long time = (Long) correlatorStore.retrieve(o, getExpiredAndDispatchedPartitionKey());
-          if (time + DAYS.toMillis(1) < currentTimeMillis()) {
-            correlatorStore.remove(o, getExpiredAndDispatchedPartitionKey());
-            logger.warn(MessageFormat.format("Discarding group {0}", o));
-          }
-        }
-      } catch (ObjectStoreException e) {
-        logger.warn("Expiration of objects failed due to ObjectStoreException " + e + ".");
+  private void expireGroup(Object groupId) {
+    try {
+      EventGroup group = getEventGroup((String) groupId);
+      // group may have been aggregated by another thread right before its deadline
+      if (group != null) {
+        handleGroupExpiry(group);
       }
+    } catch (MessagingException e) {
+      flowConstruct.getExceptionListener().handleException(e, e.getEvent());
+    } catch (Exception e) {
+      muleContext.getExceptionListener().handleException(e);
     }
+  }
+
+  /**
+   * Registers the deadline of the groups in the object store that this correlator did not create or load, such as the ones
+   * recovered from a persistent store or created by another node of the cluster, and removes the elements in
+   * expiredAndDispatchedGroups when groupLife is reached.
+   */
+  private final class GroupRecoveryRunnable implements Runnable {
 
     @Override
     public void run() {
@@ -408,33 +524,30 @@ public class EventCorrelator implements Startable, Stoppable {
         return;
       }
 
-      List<EventGroup> expired = new ArrayList<>(1);
       try {
         for (String o : (List<String>) correlatorStore.allKeys(getEventGroupsPartitionKey())) {
-          EventGroup group = getEventGroup(o);
-          // group may have been removed by another thread right after eventGroups.allKeys()
-          if (group != null && group.getCreated() + getTimeout() < currentTimeMillis()) {
-            expired.add(group);
+          if (!groupTimeouts.containsKey(o)) {
+            EventGroup group = getEventGroup(o);
+            // group may have been removed by another thread right after eventGroups.allKeys()
+            if (group != null) {
+              scheduleGroupExpiry(group);
+            }
           }
         }
       } catch (ObjectStoreException e) {
         logger.warn("expiry failed dues to ObjectStoreException " + e);
       }
-      for (final EventGroup group : expired) {
-        try {
-          handleGroupExpiry(group);
-        } catch (MessagingException e) {
-          flowConstruct.getExceptionListener().handleException(e, e.getEvent());
-        } catch (Exception e) {
-          muleContext.getExceptionListener().handleException(e);
-        }
-      }
-    }
 
-    @Override
-    public void dispose() {
-      if (expiryMonitor != null) {
-        expiryMonitor.dispose();
+      try {
+        for (String o : (List<String>) correlatorStore.allKeys(getExpiredAndDispatchedPartitionKey())) {
+          Long time = (Long) correlatorStore.retrieve(o, getExpiredAndDispatchedPartitionKey());
+          if (time + DAYS.toMillis(1) < currentTimeMillis()) {
+            correlatorStore.remove(o, getExpiredAndDispatchedPartitionKey());
+            logger.warn(MessageFormat.format("Discarding group {0}", o));
+          }
+        }
+      } catch (ObjectStoreException e) {
+        logger.warn("Expiration of objects failed due to ObjectStoreException " + e + ".");
       }
     }
   }
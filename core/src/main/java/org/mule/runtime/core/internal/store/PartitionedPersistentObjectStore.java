@@ -6,9 +6,14 @@
  */
 package org.mule.runtime.core.internal.store;
 
+import static java.lang.Boolean.getBoolean;
+import static org.mule.runtime.core.api.config.MuleProperties.MULE_OBJECT_STORE_LOG_STRUCTURED_PARTITIONS;
+import static org.mule.runtime.core.internal.util.store.LogStructuredObjectStorePartition.isLogStructuredPartition;
 import static org.slf4j.LoggerFactory.getLogger;
+
 import org.mule.runtime.api.exception.MuleRuntimeException;
 import org.mule.runtime.api.i18n.I18nMessage;
+import org.mule.runtime.api.lifecycle.Disposable;
 import org.mule.runtime.api.store.ObjectStoreException;
 import org.mule.runtime.api.store.PartitionableExpirableObjectStore;
 import org.mule.runtime.core.api.MuleContext;
@@ -17,6 +22,7 @@ import org.mule.runtime.core.api.config.i18n.CoreMessages;
 import org.mule.runtime.core.api.context.MuleContextAware;
 import org.mule.runtime.core.api.util.FileUtils;
 import org.mule.runtime.core.api.util.UUID;
+import org.mule.runtime.core.internal.util.store.LogStructuredObjectStorePartition;
 import org.mule.runtime.core.internal.util.store.PersistentObjectStorePartition;
 
 import java.io.File;
@@ -30,7 +36,7 @@ import java.util.Map;
 import org.slf4j.Logger;
 
 public class PartitionedPersistentObjectStore<T extends Serializable> extends AbstractPartitionableObjectStore<T>
-    implements PartitionableExpirableObjectStore<T>, InternalComponent, MuleContextAware {
+    implements PartitionableExpirableObjectStore<T>, InternalComponent, MuleContextAware, Disposable {
 
   private static final Logger LOGGER = getLogger(PartitionedPersistentObjectStore.class);
   public static final String OBJECT_STORE_DIR = "objectstore";
@@ -56,6 +62,8 @@ public class PartitionedPersistentObjectStore<T extends Serializable> extends Ab
       loadPreviousStoredPartitions();
       createDefaultPartition();
       initialized = true;
+    } else {
+      partitionsByName.get(DEFAULT_PARTITION_NAME).open();
     }
   }
 
@@ -70,15 +78,39 @@ public class PartitionedPersistentObjectStore<T extends Serializable> extends Ab
     open();
     if (!partitionsByName.containsKey(partitionName)) {
       createPartition(partitionName);
+    } else {
+      partitionsByName.get(partitionName).open();
+    }
+  }
+
+  @Override
+  public synchronized void close(String partitionName) throws ObjectStoreException {
+    PersistentObjectStorePartition partition = partitionsByName.get(partitionName);
+    if (partition != null) {
+      partition.close();
     }
   }
 
+  /**
+   * Closes all the partitions, so that any state they keep in memory is written to disk and their files are released.
+   */
   @Override
-  public void close(String partitionName) throws ObjectStoreException {}
+  public synchronized void dispose() {
+    for (PersistentObjectStorePartition partition : partitionsByName.values()) {
+      try {
+        partition.close();
+      } catch (Exception e) {
+        LOGGER.warn("Could not close partition " + partition.getPartitionName(), e);
+      }
+    }
+    partitionsByName.clear();
+    initialized = false;
+  }
 
   private void createPartition(String partitionName) throws ObjectStoreException {
-    PersistentObjectStorePartition persistentObjectStorePartition =
-        new PersistentObjectStorePartition(muleContext, partitionName, getNewPartitionDirectory());
+    PersistentObjectStorePartition persistentObjectStorePartition = getBoolean(MULE_OBJECT_STORE_LOG_STRUCTURED_PARTITIONS)
+        ? new LogStructuredObjectStorePartition(muleContext, partitionName, getNewPartitionDirectory())
+        : new PersistentObjectStorePartition(muleContext, partitionName, getNewPartitionDirectory());
     persistentObjectStorePartition.open();
     partitionsByName.put(partitionName, persistentObjectStorePartition);
   }
@@ -182,8 +214,9 @@ public class PartitionedPersistentObjectStore<T extends Serializable> extends Ab
     }
     for (File partitionDirectory : directories) {
       try {
-        PersistentObjectStorePartition persistentObjectStorePartition =
-            new PersistentObjectStorePartition(muleContext, partitionDirectory);
+        PersistentObjectStorePartition persistentObjectStorePartition = isLogStructuredPartition(partitionDirectory)
+            ? new LogStructuredObjectStorePartition(muleContext, partitionDirectory)
+            : new PersistentObjectStorePartition(muleContext, partitionDirectory);
         persistentObjectStorePartition.open();
         partitionsByName.put(persistentObjectStorePartition.getPartitionName(), persistentObjectStorePartition);
       } catch (Exception e) {
@@ -205,6 +238,7 @@ public class PartitionedPersistentObjectStore<T extends Serializable> extends Ab
   @Override
   public void disposePartition(String partitionName) throws ObjectStoreException {
     clear(partitionName);
+    close(partitionName);
   }
 
   @Override
@@ -0,0 +1,326 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.internal.store;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.mule.runtime.core.internal.util.store.MuleObjectStoreManager.UNBOUNDED;
+
+import org.mule.runtime.api.store.ObjectAlreadyExistsException;
+import org.mule.runtime.api.store.ObjectDoesNotExistException;
+import org.mule.runtime.api.store.ObjectStoreException;
+import org.mule.runtime.api.store.PartitionableExpirableObjectStore;
+import org.mule.runtime.core.api.component.InternalComponent;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * In memory {@link PartitionableExpirableObjectStore} which keeps the expiry order of each partition in several shards.
+ * <p>
+ * Entries are assigned to a shard by the hash of their key. Each shard links its entries in the order they were stored, so the
+ * oldest ones are always at its head. This allows to:
+ * <ul>
+ * <li>Store and remove entries in constant time, only locking the shard of the entry</li>
+ * <li>Expire entries by TTL visiting only the expired ones</li>
+ * <li>Evict the oldest entries when exceeding the max entries by comparing the heads of the shards, without keeping a separate
+ * queue or counting the entries</li>
+ * </ul>
+ * Retrieving entries doesn't require any locking.
+ *
+ * @since 4.1
+ */
+public class ShardedInMemoryObjectStore<T extends Serializable> extends AbstractPartitionableObjectStore<T>
+    implements PartitionableExpirableObjectStore<T>, InternalComponent {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ShardedInMemoryObjectStore.class);
+
+  private static final int SHARDS = 16;
+
+  private final ConcurrentMap<String, Partition<T>> partitions = new ConcurrentHashMap<>();
+
+  private final LongAdder expiredEntries = new LongAdder();
+  private final LongAdder evictedEntries = new LongAdder();
+
+  @Override
+  public boolean isPersistent() {
+    return false;
+  }
+
+  @Override
+  protected boolean doContains(String key, String partitionName) throws ObjectStoreException {
+    Partition<T> partition = partitions.get(partitionName);
+    return partition != null && partition.entries.containsKey(key);
+  }
+
+  @Override
+  protected void doStore(String key, T value, String partitionName) throws ObjectStoreException {
+    Partition<T> partition = getPartition(partitionName);
+    Shard<T> shard = partition.shardFor(key);
+    synchronized (shard) {
+      Entry<T> entry = new Entry<>(key, value, getCurrentNanoTime());
+      if (partition.entries.putIfAbsent(key, entry) != null) {
+        throw new ObjectAlreadyExistsException();
+      }
+      shard.link(entry);
+    }
+  }
+
+  @Override
+  protected T doRetrieve(String key, String partitionName) throws ObjectStoreException {
+    Entry<T> entry = getPartition(partitionName).entries.get(key);
+    if (entry == null) {
+      throw new ObjectDoesNotExistException();
+    }
+    return entry.value;
+  }
+
+  @Override
+  protected T doRemove(String key, String partitionName) throws ObjectStoreException {
+    Partition<T> partition = getPartition(partitionName);
+    Shard<T> shard = partition.shardFor(key);
+    synchronized (shard) {
+      Entry<T> entry = partition.entries.remove(key);
+      if (entry == null) {
+        throw new ObjectDoesNotExistException();
+      }
+      shard.unlink(entry);
+      return entry.value;
+    }
+  }
+
+  @Override
+  public List<String> allKeys(String partitionName) throws ObjectStoreException {
+    return new ArrayList<>(getPartition(partitionName).entries.keySet());
+  }
+
+  @Override
+  public Map<String, T> retrieveAll(String partitionName) throws ObjectStoreException {
+    Map<String, T> values = new LinkedHashMap<>();
+    for (Entry<T> entry : getPartition(partitionName).entries.values()) {
+      values.put(entry.key, entry.value);
+    }
+    return values;
+  }
+
+  @Override
+  public void clear(String partitionName) throws ObjectStoreException {
+    Partition<T> partition = partitions.get(partitionName);
+    if (partition != null) {
+      partition.clear();
+    }
+  }
+
+  @Override
+  public List<String> allPartitions() throws ObjectStoreException {
+    return new ArrayList<>(partitions.keySet());
+  }
+
+  private Partition<T> getPartition(String partitionName) {
+    return partitions.computeIfAbsent(partitionName, name -> new Partition<>());
+  }
+
+  @Override
+  public void open(String partitionName) throws ObjectStoreException {
+    // Nothing to do
+  }
+
+  @Override
+  public void close(String partitionName) throws ObjectStoreException {
+    // Nothing to do
+  }
+
+  @Override
+  public void expire(long entryTTL, int maxEntries) throws ObjectStoreException {
+    expire(entryTTL, maxEntries, DEFAULT_PARTITION_NAME);
+  }
+
+  @Override
+  public void expire(long entryTTL, int maxEntries, String partitionName) throws ObjectStoreException {
+    Partition<T> partition = getPartition(partitionName);
+
+    if (maxEntries != UNBOUNDED) {
+      int evicted = partition.trimToMaxSize(maxEntries);
+      evictedEntries.add(evicted);
+      if (evicted > 0 && LOGGER.isDebugEnabled()) {
+        LOGGER.debug("Expired " + evicted + " excess entries");
+      }
+    }
+
+    if (entryTTL == UNBOUNDED) {
+      return;
+    }
+
+    final long expirationTime = getCurrentNanoTime() - MILLISECONDS.toNanos(entryTTL);
+    int expired = 0;
+    for (Shard<T> shard : partition.shards) {
+      synchronized (shard) {
+        while (shard.head != null && shard.head.time - expirationTime <= 0) {
+          partition.entries.remove(shard.head.key);
+          shard.unlink(shard.head);
+          expired++;
+        }
+      }
+    }
+    expiredEntries.add(expired);
+
+    if (LOGGER.isDebugEnabled()) {
+      LOGGER.debug("Expired " + expired + " old entries");
+    }
+  }
+
+  @Override
+  public void disposePartition(String partitionName) throws ObjectStoreException {
+    Partition<T> partition = partitions.remove(partitionName);
+    if (partition != null) {
+      partition.clear();
+    }
+  }
+
+  /**
+   * @return the number of entries removed by {@link #expire(long, int, String)} because their TTL elapsed
+   */
+  public long getExpiredEntriesCount() {
+    return expiredEntries.sum();
+  }
+
+  /**
+   * @return the number of entries removed by {@link #expire(long, int, String)} because their partition exceeded its max entries
+   */
+  public long getEvictedEntriesCount() {
+    return evictedEntries.sum();
+  }
+
+  protected long getCurrentNanoTime() {
+    return System.nanoTime();
+  }
+
+  private static final class Partition<T extends Serializable> {
+
+    private final ConcurrentMap<String, Entry<T>> entries = new ConcurrentHashMap<>();
+    private final Shard<T>[] shards = new Shard[SHARDS];
+
+    private Partition() {
+      for (int i = 0; i < SHARDS; i++) {
+        shards[i] = new Shard<>();
+      }
+    }
+
+    private Shard<T> shardFor(String key) {
+      int hash = key.hashCode();
+      return shards[(hash ^ (hash >>> 16)) & (SHARDS - 1)];
+    }
+
+    /**
+     * Removes the oldest entries of all shards until there are no more than {@code maxEntries}. All the shards are locked while
+     * doing so, in order to compare their heads.
+     *
+     * @return the number of removed entries
+     */
+    private int trimToMaxSize(int maxEntries) {
+      if (entries.size() <= maxEntries) {
+        return 0;
+      }
+      return trimToMaxSize(maxEntries, 0);
+    }
+
+    private int trimToMaxSize(int maxEntries, int lockedShards) {
+      if (lockedShards < SHARDS) {
+        synchronized (shards[lockedShards]) {
+          return trimToMaxSize(maxEntries, lockedShards + 1);
+        }
+      }
+
+      int evicted = 0;
+      while (entries.size() > maxEntries) {
+        Shard<T> oldest = null;
+        for (Shard<T> shard : shards) {
+          if (shard.head != null && (oldest == null || shard.head.time - oldest.head.time < 0)) {
+            oldest = shard;
+          }
+        }
+        if (oldest == null) {
+          break;
+        }
+        entries.remove(oldest.head.key);
+        oldest.unlink(oldest.head);
+        evicted++;
+      }
+      return evicted;
+    }
+
+    private void clear() {
+      for (Shard<T> shard : shards) {
+        synchronized (shard) {
+          for (Entry<T> entry = shard.head; entry != null; entry = entry.next) {
+            entries.remove(entry.key);
+          }
+          shard.head = null;
+          shard.tail = null;
+        }
+      }
+    }
+  }
+
+  /**
+   * Doubly linked list of the entries of a shard, in the order they were stored. Must be accessed while holding its monitor.
+   */
+  private static final class Shard<T extends Serializable> {
+
+    private Entry<T> head;
+    private Entry<T> tail;
+
+    private void link(Entry<T> entry) {
+      entry.prev = tail;
+      if (tail == null) {
+        head = entry;
+      } else {
+        tail.next = entry;
+      }
+      tail = entry;
+    }
+
+    private void unlink(Entry<T> entry) {
+      if (entry.prev == null) {
+        head = entry.next;
+      } else {
+        entry.prev.next = entry.next;
+      }
+      if (entry.next == null) {
+        tail = entry.prev;
+      } else {
+        entry.next.prev = entry.prev;
+      }
+      entry.prev = null;
+      entry.next = null;
+    }
+  }
+
+  private static final class Entry<T extends Serializable> {
+
+    private final String key;
+    private final T value;
+    private final long time;
+
+    private Entry<T> prev;
+    private Entry<T> next;
+
+    private Entry(String key, T value, long time) {
+      this.key = key;
+      this.value = value;
+      this.time = time;
+    }
+  }
+}
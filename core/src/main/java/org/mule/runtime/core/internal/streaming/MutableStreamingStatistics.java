@@ -9,6 +9,7 @@ package org.mule.runtime.core.internal.streaming;
 import org.mule.runtime.core.api.streaming.StreamingStatistics;
 
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Mutable implementation of {@link StreamingStatistics}
@@ -19,6 +20,10 @@ public class MutableStreamingStatistics implements StreamingStatistics {
 
   private final AtomicInteger openProviders = new AtomicInteger(0);
   private final AtomicInteger openCursors = new AtomicInteger(0);
+  private final LongAdder bufferAllocations = new LongAdder();
+  private final LongAdder bufferAllocationHits = new LongAdder();
+  private final LongAdder bufferRecycles = new LongAdder();
+  private final LongAdder bufferRecycleHits = new LongAdder();
 
   void incrementOpenProviders() {
     openProviders.incrementAndGet();
@@ -51,4 +56,74 @@ public class MutableStreamingStatistics implements StreamingStatistics {
   public int getOpenCursorsCount() {
     return openCursors.get();
   }
+
+  /**
+   * Records the allocation of a buffer
+   *
+   * @param hit whether the buffer was taken from a pool instead of being created
+   */
+  public void incrementBufferAllocations(boolean hit) {
+    bufferAllocations.increment();
+    if (hit) {
+      bufferAllocationHits.increment();
+    }
+  }
+
+  /**
+   * Records the deallocation of a buffer
+   *
+   * @param hit whether the buffer was returned to a pool instead of being discarded
+   */
+  public void incrementBufferRecycles(boolean hit) {
+    bufferRecycles.increment();
+    if (hit) {
+      bufferRecycleHits.increment();
+    }
+  }
+
+  /**
+   * @return the amount of buffers allocated
+   */
+  public long getBufferAllocationsCount() {
+    return bufferAllocations.sum();
+  }
+
+  /**
+   * @return the amount of buffers allocated which were taken from a pool
+   */
+  public long getBufferAllocationHitsCount() {
+    return bufferAllocationHits.sum();
+  }
+
+  /**
+   * @return the amount of buffers deallocated
+   */
+  public long getBufferRecyclesCount() {
+    return bufferRecycles.sum();
+  }
+
+  /**
+   * @return the amount of buffers deallocated which were returned to a pool
+   */
+  public long getBufferRecycleHitsCount() {
+    return bufferRecycleHits.sum();
+  }
+
+  /**
+   * @return the ratio of buffer allocations served from a pool, or {@code 0} if no buffers were allocated
+   */
+  public double getBufferAllocationHitRate() {
+    return ratio(getBufferAllocationHitsCount(), getBufferAllocationsCount());
+  }
+
+  /**
+   * @return the ratio of buffer deallocations returned to a pool, or {@code 0} if no buffers were deallocated
+   */
+  public double getBufferRecycleHitRate() {
+    return ratio(getBufferRecycleHitsCount(), getBufferRecyclesCount());
+  }
+
+  private double ratio(long hits, long total) {
+    return total == 0 ? 0 : (double) hits / total;
+  }
 }
@@ -8,6 +8,7 @@ package org.mule.runtime.core.internal.streaming.bytes;
 
 import org.mule.runtime.core.api.streaming.bytes.ByteBufferManager;
 import org.mule.runtime.core.api.streaming.bytes.factory.InMemoryCursorStreamProviderFactory;
+import org.mule.runtime.core.internal.streaming.bytes.factory.FileStoreCursorStreamProviderFactory;
 import org.mule.runtime.core.internal.streaming.bytes.factory.NullCursorStreamProviderFactory;
 import org.mule.runtime.core.api.streaming.StreamingManager;
 import org.mule.runtime.core.api.streaming.bytes.ByteStreamingManager;
@@ -22,10 +23,24 @@ import org.mule.runtime.core.api.streaming.bytes.InMemoryCursorStreamConfig;
 public class DefaultByteStreamingManager implements ByteStreamingManager {
 
   private final ByteBufferManager bufferManager;
+  private final ByteBufferManager fileStoreBufferManager;
   protected final StreamingManager streamingManager;
 
   public DefaultByteStreamingManager(ByteBufferManager bufferManager, StreamingManager streamingManager) {
+    this(bufferManager, bufferManager, streamingManager);
+  }
+
+  /**
+   * @param bufferManager          the {@link ByteBufferManager} for the buffers of in memory cursor providers, which rely on
+   *                               {@link java.nio.ByteBuffer#array()}
+   * @param fileStoreBufferManager the {@link ByteBufferManager} for the buffers of file store cursor providers, which may
+   *                               allocate direct buffers
+   * @param streamingManager       the owning {@link StreamingManager}
+   */
+  public DefaultByteStreamingManager(ByteBufferManager bufferManager, ByteBufferManager fileStoreBufferManager,
+                                     StreamingManager streamingManager) {
     this.bufferManager = bufferManager;
+    this.fileStoreBufferManager = fileStoreBufferManager;
     this.streamingManager = streamingManager;
   }
 
@@ -37,6 +52,17 @@ public class DefaultByteStreamingManager implements ByteStreamingManager {
     return new InMemoryCursorStreamProviderFactory(bufferManager, config, streamingManager);
   }
 
+  /**
+   * Creates a {@link CursorStreamProviderFactory} which buffers up to
+   * {@link FileStoreCursorStreamConfig#getMaxInMemorySize()} bytes in memory and the rest of the stream in a temporal file.
+   *
+   * @param config the config for the generated providers
+   * @return a new {@link CursorStreamProviderFactory}
+   */
+  public CursorStreamProviderFactory getFileStoreCursorProviderFactory(FileStoreCursorStreamConfig config) {
+    return new FileStoreCursorStreamProviderFactory(fileStoreBufferManager, config, streamingManager);
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -0,0 +1,252 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.internal.streaming.bytes;
+
+import static java.lang.Math.min;
+import static java.lang.Math.toIntExact;
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static org.mule.runtime.api.i18n.I18nMessageFactory.createStaticMessage;
+import static org.mule.runtime.api.util.DataUnit.KB;
+import static org.mule.runtime.api.util.DataUnit.MB;
+import static org.mule.runtime.core.internal.streaming.TempBufferFileUtils.createBufferFile;
+
+import org.mule.runtime.api.exception.MuleRuntimeException;
+import org.mule.runtime.core.api.streaming.bytes.ByteBufferManager;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An implementation of {@link AbstractInputStreamBuffer} which holds the first bytes of the stream in memory, up to the
+ * configured {@link FileStoreCursorStreamConfig#getMaxInMemorySize()}, and spills the rest of the stream to a temporal file.
+ * <p>
+ * The file is written sequentially as the stream is consumed. Data in the file is read back through read-only
+ * {@link MappedByteBuffer memory mapped} segments of {@link #MAPPED_SEGMENT_SIZE} bytes, which are mapped once each segment has
+ * been fully written. Data in a segment which has not been fully written yet is read directly from the file. This allows for
+ * streams of any size to be buffered and re-read with a constant amount of heap memory.
+ * <p>
+ * The temporal file is deleted when the buffer is closed. Its mapped segments are not unmapped explicitly, since slices of them
+ * may still be held by cursors, and reading an unmapped segment crashes the JVM. They are unmapped once garbage collected. On
+ * platforms where a mapped file can't be deleted, the file is deleted when the JVM exits instead.
+ *
+ * @since 4.1
+ */
+public class FileStoreInputStreamBuffer extends AbstractInputStreamBuffer {
+
+  static final int MAPPED_SEGMENT_SIZE = MB.toBytes(8);
+  private static final int FILE_TRANSFER_BUFFER_SIZE = KB.toBytes(32);
+
+  private final int maxInMemorySize;
+  private final List<MappedByteBuffer> segments = new ArrayList<>();
+
+  private File bufferFile;
+  private RandomAccessFile randomAccessFile;
+  private FileChannel fileChannel;
+  private long bufferTip = 0;
+
+  /**
+   * Creates a new instance
+   *
+   * @param stream        the stream to be buffered
+   * @param config        this buffer's configuration.
+   * @param bufferManager the {@link ByteBufferManager} that will be used to allocate all buffers
+   */
+  public FileStoreInputStreamBuffer(InputStream stream, FileStoreCursorStreamConfig config, ByteBufferManager bufferManager) {
+    super(stream, bufferManager, config.getMaxInMemorySize().toBytes());
+    maxInMemorySize = config.getMaxInMemorySize().toBytes();
+  }
+
+  @Override
+  protected ByteBuffer doGet(long position, int length) {
+    return doGet(position, length, true);
+  }
+
+  private ByteBuffer doGet(long position, int length, boolean consumeStreamIfNecessary) {
+    return withReadLock(releaser -> {
+
+      ByteBuffer presentRead = getFromCurrentData(position, length);
+      if (presentRead != null) {
+        return presentRead;
+      }
+
+      if (consumeStreamIfNecessary) {
+        releaser.release();
+        return withWriteLock(() -> {
+
+          ByteBuffer refetch;
+          refetch = getFromCurrentData(position, length);
+          if (refetch != null) {
+            return refetch;
+          }
+
+          final long requiredUpperBound = position + length;
+          while (!isStreamFullyConsumed() && bufferTip < requiredUpperBound) {
+            try {
+              final int read = consumeForwardData();
+              if (read > 0) {
+                refetch = getFromCurrentData(position, min(length, read));
+                if (refetch != null) {
+                  return refetch;
+                }
+              } else {
+                streamFullyConsumed();
+                mapSegments(true);
+              }
+            } catch (IOException e) {
+              throw new MuleRuntimeException(createStaticMessage("Could not read stream"), e);
+            }
+          }
+
+          return doGet(position, length, false);
+        });
+      } else {
+        return getFromCurrentData(position, length);
+      }
+    });
+  }
+
+  private ByteBuffer getFromCurrentData(long position, int length) {
+    if (position >= bufferTip) {
+      return null;
+    }
+
+    length = toIntExact(min(length, bufferTip - position));
+    if (position < maxInMemorySize) {
+      return slice(buffer.get(), toIntExact(position), min(length, maxInMemorySize - toIntExact(position)));
+    }
+
+    final long filePosition = position - maxInMemorySize;
+    final int segmentIndex = toIntExact(filePosition / MAPPED_SEGMENT_SIZE);
+    if (segmentIndex < segments.size()) {
+      final MappedByteBuffer segment = segments.get(segmentIndex);
+      final int offset = toIntExact(filePosition % MAPPED_SEGMENT_SIZE);
+      return slice(segment, offset, min(length, segment.capacity() - offset));
+    }
+
+    return readFromFile(filePosition, length);
+  }
+
+  private ByteBuffer slice(ByteBuffer source, int offset, int length) {
+    ByteBuffer view = source.duplicate();
+    view.limit(offset + length);
+    view.position(offset);
+    return view.slice();
+  }
+
+  private ByteBuffer readFromFile(long filePosition, int length) {
+    ByteBuffer data = ByteBuffer.allocate(length);
+    try {
+      while (data.hasRemaining()) {
+        if (fileChannel.read(data, filePosition + data.position()) < 0) {
+          break;
+        }
+      }
+    } catch (IOException e) {
+      throw new MuleRuntimeException(createStaticMessage("Could not read from buffer file " + bufferFile.getAbsolutePath()),
+                                     e);
+    }
+
+    data.flip();
+    return data;
+  }
+
+  /**
+   * {@inheritDoc}
+   * While the in memory buffer has remaining capacity, data is consumed into it. After that, it is appended to the buffer file.
+   */
+  @Override
+  public int consumeForwardData() throws IOException {
+    if (bufferTip < maxInMemorySize) {
+      final ByteBuffer memoryBuffer = buffer.get();
+      if (memoryBuffer.limit() > maxInMemorySize) {
+        memoryBuffer.limit(maxInMemorySize);
+      }
+      final int read = consumeStream(memoryBuffer);
+      if (read > 0) {
+        bufferTip += read;
+      }
+      return read;
+    }
+
+    ByteBuffer transferBuffer = bufferManager.allocate(FILE_TRANSFER_BUFFER_SIZE);
+    try {
+      final int read = consumeStream(transferBuffer);
+      if (read > 0) {
+        transferBuffer.flip();
+        final FileChannel channel = getFileChannel();
+        long filePosition = bufferTip - maxInMemorySize;
+        while (transferBuffer.hasRemaining()) {
+          filePosition += channel.write(transferBuffer, filePosition);
+        }
+
+        bufferTip += read;
+        mapSegments(false);
+      }
+      return read;
+    } finally {
+      bufferManager.deallocate(transferBuffer);
+    }
+  }
+
+  /**
+   * Maps all the segments of the buffer file that have been completely written. If {@code includeTail} is {@code true}, then the
+   * last segment is also mapped even if it's not complete. This should only be done once the stream has been fully consumed.
+   */
+  private void mapSegments(boolean includeTail) throws IOException {
+    if (fileChannel == null) {
+      return;
+    }
+
+    final long fileLength = bufferTip - maxInMemorySize;
+    long mapped = (long) segments.size() * MAPPED_SEGMENT_SIZE;
+    while (fileLength - mapped >= MAPPED_SEGMENT_SIZE || (includeTail && fileLength > mapped)) {
+      final long size = min(MAPPED_SEGMENT_SIZE, fileLength - mapped);
+      segments.add(fileChannel.map(READ_ONLY, mapped, size));
+      mapped += size;
+    }
+  }
+
+  private FileChannel getFileChannel() throws IOException {
+    if (fileChannel == null) {
+      bufferFile = createBufferFile("bytes-buffer");
+      randomAccessFile = new RandomAccessFile(bufferFile, "rw");
+      fileChannel = randomAccessFile.getChannel();
+    }
+
+    return fileChannel;
+  }
+
+  /**
+   * {@inheritDoc}
+   * Closes and deletes the buffer file, if one was created.
+   */
+  @Override
+  public void doClose() {
+    segments.clear();
+    if (fileChannel != null) {
+      closeSafely(fileChannel::close);
+      closeSafely(randomAccessFile::close);
+      if (!bufferFile.delete()) {
+        // The file may still be mapped by segments that were not garbage collected yet
+        bufferFile.deleteOnExit();
+      }
+    }
+  }
+
+  @Override
+  protected boolean canDoSoftCopy() {
+    // Copies are never done from this buffer. Memory data is sliced since the in memory buffer is never expanded.
+    return true;
+  }
+}
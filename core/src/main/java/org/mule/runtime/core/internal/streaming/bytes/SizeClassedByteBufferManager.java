@@ -0,0 +1,461 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.internal.streaming.bytes;
+
+import static java.lang.Integer.numberOfLeadingZeros;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.Math.round;
+import static java.lang.String.format;
+import static java.lang.System.getProperty;
+import static java.lang.System.nanoTime;
+import static java.util.Collections.synchronizedMap;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.locks.LockSupport.parkNanos;
+import static org.mule.runtime.api.config.PoolingProfile.DEFAULT_MAX_POOL_WAIT;
+import static org.mule.runtime.api.i18n.I18nMessageFactory.createStaticMessage;
+import static org.mule.runtime.core.api.config.MuleProperties.MULE_STREAMING_MAX_MEMORY;
+
+import org.mule.runtime.api.lifecycle.Disposable;
+import org.mule.runtime.core.api.streaming.bytes.ByteBufferManager;
+import org.mule.runtime.core.internal.streaming.DefaultMemoryManager;
+import org.mule.runtime.core.internal.streaming.MemoryManager;
+import org.mule.runtime.core.internal.streaming.MutableStreamingStatistics;
+
+import java.nio.ByteBuffer;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * {@link ByteBufferManager} implementation which pools buffers in power-of-two size classes.
+ * <p>
+ * A requested capacity is rounded up to the next size class and the buffer is taken from, in order:
+ * <ol>
+ * <li>A small magazine of buffers local to the calling thread, which requires no synchronization at all</li>
+ * <li>A global lock-free depot shared by all threads</li>
+ * <li>A newly created buffer</li>
+ * </ol>
+ * Deallocated buffers are returned to the magazine of the calling thread or, if full, to the global depot. Buffers that don't fit
+ * in either are left for the garbage collector. Buffers bigger than the largest size class are not pooled. Magazines are also
+ * reachable from other threads, so their buffers can be reclaimed when memory is exhausted or this manager is disposed.
+ * <p>
+ * Buffers are always returned with the exact requested capacity, as a slice of a pooled buffer of the size class capacity.
+ * {@link #allocate(int)} returns heap buffers, so they can be used by components that rely on {@link ByteBuffer#array()}. If
+ * enabled, direct (off-heap) buffers are obtained through {@link #getDirectBufferManager()}, which should only be handed to
+ * components that don't access the backing array.
+ * <p>
+ * The memory of the buffers created by this manager, both heap and direct, is limited to a threshold. This includes the buffers
+ * which are currently allocated as well as the ones pooled in magazines and depots. Each buffer reserves the capacity of its size
+ * class when created and releases exactly that amount when it is dropped instead of pooled. When exhausted, the pooled buffers
+ * are dropped to release their memory, and invocations to {@link #allocate(int)} will wait until memory becomes available. If no
+ * memory becomes available after
+ * {@code waitTimeoutMillis} milliseconds, then a {@link MaxStreamingMemoryExceededException} is thrown.
+ * <p>
+ * Only buffers obtained from this manager may be deallocated through it.
+ *
+ * @since 4.1
+ */
+public class SizeClassedByteBufferManager implements ByteBufferManager, Disposable {
+
+  private static final int MIN_SIZE_CLASS_SHIFT = 10;
+  private static final int MAX_SIZE_CLASS_SHIFT = 24;
+  private static final int MAX_MAGAZINE_SIZE_CLASS_SHIFT = 20;
+  private static final int SIZE_CLASSES = MAX_SIZE_CLASS_SHIFT - MIN_SIZE_CLASS_SHIFT + 1;
+
+  private static final int MAX_MAGAZINE_SIZE = 16;
+  private static final int MAGAZINE_BYTES = 256 * 1024;
+  private static final int MAX_DEPOT_SIZE = Runtime.getRuntime().availableProcessors() * 2;
+  private static final long MEMORY_WAIT_NANOS = MICROSECONDS.toNanos(100);
+
+  private final long maxStreamingMemory;
+  private final long waitTimeoutMillis;
+  private final MutableStreamingStatistics statistics;
+
+  private final AtomicLong streamingMemory = new AtomicLong(0);
+  private final HeapPool heapPool = new HeapPool();
+  private final ByteBufferManager directBufferManager;
+
+  private volatile boolean disposed = false;
+
+  /**
+   * Creates a new instance which uses heap buffers, allows the used memory to grow up to 50% of the runtime's max memory and has a
+   * wait timeout of 10 seconds. The definition of max memory is that of {@link MemoryManager#getMaxMemory()}
+   *
+   * @param statistics the statistics where the allocation and recycling counters are to be reported. May be {@code null}
+   */
+  public SizeClassedByteBufferManager(MutableStreamingStatistics statistics) {
+    this(new DefaultMemoryManager(), DEFAULT_MAX_POOL_WAIT, false, statistics);
+  }
+
+  /**
+   * Creates a new instance which allows the used memory to grow up to 50% of calling {@link MemoryManager#getMaxMemory()} on the
+   * given {@code memoryManager}, and has {@code waitTimeoutMillis} as wait timeout.
+   *
+   * @param memoryManager     a {@link MemoryManager} used to determine the runtime's max memory
+   * @param waitTimeoutMillis how long to wait when the memory is exhausted
+   * @param direct            whether {@link #getDirectBufferManager()} allocates direct (off-heap) buffers instead of heap ones
+   * @param statistics        the statistics where the allocation and recycling counters are to be reported. May be {@code null}
+   */
+  public SizeClassedByteBufferManager(MemoryManager memoryManager, long waitTimeoutMillis, boolean direct,
+                                      MutableStreamingStatistics statistics) {
+    this.maxStreamingMemory = calculateMaxStreamingMemory(memoryManager);
+    this.waitTimeoutMillis = waitTimeoutMillis;
+    this.statistics = statistics != null ? statistics : new MutableStreamingStatistics();
+    this.directBufferManager = direct ? new DirectPool() : this;
+  }
+
+  private long calculateMaxStreamingMemory(MemoryManager memoryManager) {
+    String maxMemoryProperty = getProperty(MULE_STREAMING_MAX_MEMORY);
+    if (maxMemoryProperty == null) {
+      return round(memoryManager.getMaxMemory() * 0.5);
+    } else {
+      try {
+        return Long.valueOf(maxMemoryProperty);
+      } catch (Exception e) {
+        throw new IllegalArgumentException(format("Invalid value for system property '%s'. A memory size (in bytes) was "
+            + "expected, got '%s' instead",
+                                                  MULE_STREAMING_MAX_MEMORY, maxMemoryProperty));
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   * The returned buffer is a heap buffer.
+   */
+  @Override
+  public ByteBuffer allocate(int capacity) {
+    return heapPool.allocate(capacity);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void deallocate(ByteBuffer byteBuffer) {
+    heapPool.deallocate(byteBuffer);
+  }
+
+  /**
+   * @return a {@link ByteBufferManager} which allocates direct buffers if this instance was created with direct buffers enabled,
+   *         or this same instance otherwise. It shares the memory limit of this instance.
+   */
+  public ByteBufferManager getDirectBufferManager() {
+    return directBufferManager;
+  }
+
+  private void reserveMemory(int bufferCapacity) {
+    if (streamingMemory.addAndGet(bufferCapacity) <= maxStreamingMemory) {
+      return;
+    }
+    streamingMemory.addAndGet(-bufferCapacity);
+
+    final long deadline = nanoTime() + MILLISECONDS.toNanos(waitTimeoutMillis);
+    do {
+      if (reclaimPooledBuffers() == 0) {
+        parkNanos(MEMORY_WAIT_NANOS);
+      }
+      if (streamingMemory.addAndGet(bufferCapacity) <= maxStreamingMemory) {
+        return;
+      }
+      streamingMemory.addAndGet(-bufferCapacity);
+    } while (nanoTime() < deadline);
+
+    throw new MaxStreamingMemoryExceededException(createStaticMessage(format("Max streaming memory limit of %d bytes was exceeded",
+                                                                             maxStreamingMemory)));
+  }
+
+  private void releaseMemory(int bufferCapacity) {
+    streamingMemory.addAndGet(-bufferCapacity);
+  }
+
+  /**
+   * Drops the buffers pooled in every magazine and depot, releasing their memory.
+   *
+   * @return the amount of memory released
+   */
+  private long reclaimPooledBuffers() {
+    long reclaimed = heapPool.reclaim();
+    if (directBufferManager instanceof Pool) {
+      reclaimed += ((Pool) directBufferManager).reclaim();
+    }
+    return reclaimed;
+  }
+
+  /**
+   * @return the index of the size class for the given {@code capacity}, or a value greater or equal than {@link #SIZE_CLASSES}
+   *         if the capacity exceeds the largest size class
+   */
+  private static int sizeClassOf(int capacity) {
+    if (capacity <= 1 << MIN_SIZE_CLASS_SHIFT) {
+      return 0;
+    }
+    return (32 - numberOfLeadingZeros(capacity - 1)) - MIN_SIZE_CLASS_SHIFT;
+  }
+
+  /**
+   * @return the capacity of the pooled buffer from which a buffer of the given {@code capacity} is sliced, which is also the
+   *         amount of memory it reserves
+   */
+  private static int pooledCapacityOf(int capacity) {
+    final int sizeClass = sizeClassOf(capacity);
+    return sizeClass < SIZE_CLASSES ? 1 << (sizeClass + MIN_SIZE_CLASS_SHIFT) : capacity;
+  }
+
+  @Override
+  public void dispose() {
+    disposed = true;
+    reclaimPooledBuffers();
+  }
+
+  /**
+   * The magazines and depots of one kind of buffers.
+   */
+  private abstract class Pool implements ByteBufferManager {
+
+    private final Depot[] depots = new Depot[SIZE_CLASSES];
+    // The magazines of every thread that used this pool, so their buffers can be reclaimed from any thread
+    private final Queue<Magazine[]> allMagazines = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<Magazine[]> magazines = ThreadLocal.withInitial(this::createMagazines);
+
+    private Pool() {
+      for (int i = 0; i < SIZE_CLASSES; i++) {
+        depots[i] = new Depot();
+      }
+    }
+
+    private Magazine[] createMagazines() {
+      Magazine[] threadMagazines = new Magazine[SIZE_CLASSES];
+      for (int sizeClass = 0; sizeClass + MIN_SIZE_CLASS_SHIFT <= MAX_MAGAZINE_SIZE_CLASS_SHIFT; sizeClass++) {
+        final int bufferCapacity = 1 << (sizeClass + MIN_SIZE_CLASS_SHIFT);
+        threadMagazines[sizeClass] = new Magazine(max(1, min(MAX_MAGAZINE_SIZE, MAGAZINE_BYTES / bufferCapacity)));
+      }
+      allMagazines.offer(threadMagazines);
+      return threadMagazines;
+    }
+
+    @Override
+    public ByteBuffer allocate(int capacity) {
+      final int sizeClass = sizeClassOf(capacity);
+      final int bufferCapacity = pooledCapacityOf(capacity);
+
+      ByteBuffer buffer = null;
+      if (sizeClass < SIZE_CLASSES) {
+        Magazine magazine = magazines.get()[sizeClass];
+        if (magazine != null) {
+          buffer = magazine.pop();
+        }
+        if (buffer == null) {
+          buffer = depots[sizeClass].poll();
+        }
+      }
+
+      if (buffer == null) {
+        // Pooled buffers already hold their memory, only new ones need to reserve it
+        reserveMemory(bufferCapacity);
+        statistics.incrementBufferAllocations(false);
+        buffer = create(bufferCapacity);
+      } else {
+        statistics.incrementBufferAllocations(true);
+      }
+
+      buffer.clear();
+      buffer.limit(capacity);
+      return slice(buffer);
+    }
+
+    @Override
+    public void deallocate(ByteBuffer byteBuffer) {
+      // The slice has the requested capacity, so this is exactly what was reserved for its pooled buffer
+      final int bufferCapacity = pooledCapacityOf(byteBuffer.capacity());
+
+      final ByteBuffer pooled = pooledOf(byteBuffer, bufferCapacity);
+      if (disposed || pooled == null || pooled.capacity() != bufferCapacity || sizeClassOf(bufferCapacity) >= SIZE_CLASSES) {
+        releaseMemory(bufferCapacity);
+        statistics.incrementBufferRecycles(false);
+        return;
+      }
+
+      final int sizeClass = sizeClassOf(bufferCapacity);
+      boolean recycled = false;
+      Magazine magazine = magazines.get()[sizeClass];
+      if (magazine != null) {
+        recycled = magazine.push(pooled);
+      }
+
+      if (!recycled) {
+        recycled = depots[sizeClass].offer(pooled);
+      }
+
+      if (!recycled) {
+        releaseMemory(bufferCapacity);
+      } else if (disposed) {
+        // The manager was disposed while the buffer was being pooled
+        reclaim();
+      }
+      statistics.incrementBufferRecycles(recycled);
+    }
+
+    /**
+     * Drops the buffers pooled in the magazines of every thread and in the depots, releasing their memory.
+     *
+     * @return the amount of memory released
+     */
+    long reclaim() {
+      long reclaimed = 0;
+      for (Magazine[] threadMagazines : allMagazines) {
+        for (Magazine magazine : threadMagazines) {
+          if (magazine != null) {
+            reclaimed += release(magazine::pop);
+          }
+        }
+      }
+      for (Depot depot : depots) {
+        reclaimed += release(depot::poll);
+      }
+      return reclaimed;
+    }
+
+    private long release(Supplier<ByteBuffer> pooledBuffers) {
+      long released = 0;
+      ByteBuffer buffer;
+      while ((buffer = pooledBuffers.get()) != null) {
+        releaseMemory(buffer.capacity());
+        released += buffer.capacity();
+      }
+      return released;
+    }
+
+    /**
+     * @return a new buffer of the given size class capacity
+     */
+    protected abstract ByteBuffer create(int bufferCapacity);
+
+    /**
+     * @return a buffer with the limit of the given pooled {@code buffer} as capacity, backed by the same memory
+     */
+    protected abstract ByteBuffer slice(ByteBuffer buffer);
+
+    /**
+     * @return the pooled buffer from which the given {@code slice} was obtained, or {@code null} if it cannot be recycled
+     */
+    protected abstract ByteBuffer pooledOf(ByteBuffer slice, int bufferCapacity);
+  }
+
+  /**
+   * Pool of heap buffers. The pooled buffer of a slice is rebuilt from its backing array.
+   */
+  private final class HeapPool extends Pool {
+
+    @Override
+    protected ByteBuffer create(int bufferCapacity) {
+      return ByteBuffer.allocate(bufferCapacity);
+    }
+
+    @Override
+    protected ByteBuffer slice(ByteBuffer buffer) {
+      return buffer.slice();
+    }
+
+    @Override
+    protected ByteBuffer pooledOf(ByteBuffer slice, int bufferCapacity) {
+      if (!slice.hasArray() || slice.arrayOffset() != 0) {
+        return null;
+      }
+      return ByteBuffer.wrap(slice.array());
+    }
+  }
+
+  /**
+   * Pool of direct buffers. Direct slices don't expose the buffer they were obtained from, so it is tracked while the slice is
+   * allocated.
+   */
+  private final class DirectPool extends Pool {
+
+    private final Map<ByteBuffer, ByteBuffer> allocated = synchronizedMap(new IdentityHashMap<>());
+
+    @Override
+    protected ByteBuffer create(int bufferCapacity) {
+      return ByteBuffer.allocateDirect(bufferCapacity);
+    }
+
+    @Override
+    protected ByteBuffer slice(ByteBuffer buffer) {
+      ByteBuffer slice = buffer.slice();
+      allocated.put(slice, buffer);
+      return slice;
+    }
+
+    @Override
+    protected ByteBuffer pooledOf(ByteBuffer slice, int bufferCapacity) {
+      return allocated.remove(slice);
+    }
+  }
+
+  /**
+   * A bounded stack of buffers used by the thread that owns it. Other threads only access it to reclaim its buffers, so its lock
+   * is almost never contended.
+   */
+  private static final class Magazine {
+
+    private final ByteBuffer[] buffers;
+    private int size = 0;
+
+    private Magazine(int capacity) {
+      buffers = new ByteBuffer[capacity];
+    }
+
+    private synchronized ByteBuffer pop() {
+      if (size == 0) {
+        return null;
+      }
+      ByteBuffer buffer = buffers[--size];
+      buffers[size] = null;
+      return buffer;
+    }
+
+    private synchronized boolean push(ByteBuffer buffer) {
+      if (size == buffers.length) {
+        return false;
+      }
+      buffers[size++] = buffer;
+      return true;
+    }
+  }
+
+  /**
+   * A bounded, lock-free pool of buffers shared by all threads.
+   */
+  private static final class Depot {
+
+    private final Queue<ByteBuffer> buffers = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger(0);
+
+    private ByteBuffer poll() {
+      ByteBuffer buffer = buffers.poll();
+      if (buffer != null) {
+        size.decrementAndGet();
+      }
+      return buffer;
+    }
+
+    private boolean offer(ByteBuffer buffer) {
+      if (size.incrementAndGet() > MAX_DEPOT_SIZE) {
+        size.decrementAndGet();
+        return false;
+      }
+      buffers.offer(buffer);
+      return true;
+    }
+  }
+}
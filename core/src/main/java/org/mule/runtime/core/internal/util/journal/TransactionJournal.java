@@ -6,6 +6,10 @@
  */
 package org.mule.runtime.core.internal.util.journal;
 
+import static java.lang.Boolean.getBoolean;
+import static java.lang.Long.getLong;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
 import org.mule.runtime.api.util.Preconditions;
 
 import com.google.common.collect.LinkedHashMultimap;
@@ -25,12 +29,19 @@ import org.slf4j.LoggerFactory;
  *
  * Keeps a memory cache of the log entries for performance reasons. Once a transaction finishes the client of this class must
  * manually remove the entries related to such transaction to clear the cache.
+ *
+ * If the {@link #GROUP_COMMIT_PROPERTY_KEY} system property is set, logging an operation doesn't return until the entry is
+ * forced to the storage device. Entries logged concurrently by different transactions are written and forced together, waiting
+ * at most {@link #MAX_BATCH_LATENCY_PROPERTY_KEY} microseconds for a batch to grow.
  */
 public class TransactionJournal<T, K extends JournalEntry<T>> {
 
   public static final String TX1_LOG_FILE_NAME = "tx1.log";
   public static final String TX2_LOG_FILE_NAME = "tx2.log";
 
+  public static final String GROUP_COMMIT_PROPERTY_KEY = "mule.queue.txlog.groupCommit";
+  public static final String MAX_BATCH_LATENCY_PROPERTY_KEY = "mule.queue.txlog.maxBatchLatency";
+
   private static final int MAXIMUM_LOG_FILE_ENTRIES = 50000;
   private static final int ONE_MEGABYTE_IN_BYTES = 1024 * 1024;
 
@@ -72,10 +83,12 @@ public class TransactionJournal<T, K extends JournalEntry<T>> {
     File logFile2 = new File(logFileDirectory, TX2_LOG_FILE_NAME);
     logger.info(String.format("Using files for tx logs %s and %s", logFile1.getAbsolutePath(), logFile2.getAbsolutePath()));
 
-    this.currentLogFile =
-        new TransactionJournalFile(logFile1, journalEntrySerializer, transactionCompletePredicate, clearFileMinimumSizeInBytes);
-    this.notCurrentLogFile =
-        new TransactionJournalFile(logFile2, journalEntrySerializer, transactionCompletePredicate, clearFileMinimumSizeInBytes);
+    boolean groupCommit = getBoolean(GROUP_COMMIT_PROPERTY_KEY);
+    long maxBatchLatencyNanos = MICROSECONDS.toNanos(getLong(MAX_BATCH_LATENCY_PROPERTY_KEY, 0L));
+    this.currentLogFile = new TransactionJournalFile(logFile1, journalEntrySerializer, transactionCompletePredicate,
+                                                     clearFileMinimumSizeInBytes, groupCommit, maxBatchLatencyNanos);
+    this.notCurrentLogFile = new TransactionJournalFile(logFile2, journalEntrySerializer, transactionCompletePredicate,
+                                                        clearFileMinimumSizeInBytes, groupCommit, maxBatchLatencyNanos);
     this.transactionCompletePredicate = transactionCompletePredicate;
 
   }
@@ -92,9 +105,14 @@ public class TransactionJournal<T, K extends JournalEntry<T>> {
    *
    * @param journalEntry journal entry with the update operation details
    */
-  public synchronized void logUpdateOperation(JournalEntry<T> journalEntry) {
-    TransactionJournalFile logFile = determineLogFile(journalEntry.getTxId());
-    logFile.logOperation(journalEntry);
+  public void logUpdateOperation(JournalEntry<T> journalEntry) {
+    final TransactionJournalFile logFile;
+    final long sequence;
+    synchronized (this) {
+      logFile = determineLogFile(journalEntry.getTxId());
+      sequence = logFile.logOperation(journalEntry);
+    }
+    logFile.awaitDurable(sequence);
   }
 
   /**
@@ -104,12 +122,17 @@ public class TransactionJournal<T, K extends JournalEntry<T>> {
    *
    * @param journalEntry journal entry with the checkpoint operation details
    */
-  public synchronized void logCheckpointOperation(JournalEntry<T> journalEntry) {
-    TransactionJournalFile logFile = determineLogFile(journalEntry.getTxId());
-    logFile.logOperation(journalEntry);
-    if (transactionCompletePredicate.isTransactionComplete(journalEntry)) {
-      logFile.clearEntriesForTransaction(journalEntry.getTxId());
+  public void logCheckpointOperation(JournalEntry<T> journalEntry) {
+    final TransactionJournalFile logFile;
+    final long sequence;
+    synchronized (this) {
+      logFile = determineLogFile(journalEntry.getTxId());
+      sequence = logFile.logOperation(journalEntry);
+      if (transactionCompletePredicate.isTransactionComplete(journalEntry)) {
+        logFile.clearEntriesForTransaction(journalEntry.getTxId());
+      }
     }
+    logFile.awaitDurable(sequence);
   }
 
   /**
@@ -6,12 +6,16 @@
  */
 package org.mule.runtime.core.internal.util.journal;
 
+import static java.lang.Math.max;
+import static java.util.concurrent.locks.LockSupport.parkNanos;
+
 import org.mule.runtime.api.exception.MuleRuntimeException;
 
 import com.google.common.collect.LinkedHashMultimap;
 import com.google.common.collect.Multimap;
 
 import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.EOFException;
@@ -20,6 +24,8 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -30,6 +36,12 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Manages a transaction journal file.
+ * <p>
+ * By default entries are written straight to the file and synchronizing them with the storage device is left to the operating
+ * system. When group commit is enabled, entries are accumulated in memory and the callers of {@link #awaitDurable(long)} are
+ * released only once their entries were written and forced to the storage device. The first waiting thread becomes the leader:
+ * it optionally waits up to {@code maxBatchLatencyNanos} for more entries to join the batch, and then writes and forces all the
+ * pending entries in a single operation on behalf of every waiting thread.
  *
  * @param <T> type of the transaction identifier
  * @param <K> type of the journal entry
@@ -50,9 +62,22 @@ class TransactionJournalFile<T, K extends JournalEntry<T>> {
 
   private Multimap<T, K> entries = LinkedHashMultimap.create();
 
+  private final boolean groupCommit;
+  private final long maxBatchLatencyNanos;
+
+  private FileOutputStream logFileStream;
   private DataOutputStream logFileOutputStream;
   private int journalOperations = 0;
 
+  private final ByteArrayOutputStream pendingBytes = new ByteArrayOutputStream();
+  private final DataOutputStream pendingOutputStream = new DataOutputStream(pendingBytes);
+  private long appendedSequence = 0;
+  private int fileGeneration = 0;
+
+  private final Object flushMonitor = new Object();
+  private long durableSequence = 0;
+  private boolean flushing = false;
+
   /**
    * @param journalFile journal file to use. Will be created if it doesn't exists. If exists then transaction entries will get
    *        loaded from it.
@@ -61,9 +86,27 @@ class TransactionJournalFile<T, K extends JournalEntry<T>> {
    */
   public TransactionJournalFile(File journalFile, JournalEntrySerializer journalEntrySerializer,
                                 TransactionCompletePredicate transactionCompletePredicate, Long clearFileMinimumSizeInBytes) {
+    this(journalFile, journalEntrySerializer, transactionCompletePredicate, clearFileMinimumSizeInBytes, false, 0);
+  }
+
+  /**
+   * @param journalFile journal file to use. Will be created if it doesn't exists. If exists then transaction entries will get
+   *        loaded from it.
+   * @param journalEntrySerializer serializer for {@link JournalEntry}
+   * @param transactionCompletePredicate a callback to determine if a transaction is complete.
+   * @param groupCommit whether entries are to be batched and forced to the storage device before releasing the callers of
+   *        {@link #awaitDurable(long)}
+   * @param maxBatchLatencyNanos the maximum time a batch waits for more entries before being written when {@code groupCommit}
+   *        is enabled
+   */
+  public TransactionJournalFile(File journalFile, JournalEntrySerializer journalEntrySerializer,
+                                TransactionCompletePredicate transactionCompletePredicate, Long clearFileMinimumSizeInBytes,
+                                boolean groupCommit, long maxBatchLatencyNanos) {
     this.journalFile = journalFile;
     this.journalEntrySerializer = journalEntrySerializer;
     this.clearFileMinimumSizeInBytes = clearFileMinimumSizeInBytes;
+    this.groupCommit = groupCommit;
+    this.maxBatchLatencyNanos = maxBatchLatencyNanos;
     if (journalFile.exists()) {
       loadAllEntries(transactionCompletePredicate);
     }
@@ -74,11 +117,99 @@ class TransactionJournalFile<T, K extends JournalEntry<T>> {
    * Adds a journal entry for an operation done over a transactional resource
    * 
    * @param journalEntry operation details
+   * @return the sequence number of the entry, to be used with {@link #awaitDurable(long)}
    */
-  public synchronized void logOperation(K journalEntry) {
+  public synchronized long logOperation(K journalEntry) {
     entries.put(journalEntry.getTxId(), journalEntry);
-    journalEntrySerializer.serialize(journalEntry, logFileOutputStream);
+    journalEntrySerializer.serialize(journalEntry, groupCommit ? pendingOutputStream : logFileOutputStream);
     journalOperations++;
+    return ++appendedSequence;
+  }
+
+  /**
+   * Blocks until the entry with the given sequence number, and all the ones logged before it, are durable. Does nothing unless
+   * group commit is enabled.
+   * <p>
+   * Must not be called while holding the monitor of this journal file, since the entries are forced outside of it.
+   *
+   * @param sequence the value returned by {@link #logOperation(JournalEntry)} for the entry
+   */
+  public void awaitDurable(long sequence) {
+    if (!groupCommit) {
+      return;
+    }
+
+    synchronized (flushMonitor) {
+      while (flushing && durableSequence < sequence) {
+        try {
+          flushMonitor.wait();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new MuleRuntimeException(e);
+        }
+      }
+      if (durableSequence >= sequence) {
+        return;
+      }
+      flushing = true;
+    }
+
+    long flushedSequence = 0;
+    try {
+      if (maxBatchLatencyNanos > 0) {
+        parkNanos(maxBatchLatencyNanos);
+      }
+      flushedSequence = flushPendingEntries();
+    } finally {
+      synchronized (flushMonitor) {
+        durableSequence = max(durableSequence, flushedSequence);
+        flushing = false;
+        flushMonitor.notifyAll();
+      }
+    }
+  }
+
+  /**
+   * Writes the pending entries to the journal file and then forces it, outside of the monitor of this journal file so more
+   * entries may be logged meanwhile.
+   *
+   * @return the sequence number of the last entry that is now durable
+   */
+  private long flushPendingEntries() {
+    final long batchSequence;
+    final int batchFileGeneration;
+    final FileChannel channel;
+    synchronized (this) {
+      batchSequence = appendedSequence;
+      batchFileGeneration = fileGeneration;
+      channel = logFileStream.getChannel();
+      try {
+        writePendingEntries();
+      } catch (IOException e) {
+        throw new MuleRuntimeException(e);
+      }
+    }
+
+    try {
+      channel.force(false);
+    } catch (ClosedChannelException e) {
+      synchronized (this) {
+        // The file was cleared or closed meanwhile, so either the entries are not needed anymore or they were already forced
+        if (fileGeneration == batchFileGeneration) {
+          throw new MuleRuntimeException(e);
+        }
+      }
+    } catch (IOException e) {
+      throw new MuleRuntimeException(e);
+    }
+    return batchSequence;
+  }
+
+  private void writePendingEntries() throws IOException {
+    if (pendingBytes.size() > 0) {
+      pendingBytes.writeTo(logFileOutputStream);
+      pendingBytes.reset();
+    }
   }
 
   /**
@@ -120,7 +251,16 @@ class TransactionJournalFile<T, K extends JournalEntry<T>> {
    * Will not remove the transaction context.
    */
   public synchronized void close() {
+    closeLogFile(groupCommit);
+  }
+
+  private void closeLogFile(boolean forcePendingEntries) {
+    fileGeneration++;
     try {
+      if (forcePendingEntries) {
+        writePendingEntries();
+        logFileStream.getChannel().force(false);
+      }
       logFileOutputStream.close();
     } catch (IOException e) {
       logger.warn(e.getMessage());
@@ -156,7 +296,8 @@ class TransactionJournalFile<T, K extends JournalEntry<T>> {
    * Remove all the entries from the transaction journal and cleans the transaction journal fle.
    */
   public synchronized void clear() {
-    close();
+    pendingBytes.reset();
+    closeLogFile(false);
     entries.clear();
     FileUtils.deleteQuietly(journalFile);
     createLogOutputStream();
@@ -171,7 +312,8 @@ class TransactionJournalFile<T, K extends JournalEntry<T>> {
       }
     }
     try {
-      this.logFileOutputStream = new DataOutputStream(new FileOutputStream(journalFile, true));
+      this.logFileStream = new FileOutputStream(journalFile, true);
+      this.logFileOutputStream = new DataOutputStream(logFileStream);
     } catch (FileNotFoundException e) {
       throw new MuleRuntimeException(e);
     }
@@ -17,10 +17,9 @@ import org.mule.runtime.core.api.util.queue.DefaultQueueConfiguration;
 import org.mule.runtime.core.api.util.queue.QueueConfiguration;
 import org.mule.runtime.core.api.util.queue.QueueManager;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,10 +34,9 @@ public abstract class AbstractQueueManager
 
   protected transient Logger logger = LoggerFactory.getLogger(getClass());
 
-  private final ReentrantLock queuesLock = new ReentrantLock();
-  private final Map<String, CacheAwareQueueStore> queues = new HashMap<>();
-  private final Map<String, QueueConfiguration> queueConfigurations = new HashMap<>();
-  private QueueConfiguration defaultQueueConfiguration = new DefaultQueueConfiguration();
+  private final Map<String, CacheAwareQueueStore> queues = new ConcurrentHashMap<>();
+  private final Map<String, QueueConfiguration> queueConfigurations = new ConcurrentHashMap<>();
+  private volatile QueueConfiguration defaultQueueConfiguration = new DefaultQueueConfiguration();
   private MuleContext muleContext;
 
   /**
@@ -77,25 +75,6 @@ public abstract class AbstractQueueManager
     return ofNullable(queueConfigurations.get(queueName));
   }
 
-  private QueueStore getQueue(String name, QueueConfiguration config) {
-    CacheAwareQueueStore queueStore = queues.get(name);
-    if (queueStore != null) {
-      return queueStore;
-    }
-    queuesLock.lock();
-    try {
-      queueStore = queues.get(name);
-      if (queueStore == null) {
-        queueStore = new CacheAwareQueueStore(createQueueStore(name, config), this);
-        queues.put(name, queueStore);
-      }
-
-      return queueStore;
-    } finally {
-      queuesLock.unlock();
-    }
-  }
-
   @Override
   public void setMuleContext(MuleContext context) {
     this.muleContext = context;
@@ -127,14 +106,8 @@ public abstract class AbstractQueueManager
         throw new IllegalArgumentException("Queue to be disposed cannot be null");
       }
       final String queueName = queueStore.getName();
-      queuesLock.lock();
-      try {
-        if (!this.queues.containsKey(queueName)) {
-          throw new IllegalArgumentException(String.format("There's no queue for name %s", queueName));
-        }
-        this.queues.remove(queueName);
-      } finally {
-        queuesLock.unlock();
+      if (this.queues.remove(queueName) == null) {
+        throw new IllegalArgumentException(String.format("There's no queue for name %s", queueName));
       }
     } catch (Exception e) {
       throw new MuleRuntimeException(e);
@@ -142,17 +115,28 @@ public abstract class AbstractQueueManager
   }
 
   @Override
-  public synchronized QueueStore getQueue(String queueName) {
-    return getQueue(queueName, defineQueueConfiguration(queueName));
+  public QueueStore getQueue(String queueName) {
+    CacheAwareQueueStore queueStore = queues.get(queueName);
+    if (queueStore != null) {
+      return queueStore;
+    }
+    // Queues are created holding the same lock as configuration writes, so the configuration can't change between being read
+    // and the queue being registered as in use
+    synchronized (this) {
+      return queues.computeIfAbsent(queueName, name -> {
+        QueueConfiguration config = defineQueueConfiguration(name);
+        return new CacheAwareQueueStore(createQueueStore(name, config), this);
+      });
+    }
   }
 
   private QueueConfiguration defineQueueConfiguration(String queueName) {
-    if (!queueConfigurations.containsKey(queueName)) {
-      setQueueConfiguration(queueName, defaultQueueConfiguration);
-      return defaultQueueConfiguration;
-    } else {
-      return queueConfigurations.get(queueName);
+    QueueConfiguration config = queueConfigurations.get(queueName);
+    if (config == null) {
+      config = defaultQueueConfiguration;
+      setQueueConfiguration(queueName, config);
     }
+    return config;
   }
 
   protected void clearQueueConfiguration(String queueName) {
@@ -6,6 +6,9 @@
  */
 package org.mule.runtime.core.internal.util.queue;
 
+import static java.lang.Boolean.getBoolean;
+import static java.lang.Thread.currentThread;
+
 import org.mule.runtime.core.api.MuleContext;
 import org.mule.runtime.core.api.util.queue.DefaultQueueConfiguration;
 import org.mule.runtime.core.api.util.queue.QueueConfiguration;
@@ -19,6 +22,19 @@ import org.apache.commons.lang3.NotImplementedException;
  */
 public class DefaultQueueStore implements RecoverableQueueStore {
 
+  /**
+   * When set to true, persistent queues are stored using a {@link SegmentedLogQueueStoreDelegate} instead of a
+   * {@link DualRandomAccessFileQueueStoreDelegate}. The elements of existing queues are moved to the store in use when the queue
+   * is created, so this property may be changed between restarts.
+   */
+  public static final String SEGMENTED_LOG_PERSISTENT_QUEUE_STORE_PROPERTY_KEY = "mule.queue.segmentedLogPersistentStore";
+
+  /**
+   * When set to true, transient queues are stored using a {@link RingBufferQueueStoreDelegate} instead of a
+   * {@link DefaultQueueStoreDelegate}.
+   */
+  public static final String RING_BUFFER_TRANSIENT_QUEUE_STORE_PROPERTY_KEY = "mule.queue.ringBufferTransientStore";
+
   private QueueConfiguration config;
   private String name;
   private QueueStoreDelegate delegate;
@@ -43,13 +59,60 @@ public class DefaultQueueStore implements RecoverableQueueStore {
       this.config = new DefaultQueueConfiguration();
     }
     if (this.config.isPersistent()) {
-      delegate = new DualRandomAccessFileQueueStoreDelegate(this.name, muleContext.getConfiguration().getWorkingDirectory(),
-                                                            muleContext, this.config.getCapacity());
+      delegate = createPersistentDelegate(muleContext.getConfiguration().getWorkingDirectory());
+    } else if (getBoolean(RING_BUFFER_TRANSIENT_QUEUE_STORE_PROPERTY_KEY)) {
+      delegate = new RingBufferQueueStoreDelegate(this.config.getCapacity());
     } else {
       delegate = new DefaultQueueStoreDelegate(this.config.getCapacity());
     }
   }
 
+  private QueueStoreDelegate createPersistentDelegate(String workingDirectory) {
+    if (getBoolean(SEGMENTED_LOG_PERSISTENT_QUEUE_STORE_PROPERTY_KEY)) {
+      SegmentedLogQueueStoreDelegate logDelegate =
+          new SegmentedLogQueueStoreDelegate(this.name, workingDirectory, muleContext, this.config.getCapacity());
+      if (DualRandomAccessFileQueueStoreDelegate.queueFilesExist(this.name, workingDirectory)) {
+        migrateFromQueueFiles(workingDirectory, logDelegate);
+      }
+      return logDelegate;
+    }
+
+    DualRandomAccessFileQueueStoreDelegate filesDelegate =
+        new DualRandomAccessFileQueueStoreDelegate(this.name, workingDirectory, muleContext, this.config.getCapacity());
+    if (SegmentedLogQueueStoreDelegate.logExists(this.name, workingDirectory)) {
+      migrateFromLog(workingDirectory, filesDelegate);
+    }
+    return filesDelegate;
+  }
+
+  /**
+   * Moves the elements stored by a {@link DualRandomAccessFileQueueStoreDelegate} into the log. If the process stops during the
+   * migration, the elements may be duplicated but are never lost.
+   */
+  private void migrateFromQueueFiles(String workingDirectory, SegmentedLogQueueStoreDelegate logDelegate) {
+    DualRandomAccessFileQueueStoreDelegate filesDelegate =
+        new DualRandomAccessFileQueueStoreDelegate(this.name, workingDirectory, muleContext, this.config.getCapacity());
+    try {
+      logDelegate.addAll(filesDelegate.allElementsInReadOrder());
+      filesDelegate.dispose();
+    } catch (InterruptedException e) {
+      currentThread().interrupt();
+      filesDelegate.close();
+    }
+  }
+
+  /**
+   * Moves the elements stored by a {@link SegmentedLogQueueStoreDelegate} into the queue files, for when the log was used on a
+   * previous run and is no longer enabled. If the process stops during the migration, the elements may be duplicated but are
+   * never lost.
+   */
+  private void migrateFromLog(String workingDirectory, DualRandomAccessFileQueueStoreDelegate filesDelegate) {
+    SegmentedLogQueueStoreDelegate logDelegate =
+        new SegmentedLogQueueStoreDelegate(this.name, workingDirectory, muleContext, this.config.getCapacity());
+    filesDelegate.addAll(logDelegate.allElementsInQueueOrder());
+    logDelegate.dispose();
+  }
+
   @Override
   public boolean equals(Object obj) {
     return (obj instanceof DefaultQueueStore && name.equals(((DefaultQueueStore) obj).name));
@@ -93,6 +93,22 @@ public class DualRandomAccessFileQueueStoreDelegate extends AbstractQueueStoreDe
     return new File(getQueuesDirectory(workingDirectory), queueName + QUEUE_STORE_1_SUFFIX);
   }
 
+  /**
+   * @param queueName        the name of the queue
+   * @param workingDirectory the working directory of the queues
+   * @return true if there are files for the queue with the given name in the working directory, false otherwise
+   */
+  static boolean queueFilesExist(String queueName, String workingDirectory) {
+    File queuesDirectory = getQueuesDirectory(workingDirectory);
+    for (String suffix : new String[] {QUEUE_STORE_1_SUFFIX, QUEUE_STORE_2_SUFFIX}) {
+      if (new File(queuesDirectory, queueName + suffix).isFile()
+          || new File(queuesDirectory, QueueFileProvider.toHex(queueName + suffix)).isFile()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   @Override
   protected void addFirst(Serializable item) throws InterruptedException {
     switchWriteFileIfFull();
@@ -191,6 +207,22 @@ public class DualRandomAccessFileQueueStoreDelegate extends AbstractQueueStoreDe
     return elements;
   }
 
+  /**
+   * Use this method carefully since it required bit amount of IO.
+   *
+   * @return all the elements in the queue, starting with the ones in the current read file. Elements that were put back at the
+   *         beginning of the queue are returned after the other elements of the same file.
+   * @throws InterruptedException
+   */
+  Collection<Serializable> allElementsInReadOrder() throws InterruptedException {
+    List<Serializable> elements = new LinkedList<>();
+    elements.addAll(deserializeValues(readFile.allElements()));
+    if (writeFile != readFile) {
+      elements.addAll(deserializeValues(writeFile.allElements()));
+    }
+    return elements;
+  }
+
   private Collection<Serializable> deserializeValues(Collection<byte[]> valuesAsBytes) {
     List<Serializable> values = new ArrayList<>(valuesAsBytes.size());
     for (byte[] valueAsByte : valuesAsBytes) {
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.internal.util.queue;
+
+import static java.lang.Integer.highestOneBit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded multi-producer multi-consumer queue on a ring of slots, each one carrying a sequence number that tells producers and
+ * consumers whether the slot is free or published for the current lap. Producers and consumers only contend on the CAS of
+ * {@code tail} and {@code head} respectively, and never block.
+ *
+ * @param <E> the type of the elements
+ */
+final class MpmcRingBuffer<E> {
+
+  private final int mask;
+  private final AtomicReferenceArray<E> elements;
+  private final AtomicLongArray sequences;
+  private final AtomicLong head = new AtomicLong();
+  private final AtomicLong tail = new AtomicLong();
+
+  /**
+   * @param size the minimum amount of slots of the ring, rounded up to the next power of two
+   */
+  MpmcRingBuffer(int size) {
+    int slots = size <= 1 ? 1 : highestOneBit(size - 1) << 1;
+    this.mask = slots - 1;
+    this.elements = new AtomicReferenceArray<>(slots);
+    this.sequences = new AtomicLongArray(slots);
+    for (int i = 0; i < slots; i++) {
+      sequences.set(i, i);
+    }
+  }
+
+  /**
+   * @return {@code true} if the element was added, {@code false} if the ring is full
+   */
+  boolean offer(E element) {
+    long position = tail.get();
+    while (true) {
+      int index = (int) position & mask;
+      long difference = sequences.get(index) - position;
+      if (difference == 0) {
+        if (tail.compareAndSet(position, position + 1)) {
+          elements.lazySet(index, element);
+          sequences.set(index, position + 1);
+          return true;
+        }
+        position = tail.get();
+      } else if (difference < 0) {
+        return false;
+      } else {
+        position = tail.get();
+      }
+    }
+  }
+
+  /**
+   * Takes the first element of the ring. If a producer already claimed the first slot but did not publish its element yet, waits
+   * for it, so the ring is never reported empty while it holds an element.
+   *
+   * @return the first element of the ring, or {@code null} if it is empty
+   */
+  E poll() {
+    long position = head.get();
+    while (true) {
+      int index = (int) position & mask;
+      long difference = sequences.get(index) - (position + 1);
+      if (difference == 0) {
+        if (head.compareAndSet(position, position + 1)) {
+          E element = elements.get(index);
+          elements.lazySet(index, null);
+          sequences.set(index, position + mask + 1);
+          return element;
+        }
+        position = head.get();
+      } else if (difference < 0) {
+        if (!isClaimed(position)) {
+          return null;
+        }
+        position = head.get();
+      } else {
+        position = head.get();
+      }
+    }
+  }
+
+  /**
+   * @return the first element of the ring without removing it, or {@code null} if it is empty
+   */
+  E peek() {
+    while (true) {
+      long position = head.get();
+      int index = (int) position & mask;
+      long difference = sequences.get(index) - (position + 1);
+      if (difference < 0) {
+        if (!isClaimed(position)) {
+          return null;
+        }
+        continue;
+      }
+      E element = elements.get(index);
+      if (difference == 0 && head.get() == position) {
+        return element;
+      }
+    }
+  }
+
+  /**
+   * @return {@code true} if a producer claimed the slot at {@code position}, which is about to be published, {@code false} if the
+   *         ring is empty
+   */
+  private boolean isClaimed(long position) {
+    if (tail.get() <= position) {
+      return false;
+    }
+    // The producer publishes right after claiming the slot, let it run
+    Thread.yield();
+    return true;
+  }
+
+  /**
+   * @return the amount of slots of the ring
+   */
+  int capacity() {
+    return mask + 1;
+  }
+}
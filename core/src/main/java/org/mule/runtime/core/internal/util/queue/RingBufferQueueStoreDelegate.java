@@ -0,0 +1,299 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.internal.util.queue;
+
+import static java.lang.Math.min;
+import static java.lang.System.nanoTime;
+import static java.lang.Thread.currentThread;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.locks.LockSupport.park;
+import static java.util.concurrent.locks.LockSupport.parkNanos;
+import static java.util.concurrent.locks.LockSupport.unpark;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Transient {@link QueueStoreDelegate} that keeps the members of the queue in a {@link MpmcRingBuffer}, so producers and
+ * consumers do not share a monitor. Threads waiting for an element or for capacity are parked, and each put or take unparks a
+ * single waiter instead of waking all of them.
+ * <p>
+ * Elements that do not fit in the ring, because the queue is unbounded or because {@link #putNow(Serializable)} ignores the
+ * capacity, are appended to an overflow queue that is only read once the ring is drained. A slot claimed by a producer counts as
+ * part of the ring, so the overflow is not read until that element is published and taken. Untaken elements are kept apart and
+ * read before any other element.
+ */
+public class RingBufferQueueStoreDelegate implements QueueStoreDelegate {
+
+  /**
+   * Amount of slots of the ring for unbounded queues, and the maximum for bounded ones.
+   */
+  static final int MAX_RING_SIZE = 1024;
+
+  private final int capacity;
+  private final MpmcRingBuffer<Serializable> ring;
+  private final Queue<Serializable> overflow = new ConcurrentLinkedQueue<>();
+  private final ConcurrentLinkedDeque<Serializable> untaken = new ConcurrentLinkedDeque<>();
+  private final AtomicInteger size = new AtomicInteger();
+
+  private final Queue<Waiter> consumers = new ConcurrentLinkedQueue<>();
+  private final Queue<Waiter> producers = new ConcurrentLinkedQueue<>();
+
+  public RingBufferQueueStoreDelegate(int capacity) {
+    this.capacity = capacity;
+    this.ring = new MpmcRingBuffer<>(capacity > 0 ? min(capacity, MAX_RING_SIZE) : MAX_RING_SIZE);
+  }
+
+  @Override
+  public void putNow(Serializable o) {
+    size.incrementAndGet();
+    enqueue(o);
+    signal(consumers);
+  }
+
+  @Override
+  public boolean offer(Serializable o, int room, long timeout) throws InterruptedException {
+    checkInterrupted();
+    if (capacity > 0) {
+      if (capacity <= room) {
+        throw new IllegalStateException("Can not add more objects than the capacity in one time");
+      }
+      if (!awaitCapacity(capacity - room, o != null, timeout)) {
+        return false;
+      }
+    } else if (o != null) {
+      size.incrementAndGet();
+    }
+    if (o != null) {
+      enqueue(o);
+      signal(consumers);
+    }
+    return true;
+  }
+
+  @Override
+  public Serializable poll(long timeout) throws InterruptedException {
+    checkInterrupted();
+    Serializable item = dequeue();
+    if (item != null || timeout <= 0L) {
+      return item;
+    }
+
+    long deadline = nanoTime() + MILLISECONDS.toNanos(timeout);
+    while (true) {
+      Waiter waiter = new Waiter();
+      consumers.offer(waiter);
+      item = dequeue();
+      long remaining = deadline - nanoTime();
+      if (item == null && remaining > 0L) {
+        parkNanos(this, remaining);
+        item = dequeue();
+        remaining = deadline - nanoTime();
+      }
+      if (!waiter.cancel(consumers) && item == null) {
+        // The signal was meant for an element this thread won't take, pass it on
+        signal(consumers);
+      }
+      if (item != null) {
+        return item;
+      }
+      checkInterrupted();
+      if (remaining <= 0L) {
+        return null;
+      }
+    }
+  }
+
+  @Override
+  public Serializable peek() throws InterruptedException {
+    checkInterrupted();
+    Serializable item = untaken.peekFirst();
+    if (item == null) {
+      item = ring.peek();
+    }
+    if (item == null) {
+      item = overflow.peek();
+    }
+    return item;
+  }
+
+  @Override
+  public void untake(Serializable item) throws InterruptedException {
+    checkInterrupted();
+    size.incrementAndGet();
+    untaken.addFirst(item);
+    signal(consumers);
+  }
+
+  @Override
+  public int getSize() {
+    return size.get();
+  }
+
+  @Override
+  public void clear() throws InterruptedException {
+    checkInterrupted();
+    doClear();
+  }
+
+  @Override
+  public boolean addAll(Collection<? extends Serializable> items) {
+    for (Serializable item : items) {
+      size.incrementAndGet();
+      enqueue(item);
+      signal(consumers);
+    }
+    return !items.isEmpty();
+  }
+
+  @Override
+  public void dispose() {
+    doClear();
+  }
+
+  private void doClear() {
+    while (dequeue() != null) {
+      // discard
+    }
+    signalAll(producers);
+  }
+
+  private void enqueue(Serializable item) {
+    // Once an element overflowed, the following ones go after it to keep the order
+    if (!overflow.isEmpty() || !ring.offer(item)) {
+      overflow.offer(item);
+    }
+  }
+
+  private Serializable dequeue() {
+    Serializable item = untaken.pollFirst();
+    if (item == null) {
+      item = ring.poll();
+    }
+    if (item == null) {
+      item = overflow.poll();
+    }
+    if (item != null) {
+      size.decrementAndGet();
+      signal(producers);
+    }
+    return item;
+  }
+
+  /**
+   * Waits until the size of the queue is below {@code limit}.
+   *
+   * @param reserve whether to account for a new element once there is capacity for it
+   * @param timeout the maximum time to wait in milliseconds, waits indefinitely if negative
+   * @return {@code true} if there is capacity, {@code false} if the timeout elapsed
+   */
+  private boolean awaitCapacity(int limit, boolean reserve, long timeout) throws InterruptedException {
+    if (tryReserve(limit, reserve)) {
+      return true;
+    }
+    if (timeout == 0L) {
+      return false;
+    }
+
+    long deadline = timeout > 0L ? nanoTime() + MILLISECONDS.toNanos(timeout) : 0L;
+    while (true) {
+      Waiter waiter = new Waiter();
+      producers.offer(waiter);
+      boolean reserved = tryReserve(limit, reserve);
+      long remaining = timeout > 0L ? deadline - nanoTime() : Long.MAX_VALUE;
+      if (!reserved && remaining > 0L) {
+        if (timeout > 0L) {
+          parkNanos(this, remaining);
+          remaining = deadline - nanoTime();
+        } else {
+          park(this);
+        }
+        reserved = tryReserve(limit, reserve);
+      }
+      if (!waiter.cancel(producers) && !reserved) {
+        signal(producers);
+      }
+      if (reserved) {
+        return true;
+      }
+      checkInterrupted();
+      if (remaining <= 0L) {
+        return false;
+      }
+    }
+  }
+
+  private boolean tryReserve(int limit, boolean reserve) {
+    while (true) {
+      int current = size.get();
+      if (current >= limit) {
+        return false;
+      }
+      if (!reserve || size.compareAndSet(current, current + 1)) {
+        return true;
+      }
+    }
+  }
+
+  private void signal(Queue<Waiter> waiters) {
+    Waiter waiter;
+    while ((waiter = waiters.poll()) != null) {
+      if (waiter.signal()) {
+        return;
+      }
+    }
+  }
+
+  private void signalAll(Queue<Waiter> waiters) {
+    Waiter waiter;
+    while ((waiter = waiters.poll()) != null) {
+      waiter.signal();
+    }
+  }
+
+  private void checkInterrupted() throws InterruptedException {
+    if (Thread.interrupted()) {
+      throw new InterruptedException();
+    }
+  }
+
+  /**
+   * A thread parked until an element or capacity is available. Each waiter is signalled or cancelled exactly once.
+   */
+  private static final class Waiter {
+
+    private static final int WAITING = 0;
+    private static final int SIGNALLED = 1;
+    private static final int CANCELLED = 2;
+
+    private final Thread thread = currentThread();
+    private final AtomicInteger state = new AtomicInteger(WAITING);
+
+    boolean signal() {
+      if (state.compareAndSet(WAITING, SIGNALLED)) {
+        unpark(thread);
+        return true;
+      }
+      return false;
+    }
+
+    /**
+     * @return {@code true} if the waiter was cancelled, {@code false} if it had already been signalled
+     */
+    boolean cancel(Queue<Waiter> waiters) {
+      if (state.compareAndSet(WAITING, CANCELLED)) {
+        waiters.remove(this);
+        return true;
+      }
+      return false;
+    }
+  }
+}
@@ -0,0 +1,988 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.internal.util.queue;
+
+import static java.lang.Integer.getInteger;
+import static java.lang.Long.getLong;
+import static java.lang.Math.max;
+import static java.lang.System.nanoTime;
+import static java.lang.Thread.currentThread;
+import static java.nio.channels.FileChannel.MapMode.READ_WRITE;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.apache.commons.io.FileUtils.deleteQuietly;
+
+import org.mule.runtime.api.exception.MuleRuntimeException;
+import org.mule.runtime.api.serialization.ObjectSerializer;
+import org.mule.runtime.api.util.Preconditions;
+import org.mule.runtime.core.api.MuleContext;
+import org.mule.runtime.core.api.util.func.CheckedConsumer;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link TransactionalQueueStoreDelegate} implementation which stores the queue data in an append-only log.
+ * <p>
+ * The log is split in memory mapped segments of {@link #SEGMENT_SIZE_PROPERTY_KEY} bytes. Every operation that modifies the
+ * queue appends a record at the tail of the log, so removing an element from the queue never writes to a previous position of
+ * the files. The queue keeps the head cursor (the log position of each element, in queue order) in memory as primitive values.
+ * <p>
+ * Each time a segment is completed, a checkpoint file is written with the positions of the elements in the queue at that moment,
+ * and the segments which no longer contain any element are unmapped and deleted. A segment whose elements have all been
+ * consumed is released right away, by writing a new checkpoint, so the memory and disk space used by the log are proportional to
+ * the number of elements in the queue rather than to the number of operations. When the queue is opened, the checkpoint is
+ * loaded and only the records appended after it are replayed. Records are checksummed so a record that was partially written when
+ * the process crashed is detected and discarded.
+ * <p>
+ * Durability is controlled with the {@link #SYNC_INTERVAL_PROPERTY_KEY} system property:
+ * <ul>
+ * <li>{@code 0} (default): every operation returns after its record has been synced to disk. Concurrent operations are synced
+ * together (group commit), so the cost of a disk sync is shared among all the threads that were waiting for it.</li>
+ * <li>A positive value: the log is synced at most once every that many milliseconds, by a thread operating on the queue. The
+ * records appended since the last sync may be lost if the operating system crashes.</li>
+ * <li>A negative value: the log is never explicitly synced, the operating system decides when to write it to disk.</li>
+ * </ul>
+ *
+ * @since 4.1
+ */
+public class SegmentedLogQueueStoreDelegate implements TransactionalQueueStoreDelegate {
+
+  public static final String SEGMENT_SIZE_PROPERTY_KEY = "mule.queue.log.segmentSize";
+  public static final String SYNC_INTERVAL_PROPERTY_KEY = "mule.queue.log.syncInterval";
+
+  private static final int DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+  private static final String QUEUE_STORE_DIRECTORY = "queuestore";
+  private static final String LOG_DIRECTORY_SUFFIX = "-log";
+  private static final String SEGMENT_FILE_SUFFIX = ".seg";
+  private static final String CHECKPOINT_FILE_NAME = "checkpoint";
+  private static final String CHECKPOINT_TEMP_FILE_NAME = "checkpoint.tmp";
+
+  // length (int), type (byte), argument (long), checksum (int)
+  private static final int RECORD_HEADER_SIZE = 17;
+  private static final int CHECKSUM_OFFSET = 13;
+  private static final byte[] NO_DATA = new byte[0];
+
+  // segments are zero filled, so a zero type marks the end of the written data
+  private static final byte END_OF_DATA = 0;
+  private static final byte ADD_LAST = 1;
+  private static final byte ADD_FIRST = 2;
+  private static final byte REMOVE = 3;
+
+  private static final CheckedConsumer<ByteBuffer> UNMAPPER = createUnmapper();
+
+  protected final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+  private final ObjectSerializer serializer;
+  private final int capacity;
+  private final int segmentSize;
+  private final long syncIntervalNanos;
+  private final boolean syncEnabled;
+  private final File logDirectory;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition notEmpty = lock.newCondition();
+  private final Condition notFull = lock.newCondition();
+
+  // All guarded by lock
+  private final TreeMap<Integer, Segment> segments = new TreeMap<>();
+  private final Set<Segment> unsyncedSegments = new LinkedHashSet<>();
+  private final PositionDeque positions = new PositionDeque();
+  private Segment tail;
+  private long appendedRecords = 0;
+  private boolean closed = false;
+
+  // All guarded by syncMonitor
+  private final Object syncMonitor = new Object();
+  private long syncedRecords = 0;
+  private boolean syncInProgress = false;
+
+  private volatile long lastSyncNanos = nanoTime();
+
+  public SegmentedLogQueueStoreDelegate(String queueName, String workingDirectory, MuleContext muleContext, int capacity) {
+    this.serializer = muleContext.getObjectSerializer();
+    this.capacity = capacity;
+    this.segmentSize = getInteger(SEGMENT_SIZE_PROPERTY_KEY, DEFAULT_SEGMENT_SIZE);
+    final long syncInterval = getLong(SYNC_INTERVAL_PROPERTY_KEY, 0L);
+    this.syncEnabled = syncInterval >= 0;
+    this.syncIntervalNanos = MILLISECONDS.toNanos(max(syncInterval, 0));
+    this.logDirectory = createLogDirectory(getQueuesDirectory(workingDirectory), queueName);
+
+    lock.lock();
+    try {
+      recover();
+    } finally {
+      lock.unlock();
+    }
+
+    if (logger.isDebugEnabled()) {
+      logger.debug(String.format("Queue %s has %s messages", queueName, getSize()));
+    }
+  }
+
+  private static File getQueuesDirectory(String workingDirectory) {
+    return new File(workingDirectory + File.separator + QUEUE_STORE_DIRECTORY);
+  }
+
+  private static File createLogDirectory(File queuesDirectory, String queueName) {
+    final String directoryName = queueName + LOG_DIRECTORY_SUFFIX;
+    File directory = new File(queuesDirectory, directoryName);
+    if (directoryName.indexOf('/') >= 0 || directoryName.indexOf('\\') >= 0
+        || (!directory.exists() && !directory.mkdirs())) {
+      // if file system does not support the name provided then use a hex representation of the name.
+      directory = new File(queuesDirectory, QueueFileProvider.toHex(directoryName));
+      if (!directory.exists()) {
+        Preconditions.checkState(directory.mkdirs(), "Could not create queue store directory " + directory.getAbsolutePath());
+      }
+    }
+    return directory;
+  }
+
+  /**
+   * @param queueName        the name of the queue
+   * @param workingDirectory the working directory of the queues
+   * @return true if there is a log for the queue with the given name in the working directory, false otherwise
+   */
+  static boolean logExists(String queueName, String workingDirectory) {
+    final File queuesDirectory = getQueuesDirectory(workingDirectory);
+    final String directoryName = queueName + LOG_DIRECTORY_SUFFIX;
+    return new File(queuesDirectory, directoryName).isDirectory()
+        || new File(queuesDirectory, QueueFileProvider.toHex(directoryName)).isDirectory();
+  }
+
+  // only for testing.
+  File getLogDirectory() {
+    return logDirectory;
+  }
+
+  @Override
+  public void putNow(Serializable o) {
+    final byte[] data = serialize(o);
+    final long record;
+    lock.lock();
+    try {
+      positions.addLast(append(ADD_LAST, 0, data));
+      record = appendedRecords;
+      notEmpty.signal();
+    } finally {
+      lock.unlock();
+    }
+    awaitSynced(record);
+  }
+
+  @Override
+  public boolean offer(Serializable o, int room, long timeout) throws InterruptedException {
+    checkInterrupted();
+    final byte[] data = o != null ? serialize(o) : null;
+    final long record;
+    lock.lockInterruptibly();
+    try {
+      if (capacity > 0) {
+        if (capacity <= room) {
+          throw new IllegalStateException("Can not add more objects than the capacity in one time");
+        }
+        long remainingNanos = MILLISECONDS.toNanos(timeout);
+        while (positions.size() >= capacity - room) {
+          if (timeout < 0) {
+            // If timeout is negative then wait until signaled without a timeout.
+            notFull.await();
+          } else {
+            if (remainingNanos <= 0L) {
+              return false;
+            }
+            remainingNanos = notFull.awaitNanos(remainingNanos);
+          }
+        }
+      }
+      if (data == null) {
+        return true;
+      }
+      positions.addLast(append(ADD_LAST, 0, data));
+      record = appendedRecords;
+      notEmpty.signal();
+    } finally {
+      lock.unlock();
+    }
+    awaitSynced(record);
+    return true;
+  }
+
+  @Override
+  public Serializable poll(long timeout) throws InterruptedException {
+    checkInterrupted();
+    final byte[] data;
+    final long record;
+    lock.lockInterruptibly();
+    try {
+      long remainingNanos = MILLISECONDS.toNanos(timeout);
+      while (positions.isEmpty()) {
+        if (remainingNanos <= 0L) {
+          return null;
+        }
+        remainingNanos = notEmpty.awaitNanos(remainingNanos);
+      }
+
+      final long position = positions.pollFirst();
+      data = read(position);
+      append(REMOVE, position, NO_DATA);
+      record = appendedRecords;
+      releaseIfConsumed(segmentOf(position));
+      notFull.signal();
+    } finally {
+      lock.unlock();
+    }
+    awaitSynced(record);
+    return deserialize(data);
+  }
+
+  @Override
+  public Serializable peek() throws InterruptedException {
+    checkInterrupted();
+    final byte[] data;
+    lock.lockInterruptibly();
+    try {
+      if (positions.isEmpty()) {
+        return null;
+      }
+      data = read(positions.peekFirst());
+    } finally {
+      lock.unlock();
+    }
+    return deserialize(data);
+  }
+
+  @Override
+  public void untake(Serializable item) throws InterruptedException {
+    checkInterrupted();
+    final byte[] data = serialize(item);
+    final long record;
+    lock.lockInterruptibly();
+    try {
+      positions.addFirst(append(ADD_FIRST, 0, data));
+      record = appendedRecords;
+      notEmpty.signal();
+    } finally {
+      lock.unlock();
+    }
+    awaitSynced(record);
+  }
+
+  @Override
+  public int getSize() {
+    lock.lock();
+    try {
+      return positions.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void clear() throws InterruptedException {
+    checkInterrupted();
+    lock.lockInterruptibly();
+    try {
+      positions.clear();
+      final int nextSegmentId = tail.id + 1;
+      for (Segment segment : segments.values()) {
+        segment.delete();
+      }
+      segments.clear();
+      unsyncedSegments.clear();
+      tail = createSegment(nextSegmentId, segmentSize);
+      writeCheckpoint();
+      notFull.signalAll();
+    } catch (IOException e) {
+      throw new MuleRuntimeException(e);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public boolean addAll(Collection<? extends Serializable> items) {
+    final List<byte[]> data = new ArrayList<>(items.size());
+    for (Serializable item : items) {
+      data.add(serialize(item));
+    }
+
+    final long record;
+    lock.lock();
+    try {
+      for (byte[] itemData : data) {
+        positions.addLast(append(ADD_LAST, 0, itemData));
+      }
+      record = appendedRecords;
+      notEmpty.signalAll();
+    } finally {
+      lock.unlock();
+    }
+    awaitSynced(record);
+    return true;
+  }
+
+  @Override
+  public void remove(Serializable value) {
+    long record = -1;
+    lock.lock();
+    try {
+      for (int i = 0; i < positions.size(); ++i) {
+        final long position = positions.get(i);
+        if (deserialize(read(position)).equals(value)) {
+          positions.removeAt(i);
+          append(REMOVE, position, NO_DATA);
+          record = appendedRecords;
+          releaseIfConsumed(segmentOf(position));
+          notFull.signal();
+          break;
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+    if (record >= 0) {
+      awaitSynced(record);
+    }
+  }
+
+  @Override
+  public boolean contains(Serializable value) {
+    lock.lock();
+    try {
+      for (int i = 0; i < positions.size(); ++i) {
+        if (deserialize(read(positions.get(i))).equals(value)) {
+          return true;
+        }
+      }
+      return false;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * @return all the elements in the queue, in the order they would be polled.
+   */
+  Collection<Serializable> allElementsInQueueOrder() {
+    lock.lock();
+    try {
+      final List<Serializable> elements = new ArrayList<>(positions.size());
+      for (int i = 0; i < positions.size(); ++i) {
+        elements.add(deserialize(read(positions.get(i))));
+      }
+      return elements;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void close() {
+    lock.lock();
+    if (closed) {
+      lock.unlock();
+      return;
+    }
+    try {
+      if (syncEnabled) {
+        for (Segment segment : unsyncedSegments) {
+          segment.sync();
+        }
+      }
+      unsyncedSegments.clear();
+      writeCheckpoint();
+    } catch (IOException e) {
+      logger.warn("Failure writing queue checkpoint: " + e.getMessage());
+      if (logger.isDebugEnabled()) {
+        logger.debug("Failure writing queue checkpoint", e);
+      }
+    } finally {
+      for (Segment segment : segments.values()) {
+        segment.close();
+      }
+      closed = true;
+      lock.unlock();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void dispose() {
+    lock.lock();
+    try {
+      close();
+      for (Segment segment : segments.values()) {
+        segment.delete();
+      }
+      segments.clear();
+      deleteQuietly(logDirectory);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Appends a record at the tail of the log, starting a new segment if the current one has no room for it.
+   *
+   * @return the position of the appended record
+   */
+  private long append(byte type, long argument, byte[] data) {
+    final int recordSize = RECORD_HEADER_SIZE + data.length;
+    try {
+      if (tail.buffer.capacity() - tail.writeOffset < recordSize) {
+        roll(recordSize);
+      }
+    } catch (IOException e) {
+      throw new MuleRuntimeException(e);
+    }
+
+    final ByteBuffer record = ByteBuffer.allocate(recordSize);
+    record.putInt(data.length);
+    record.put(type);
+    record.putLong(argument);
+    record.putInt(0);
+    record.put(data);
+    record.putInt(CHECKSUM_OFFSET, checksum(record.array(), data.length));
+    record.flip();
+
+    final int offset = tail.writeOffset;
+    final ByteBuffer target = tail.buffer.duplicate();
+    target.position(offset);
+    target.put(record);
+    tail.writeOffset += recordSize;
+
+    appendedRecords++;
+    unsyncedSegments.add(tail);
+    return position(tail.id, offset);
+  }
+
+  private static int checksum(byte[] record, int dataLength) {
+    final CRC32 crc = new CRC32();
+    crc.update(record, 0, CHECKSUM_OFFSET);
+    crc.update(record, RECORD_HEADER_SIZE, dataLength);
+    return (int) crc.getValue();
+  }
+
+  private byte[] read(long position) {
+    final Segment segment = segments.get(segmentOf(position));
+    final ByteBuffer source = segment.buffer.duplicate();
+    source.position(offsetOf(position));
+    final byte[] data = new byte[source.getInt()];
+    source.position(offsetOf(position) + RECORD_HEADER_SIZE);
+    source.get(data);
+    return data;
+  }
+
+  /**
+   * Starts a new segment at the tail of the log, then writes a checkpoint and deletes the segments which no longer contain any
+   * element of the queue.
+   */
+  private void roll(int minimumSize) throws IOException {
+    if (syncEnabled) {
+      // The checkpoint will point to records in this segment, so they must be in disk before it is written.
+      tail.sync();
+    }
+    tail = createSegment(tail.id + 1, max(segmentSize, minimumSize));
+    writeCheckpoint();
+    deleteUnusedSegments();
+  }
+
+  /**
+   * Deletes the segments which don't contain any element of the queue. Records in those segments are no longer needed for
+   * recovery, since the checkpoint has the positions of all the elements appended before the current tail.
+   */
+  private void deleteUnusedSegments() {
+    final Set<Integer> usedSegments = new HashSet<>();
+    usedSegments.add(tail.id);
+    for (int i = 0; i < positions.size(); ++i) {
+      usedSegments.add(segmentOf(positions.get(i)));
+    }
+
+    final Iterator<Segment> iterator = segments.values().iterator();
+    while (iterator.hasNext()) {
+      final Segment segment = iterator.next();
+      if (!usedSegments.contains(segment.id)) {
+        iterator.remove();
+        unsyncedSegments.remove(segment);
+        segment.delete();
+      }
+    }
+  }
+
+  /**
+   * Releases the given segment if it no longer contains any element of the queue, instead of waiting for the next roll. A
+   * checkpoint is written first, since the records of the segment may be needed to recover from the previous one.
+   */
+  private void releaseIfConsumed(int segmentId) {
+    if (segmentId == tail.id || !segments.containsKey(segmentId)) {
+      return;
+    }
+    for (int i = 0; i < positions.size(); ++i) {
+      if (segmentOf(positions.get(i)) == segmentId) {
+        return;
+      }
+    }
+
+    try {
+      if (syncEnabled) {
+        // The checkpoint will point to records in the tail, so they must be in disk before it is written.
+        tail.sync();
+      }
+      writeCheckpoint();
+    } catch (IOException e) {
+      throw new MuleRuntimeException(e);
+    }
+    deleteUnusedSegments();
+  }
+
+  private Segment createSegment(int id, int size) throws IOException {
+    final Segment segment = new Segment(id, new File(logDirectory, String.format("%010d", id) + SEGMENT_FILE_SUFFIX), size);
+    segments.put(id, segment);
+    return segment;
+  }
+
+  /**
+   * Atomically replaces the checkpoint file with the current positions of the elements of the queue. Records appended after
+   * the current tail position are replayed on top of the checkpoint when recovering.
+   */
+  private void writeCheckpoint() throws IOException {
+    final ByteBuffer checkpoint = ByteBuffer.allocate(8 + 4 + positions.size() * 8 + 4);
+    checkpoint.putLong(position(tail.id, tail.writeOffset));
+    checkpoint.putInt(positions.size());
+    for (int i = 0; i < positions.size(); ++i) {
+      checkpoint.putLong(positions.get(i));
+    }
+    final CRC32 crc = new CRC32();
+    crc.update(checkpoint.array(), 0, checkpoint.position());
+    checkpoint.putInt((int) crc.getValue());
+    checkpoint.flip();
+
+    final File tempFile = new File(logDirectory, CHECKPOINT_TEMP_FILE_NAME);
+    try (FileOutputStream out = new FileOutputStream(tempFile)) {
+      final FileChannel channel = out.getChannel();
+      while (checkpoint.hasRemaining()) {
+        channel.write(checkpoint);
+      }
+      if (syncEnabled) {
+        channel.force(true);
+      }
+    }
+
+    final File checkpointFile = new File(logDirectory, CHECKPOINT_FILE_NAME);
+    try {
+      Files.move(tempFile.toPath(), checkpointFile.toPath(), REPLACE_EXISTING, ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(tempFile.toPath(), checkpointFile.toPath(), REPLACE_EXISTING);
+    }
+  }
+
+  /**
+   * Rebuilds the queue from the checkpoint and the records appended after it. If the checkpoint is missing or corrupted, the
+   * whole remaining log is replayed, in which case elements that had already been removed may be recovered again.
+   */
+  private void recover() {
+    try {
+      final File[] segmentFiles = logDirectory.listFiles((dir, name) -> name.endsWith(SEGMENT_FILE_SUFFIX));
+      if (segmentFiles != null) {
+        for (File segmentFile : segmentFiles) {
+          final String name = segmentFile.getName();
+          final int id = Integer.parseInt(name.substring(0, name.length() - SEGMENT_FILE_SUFFIX.length()));
+          segments.put(id, new Segment(id, segmentFile, 0));
+        }
+      }
+
+      if (segments.isEmpty()) {
+        tail = createSegment(0, segmentSize);
+        writeCheckpoint();
+        return;
+      }
+
+      long replayFrom = readCheckpoint();
+      if (replayFrom < 0) {
+        positions.clear();
+        replayFrom = position(segments.firstKey(), 0);
+      }
+
+      for (Entry<Integer, Segment> entry : segments.tailMap(segmentOf(replayFrom), true).entrySet()) {
+        replay(entry.getValue(), entry.getKey() == segmentOf(replayFrom) ? offsetOf(replayFrom) : 0);
+      }
+
+      // Never append after recovered data, it may be followed by a partially written record.
+      tail = segments.lastEntry().getValue();
+      roll(0);
+    } catch (IOException e) {
+      throw new MuleRuntimeException(e);
+    }
+  }
+
+  /**
+   * Loads the positions stored in the checkpoint file.
+   *
+   * @return the position from which the log has to be replayed, or {@code -1} if there is no valid checkpoint.
+   */
+  private long readCheckpoint() throws IOException {
+    final File checkpointFile = new File(logDirectory, CHECKPOINT_FILE_NAME);
+    if (!checkpointFile.exists()) {
+      return -1;
+    }
+
+    final ByteBuffer checkpoint = ByteBuffer.wrap(Files.readAllBytes(checkpointFile.toPath()));
+    try {
+      final long replayFrom = checkpoint.getLong();
+      final int count = checkpoint.getInt();
+      for (int i = 0; i < count; ++i) {
+        final long position = checkpoint.getLong();
+        if (segments.containsKey(segmentOf(position))) {
+          positions.addLast(position);
+        } else {
+          logger.warn("Queue checkpoint references a missing log segment: " + segmentOf(position));
+        }
+      }
+
+      final CRC32 crc = new CRC32();
+      crc.update(checkpoint.array(), 0, checkpoint.position());
+      if (checkpoint.getInt() != (int) crc.getValue() || !segments.containsKey(segmentOf(replayFrom))) {
+        logger.warn("Queue checkpoint " + checkpointFile.getAbsolutePath() + " is not valid, the whole log will be replayed");
+        return -1;
+      }
+      return replayFrom;
+    } catch (RuntimeException e) {
+      logger.warn("Queue checkpoint " + checkpointFile.getAbsolutePath() + " is not valid, the whole log will be replayed");
+      if (logger.isDebugEnabled()) {
+        logger.debug("Failure reading queue checkpoint", e);
+      }
+      return -1;
+    }
+  }
+
+  private void replay(Segment segment, int offset) {
+    final ByteBuffer source = segment.buffer.duplicate();
+    while (offset + RECORD_HEADER_SIZE <= source.capacity()) {
+      source.position(offset);
+      final int length = source.getInt();
+      final byte type = source.get();
+      final long argument = source.getLong();
+      final int checksum = source.getInt();
+
+      if (type == END_OF_DATA) {
+        break;
+      }
+      if (length < 0 || length > source.capacity() - offset - RECORD_HEADER_SIZE) {
+        logger.warn("Discarding partially written record at the end of queue log segment " + segment.file.getAbsolutePath());
+        break;
+      }
+
+      final byte[] record = new byte[RECORD_HEADER_SIZE + length];
+      source.position(offset);
+      source.get(record);
+      if (checksum(record, length) != checksum) {
+        logger.warn("Discarding partially written record at the end of queue log segment " + segment.file.getAbsolutePath());
+        break;
+      }
+
+      if (type == ADD_LAST) {
+        positions.addLast(position(segment.id, offset));
+      } else if (type == ADD_FIRST) {
+        positions.addFirst(position(segment.id, offset));
+      } else if (type == REMOVE) {
+        positions.remove(argument);
+      }
+      offset += record.length;
+    }
+    segment.writeOffset = offset;
+  }
+
+  /**
+   * Waits until the record with the given sequence number has been synced to disk, according to the sync interval. If no other
+   * thread is syncing the log, the calling thread syncs it, including the records appended by other threads.
+   */
+  private void awaitSynced(long record) {
+    if (!syncEnabled || (syncIntervalNanos > 0 && nanoTime() - lastSyncNanos < syncIntervalNanos)) {
+      return;
+    }
+
+    synchronized (syncMonitor) {
+      while (syncedRecords < record) {
+        if (!syncInProgress) {
+          syncInProgress = true;
+          break;
+        }
+        try {
+          syncMonitor.wait();
+        } catch (InterruptedException e) {
+          currentThread().interrupt();
+          return;
+        }
+      }
+      if (syncedRecords >= record) {
+        return;
+      }
+    }
+
+    long synced = syncedRecords;
+    try {
+      synced = sync();
+    } finally {
+      synchronized (syncMonitor) {
+        syncedRecords = max(syncedRecords, synced);
+        syncInProgress = false;
+        syncMonitor.notifyAll();
+      }
+    }
+  }
+
+  /**
+   * Syncs all the records appended so far. The lock is only held to determine what has to be synced, so threads may keep
+   * appending records while the sync is in progress.
+   *
+   * @return the sequence number of the last synced record
+   */
+  private long sync() {
+    final List<Segment> toSync;
+    final long lastRecord;
+    lock.lock();
+    try {
+      lastRecord = appendedRecords;
+      toSync = new ArrayList<>(unsyncedSegments);
+      unsyncedSegments.clear();
+    } finally {
+      lock.unlock();
+    }
+
+    for (Segment segment : toSync) {
+      segment.sync();
+    }
+    lastSyncNanos = nanoTime();
+    return lastRecord;
+  }
+
+  private byte[] serialize(Serializable item) {
+    return serializer.getInternalProtocol().serialize(item);
+  }
+
+  private Serializable deserialize(byte[] data) {
+    return serializer.getInternalProtocol().deserialize(data);
+  }
+
+  private void checkInterrupted() throws InterruptedException {
+    if (Thread.interrupted()) {
+      throw new InterruptedException();
+    }
+  }
+
+  private static long position(int segmentId, int offset) {
+    return ((long) segmentId << 32) | (offset & 0xFFFFFFFFL);
+  }
+
+  private static int segmentOf(long position) {
+    return (int) (position >>> 32);
+  }
+
+  private static int offsetOf(long position) {
+    return (int) position;
+  }
+
+  /**
+   * There's no public API to unmap a {@link MappedByteBuffer}, so it is done through the cleaner of the buffer: with
+   * {@code Unsafe#invokeCleaner} from Java 9 on, or with the {@code sun.misc.Cleaner} of the buffer on Java 8. If neither is
+   * accessible the segments are left to be unmapped when garbage collected.
+   */
+  private static CheckedConsumer<ByteBuffer> createUnmapper() {
+    try {
+      try {
+        Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+        Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+        Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+        theUnsafe.setAccessible(true);
+        Object unsafe = theUnsafe.get(null);
+        return buffer -> invokeCleaner.invoke(unsafe, buffer);
+      } catch (NoSuchMethodException e) {
+        Method cleanerMethod = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+        Method cleanMethod = Class.forName("sun.misc.Cleaner").getMethod("clean");
+        return buffer -> {
+          Object cleaner = cleanerMethod.invoke(buffer);
+          if (cleaner != null) {
+            cleanMethod.invoke(cleaner);
+          }
+        };
+      }
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      LoggerFactory.getLogger(SegmentedLogQueueStoreDelegate.class)
+          .debug("Mapped buffers cannot be unmapped explicitly, they will be unmapped when garbage collected", e);
+      return buffer -> {
+      };
+    }
+  }
+
+  /**
+   * A memory mapped file of the log.
+   * <p>
+   * The mapped buffer never leaves this class: records are copied out of it while holding the lock of the queue, so it can be
+   * unmapped as soon as the segment is deleted. Since a sync may run outside of that lock, syncing and deleting are
+   * synchronized on the segment.
+   */
+  private final class Segment {
+
+    private final int id;
+    private final File file;
+    private final RandomAccessFile randomAccessFile;
+    private final MappedByteBuffer buffer;
+    private int writeOffset = 0;
+    private boolean deleted = false;
+
+    private Segment(int id, File file, int size) throws IOException {
+      this.id = id;
+      this.file = file;
+      this.randomAccessFile = new RandomAccessFile(file, "rw");
+      this.buffer = randomAccessFile.getChannel().map(READ_WRITE, 0, max(size, randomAccessFile.length()));
+    }
+
+    private synchronized void sync() {
+      if (!deleted) {
+        buffer.force();
+      }
+    }
+
+    private void close() {
+      try {
+        randomAccessFile.close();
+      } catch (IOException e) {
+        logger.warn("Failure closing queue log segment: " + e.getMessage());
+        if (logger.isDebugEnabled()) {
+          logger.debug("Failure closing queue log segment", e);
+        }
+      }
+    }
+
+    private synchronized void delete() {
+      if (deleted) {
+        return;
+      }
+      deleted = true;
+      close();
+      try {
+        UNMAPPER.accept(buffer);
+      } catch (Exception e) {
+        logger.warn("Failure unmapping queue log segment: " + e.getMessage());
+        if (logger.isDebugEnabled()) {
+          logger.debug("Failure unmapping queue log segment", e);
+        }
+      }
+      deleteQuietly(file);
+    }
+  }
+
+  /**
+   * A growable ring buffer of log positions, which avoids having an object per element of the queue.
+   */
+  private static final class PositionDeque {
+
+    private long[] elements = new long[16];
+    private int head = 0;
+    private int size = 0;
+
+    private int size() {
+      return size;
+    }
+
+    private boolean isEmpty() {
+      return size == 0;
+    }
+
+    private long get(int index) {
+      return elements[(head + index) & (elements.length - 1)];
+    }
+
+    private long peekFirst() {
+      return elements[head];
+    }
+
+    private long pollFirst() {
+      final long element = elements[head];
+      head = (head + 1) & (elements.length - 1);
+      size--;
+      return element;
+    }
+
+    private void addFirst(long element) {
+      ensureCapacity();
+      head = (head - 1) & (elements.length - 1);
+      elements[head] = element;
+      size++;
+    }
+
+    private void addLast(long element) {
+      ensureCapacity();
+      elements[(head + size) & (elements.length - 1)] = element;
+      size++;
+    }
+
+    private void remove(long element) {
+      for (int i = 0; i < size; ++i) {
+        if (get(i) == element) {
+          removeAt(i);
+          return;
+        }
+      }
+    }
+
+    private void removeAt(int index) {
+      if (index == 0) {
+        pollFirst();
+        return;
+      }
+      for (int i = index; i < size - 1; ++i) {
+        elements[(head + i) & (elements.length - 1)] = get(i + 1);
+      }
+      size--;
+    }
+
+    private void clear() {
+      head = 0;
+      size = 0;
+    }
+
+    private void ensureCapacity() {
+      if (size == elements.length) {
+        final long[] grown = new long[elements.length << 1];
+        for (int i = 0; i < size; ++i) {
+          grown[i] = get(i);
+        }
+        elements = grown;
+        head = 0;
+      }
+    }
+  }
+}
@@ -18,8 +18,8 @@ import org.mule.runtime.core.internal.util.journal.queue.XaTxQueueTransactionJou
 import org.mule.runtime.core.internal.util.xa.XaTransactionRecoverer;
 
 import java.io.File;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The Transactional Queue Manager is responsible for creating and Managing transactional Queues. Queues can also be persistent by
@@ -35,7 +35,7 @@ public class TransactionalQueueManager extends AbstractQueueManager {
   // Due to current VMConnector and TransactionQueueManager relationship we must close all the recovered queues
   // since queue configuration is applied after recovery and not taking into consideration once queues are created
   // for recovery. See https://www.mulesoft.org/jira/browse/MULE-7420
-  private Map<String, RecoverableQueueStore> queuesAccessedForRecovery = new HashMap<String, RecoverableQueueStore>();
+  private Map<String, RecoverableQueueStore> queuesAccessedForRecovery = new ConcurrentHashMap<>();
 
   /**
    * {@inheritDoc}
@@ -43,7 +43,7 @@ public class TransactionalQueueManager extends AbstractQueueManager {
    * @return an instance of {@link TransactionalQueueSession}
    */
   @Override
-  public synchronized QueueSession getQueueSession() {
+  public QueueSession getQueueSession() {
     return new TransactionalQueueSession(this, queueXaResourceManager, queueXaResourceManager, xaTransactionRecoverer,
                                          localTxTransactionJournal, getMuleContext());
   }
@@ -76,12 +76,8 @@ public class TransactionalQueueManager extends AbstractQueueManager {
 
   @Override
   public RecoverableQueueStore getRecoveryQueue(String queueName) {
-    if (queuesAccessedForRecovery.containsKey(queueName)) {
-      return queuesAccessedForRecovery.get(queueName);
-    }
-    DefaultQueueStore queueStore = createQueueStore(queueName, new DefaultQueueConfiguration(0, true));
-    queuesAccessedForRecovery.put(queueName, queueStore);
-    return queueStore;
+    return queuesAccessedForRecovery
+        .computeIfAbsent(queueName, name -> createQueueStore(name, new DefaultQueueConfiguration(0, true)));
   }
 
   @Override
@@ -0,0 +1,665 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.internal.util.store;
+
+import static java.lang.Math.min;
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.Collections.unmodifiableList;
+import static org.apache.commons.io.FileUtils.deleteQuietly;
+import static org.mule.runtime.api.i18n.I18nMessageFactory.createStaticMessage;
+import static org.mule.runtime.core.internal.util.store.MuleObjectStoreManager.UNBOUNDED;
+
+import org.mule.runtime.api.serialization.ObjectSerializer;
+import org.mule.runtime.api.store.ObjectAlreadyExistsException;
+import org.mule.runtime.api.store.ObjectDoesNotExistException;
+import org.mule.runtime.api.store.ObjectStoreException;
+import org.mule.runtime.api.store.ObjectStoreNotAvailableException;
+import org.mule.runtime.core.api.MuleContext;
+import org.mule.runtime.core.privileged.store.DeserializationPostInitialisable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link PersistentObjectStorePartition} which stores all of its entries in a single append-only data file, instead of using a
+ * file per entry.
+ * <p>
+ * Storing or removing an entry appends a record to the data file. The location of the live entries is kept in an in-memory
+ * index, in the order in which the entries were stored, so {@link #expire(long, int)} works on the index without listing the
+ * partition directory.
+ * <p>
+ * The index is persisted to an index file from time to time, so on startup only the records appended after it was written have
+ * to be read from the data file. When the space used by removed entries in the data file exceeds the space used by the live
+ * ones, the data file is compacted as part of {@link #expire(long, int)}, which is periodically invoked in the background by the
+ * object store monitor. Entries may be stored and retrieved while the compaction is in progress.
+ *
+ * @since 4.1
+ */
+public class LogStructuredObjectStorePartition<T extends Serializable> extends PersistentObjectStorePartition<T> {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(LogStructuredObjectStorePartition.class);
+
+  private static final String DATA_FILE_PREFIX = "data-";
+  private static final String DATA_FILE_EXTENSION = ".log";
+  private static final String INDEX_FILE = "index";
+  private static final String INDEX_TEMP_FILE = "index.tmp";
+  private static final int INDEX_FORMAT_VERSION = 1;
+
+  // length (int), checksum (int), type (byte), timestamp (long), key length (int)
+  private static final int RECORD_HEADER_SIZE = 21;
+  private static final int CHECKSUMMED_DATA_OFFSET = 8;
+  private static final byte PUT = 1;
+  private static final byte DELETE = 2;
+
+  private static final long MIN_COMPACTION_GARBAGE = 1024 * 1024;
+  private static final long INDEX_WRITE_THRESHOLD = 4 * 1024 * 1024;
+
+  private final MuleContext muleContext;
+  private final ObjectSerializer serializer;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final AtomicBoolean compacting = new AtomicBoolean(false);
+
+  // All guarded by lock
+  private final LinkedHashMap<String, IndexEntry> index = new LinkedHashMap<>();
+  private long liveBytes = 0;
+  private int generation = 0;
+  private RandomAccessFile dataFile;
+  private FileChannel dataChannel;
+  private long dataLength = 0;
+  private long indexedLength = 0;
+  private int clearCount = 0;
+
+  public LogStructuredObjectStorePartition(MuleContext muleContext, String partitionName, File partitionDirectory) {
+    super(muleContext, partitionName, partitionDirectory);
+    this.muleContext = muleContext;
+    this.serializer = muleContext.getObjectSerializer();
+  }
+
+  public LogStructuredObjectStorePartition(MuleContext muleContext, File partitionDirectory)
+      throws ObjectStoreNotAvailableException {
+    super(muleContext, partitionDirectory);
+    this.muleContext = muleContext;
+    this.serializer = muleContext.getObjectSerializer();
+  }
+
+  /**
+   * @param partitionDirectory the directory of a partition
+   * @return whether the partition in the given directory was created by a {@link LogStructuredObjectStorePartition}
+   */
+  public static boolean isLogStructuredPartition(File partitionDirectory) {
+    String[] dataFiles = partitionDirectory
+        .list((dir, name) -> name.equals(INDEX_FILE) || (name.startsWith(DATA_FILE_PREFIX) && name.endsWith(DATA_FILE_EXTENSION)));
+    return dataFiles != null && dataFiles.length > 0;
+  }
+
+  @Override
+  public synchronized void open() throws ObjectStoreException {
+    super.open();
+
+    Lock writeLock = lock.writeLock();
+    writeLock.lock();
+    try {
+      if (dataChannel == null) {
+        load();
+      }
+    } catch (IOException e) {
+      throw new ObjectStoreException(createStaticMessage(format("Could not restore object store data from %1s",
+                                                                getPartitionDirectory().getAbsolutePath())),
+                                     e);
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  @Override
+  public void close() throws ObjectStoreException {
+    Lock writeLock = lock.writeLock();
+    writeLock.lock();
+    try {
+      if (dataChannel != null) {
+        writeIndex(dataChannel);
+        dataFile.close();
+        dataChannel = null;
+      }
+    } catch (IOException e) {
+      throw new ObjectStoreException(e);
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  @Override
+  public List<String> allKeys() throws ObjectStoreException {
+    Lock readLock = lock.readLock();
+    readLock.lock();
+    try {
+      return unmodifiableList(new ArrayList<>(index.keySet()));
+    } finally {
+      readLock.unlock();
+    }
+  }
+
+  @Override
+  protected boolean doContains(String key) throws ObjectStoreException {
+    Lock readLock = lock.readLock();
+    readLock.lock();
+    try {
+      return index.containsKey(key);
+    } finally {
+      readLock.unlock();
+    }
+  }
+
+  @Override
+  protected void doStore(String key, T value) throws ObjectStoreException {
+    final ByteBuffer record = createRecord(PUT, key, serializer.getInternalProtocol().serialize(value));
+
+    Lock writeLock = lock.writeLock();
+    writeLock.lock();
+    try {
+      if (index.containsKey(key)) {
+        throw new ObjectAlreadyExistsException();
+      }
+      final IndexEntry entry = new IndexEntry(append(record), record.capacity(), System.currentTimeMillis());
+      index.put(key, entry);
+      liveBytes += entry.length;
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  @Override
+  protected T doRetrieve(String key) throws ObjectStoreException {
+    Lock readLock = lock.readLock();
+    readLock.lock();
+    try {
+      final IndexEntry entry = index.get(key);
+      if (entry == null) {
+        throw new ObjectDoesNotExistException(createStaticMessage("Key does not exist: " + key));
+      }
+      return load(entry);
+    } finally {
+      readLock.unlock();
+    }
+  }
+
+  @Override
+  public Map<String, T> retrieveAll() throws ObjectStoreException {
+    Lock readLock = lock.readLock();
+    readLock.lock();
+    try {
+      Map<String, T> values = new LinkedHashMap<>(index.size());
+      for (Entry<String, IndexEntry> entry : index.entrySet()) {
+        values.put(entry.getKey(), load(entry.getValue()));
+      }
+      return values;
+    } finally {
+      readLock.unlock();
+    }
+  }
+
+  @Override
+  protected T doRemove(String key) throws ObjectStoreException {
+    Lock writeLock = lock.writeLock();
+    writeLock.lock();
+    try {
+      final IndexEntry entry = index.get(key);
+      if (entry == null) {
+        throw new ObjectDoesNotExistException(createStaticMessage("Key does not exist: " + key));
+      }
+      final T value = load(entry);
+      delete(key);
+      return value;
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  @Override
+  public void clear() throws ObjectStoreException {
+    Lock writeLock = lock.writeLock();
+    writeLock.lock();
+    try {
+      index.clear();
+      liveBytes = 0;
+      clearCount++;
+      if (dataChannel != null) {
+        dataChannel.truncate(0);
+        dataLength = 0;
+        writeIndex(dataChannel);
+      }
+    } catch (IOException e) {
+      throw new ObjectStoreException(createStaticMessage("Could not clear ObjectStore"), e);
+    } finally {
+      writeLock.unlock();
+    }
+  }
+
+  @Override
+  public void expire(long entryTTL, int maxEntries) throws ObjectStoreException {
+    Lock writeLock = lock.writeLock();
+    writeLock.lock();
+    try {
+      // The index is in storing order, so the entries to expire are always the first ones
+      int excess = maxEntries == UNBOUNDED ? 0 : index.size() - maxEntries;
+      final long now = System.currentTimeMillis();
+      final List<String> expiredKeys = new ArrayList<>();
+      for (Entry<String, IndexEntry> entry : index.entrySet()) {
+        if (excess > 0) {
+          excess--;
+        } else if (entryTTL == UNBOUNDED || now - entry.getValue().timestamp < entryTTL) {
+          break;
+        }
+        expiredKeys.add(entry.getKey());
+      }
+      for (String key : expiredKeys) {
+        delete(key);
+      }
+
+      if (dataChannel != null && !shouldCompact() && dataLength - indexedLength >= INDEX_WRITE_THRESHOLD) {
+        writeIndex(dataChannel);
+      }
+    } catch (IOException e) {
+      throw new ObjectStoreException(e);
+    } finally {
+      writeLock.unlock();
+    }
+
+    if (shouldCompact() && compacting.compareAndSet(false, true)) {
+      try {
+        compact();
+      } catch (IOException e) {
+        LOGGER.warn(format("Could not compact the ObjectStore data file of partition %s: %s", getPartitionName(),
+                           e.getMessage()));
+      } finally {
+        compacting.set(false);
+      }
+    }
+  }
+
+  private boolean shouldCompact() {
+    Lock readLock = lock.readLock();
+    readLock.lock();
+    try {
+      final long garbage = dataLength - liveBytes;
+      return dataChannel != null && garbage >= MIN_COMPACTION_GARBAGE && garbage > liveBytes;
+    } finally {
+      readLock.unlock();
+    }
+  }
+
+  /**
+   * Copies the live entries to a new data file. The copy is done without blocking the partition, only the records appended
+   * during the copy are transferred while holding the lock, right before switching to the new file.
+   */
+  private void compact() throws IOException {
+    final List<IndexEntry> snapshot;
+    final long snapshotLength;
+    final FileChannel source;
+    final int targetGeneration;
+    final int snapshotClearCount;
+
+    Lock readLock = lock.readLock();
+    readLock.lock();
+    try {
+      snapshot = new ArrayList<>(index.values());
+      snapshotLength = dataLength;
+      source = dataChannel;
+      targetGeneration = generation + 1;
+      snapshotClearCount = clearCount;
+    } finally {
+      readLock.unlock();
+    }
+
+    final File targetFile = getDataFile(targetGeneration);
+    final RandomAccessFile target = new RandomAccessFile(targetFile, "rw");
+    boolean switched = false;
+    try {
+      final FileChannel targetChannel = target.getChannel();
+      targetChannel.truncate(0);
+      final Map<IndexEntry, IndexEntry> relocated = new IdentityHashMap<>(snapshot.size());
+      long position = 0;
+      for (IndexEntry entry : snapshot) {
+        transfer(source, entry.offset, entry.length, targetChannel, position);
+        relocated.put(entry, new IndexEntry(position, entry.length, entry.timestamp));
+        position += entry.length;
+      }
+
+      Lock writeLock = lock.writeLock();
+      writeLock.lock();
+      try {
+        if (dataChannel != source || clearCount != snapshotClearCount) {
+          // The partition was closed or cleared while compacting
+          return;
+        }
+
+        final long appendedLength = dataLength - snapshotLength;
+        transfer(source, snapshotLength, appendedLength, targetChannel, position);
+        for (Entry<String, IndexEntry> entry : index.entrySet()) {
+          IndexEntry newEntry = relocated.get(entry.getValue());
+          if (newEntry == null) {
+            // stored during the compaction
+            newEntry = entry.getValue().relocate(position - snapshotLength);
+          }
+          entry.setValue(newEntry);
+        }
+        position += appendedLength;
+        targetChannel.force(false);
+
+        final RandomAccessFile previousFile = dataFile;
+        final int previousGeneration = generation;
+        generation = targetGeneration;
+        dataFile = target;
+        dataChannel = targetChannel;
+        dataLength = position;
+        switched = true;
+        writeIndex(targetChannel);
+
+        previousFile.close();
+        deleteQuietly(getDataFile(previousGeneration));
+      } finally {
+        writeLock.unlock();
+      }
+    } finally {
+      if (!switched) {
+        target.close();
+        deleteQuietly(targetFile);
+      }
+    }
+  }
+
+  private void transfer(FileChannel source, long sourcePosition, long length, FileChannel target, long targetPosition)
+      throws IOException {
+    long transferred = 0;
+    while (transferred < length) {
+      transferred += source.transferTo(sourcePosition + transferred, length - transferred,
+                                       target.position(targetPosition + transferred));
+    }
+  }
+
+  private ByteBuffer createRecord(byte type, String key, byte[] value) {
+    final byte[] keyBytes = key.getBytes(UTF_8);
+    final ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + keyBytes.length + value.length);
+    record.putInt(record.capacity());
+    record.putInt(0);
+    record.put(type);
+    record.putLong(System.currentTimeMillis());
+    record.putInt(keyBytes.length);
+    record.put(keyBytes);
+    record.put(value);
+    record.putInt(4, checksum(record.array()));
+    record.flip();
+    return record;
+  }
+
+  private static int checksum(byte[] record) {
+    final CRC32 crc = new CRC32();
+    crc.update(record, CHECKSUMMED_DATA_OFFSET, record.length - CHECKSUMMED_DATA_OFFSET);
+    return (int) crc.getValue();
+  }
+
+  private long append(ByteBuffer record) throws ObjectStoreException {
+    final long offset = dataLength;
+    try {
+      while (record.hasRemaining()) {
+        dataLength += dataChannel.write(record, dataLength);
+      }
+    } catch (IOException e) {
+      throw new ObjectStoreException(e);
+    }
+    return offset;
+  }
+
+  private void delete(String key) throws ObjectStoreException {
+    final ByteBuffer record = createRecord(DELETE, key, new byte[0]);
+    append(record);
+    liveBytes -= index.remove(key).length;
+  }
+
+  private T load(IndexEntry entry) throws ObjectStoreException {
+    try {
+      final ByteBuffer record = read(dataChannel, entry.offset, entry.length);
+      final int keyLength = record.getInt(RECORD_HEADER_SIZE - 4);
+      final int valueOffset = RECORD_HEADER_SIZE + keyLength;
+      final byte[] valueBytes = new byte[entry.length - valueOffset];
+      record.position(valueOffset);
+      record.get(valueBytes);
+
+      T value = serializer.getInternalProtocol().deserialize(valueBytes);
+      if (value instanceof DeserializationPostInitialisable) {
+        DeserializationPostInitialisable.Implementation.init(value, muleContext);
+      }
+      return value;
+    } catch (Exception e) {
+      throw new ObjectStoreException(e);
+    }
+  }
+
+  private static ByteBuffer read(FileChannel channel, long position, int length) throws IOException {
+    final ByteBuffer buffer = ByteBuffer.allocate(length);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position()) < 0) {
+        break;
+      }
+    }
+    buffer.flip();
+    return buffer;
+  }
+
+  /**
+   * Restores the index from the index file, then applies the records appended to the data file after it was written.
+   */
+  private void load() throws IOException {
+    index.clear();
+    liveBytes = 0;
+    indexedLength = readIndex();
+    for (File file : getPartitionDirectory()
+        .listFiles((dir, name) -> name.startsWith(DATA_FILE_PREFIX) && name.endsWith(DATA_FILE_EXTENSION))) {
+      if (!file.equals(getDataFile(generation))) {
+        // left by an interrupted compaction
+        deleteQuietly(file);
+      }
+    }
+
+    dataFile = new RandomAccessFile(getDataFile(generation), "rw");
+    dataChannel = dataFile.getChannel();
+    dataLength = dataChannel.size();
+    if (indexedLength > dataLength) {
+      LOGGER.warn(format("ObjectStore index of partition %s is ahead of its data, rebuilding it", getPartitionName()));
+      index.clear();
+      liveBytes = 0;
+      indexedLength = 0;
+    }
+
+    long position = indexedLength;
+    while (position + RECORD_HEADER_SIZE <= dataLength) {
+      final int length = read(dataChannel, position, 4).getInt();
+      if (length < RECORD_HEADER_SIZE || position + length > dataLength) {
+        break;
+      }
+      final ByteBuffer record = read(dataChannel, position, length);
+      if (record.getInt(4) != checksum(record.array())) {
+        break;
+      }
+
+      final byte type = record.get(CHECKSUMMED_DATA_OFFSET);
+      final long timestamp = record.getLong(CHECKSUMMED_DATA_OFFSET + 1);
+      final int keyLength = record.getInt(RECORD_HEADER_SIZE - 4);
+      final String key = new String(record.array(), RECORD_HEADER_SIZE, keyLength, UTF_8);
+      final IndexEntry previous = type == PUT ? index.put(key, new IndexEntry(position, length, timestamp)) : index.remove(key);
+      if (previous != null) {
+        liveBytes -= previous.length;
+      }
+      if (type == PUT) {
+        liveBytes += length;
+      }
+      position += length;
+    }
+
+    if (position < dataLength) {
+      LOGGER.warn(format("Discarding %d bytes of incomplete data at the end of ObjectStore partition %s",
+                         dataLength - position, getPartitionName()));
+      dataChannel.truncate(position);
+      dataLength = position;
+    }
+  }
+
+  /**
+   * @return the length of the data file covered by the index file, or {@code 0} if there is no valid index file.
+   */
+  private long readIndex() throws IOException {
+    final File indexFile = new File(getPartitionDirectory(), INDEX_FILE);
+    if (!indexFile.exists()) {
+      return 0;
+    }
+
+    try (CheckedInputStream checkedInput =
+        new CheckedInputStream(new BufferedInputStream(new FileInputStream(indexFile)), new CRC32());
+        DataInputStream input = new DataInputStream(checkedInput)) {
+      if (input.readInt() != INDEX_FORMAT_VERSION) {
+        throw new IOException("Unknown index format");
+      }
+      final int indexGeneration = input.readInt();
+      final long length = input.readLong();
+      final int count = input.readInt();
+      final LinkedHashMap<String, IndexEntry> entries = new LinkedHashMap<>();
+      long bytes = 0;
+      for (int i = 0; i < count; ++i) {
+        final byte[] key = new byte[input.readInt()];
+        input.readFully(key);
+        final IndexEntry entry = new IndexEntry(input.readLong(), input.readInt(), input.readLong());
+        entries.put(new String(key, UTF_8), entry);
+        bytes += entry.length;
+      }
+      final long checksum = checkedInput.getChecksum().getValue();
+      if (input.readLong() != checksum) {
+        throw new IOException("Index checksum mismatch");
+      }
+
+      generation = indexGeneration;
+      index.putAll(entries);
+      liveBytes = bytes;
+      return length;
+    } catch (IOException e) {
+      LOGGER.warn(format("Could not read the ObjectStore index of partition %s, it will be rebuilt from the data file",
+                         getPartitionName()));
+      generation = firstDataFileGeneration();
+      return 0;
+    }
+  }
+
+  /**
+   * @return the generation of the oldest data file, which is the only one known to be complete if the index was lost during a
+   *         compaction.
+   */
+  private int firstDataFileGeneration() {
+    int first = Integer.MAX_VALUE;
+    for (String name : getPartitionDirectory()
+        .list((dir, name) -> name.startsWith(DATA_FILE_PREFIX) && name.endsWith(DATA_FILE_EXTENSION))) {
+      try {
+        first = min(first, Integer.parseInt(name.substring(DATA_FILE_PREFIX.length(),
+                                                           name.length() - DATA_FILE_EXTENSION.length())));
+      } catch (NumberFormatException e) {
+        // not a data file
+      }
+    }
+    return first == Integer.MAX_VALUE ? 0 : first;
+  }
+
+  /**
+   * Atomically replaces the index file with the current index, which covers the whole data file.
+   */
+  private void writeIndex(FileChannel channel) throws IOException {
+    channel.force(false);
+
+    final File tempFile = new File(getPartitionDirectory(), INDEX_TEMP_FILE);
+    try (FileOutputStream fileOutput = new FileOutputStream(tempFile)) {
+      final CheckedOutputStream checkedOutput = new CheckedOutputStream(new BufferedOutputStream(fileOutput), new CRC32());
+      final DataOutputStream output = new DataOutputStream(checkedOutput);
+      output.writeInt(INDEX_FORMAT_VERSION);
+      output.writeInt(generation);
+      output.writeLong(dataLength);
+      output.writeInt(index.size());
+      for (Entry<String, IndexEntry> entry : index.entrySet()) {
+        final byte[] key = entry.getKey().getBytes(UTF_8);
+        output.writeInt(key.length);
+        output.write(key);
+        output.writeLong(entry.getValue().offset);
+        output.writeInt(entry.getValue().length);
+        output.writeLong(entry.getValue().timestamp);
+      }
+      output.flush();
+      output.writeLong(checkedOutput.getChecksum().getValue());
+      output.flush();
+      fileOutput.getChannel().force(false);
+    }
+
+    final File indexFile = new File(getPartitionDirectory(), INDEX_FILE);
+    try {
+      Files.move(tempFile.toPath(), indexFile.toPath(), REPLACE_EXISTING, ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(tempFile.toPath(), indexFile.toPath(), REPLACE_EXISTING);
+    }
+    indexedLength = dataLength;
+  }
+
+  private File getDataFile(int generation) {
+    return new File(getPartitionDirectory(), DATA_FILE_PREFIX + generation + DATA_FILE_EXTENSION);
+  }
+
+  /**
+   * The location of an entry in the data file.
+   */
+  private static final class IndexEntry {
+
+    private final long offset;
+    private final int length;
+    private final long timestamp;
+
+    private IndexEntry(long offset, int length, long timestamp) {
+      this.offset = offset;
+      this.length = length;
+      this.timestamp = timestamp;
+    }
+
+    private IndexEntry relocate(long delta) {
+      return new IndexEntry(offset + delta, length, timestamp);
+    }
+  }
+}
@@ -6,9 +6,13 @@
  */
 package org.mule.runtime.core.internal.util.store;
 
+import static java.lang.Boolean.getBoolean;
+import static org.mule.runtime.core.api.config.MuleProperties.MULE_OBJECT_STORE_SHARDED_IN_MEMORY;
+
 import org.mule.runtime.api.store.ObjectStore;
 import org.mule.runtime.core.internal.store.PartitionedInMemoryObjectStore;
 import org.mule.runtime.core.internal.store.PartitionedPersistentObjectStore;
+import org.mule.runtime.core.internal.store.ShardedInMemoryObjectStore;
 
 import java.io.Serializable;
 
@@ -16,6 +20,9 @@ public class MuleDefaultObjectStoreFactory implements DefaultObjectStoreFactory
 
   @Override
   public ObjectStore<Serializable> createDefaultInMemoryObjectStore() {
+    if (getBoolean(MULE_OBJECT_STORE_SHARDED_IN_MEMORY)) {
+      return new ShardedInMemoryObjectStore<>();
+    }
     return new PartitionedInMemoryObjectStore<>();
   }
 
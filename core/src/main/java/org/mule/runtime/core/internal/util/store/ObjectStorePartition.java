@@ -6,7 +6,6 @@
  */
 package org.mule.runtime.core.internal.util.store;
 
-import static org.mule.runtime.core.api.lifecycle.LifecycleUtils.disposeIfNeeded;
 import static org.slf4j.LoggerFactory.getLogger;
 import org.mule.runtime.api.lifecycle.Disposable;
 import org.mule.runtime.api.store.ObjectStoreException;
@@ -31,9 +30,17 @@ public class ObjectStorePartition<T extends Serializable> extends TemplateObject
     this.partitionedObjectStore = partitionedObjectStore;
   }
 
+  /**
+   * Closes this partition only. The base store is shared with other partitions, so it is disposed along with the registry
+   * where it is defined.
+   */
   @Override
   public void dispose() {
-    disposeIfNeeded(partitionedObjectStore, LOGGER);
+    try {
+      partitionedObjectStore.close(partitionName);
+    } catch (ObjectStoreException e) {
+      LOGGER.warn("Could not close partition " + partitionName, e);
+    }
   }
 
   @Override
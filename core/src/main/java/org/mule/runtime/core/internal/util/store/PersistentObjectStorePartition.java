@@ -387,6 +387,10 @@ public class PersistentObjectStorePartition<T extends Serializable> extends Temp
     return partitionName;
   }
 
+  protected File getPartitionDirectory() {
+    return partitionDirectory;
+  }
+
   public static class StoreValue<T> implements Serializable {
 
     private Serializable key;
@@ -0,0 +1,322 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.privileged.util.monitor;
+
+import static java.lang.Integer.highestOneBit;
+import static java.lang.Math.max;
+import static java.lang.String.format;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.mule.runtime.core.api.config.i18n.CoreMessages.propertyHasInvalidValue;
+import static org.slf4j.LoggerFactory.getLogger;
+import org.mule.runtime.api.lifecycle.Disposable;
+import org.mule.runtime.api.scheduler.Scheduler;
+import org.mule.runtime.core.api.MuleContext;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+
+/**
+ * <code>HashedWheelExpiryMonitor</code> invokes the callback of each {@link Expirable} once its deadline is reached. Unlike
+ * {@link ExpiryMonitor}, which checks every monitored object on each run, deadlines are hashed into the buckets of a timing wheel
+ * that advances one bucket per tick, so adding, cancelling and expiring an object take constant time regardless of how many are
+ * monitored. An object expires no later than one tick after its deadline, plus the time taken by the callbacks that expire
+ * before it.
+ * <p>
+ * Callbacks are invoked on the thread of the monitor, so they are expected to be short or to hand off their work.
+ */
+public class HashedWheelExpiryMonitor implements Runnable, Disposable {
+
+  /**
+   * logger used by this class
+   */
+  private static final Logger LOGGER = getLogger(HashedWheelExpiryMonitor.class);
+
+  private final String name;
+  private final MuleContext muleContext;
+  private final boolean onPollingNodeOnly;
+
+  private final long tickNanos;
+  private final Bucket[] wheel;
+  private final int mask;
+  private final long startTime = nanoTime();
+
+  private final Queue<Timeout> pendingTimeouts = new ConcurrentLinkedQueue<>();
+  private final Queue<Timeout> cancelledTimeouts = new ConcurrentLinkedQueue<>();
+  private final AtomicLong monitoredCount = new AtomicLong();
+
+  // @GuardedBy this
+  private long tick;
+
+  private Scheduler scheduler;
+
+  /**
+   * @param name the name of the monitor, used for its scheduler
+   * @param tickDuration the time in milliseconds that each bucket of the wheel spans, which bounds how late an object expires
+   * @param ticksPerWheel the amount of buckets of the wheel, rounded up to the next power of two
+   * @param muleContext the context of the application
+   * @param onPollingNodeOnly whether objects only expire on the primary polling node of a cluster. Secondary nodes don't advance
+   *        the wheel, so if one becomes primary it expires every object whose deadline was reached meanwhile.
+   */
+  public HashedWheelExpiryMonitor(String name, long tickDuration, int ticksPerWheel, MuleContext muleContext,
+                                  boolean onPollingNodeOnly) {
+    if (tickDuration <= 0) {
+      throw new IllegalArgumentException(propertyHasInvalidValue("tickDuration", Long.valueOf(tickDuration)).toString());
+    }
+    if (ticksPerWheel <= 0) {
+      throw new IllegalArgumentException(propertyHasInvalidValue("ticksPerWheel", Integer.valueOf(ticksPerWheel)).toString());
+    }
+    this.name = name;
+    this.muleContext = muleContext;
+    this.onPollingNodeOnly = onPollingNodeOnly;
+    this.tickNanos = MILLISECONDS.toNanos(tickDuration);
+
+    int buckets = ticksPerWheel == 1 ? 1 : highestOneBit(ticksPerWheel - 1) << 1;
+    this.wheel = new Bucket[buckets];
+    for (int i = 0; i < buckets; i++) {
+      wheel[i] = new Bucket();
+    }
+    this.mask = buckets - 1;
+
+    this.scheduler = muleContext.getSchedulerService()
+        .customScheduler(muleContext.getSchedulerBaseConfig().withName(name + ".expiry.monitor").withMaxConcurrentTasks(1)
+            .withShutdownTimeout(0, MILLISECONDS));
+    scheduler.scheduleWithFixedDelay(this, tickDuration, tickDuration, MILLISECONDS);
+  }
+
+  /**
+   * Adds an object to monitor. The same object may be added more than once, each registration expiring on its own.
+   *
+   * @param value the time until the object expires
+   * @param timeUnit the time unit of the expiry value
+   * @param expirable the object that will expire
+   * @return a {@link Timeout} to cancel the expiry of the object
+   */
+  public Timeout addExpirable(long value, TimeUnit timeUnit, Expirable expirable) {
+    if (LOGGER.isDebugEnabled()) {
+      LOGGER.debug("Adding new expirable: " + expirable);
+    }
+    Timeout timeout = new Timeout(expirable, nanoTime() - startTime + max(timeUnit.toNanos(value), 0L));
+    monitoredCount.incrementAndGet();
+    pendingTimeouts.add(timeout);
+    return timeout;
+  }
+
+  /**
+   * @return the amount of objects that have neither expired nor been cancelled
+   */
+  public long getMonitoredCount() {
+    return monitoredCount.get();
+  }
+
+  /**
+   * Advances the wheel up to the current time, expiring the objects of the buckets it goes through.
+   */
+  @Override
+  public synchronized void run() {
+    removeCancelledTimeouts();
+    transferPendingTimeouts();
+
+    if (onPollingNodeOnly && muleContext != null && !muleContext.isPrimaryPollingInstance()) {
+      return;
+    }
+
+    long elapsed = nanoTime() - startTime;
+    while (tickNanos * (tick + 1) <= elapsed) {
+      wheel[(int) (tick & mask)].expire(tickNanos * (tick + 1));
+      tick++;
+    }
+  }
+
+  // @GuardedBy this
+  private void transferPendingTimeouts() {
+    Timeout timeout;
+    while ((timeout = pendingTimeouts.poll()) != null) {
+      if (timeout.isCancelled()) {
+        continue;
+      }
+      long expiryTick = timeout.deadline / tickNanos;
+      timeout.remainingRounds = (expiryTick - tick) / wheel.length;
+      // deadlines already reached go to the current bucket
+      wheel[(int) (max(expiryTick, tick) & mask)].add(timeout);
+    }
+  }
+
+  // @GuardedBy this
+  private void removeCancelledTimeouts() {
+    Timeout timeout;
+    while ((timeout = cancelledTimeouts.poll()) != null) {
+      if (timeout.bucket != null) {
+        timeout.bucket.remove(timeout);
+      }
+    }
+  }
+
+  /**
+   * Stops the monitor. Objects that have not expired yet are discarded without invoking their callback.
+   */
+  @Override
+  public void dispose() {
+    LOGGER.info("disposing monitor");
+    scheduler.stop();
+    synchronized (this) {
+      pendingTimeouts.clear();
+      cancelledTimeouts.clear();
+      for (Bucket bucket : wheel) {
+        bucket.clear();
+      }
+      monitoredCount.set(0);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return format("HashedWheelExpiryMonitor {name: %s, tickDuration: %d, ticksPerWheel: %d, monitored: %d}", name,
+                  MILLISECONDS.convert(tickNanos, TimeUnit.NANOSECONDS), wheel.length, monitoredCount.get());
+  }
+
+  /**
+   * The registration of an {@link Expirable} in a {@link HashedWheelExpiryMonitor}.
+   */
+  public final class Timeout {
+
+    private static final int PENDING = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    private final Expirable expirable;
+    private final long deadline;
+    private final AtomicInteger state = new AtomicInteger(PENDING);
+
+    // @GuardedBy HashedWheelExpiryMonitor.this
+    private long remainingRounds;
+    private Bucket bucket;
+    private Timeout previous;
+    private Timeout next;
+
+    private Timeout(Expirable expirable, long deadline) {
+      this.expirable = expirable;
+      this.deadline = deadline;
+    }
+
+    public Expirable getExpirable() {
+      return expirable;
+    }
+
+    /**
+     * Cancels the expiry of the object, so its callback is not invoked.
+     *
+     * @return {@code true} if cancelled, {@code false} if the object had already expired or been cancelled
+     */
+    public boolean cancel() {
+      if (!state.compareAndSet(PENDING, CANCELLED)) {
+        return false;
+      }
+      if (LOGGER.isDebugEnabled()) {
+        LOGGER.debug("Removing expirable: " + expirable);
+      }
+      monitoredCount.decrementAndGet();
+      cancelledTimeouts.add(this);
+      return true;
+    }
+
+    public boolean isCancelled() {
+      return state.get() == CANCELLED;
+    }
+
+    public boolean isExpired() {
+      return state.get() == EXPIRED;
+    }
+
+    private void expire() {
+      if (!state.compareAndSet(PENDING, EXPIRED)) {
+        return;
+      }
+      monitoredCount.decrementAndGet();
+      try {
+        expirable.expired();
+      } catch (Exception e) {
+        LOGGER.warn("Expiration of " + expirable + " failed: " + e.getMessage(), e);
+      }
+    }
+
+    @Override
+    public String toString() {
+      return format("Timeout {expirable: %s, deadline: %d, state: %d}", expirable.toString(), deadline, state.get());
+    }
+  }
+
+  /**
+   * Doubly linked list of the timeouts hashed to a slot of the wheel, so a cancelled one is removed in constant time.
+   */
+  // @GuardedBy HashedWheelExpiryMonitor.this
+  private static final class Bucket {
+
+    private Timeout head;
+    private Timeout tail;
+
+    void add(Timeout timeout) {
+      timeout.bucket = this;
+      if (head == null) {
+        head = tail = timeout;
+      } else {
+        tail.next = timeout;
+        timeout.previous = tail;
+        tail = timeout;
+      }
+    }
+
+    void expire(long tickDeadline) {
+      Timeout timeout = head;
+      while (timeout != null) {
+        Timeout next = timeout.next;
+        if (timeout.isCancelled()) {
+          remove(timeout);
+        } else if (timeout.remainingRounds <= 0 && timeout.deadline <= tickDeadline) {
+          remove(timeout);
+          timeout.expire();
+        } else {
+          timeout.remainingRounds--;
+        }
+        timeout = next;
+      }
+    }
+
+    void remove(Timeout timeout) {
+      if (timeout.bucket != this) {
+        return;
+      }
+      if (timeout.previous != null) {
+        timeout.previous.next = timeout.next;
+      } else {
+        head = timeout.next;
+      }
+      if (timeout.next != null) {
+        timeout.next.previous = timeout.previous;
+      } else {
+        tail = timeout.previous;
+      }
+      timeout.previous = null;
+      timeout.next = null;
+      timeout.bucket = null;
+    }
+
+    void clear() {
+      Timeout timeout = head;
+      while (timeout != null) {
+        Timeout next = timeout.next;
+        remove(timeout);
+        timeout = next;
+      }
+    }
+  }
+}
@@ -6,20 +6,27 @@
  */
 package org.mule.runtime.module.artifact.api.classloader;
 
+import static java.lang.Boolean.getBoolean;
 import static java.lang.Integer.toHexString;
 import static java.lang.String.format;
 import static java.lang.System.identityHashCode;
+import static java.util.Collections.emptyEnumeration;
 import static org.apache.commons.lang3.StringUtils.isEmpty;
 import static org.mule.runtime.api.util.Preconditions.checkArgument;
+import static org.mule.runtime.core.api.config.MuleProperties.MULE_CLASSLOADING_RESOURCE_INDEX;
 import static org.mule.runtime.core.api.util.IOUtils.closeQuietly;
 import static org.slf4j.LoggerFactory.getLogger;
 
 import org.mule.runtime.core.api.util.IOUtils;
 import org.mule.runtime.module.artifact.api.descriptor.ArtifactDescriptor;
+import org.mule.runtime.module.artifact.internal.classloader.ClassLoaderResourceIndex;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Enumeration;
 import java.util.List;
 
 import org.slf4j.Logger;
@@ -37,12 +44,17 @@ public class MuleArtifactClassLoader extends FineGrainedControlClassLoader imple
 
   private static final String DEFAULT_RESOURCE_RELEASER_CLASS_LOCATION =
       "/org/mule/module/artifact/classloader/DefaultResourceReleaser.class";
+  private static final String RESOURCE_INDEX_FOLDER = ".mule" + File.separator + "classloader-index";
 
   protected List<ShutdownListener> shutdownListeners = new ArrayList<>();
 
   private final String artifactId;
   private final Object localResourceLocatorLock = new Object();
   private volatile LocalResourceLocator localResourceLocator;
+  private final boolean resourceIndexEnabled = getBoolean(MULE_CLASSLOADING_RESOURCE_INDEX);
+  private final Object resourceIndexLock = new Object();
+  private volatile boolean resourceIndexCreated;
+  private ClassLoaderResourceIndex resourceIndex;
   private String resourceReleaserClassLocation = DEFAULT_RESOURCE_RELEASER_CLASS_LOCATION;
   private ResourceReleaser resourceReleaserInstance;
   private ArtifactDescriptor artifactDescriptor;
@@ -142,6 +154,59 @@ public class MuleArtifactClassLoader extends FineGrainedControlClassLoader imple
     this.resourceReleaserClassLocation = resourceReleaserClassLocation;
   }
 
+  @Override
+  public Class<?> findLocalClass(String name) throws ClassNotFoundException {
+    if (!mayContainResource(name.replace('.', '/') + ".class")) {
+      throw new ClassNotFoundException(name);
+    }
+    return super.findLocalClass(name);
+  }
+
+  @Override
+  public URL findResource(String name) {
+    if (!mayContainResource(name)) {
+      return null;
+    }
+    return super.findResource(name);
+  }
+
+  @Override
+  public Enumeration<URL> findResources(String name) throws IOException {
+    if (!mayContainResource(name)) {
+      return emptyEnumeration();
+    }
+    return super.findResources(name);
+  }
+
+  /**
+   * Uses the {@link ClassLoaderResourceIndex} of this class loader, when enabled through
+   * {@link org.mule.runtime.core.api.config.MuleProperties#MULE_CLASSLOADING_RESOURCE_INDEX}, to avoid looking into every
+   * jar for missing resources.
+   */
+  private boolean mayContainResource(String resourceName) {
+    if (!resourceIndexEnabled) {
+      return true;
+    }
+
+    if (!resourceIndexCreated) {
+      synchronized (resourceIndexLock) {
+        if (!resourceIndexCreated) {
+          resourceIndex = ClassLoaderResourceIndex.create(getURLs(), getResourceIndexFile());
+          resourceIndexCreated = true;
+        }
+      }
+    }
+    return resourceIndex == null || resourceIndex.mayContain(resourceName);
+  }
+
+  private File getResourceIndexFile() {
+    File rootFolder = artifactDescriptor.getRootFolder();
+    if (rootFolder == null || !rootFolder.isDirectory()) {
+      return null;
+    }
+    return new File(new File(rootFolder, RESOURCE_INDEX_FOLDER), toHexString(artifactId.hashCode()) + ".idx");
+  }
+
   @Override
   public URL findLocalResource(String resourceName) {
     return getLocalResourceLocator().findLocalResource(resourceName);
@@ -0,0 +1,222 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.module.artifact.internal.classloader;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.jar.Attributes.Name.CLASS_PATH;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+
+import org.slf4j.Logger;
+
+/**
+ * Index of the resources, classes included, available on the URLs of a {@link java.net.URLClassLoader}.
+ * <p/>
+ * The entries of each jar are read once and kept in memory, so the class loader can tell a resource is missing without going
+ * through all of its jars. Directories are not indexed as their content may change, so they are checked on each lookup.
+ * <p/>
+ * Jars whose manifest has a {@code Class-Path} attribute cannot be indexed, since the class loader also looks for resources on
+ * the jars referenced there.
+ * <p/>
+ * The index can be stored on a file, which is reused as long as none of the jars changed.
+ *
+ * @since 4.1
+ */
+public final class ClassLoaderResourceIndex {
+
+  private static final Logger LOGGER = getLogger(ClassLoaderResourceIndex.class);
+
+  private static final int FORMAT_VERSION = 2;
+  private static final String FILE_PROTOCOL = "file";
+
+  private final Set<String> jarEntries;
+  private final List<File> directories;
+
+  private ClassLoaderResourceIndex(Set<String> jarEntries, List<File> directories) {
+    this.jarEntries = jarEntries;
+    this.directories = directories;
+  }
+
+  /**
+   * Creates an index for the given URLs, reusing the one stored on {@code indexFile} if it is still valid.
+   *
+   * @param urls      the URLs of the class loader
+   * @param indexFile file where the index is stored. May be {@code null} to not store it.
+   * @return the index, or {@code null} if any of the URLs cannot be indexed because it does not point to a local file or it is
+   *         a jar whose manifest has a {@code Class-Path} attribute.
+   */
+  public static ClassLoaderResourceIndex create(URL[] urls, File indexFile) {
+    final List<IndexedLocation> locations = new ArrayList<>(urls.length);
+    for (URL url : urls) {
+      if (!FILE_PROTOCOL.equals(url.getProtocol())) {
+        return null;
+      }
+      try {
+        locations.add(new IndexedLocation(url.toExternalForm(), new File(url.toURI())));
+      } catch (URISyntaxException | IllegalArgumentException e) {
+        return null;
+      }
+    }
+
+    Set<String> jarEntries = null;
+    if (indexFile != null && indexFile.exists()) {
+      jarEntries = read(indexFile, locations);
+    }
+    if (jarEntries == null) {
+      try {
+        jarEntries = index(locations);
+      } catch (IOException e) {
+        LOGGER.debug("Unable to index class loader URLs", e);
+        return null;
+      }
+      if (jarEntries == null) {
+        return null;
+      }
+      if (indexFile != null) {
+        write(indexFile, locations, jarEntries);
+      }
+    }
+
+    final List<File> directories = new ArrayList<>();
+    for (IndexedLocation location : locations) {
+      if (location.file.isDirectory()) {
+        directories.add(location.file);
+      }
+    }
+    return new ClassLoaderResourceIndex(jarEntries, directories);
+  }
+
+  /**
+   * @param resourceName the name of a resource, as passed to {@link ClassLoader#getResource(String)}
+   * @return {@code false} if the resource is known not to exist on any of the indexed URLs, {@code true} otherwise.
+   */
+  public boolean mayContain(String resourceName) {
+    if (jarEntries.contains(resourceName)) {
+      return true;
+    }
+    for (File directory : directories) {
+      if (new File(directory, resourceName).exists()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static Set<String> index(List<IndexedLocation> locations) throws IOException {
+    final Set<String> jarEntries = new HashSet<>();
+    for (IndexedLocation location : locations) {
+      if (location.file.isFile()) {
+        try (JarFile jarFile = new JarFile(location.file)) {
+          Manifest manifest = jarFile.getManifest();
+          if (manifest != null && manifest.getMainAttributes().containsKey(CLASS_PATH)) {
+            LOGGER.debug("Unable to index class loader URLs, {} references other jars on its manifest", location.url);
+            return null;
+          }
+
+          Enumeration<JarEntry> entries = jarFile.entries();
+          while (entries.hasMoreElements()) {
+            String name = entries.nextElement().getName();
+            jarEntries.add(name);
+            // directories are found whether or not the trailing separator is given
+            if (name.endsWith("/")) {
+              jarEntries.add(name.substring(0, name.length() - 1));
+            }
+          }
+        }
+      }
+    }
+    return jarEntries;
+  }
+
+  private static Set<String> read(File indexFile, List<IndexedLocation> locations) {
+    try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+      if (input.readInt() != FORMAT_VERSION || input.readInt() != locations.size()) {
+        return null;
+      }
+      for (IndexedLocation location : locations) {
+        if (!location.url.equals(input.readUTF()) || location.lastModified() != input.readLong()
+            || location.length() != input.readLong()) {
+          return null;
+        }
+      }
+
+      final int entryCount = input.readInt();
+      final Set<String> jarEntries = new HashSet<>(entryCount * 4 / 3 + 1);
+      for (int i = 0; i < entryCount; i++) {
+        jarEntries.add(input.readUTF());
+      }
+      return jarEntries;
+    } catch (IOException e) {
+      LOGGER.debug("Unable to read class loader index from " + indexFile, e);
+      return null;
+    }
+  }
+
+  private static void write(File indexFile, List<IndexedLocation> locations, Set<String> jarEntries) {
+    final File tempFile = new File(indexFile.getParentFile(), indexFile.getName() + ".tmp");
+    try {
+      indexFile.getParentFile().mkdirs();
+      try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+        output.writeInt(FORMAT_VERSION);
+        output.writeInt(locations.size());
+        for (IndexedLocation location : locations) {
+          output.writeUTF(location.url);
+          output.writeLong(location.lastModified());
+          output.writeLong(location.length());
+        }
+        output.writeInt(jarEntries.size());
+        for (String entry : jarEntries) {
+          output.writeUTF(entry);
+        }
+      }
+      Files.move(tempFile.toPath(), indexFile.toPath(), REPLACE_EXISTING, ATOMIC_MOVE);
+    } catch (IOException e) {
+      LOGGER.debug("Unable to store class loader index on " + indexFile, e);
+      tempFile.delete();
+    }
+  }
+
+  private static class IndexedLocation {
+
+    final String url;
+    final File file;
+
+    private IndexedLocation(String url, File file) {
+      this.url = url;
+      this.file = file;
+    }
+
+    // directories are not indexed, so changes on them do not invalidate the index
+    long lastModified() {
+      return file.isFile() ? file.lastModified() : 0;
+    }
+
+    long length() {
+      return file.isFile() ? file.length() : 0;
+    }
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.module.artifact.internal.classloader;
+
+import static java.util.jar.Attributes.Name.CLASS_PATH;
+import static java.util.jar.Attributes.Name.MANIFEST_VERSION;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+@SmallTest
+public class ClassLoaderResourceIndexTestCase extends AbstractMuleTestCase {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void indexesJarEntries() throws Exception {
+    File jar = createJar("test.jar", "org/foo/Bar.class", "resource.txt");
+
+    ClassLoaderResourceIndex index = ClassLoaderResourceIndex.create(new URL[] {jar.toURI().toURL()}, null);
+
+    assertThat(index.mayContain("org/foo/Bar.class"), is(true));
+    assertThat(index.mayContain("resource.txt"), is(true));
+    assertThat(index.mayContain("org/foo/Missing.class"), is(false));
+  }
+
+  @Test
+  public void directoryEntriesIndexedWithAndWithoutSeparator() throws Exception {
+    File jar = createJar("test.jar", "META-INF/services/", "META-INF/services/org.foo.Bar");
+
+    ClassLoaderResourceIndex index = ClassLoaderResourceIndex.create(new URL[] {jar.toURI().toURL()}, null);
+
+    assertThat(index.mayContain("META-INF/services/"), is(true));
+    assertThat(index.mayContain("META-INF/services"), is(true));
+    assertThat(index.mayContain("META-INF/other"), is(false));
+  }
+
+  @Test
+  public void jarsWithManifestClassPathAreNotIndexed() throws Exception {
+    File jar = createJar("test.jar", "resource.txt");
+    Manifest manifest = new Manifest();
+    manifest.getMainAttributes().put(MANIFEST_VERSION, "1.0");
+    manifest.getMainAttributes().put(CLASS_PATH, "other.jar");
+    File classPathJar = new File(folder.getRoot(), "class-path.jar");
+    try (JarOutputStream output = new JarOutputStream(new FileOutputStream(classPathJar), manifest)) {
+      output.putNextEntry(new ZipEntry("other-resource.txt"));
+      output.closeEntry();
+    }
+    File indexFile = new File(folder.getRoot(), "index/test.idx");
+
+    assertThat(ClassLoaderResourceIndex.create(new URL[] {jar.toURI().toURL(), classPathJar.toURI().toURL()}, indexFile),
+               is(nullValue()));
+    assertThat(indexFile.exists(), is(false));
+  }
+
+  @Test
+  public void directoriesCheckedOnEachLookup() throws Exception {
+    File directory = folder.newFolder("classes");
+
+    ClassLoaderResourceIndex index = ClassLoaderResourceIndex.create(new URL[] {directory.toURI().toURL()}, null);
+    assertThat(index.mayContain("resource.txt"), is(false));
+
+    new File(directory, "resource.txt").createNewFile();
+    assertThat(index.mayContain("resource.txt"), is(true));
+  }
+
+  @Test
+  public void nonFileUrlsAreNotIndexed() throws Exception {
+    assertThat(ClassLoaderResourceIndex.create(new URL[] {new URL("http://localhost/test.jar")}, null), is(nullValue()));
+  }
+
+  @Test
+  public void storedIndexIsReused() throws Exception {
+    File jar = createJar("test.jar", "resource.txt");
+    File indexFile = new File(folder.getRoot(), "index/test.idx");
+    URL[] urls = new URL[] {jar.toURI().toURL()};
+
+    ClassLoaderResourceIndex.create(urls, indexFile);
+    assertThat(indexFile.exists(), is(true));
+
+    ClassLoaderResourceIndex index = ClassLoaderResourceIndex.create(urls, indexFile);
+    assertThat(index.mayContain("resource.txt"), is(true));
+    assertThat(index.mayContain("other.txt"), is(false));
+  }
+
+  @Test
+  public void storedIndexDiscardedWhenJarChanges() throws Exception {
+    File jar = createJar("test.jar", "resource.txt");
+    File indexFile = new File(folder.getRoot(), "index/test.idx");
+    URL[] urls = new URL[] {jar.toURI().toURL()};
+
+    ClassLoaderResourceIndex.create(urls, indexFile);
+    createJar("test.jar", "resource.txt", "other.txt");
+    jar.setLastModified(jar.lastModified() + 1000);
+
+    ClassLoaderResourceIndex index = ClassLoaderResourceIndex.create(urls, indexFile);
+    assertThat(index.mayContain("other.txt"), is(true));
+  }
+
+  private File createJar(String name, String... entries) throws IOException {
+    File jar = new File(folder.getRoot(), name);
+    try (ZipOutputStream output = new ZipOutputStream(new FileOutputStream(jar))) {
+      for (String entry : entries) {
+        output.putNextEntry(new ZipEntry(entry));
+        if (!entry.endsWith("/")) {
+          output.write(entry.getBytes());
+        }
+        output.closeEntry();
+      }
+    }
+    return jar;
+  }
+}
@@ -68,6 +68,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.concurrent.CancellationException;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
@@ -177,6 +178,12 @@ public class DefaultMuleApplication implements Application {
         splashScreen.createMessage(descriptor);
         logger.info(splashScreen.toString());
       });
+
+      this.artifactContext.getActivation().whenComplete((result, t) -> {
+        if (t != null && !(t instanceof CancellationException)) {
+          activationFailed(t);
+        }
+      });
     } catch (Exception e) {
       setStatusToFailed();
 
@@ -191,6 +198,22 @@ public class DefaultMuleApplication implements Application {
     }
   }
 
+  /**
+   * Fails the deployment of the application when the components activated in the background once it was started could not be
+   * activated, since the flows that reference them would never work.
+   */
+  private void activationFailed(Throwable cause) {
+    setStatusToFailed();
+
+    // log it here so it ends up in app log
+    logger.error(format("Error activating application '%s'", descriptor.getName()), cause);
+    try {
+      this.artifactContext.getMuleContext().stop();
+    } catch (MuleException e) {
+      logger.error(format("Error stopping application '%s'", descriptor.getName()), e);
+    }
+  }
+
   @Override
   public void init() {
     doInit(false, false);
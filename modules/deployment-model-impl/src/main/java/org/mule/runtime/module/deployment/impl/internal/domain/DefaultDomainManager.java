@@ -10,15 +10,15 @@ package org.mule.runtime.module.deployment.impl.internal.domain;
 import static java.lang.String.format;
 import org.mule.runtime.deployment.model.api.domain.Domain;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Manages {@link Domain} instances created on the container.
  */
 public class DefaultDomainManager implements DomainRepository, DomainManager {
 
-  private Map<String, Domain> domains = new HashMap();
+  private Map<String, Domain> domains = new ConcurrentHashMap<>();
 
   @Override
   public Domain getDomain(String name) {
@@ -27,10 +27,9 @@ public class DefaultDomainManager implements DomainRepository, DomainManager {
 
   @Override
   public void addDomain(Domain domain) {
-    if (domains.containsKey(domain.getArtifactName())) {
+    if (domains.putIfAbsent(domain.getArtifactName(), domain) != null) {
       throw new IllegalArgumentException(format("Domain '%s' already exists", domain.getArtifactName()));
     }
-    domains.put(domain.getArtifactName(), domain);
   }
 
   @Override
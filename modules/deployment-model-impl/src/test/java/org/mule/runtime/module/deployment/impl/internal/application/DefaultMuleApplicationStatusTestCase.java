@@ -30,6 +30,7 @@ import org.mule.tck.probe.JUnitProbe;
 import org.mule.tck.probe.PollingProber;
 
 import java.io.File;
+import java.util.concurrent.CompletableFuture;
 
 import javax.inject.Inject;
 
@@ -133,6 +134,28 @@ public class DefaultMuleApplicationStatusTestCase extends AbstractMuleContextTes
     }
   }
 
+  @Test
+  public void deploymentFailedOnActivation() throws Exception {
+    ApplicationDescriptor descriptor = mock(ApplicationDescriptor.class);
+    when(descriptor.getName()).thenReturn("app");
+    CompletableFuture<Void> activation = new CompletableFuture<>();
+    ArtifactContext artifactContext = mock(ArtifactContext.class);
+    when(artifactContext.getMuleContext()).thenReturn(muleContext);
+    when(artifactContext.getRegistry()).thenReturn(new DefaultRegistry(muleContext));
+    when(artifactContext.getActivation()).thenReturn(activation);
+
+    application = new DefaultMuleApplication(descriptor, mock(MuleApplicationClassLoader.class), emptyList(), null,
+                                             mock(ServiceRepository.class), mock(ExtensionModelLoaderRepository.class),
+                                             appLocation, null, null);
+    application.setArtifactContext(artifactContext);
+    application.start();
+    assertStatus(ApplicationStatus.STARTED);
+
+    activation.completeExceptionally(new IllegalStateException("Expected"));
+    assertStatus(ApplicationStatus.DEPLOYMENT_FAILED);
+    assertThat(muleContext.isStopped(), is(true));
+  }
+
   private void assertStatus(final ApplicationStatus status) {
     PollingProber prober = new PollingProber(PROBER_TIMEOUT, PROBER_INTERVAL);
     prober.check(new JUnitProbe() {
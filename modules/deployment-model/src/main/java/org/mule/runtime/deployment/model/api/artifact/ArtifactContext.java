@@ -6,10 +6,14 @@
  */
 package org.mule.runtime.deployment.model.api.artifact;
 
+import static java.util.concurrent.CompletableFuture.completedFuture;
+
 import org.mule.runtime.api.artifact.Registry;
 import org.mule.runtime.core.api.MuleContext;
 import org.mule.runtime.module.artifact.api.Artifact;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * An artifact context contains all the information related to an {@link Artifact} that contains
  * configuration.
@@ -28,4 +32,16 @@ public interface ArtifactContext {
    */
   Registry getRegistry();
 
+  /**
+   * Provides the activation of the components of the artifact which are not created along with it but in the background once
+   * it is started.
+   *
+   * @return a future completed once every such component is started, or completed exceptionally if any of them could not be
+   *         activated. It is already completed if the artifact has no such components.
+   * @since 4.1
+   */
+  default CompletableFuture<Void> getActivation() {
+    return completedFuture(null);
+  }
+
 }
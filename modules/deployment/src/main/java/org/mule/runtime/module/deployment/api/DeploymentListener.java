@@ -42,6 +42,16 @@ public interface DeploymentListener {
 
   }
 
+  /**
+   * Notifies how long the deploy for a given application took, either if it finished successfully or with a failure.
+   *
+   * @param artifactName the name of the application being deployed
+   * @param durationMillis the time elapsed since the deploy started, in milliseconds
+   */
+  default void onDeploymentFinished(String artifactName, long durationMillis) {
+
+  }
+
   /**
    * Notifies that an un-deployment for a given application has started.
    *
@@ -0,0 +1,250 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.module.deployment.internal;
+
+import static java.lang.Integer.getInteger;
+import static java.lang.Math.min;
+import static java.lang.Runtime.getRuntime;
+import static java.nio.file.Files.createTempFile;
+import static java.nio.file.Files.deleteIfExists;
+import static java.nio.file.Files.move;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static org.mule.runtime.core.api.util.FileUtils.deleteTree;
+import static org.mule.runtime.core.api.util.FileUtils.newFile;
+import static org.mule.runtime.core.api.util.FileUtils.verifyZipFilePaths;
+
+import org.mule.runtime.core.api.util.concurrent.NamedThreadFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Expands artifact archives into a directory.
+ * <p/>
+ * The entries of the archive are written in parallel, transferring the content of each one directly into a {@link FileChannel}
+ * . When the target directory already contains a previous version of the artifact, files whose content matches the CRC-32
+ * recorded in the archive for the entry are left untouched and files that are not part of the archive anymore are removed, so
+ * redeploying an archive only writes what actually changed. A changed file is written next to the previous one and then moved
+ * over it, so the previous file is never modified in place.
+ *
+ * @since 4.1
+ */
+class ArtifactArchiveExtractor {
+
+  /**
+   * System property to set the number of threads used to expand an archive. Defaults to the number of available processors.
+   */
+  public static final String EXTRACTION_PARALLELISM_PROPERTY = "mule.launcher.extractionParallelism";
+
+  private static final String TEMP_FILE_SUFFIX = ".tmp";
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final long TRANSFER_CHUNK_SIZE = 8 * 1024 * 1024;
+
+  private final int parallelism;
+
+  ArtifactArchiveExtractor() {
+    this(getInteger(EXTRACTION_PARALLELISM_PROPERTY, getRuntime().availableProcessors()));
+  }
+
+  ArtifactArchiveExtractor(int parallelism) {
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * Expands an archive into a directory, leaving the directory with exactly the content of the archive.
+   *
+   * @param archive the archive to expand
+   * @param directory the directory to expand the archive into. It's created if it doesn't exist.
+   * @throws IOException if the archive is invalid or couldn't be expanded
+   */
+  void extract(File archive, File directory) throws IOException {
+    if (directory.exists()) {
+      if (!directory.isDirectory()) {
+        throw new IOException("Directory is not a directory: " + directory);
+      }
+    } else if (!directory.mkdirs()) {
+      throw new IOException("Could not create directory: " + directory);
+    }
+
+    try (ZipFile zip = new ZipFile(archive)) {
+      verifyZipFilePaths(zip);
+
+      final Path root = directory.toPath().normalize();
+      final Set<Path> expectedPaths = new HashSet<>();
+      expectedPaths.add(root);
+      final List<ZipEntry> fileEntries = new ArrayList<>();
+      final List<ZipEntry> directoryEntries = new ArrayList<>();
+      for (Enumeration<? extends ZipEntry> entries = zip.entries(); entries.hasMoreElements();) {
+        ZipEntry entry = entries.nextElement();
+        // adds the entry and all of its parent folders
+        Path path = root.resolve(entry.getName()).normalize();
+        while (path != null && expectedPaths.add(path)) {
+          path = path.getParent();
+        }
+        if (entry.isDirectory()) {
+          directoryEntries.add(entry);
+        } else {
+          fileEntries.add(entry);
+        }
+      }
+
+      deleteUnexpectedFiles(root, expectedPaths);
+
+      for (ZipEntry entry : directoryEntries) {
+        File folder = newFile(directory, entry.getName());
+        if (!folder.exists() && !folder.mkdirs()) {
+          throw new IOException("Could not create directory: " + folder);
+        }
+      }
+
+      extractFiles(zip, fileEntries, directory);
+    }
+  }
+
+  private void extractFiles(ZipFile zip, List<ZipEntry> entries, File directory) throws IOException {
+    final int threads = min(parallelism, entries.size());
+    if (threads <= 1) {
+      for (ZipEntry entry : entries) {
+        extractFile(zip, entry, directory);
+      }
+      return;
+    }
+
+    final ExecutorService executor = newFixedThreadPool(threads, new NamedThreadFactory("mule.deployment.extractor"));
+    try {
+      final List<Future<Object>> futures = new ArrayList<>(entries.size());
+      for (ZipEntry entry : entries) {
+        futures.add(executor.submit(() -> {
+          extractFile(zip, entry, directory);
+          return null;
+        }));
+      }
+
+      for (Future<Object> future : futures) {
+        try {
+          future.get();
+        } catch (ExecutionException e) {
+          if (e.getCause() instanceof IOException) {
+            throw (IOException) e.getCause();
+          }
+          throw new IOException("Error expanding archive " + zip.getName(), e.getCause());
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while expanding archive " + zip.getName(), e);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private void extractFile(ZipFile zip, ZipEntry entry, File directory) throws IOException {
+    final File file = newFile(directory, entry.getName());
+    if (file.isDirectory() && !deleteTree(file)) {
+      throw new IOException("Cannot delete existing folder " + file);
+    }
+    if (isUnchanged(entry, file)) {
+      return;
+    }
+
+    final File parent = file.getParentFile();
+    if (!parent.exists() && !parent.mkdirs() && !parent.isDirectory()) {
+      throw new IOException("Unable to create folders for zip entry: " + entry.getName());
+    }
+
+    // The content is written to a sibling that then replaces the file, since a JVM may still have the previous file mapped
+    // (as the class loaders of a running artifact do with its jars) and truncating it in place would crash that JVM
+    final Path temp = createTempFile(parent.toPath(), "." + file.getName(), TEMP_FILE_SUFFIX);
+    try {
+      try (ReadableByteChannel in = Channels.newChannel(zip.getInputStream(entry));
+          FileChannel out = FileChannel.open(temp, WRITE)) {
+        long position = 0;
+        long transferred;
+        while ((transferred = out.transferFrom(in, position, TRANSFER_CHUNK_SIZE)) > 0) {
+          position += transferred;
+        }
+      }
+      replace(temp, file.toPath());
+    } finally {
+      deleteIfExists(temp);
+    }
+  }
+
+  private void replace(Path source, Path target) throws IOException {
+    try {
+      move(source, target, ATOMIC_MOVE, REPLACE_EXISTING);
+    } catch (AtomicMoveNotSupportedException e) {
+      move(source, target, REPLACE_EXISTING);
+    }
+  }
+
+  private boolean isUnchanged(ZipEntry entry, File file) throws IOException {
+    if (!file.isFile() || entry.getCrc() == -1 || entry.getSize() != file.length()) {
+      return false;
+    }
+
+    final CRC32 crc = new CRC32();
+    final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    try (FileChannel channel = FileChannel.open(file.toPath(), READ)) {
+      while (channel.read(buffer) != -1) {
+        buffer.flip();
+        crc.update(buffer);
+        buffer.clear();
+      }
+    }
+    return crc.getValue() == entry.getCrc();
+  }
+
+  private void deleteUnexpectedFiles(Path root, Set<Path> expectedPaths) throws IOException {
+    Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+
+      @Override
+      public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+        if (!expectedPaths.contains(dir)) {
+          if (!deleteTree(dir.toFile())) {
+            throw new IOException("Cannot delete existing folder " + dir);
+          }
+          return FileVisitResult.SKIP_SUBTREE;
+        }
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+        if (!expectedPaths.contains(file)) {
+          Files.delete(file);
+        }
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+}
@@ -14,7 +14,6 @@ import static org.mule.runtime.core.api.util.FileUtils.deleteTree;
 import static org.mule.runtime.module.deployment.internal.DefaultArchiveDeployer.JAR_FILE_SUFFIX;
 
 import org.mule.runtime.api.i18n.I18nMessageFactory;
-import org.mule.runtime.core.api.util.FileUtils;
 import org.mule.runtime.deployment.model.api.DeploymentException;
 import org.mule.runtime.deployment.model.api.DeploymentInitException;
 
@@ -37,6 +36,7 @@ public class ArtifactArchiveInstaller {
   private static final Logger logger = LoggerFactory.getLogger(ArtifactArchiveInstaller.class);
 
   private final File artifactParentDir;
+  private final ArtifactArchiveExtractor archiveExtractor = new ArtifactArchiveExtractor();
 
   public ArtifactArchiveInstaller(File artifactParentDir) {
     this.artifactParentDir = artifactParentDir;
@@ -76,15 +76,11 @@ public class ArtifactArchiveInstaller {
       artifactName = getBaseName(fullPath);
       artifactDir = new File(artifactParentDir, artifactName);
 
-      // Removes previous deployed artifact
-      if (artifactDir.exists() && !deleteTree(artifactDir)) {
-        throw new IOException("Cannot delete existing folder " + artifactDir);
-      }
-
       // normalize the full path + protocol to make unzip happy
       final File source = artifactFile;
 
-      FileUtils.unzip(source, artifactDir);
+      // Files of a previously deployed artifact are updated in place, only writing the ones that changed
+      archiveExtractor.extract(source, artifactDir);
       if ("file".equals(artifactUri.getScheme())) {
         deleteQuietly(source);
       }
@@ -112,9 +108,24 @@ public class ArtifactArchiveInstaller {
    * @param artifactName name of the artifact to be uninstalled.
    */
   void uninstallArtifact(final String artifactName) {
+    uninstallArtifact(artifactName, true);
+  }
+
+  /**
+   * Uninstalls an artifact from the Mule container installation.
+   *
+   * It will remove the anchor file related and, if requested, the artifact folder. Keeping the folder allows a redeployment of
+   * the artifact to only write the files that changed.
+   *
+   * @param artifactName name of the artifact to be uninstalled.
+   * @param deleteArtifactDir whether the artifact folder has to be removed
+   */
+  void uninstallArtifact(final String artifactName, boolean deleteArtifactDir) {
     try {
-      final File artifactDir = new File(artifactParentDir, artifactName);
-      deleteDirectory(artifactDir);
+      if (deleteArtifactDir) {
+        final File artifactDir = new File(artifactParentDir, artifactName);
+        deleteDirectory(artifactDir);
+      }
       // remove a marker, harmless, but a tidy artifact dir is always better :)
       File marker = getArtifactAnchorFile(artifactName);
       marker.delete();
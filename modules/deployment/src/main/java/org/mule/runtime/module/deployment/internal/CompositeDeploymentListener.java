@@ -66,6 +66,17 @@ public class CompositeDeploymentListener implements DeploymentListener, Deployme
     }
   }
 
+  @Override
+  public void onDeploymentFinished(String artifactName, long durationMillis) {
+    for (DeploymentListener listener : deploymentListeners) {
+      try {
+        listener.onDeploymentFinished(artifactName, durationMillis);
+      } catch (Throwable t) {
+        logNotificationProcessingError(artifactName, listener, "onDeploymentFinished", t);
+      }
+    }
+  }
+
   @Override
   public void onUndeploymentStart(String artifactName) {
     for (DeploymentListener listener : deploymentListeners) {
@@ -7,6 +7,7 @@
 package org.mule.runtime.module.deployment.internal;
 
 import static java.lang.String.format;
+import static java.lang.System.currentTimeMillis;
 import static java.util.Arrays.asList;
 import static java.util.Arrays.stream;
 import static java.util.Optional.ofNullable;
@@ -48,6 +49,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Deployer of an artifact within mule container. - Keeps track of deployed artifacts - Avoid already deployed artifacts to be
@@ -62,7 +64,7 @@ public class DefaultArchiveDeployer<T extends DeployableArtifact> implements Arc
 
   private final ArtifactDeployer<T> deployer;
   private final ArtifactArchiveInstaller artifactArchiveInstaller;
-  private final Map<String, ZombieArtifact> artifactZombieMap = new HashMap<>();
+  private final Map<String, ZombieArtifact> artifactZombieMap = new ConcurrentHashMap<>();
   private final File artifactDir;
   private final ObservableList<T> artifacts;
   private final ArtifactDeploymentTemplate deploymentTemplate;
@@ -105,6 +107,10 @@ public class DefaultArchiveDeployer<T extends DeployableArtifact> implements Arc
 
   @Override
   public void undeployArtifact(String artifactId) {
+    undeployArtifact(artifactId, true);
+  }
+
+  private void undeployArtifact(String artifactId, boolean removeInstallation) {
     ZombieArtifact zombieArtifact = artifactZombieMap.get(artifactId);
     if ((zombieArtifact != null)) {
       if (zombieArtifact.exists()) {
@@ -116,7 +122,7 @@ public class DefaultArchiveDeployer<T extends DeployableArtifact> implements Arc
     }
 
     T artifact = (T) find(artifacts, new BeanPropertyValueEqualsPredicate(ARTIFACT_NAME_PROPERTY, artifactId));
-    undeploy(artifact);
+    undeployArtifact(artifact, true, removeInstallation);
   }
 
   @Override
@@ -233,7 +239,8 @@ public class DefaultArchiveDeployer<T extends DeployableArtifact> implements Arc
     T artifact = (T) find(artifacts, new BeanPropertyValueEqualsPredicate(ARTIFACT_NAME_PROPERTY, artifactName));
     if (artifact != null) {
       deploymentTemplate.preRedeploy(artifact);
-      undeployArtifact(artifactName);
+      // keeps the exploded artifact, so the new archive is expanded on top of it
+      undeployArtifact(artifactName, false);
     }
 
     T deployedArtifact = deployPackagedArtifact(artifactUri, deploymentProperties);
@@ -339,18 +346,18 @@ public class DefaultArchiveDeployer<T extends DeployableArtifact> implements Arc
     undeployArtifact(artifact, false);
   }
 
-  private void undeploy(T artifact) {
-    this.undeployArtifact(artifact, true);
+  private void undeployArtifact(T artifact, boolean removeData) {
+    undeployArtifact(artifact, removeData, true);
   }
 
-  private void undeployArtifact(T artifact, boolean removeData) {
+  private void undeployArtifact(T artifact, boolean removeData, boolean removeInstallation) {
     logRequestToUndeployArtifact(artifact);
     try {
       deploymentListener.onUndeploymentStart(artifact.getArtifactName());
 
       artifacts.remove(artifact);
       deployer.undeploy(artifact);
-      artifactArchiveInstaller.uninstallArtifact(artifact.getArtifactName());
+      artifactArchiveInstaller.uninstallArtifact(artifact.getArtifactName(), removeInstallation);
       if (removeData) {
         final File dataFolder = getAppDataFolder(artifact.getDescriptor().getDataFolderName());
         deleteDirectory(dataFolder);
@@ -482,6 +489,7 @@ public class DefaultArchiveDeployer<T extends DeployableArtifact> implements Arc
 
   @Override
   public void deployArtifact(T artifact, Optional<Properties> deploymentProperties) throws DeploymentException {
+    final long startTime = currentTimeMillis();
     try {
       // add to the list of known artifacts first to avoid deployment loop on failure
       trackArtifact(artifact);
@@ -510,6 +518,8 @@ public class DefaultArchiveDeployer<T extends DeployableArtifact> implements Arc
       } else {
         throw new DeploymentException(createStaticMessage("Failed to deploy artifact: " + artifact.getArtifactName()), t);
       }
+    } finally {
+      deploymentListener.onDeploymentFinished(artifact.getArtifactName(), currentTimeMillis() - startTime);
     }
   }
 
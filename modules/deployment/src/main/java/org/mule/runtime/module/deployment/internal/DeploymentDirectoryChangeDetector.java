@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.module.deployment.internal;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Detects changes on the folders relevant for deployment using a {@link WatchService}, so the deployment folders only have to be
+ * scanned when something actually changed.
+ * <p/>
+ * Watching is not recursive: only changes to the files directly contained in the registered folders are detected.
+ *
+ * @since 4.1
+ */
+class DeploymentDirectoryChangeDetector implements Closeable {
+
+  private static final Logger logger = LoggerFactory.getLogger(DeploymentDirectoryChangeDetector.class);
+
+  private final WatchService watchService;
+  private final Map<Path, WatchKey> watchedFolders = new ConcurrentHashMap<>();
+
+  DeploymentDirectoryChangeDetector() throws IOException {
+    this(FileSystems.getDefault().newWatchService());
+  }
+
+  DeploymentDirectoryChangeDetector(WatchService watchService) {
+    this.watchService = watchService;
+  }
+
+  /**
+   * Starts watching a folder for changes. Does nothing if the folder doesn't exist or is already being watched.
+   *
+   * @param folder the folder to watch
+   */
+  void register(File folder) {
+    if (!folder.isDirectory()) {
+      return;
+    }
+
+    final Path path = folder.toPath().toAbsolutePath().normalize();
+    final WatchKey currentKey = watchedFolders.get(path);
+    if (currentKey != null && currentKey.isValid()) {
+      return;
+    }
+
+    try {
+      watchedFolders.put(path, path.register(watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY));
+    } catch (IOException e) {
+      logger.warn("Unable to watch folder '{}' for changes", folder, e);
+    }
+  }
+
+  /**
+   * Consumes the changes detected since the last invocation, without blocking.
+   *
+   * @return {@code true} if any watched folder changed or events were lost, {@code false} otherwise.
+   */
+  boolean pollChanges() {
+    boolean changed = false;
+    WatchKey key;
+    while ((key = watchService.poll()) != null) {
+      for (WatchEvent<?> event : key.pollEvents()) {
+        if (logger.isDebugEnabled()) {
+          logger.debug("Detected {} of '{}' in '{}'", event.kind(), event.context(), key.watchable());
+        }
+        changed = true;
+      }
+
+      if (!key.reset()) {
+        // The folder is not accessible anymore, it has to be registered again if recreated
+        watchedFolders.values().remove(key);
+        changed = true;
+      }
+    }
+    return changed;
+  }
+
+  @Override
+  public void close() throws IOException {
+    watchedFolders.clear();
+    watchService.close();
+  }
+}
@@ -6,6 +6,7 @@
  */
 package org.mule.runtime.module.deployment.internal;
 
+import static java.lang.Boolean.getBoolean;
 import static java.lang.String.format;
 import static java.util.Arrays.sort;
 import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
@@ -39,6 +40,7 @@ import org.mule.runtime.module.deployment.internal.util.ObservableList;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.io.File;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -65,11 +67,16 @@ import org.slf4j.LoggerFactory;
  * It will deploy the applications at the container startup process. It will periodically scan the artifact directories in order
  * to process new deployments, remove artifacts that were previously deployed but the anchor file was removed and redeploy those
  * applications which configuration has changed.
+ * <p/>
+ * When {@value #CHANGE_DETECTION_WATCH_SERVICE_PROPERTY} is set, the artifact directories and the resources of the deployed
+ * artifacts are watched for changes using a {@link java.nio.file.WatchService}, and they are only scanned when a change was
+ * detected.
  */
 public class DeploymentDirectoryWatcher implements Runnable {
 
   public static final String ARTIFACT_ANCHOR_SUFFIX = "-anchor.txt";
   public static final String CHANGE_CHECK_INTERVAL_PROPERTY = "mule.launcher.changeCheckInterval";
+  public static final String CHANGE_DETECTION_WATCH_SERVICE_PROPERTY = "mule.launcher.watchService";
   public static final IOFileFilter JAR_ARTIFACT_FILTER =
       new AndFileFilter(new SuffixFileFilter(JAR_FILE_SUFFIX, INSENSITIVE), FileFileFilter.FILE);
   public static final IOFileFilter ZIP_ARTIFACT_FILTER =
@@ -79,7 +86,7 @@ public class DeploymentDirectoryWatcher implements Runnable {
   protected transient final Logger logger = LoggerFactory.getLogger(getClass());
 
   private final ReentrantLock deploymentLock;
-  private final ArchiveDeployer<Domain> domainArchiveDeployer;
+  protected final ArchiveDeployer<Domain> domainArchiveDeployer;
   protected final ArchiveDeployer<Application> applicationArchiveDeployer;
   protected final Supplier<SchedulerService> schedulerServiceSupplier;
   private final ArtifactTimestampListener<Application> applicationTimestampListener;
@@ -90,8 +97,10 @@ public class DeploymentDirectoryWatcher implements Runnable {
   private final File appsDir;
   private final File domainsDir;
   private ScheduledExecutorService artifactDirMonitorTimer;
+  private DeploymentDirectoryChangeDetector changeDetector;
 
   protected volatile boolean dirty;
+  private volatile boolean changesPending;
 
   public DeploymentDirectoryWatcher(DomainBundleArchiveDeployer domainBundleDeployer,
                                     final ArchiveDeployer<Domain> domainArchiveDeployer,
@@ -225,13 +234,62 @@ public class DeploymentDirectoryWatcher implements Runnable {
     // TODO MULE-12337 migrate this to an scheduler
     artifactDirMonitorTimer = newSingleThreadScheduledExecutor(new ArtifactDeployerMonitorThreadFactory());
 
-    artifactDirMonitorTimer.scheduleWithFixedDelay(this, reloadIntervalMs, reloadIntervalMs, MILLISECONDS);
+    if (getBoolean(CHANGE_DETECTION_WATCH_SERVICE_PROPERTY)) {
+      try {
+        changeDetector = new DeploymentDirectoryChangeDetector();
+        registerWatchedFolders();
+      } catch (IOException e) {
+        logger.warn("Unable to watch deployment folders for changes, they will be scanned periodically", e);
+      }
+    }
+
+    if (changeDetector == null) {
+      artifactDirMonitorTimer.scheduleWithFixedDelay(this, reloadIntervalMs, reloadIntervalMs, MILLISECONDS);
+    } else {
+      artifactDirMonitorTimer.scheduleWithFixedDelay(this::runOnChanges, reloadIntervalMs, reloadIntervalMs, MILLISECONDS);
+    }
 
     if (logger.isInfoEnabled()) {
       logger.info(miniSplash(format("Mule is up and kicking (every %dms)", reloadIntervalMs)));
     }
   }
 
+  /**
+   * Scans the artifact directories only if a change was detected on the watched folders since the last scan.
+   */
+  private void runOnChanges() {
+    if (changeDetector.pollChanges()) {
+      changesPending = true;
+    }
+
+    if (changesPending || dirty) {
+      run();
+      registerWatchedFolders();
+    }
+  }
+
+  private void registerWatchedFolders() {
+    changeDetector.register(appsDir);
+    changeDetector.register(domainsDir);
+    registerArtifactFolders(appsDir, applications);
+    registerArtifactFolders(domainsDir, domains);
+  }
+
+  private void registerArtifactFolders(File artifactsDir, List<? extends Artifact> artifacts) {
+    // Changes on exploded artifacts that failed to deploy are detected on its descriptor and configuration folders
+    for (String artifactFolder : artifactsDir.list(DirectoryFileFilter.DIRECTORY)) {
+      File artifactDir = new File(artifactsDir, artifactFolder);
+      changeDetector.register(artifactDir);
+      changeDetector.register(new File(artifactDir, ArtifactDescriptor.MULE_ARTIFACT_FOLDER));
+    }
+
+    for (Artifact artifact : artifacts.toArray(new Artifact[0])) {
+      for (File resourceFile : artifact.getResourceFiles()) {
+        changeDetector.register(resourceFile.getParentFile());
+      }
+    }
+  }
+
   protected void deployPackedApps(String[] zips) {
     for (String zip : zips) {
       try {
@@ -276,6 +334,7 @@ public class DeploymentDirectoryWatcher implements Runnable {
         }
         return;
       }
+      changesPending = false;
 
       undeployRemovedApps();
 
@@ -405,7 +464,7 @@ public class DeploymentDirectoryWatcher implements Runnable {
     return anchors;
   }
 
-  private void deployExplodedDomains(String[] domains) {
+  protected void deployExplodedDomains(String[] domains) {
     for (String addedDomain : domains) {
       try {
         if (domainArchiveDeployer.isUpdatedZombieArtifact(addedDomain)) {
@@ -417,7 +476,7 @@ public class DeploymentDirectoryWatcher implements Runnable {
     }
   }
 
-  private void deployPackedDomains(String[] zips) {
+  protected void deployPackedDomains(String[] zips) {
     for (String zip : zips) {
       try {
         domainArchiveDeployer.deployPackagedArtifact(zip, empty());
@@ -492,6 +551,14 @@ public class DeploymentDirectoryWatcher implements Runnable {
         throw new RuntimeException(e);
       }
     }
+
+    if (changeDetector != null) {
+      try {
+        changeDetector.close();
+      } catch (IOException e) {
+        logger.debug("Error closing deployment folders watcher", e);
+      }
+    }
   }
 
   private static class ArtifactTimestampListener<T extends Artifact> implements PropertyChangeListener {
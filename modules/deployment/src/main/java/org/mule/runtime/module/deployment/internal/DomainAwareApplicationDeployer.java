@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.module.deployment.internal;
+
+import org.mule.runtime.deployment.model.api.application.Application;
+
+/**
+ * {@link ArtifactDeployer} for applications that, before deploying an application, waits until its domain is deployed when the
+ * domain is being deployed concurrently.
+ *
+ * @since 4.1
+ */
+class DomainAwareApplicationDeployer implements ArtifactDeployer<Application> {
+
+  private final ArtifactDeployer<Application> delegate;
+  private final DomainDeploymentTracker domainDeploymentTracker;
+
+  DomainAwareApplicationDeployer(ArtifactDeployer<Application> delegate, DomainDeploymentTracker domainDeploymentTracker) {
+    this.delegate = delegate;
+    this.domainDeploymentTracker = domainDeploymentTracker;
+  }
+
+  @Override
+  public void deploy(Application artifact) {
+    domainDeploymentTracker.awaitDeployed(artifact.getDomain());
+    delegate.deploy(artifact);
+  }
+
+  @Override
+  public void undeploy(Application artifact) {
+    delegate.undeploy(artifact);
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.module.deployment.internal;
+
+import static java.util.concurrent.CompletableFuture.allOf;
+
+import org.mule.runtime.deployment.model.api.domain.Domain;
+import org.mule.runtime.module.deployment.api.DeploymentListener;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks the domains being deployed concurrently, so the deployment of the applications that belong to each one can wait until
+ * it is ready.
+ * <p/>
+ * A domain is considered created once its deployment starts, as it is already available for the applications to reference
+ * it, and deployed once its deployment finishes, either successfully or not.
+ *
+ * @since 4.1
+ */
+class DomainDeploymentTracker implements DeploymentListener {
+
+  private final Map<String, DomainDeployment> pendingDomains = new ConcurrentHashMap<>();
+
+  /**
+   * Registers a domain that is about to be deployed.
+   *
+   * @param domainName name of the domain
+   */
+  void expect(String domainName) {
+    pendingDomains.putIfAbsent(domainName, new DomainDeployment());
+  }
+
+  /**
+   * @param domainName name of the domain
+   * @return whether the domain was registered through {@link #expect(String)} and not released yet.
+   */
+  boolean isExpected(String domainName) {
+    return pendingDomains.containsKey(domainName);
+  }
+
+  /**
+   * Marks a domain as both created and deployed. Must be invoked once the deployment task of an expected domain finishes,
+   * as the deployment may have been skipped without any notification.
+   *
+   * @param domainName name of the domain
+   */
+  void finished(String domainName) {
+    final DomainDeployment deployment = pendingDomains.get(domainName);
+    if (deployment != null) {
+      deployment.created.complete(null);
+      deployment.deployed.complete(null);
+    }
+  }
+
+  /**
+   * Waits until every expected domain has been created.
+   */
+  void awaitAllCreated() {
+    allOf(pendingDomains.values().stream().map(deployment -> deployment.created).toArray(CompletableFuture[]::new)).join();
+  }
+
+  /**
+   * Waits until the given domain is deployed, if it is being deployed.
+   *
+   * @param domain the domain to wait for
+   */
+  void awaitDeployed(Domain domain) {
+    if (domain == null) {
+      return;
+    }
+
+    final DomainDeployment deployment = pendingDomains.get(domain.getArtifactName());
+    if (deployment != null) {
+      deployment.deployed.join();
+    }
+  }
+
+  /**
+   * Forgets about all the expected domains, releasing anyone waiting for them.
+   */
+  void clear() {
+    for (String domainName : pendingDomains.keySet()) {
+      finished(domainName);
+    }
+    pendingDomains.clear();
+  }
+
+  @Override
+  public void onDeploymentStart(String artifactName) {
+    final DomainDeployment deployment = pendingDomains.get(artifactName);
+    if (deployment != null) {
+      deployment.created.complete(null);
+    }
+  }
+
+  @Override
+  public void onDeploymentSuccess(String artifactName) {
+    finished(artifactName);
+  }
+
+  @Override
+  public void onDeploymentFailure(String artifactName, Throwable cause) {
+    finished(artifactName);
+  }
+
+  private static final class DomainDeployment {
+
+    private final CompletableFuture<Void> created = new CompletableFuture<>();
+    private final CompletableFuture<Void> deployed = new CompletableFuture<>();
+  }
+}
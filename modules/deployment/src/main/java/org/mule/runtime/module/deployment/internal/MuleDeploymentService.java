@@ -89,6 +89,12 @@ public class MuleDeploymentService implements DeploymentService {
     // artifact plugins.
     ArtifactDeployer<Application> applicationMuleDeployer = new DefaultArtifactDeployer<>();
     ArtifactDeployer<Domain> domainMuleDeployer = new DefaultArtifactDeployer<>();
+    DomainDeploymentTracker domainDeploymentTracker = new DomainDeploymentTracker();
+    if (useParallelDeployment()) {
+      // applications wait for the domains being deployed concurrently
+      applicationMuleDeployer = new DomainAwareApplicationDeployer(applicationMuleDeployer, domainDeploymentTracker);
+      domainDeploymentListener.addDeploymentListener(domainDeploymentTracker);
+    }
 
     this.applicationDeployer = new DefaultArchiveDeployer<>(applicationMuleDeployer, applicationFactory, applications,
                                                             NOP_ARTIFACT_DEPLOYMENT_TEMPLATE,
@@ -114,7 +120,7 @@ public class MuleDeploymentService implements DeploymentService {
       this.deploymentDirectoryWatcher =
           new ParallelDeploymentDirectoryWatcher(domainBundleDeployer, this.domainDeployer, applicationDeployer, domains,
                                                  applications,
-                                                 schedulerServiceSupplier, deploymentLock);
+                                                 schedulerServiceSupplier, deploymentLock, domainDeploymentTracker);
     } else {
       this.deploymentDirectoryWatcher =
           new DeploymentDirectoryWatcher(domainBundleDeployer, this.domainDeployer, applicationDeployer, domains, applications,
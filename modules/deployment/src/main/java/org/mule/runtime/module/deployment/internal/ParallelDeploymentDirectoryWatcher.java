@@ -4,33 +4,49 @@
  * license, a copy of which has been included with this distribution in the
  * LICENSE.txt file.
  */
-
 package org.mule.runtime.module.deployment.internal;
 
-import static org.mule.runtime.api.scheduler.SchedulerConfig.config;
+import static java.lang.Integer.getInteger;
 import static java.util.Optional.empty;
+import static org.apache.commons.io.FilenameUtils.getBaseName;
+import static org.mule.runtime.api.scheduler.SchedulerConfig.config;
+import static org.mule.runtime.core.api.config.MuleProperties.SYSTEM_PROPERTY_PREFIX;
 
 import org.mule.runtime.api.scheduler.Scheduler;
 import org.mule.runtime.api.scheduler.SchedulerService;
+import org.mule.runtime.deployment.model.api.DeploymentException;
 import org.mule.runtime.deployment.model.api.application.Application;
 import org.mule.runtime.deployment.model.api.domain.Domain;
 import org.mule.runtime.module.deployment.internal.util.ObservableList;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.concurrent.Callable;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Supplier;
 
 /**
- * Provides parallel deployment of Mule applications.
+ * Provides parallel deployment of Mule domains and applications.
+ * <p/>
+ * Domains are deployed concurrently among them, and so are applications. Each application is deployed as soon as its own domain
+ * is ready, without waiting for the other domains. The number of artifacts deployed at the same time is limited by
+ * {@value #PARALLEL_DEPLOYMENT_MAX_CONCURRENCY_PROPERTY}.
  *
  * @since 3.8.2
  */
 public class ParallelDeploymentDirectoryWatcher extends DeploymentDirectoryWatcher {
 
+  public static final String PARALLEL_DEPLOYMENT_MAX_CONCURRENCY_PROPERTY =
+      SYSTEM_PROPERTY_PREFIX + "deployment.parallel.maxConcurrency";
+  protected static final int DEFAULT_MAX_CONCURRENCY = 20;
+
+  private final DomainDeploymentTracker domainDeploymentTracker;
+  private final int maxConcurrency;
+  private final List<Future<?>> pendingDeployments = new ArrayList<>();
+  private final Set<String> pendingPackedApps = new HashSet<>();
   private Scheduler threadPoolExecutor;
 
   public ParallelDeploymentDirectoryWatcher(
@@ -39,72 +55,142 @@ public class ParallelDeploymentDirectoryWatcher extends DeploymentDirectoryWatch
                                             ArchiveDeployer<Application> applicationArchiveDeployer,
                                             ObservableList<Domain> domains, ObservableList<Application> applications,
                                             Supplier<SchedulerService> schedulerServiceSupplier, ReentrantLock deploymentLock) {
+    this(domainBundleDeployer, domainArchiveDeployer, applicationArchiveDeployer, domains, applications,
+         schedulerServiceSupplier, deploymentLock, new DomainDeploymentTracker());
+  }
+
+  ParallelDeploymentDirectoryWatcher(DomainBundleArchiveDeployer domainBundleDeployer,
+                                     ArchiveDeployer<Domain> domainArchiveDeployer,
+                                     ArchiveDeployer<Application> applicationArchiveDeployer,
+                                     ObservableList<Domain> domains, ObservableList<Application> applications,
+                                     Supplier<SchedulerService> schedulerServiceSupplier, ReentrantLock deploymentLock,
+                                     DomainDeploymentTracker domainDeploymentTracker) {
     super(domainBundleDeployer, domainArchiveDeployer, applicationArchiveDeployer, domains, applications,
           schedulerServiceSupplier, deploymentLock);
+    this.domainDeploymentTracker = domainDeploymentTracker;
+    this.maxConcurrency = getInteger(PARALLEL_DEPLOYMENT_MAX_CONCURRENCY_PROPERTY, DEFAULT_MAX_CONCURRENCY);
   }
 
   @Override
-  protected void deployPackedApps(String[] zips) {
-    if (zips.length == 0) {
-      return;
-    }
-
-    List<Callable<Object>> tasks = new ArrayList<>(zips.length);
+  protected void deployPackedDomains(String[] zips) {
     for (final String zip : zips) {
-      tasks.add(() -> {
+      final String domainName = getBaseName(zip);
+      domainDeploymentTracker.expect(domainName);
+      submit(zip, () -> {
         try {
-          applicationArchiveDeployer.deployPackagedArtifact(zip, empty());
-        } catch (Exception e) {
-          // Ignore and continue
+          domainArchiveDeployer.deployPackagedArtifact(zip, empty());
+        } finally {
+          domainDeploymentTracker.finished(domainName);
         }
-        return null;
       });
     }
+  }
 
-    waitForTasksToFinish(tasks);
+  @Override
+  protected void deployExplodedDomains(String[] domains) {
+    for (final String addedDomain : domains) {
+      // the folder may belong to a packed domain which is being deployed
+      if (!domainDeploymentTracker.isExpected(addedDomain) && domainArchiveDeployer.isUpdatedZombieArtifact(addedDomain)) {
+        domainDeploymentTracker.expect(addedDomain);
+        submit(addedDomain, () -> {
+          try {
+            domainArchiveDeployer.deployExplodedArtifact(addedDomain, empty());
+          } finally {
+            domainDeploymentTracker.finished(addedDomain);
+          }
+        });
+      }
+    }
   }
 
+  @Override
+  protected void deployPackedApps(String[] zips) {
+    // applications can only be created once their domain is, but they don't have to wait for the other domains to start
+    domainDeploymentTracker.awaitAllCreated();
+
+    for (final String zip : zips) {
+      pendingPackedApps.add(getBaseName(zip));
+      submit(zip, () -> applicationArchiveDeployer.deployPackagedArtifact(zip, empty()));
+    }
+  }
 
   @Override
   protected void deployExplodedApps(String[] apps) {
-    List<Callable<Object>> tasks = new ArrayList<>(apps.length);
+    domainDeploymentTracker.awaitAllCreated();
 
     for (final String addedApp : apps) {
-      if (applicationArchiveDeployer.isUpdatedZombieArtifact(addedApp)) {
-        tasks.add(() -> {
-          try {
-            applicationArchiveDeployer.deployExplodedArtifact(addedApp, empty());
-          } catch (Exception e) {
-            // Ignore and continue
-          }
-          return null;
-        });
+      // the folder may belong to a packed application which is being deployed
+      if (!pendingPackedApps.contains(addedApp) && applicationArchiveDeployer.isUpdatedZombieArtifact(addedApp)) {
+        submit(addedApp, () -> applicationArchiveDeployer.deployExplodedArtifact(addedApp, empty()));
       }
     }
+  }
 
-    if (!tasks.isEmpty()) {
-      waitForTasksToFinish(tasks);
+  @Override
+  public void start() {
+    try {
+      super.start();
+    } finally {
+      finishDeploymentCycle();
     }
   }
 
-  private void waitForTasksToFinish(List<Callable<Object>> tasks) {
-    this.threadPoolExecutor =
-        schedulerServiceSupplier.get().ioScheduler(config().withName("parallelDeployment").withMaxConcurrentTasks(20));
+  @Override
+  public void run() {
     try {
-      final List<Future<Object>> futures = threadPoolExecutor.invokeAll(tasks);
+      super.run();
+    } finally {
+      finishDeploymentCycle();
+    }
+  }
 
-      for (Future<Object> future : futures) {
-        try {
-          future.get();
-        } catch (ExecutionException e) {
-          // Ignore and continue with the next one
+  /**
+   * Waits for the deployments submitted in this cycle and releases its state, whether or not the cycle completed.
+   */
+  private void finishDeploymentCycle() {
+    try {
+      waitForTasksToFinish();
+    } finally {
+      pendingDeployments.clear();
+      pendingPackedApps.clear();
+      domainDeploymentTracker.clear();
+      if (threadPoolExecutor != null) {
+        threadPoolExecutor.stop();
+        threadPoolExecutor = null;
+      }
+    }
+  }
+
+  private void submit(String artifact, Runnable deployment) {
+    if (threadPoolExecutor == null) {
+      threadPoolExecutor = schedulerServiceSupplier.get()
+          .ioScheduler(config().withName("parallelDeployment").withMaxConcurrentTasks(maxConcurrency));
+    }
+
+    pendingDeployments.add(threadPoolExecutor.submit(() -> {
+      try {
+        deployment.run();
+      } catch (DeploymentException e) {
+        // Already logged and notified by the deployer, continue with the next one
+        if (logger.isDebugEnabled()) {
+          logger.debug("Error deploying artifact '{}'", artifact, e);
         }
+      } catch (Exception e) {
+        logger.error("Unexpected error deploying artifact '{}'", artifact, e);
       }
+    }));
+  }
 
-    } catch (InterruptedException e) {
-      Thread.currentThread().interrupt();
-    } finally {
-      threadPoolExecutor.stop();
+  private void waitForTasksToFinish() {
+    for (Future<?> future : pendingDeployments) {
+      try {
+        future.get();
+      } catch (ExecutionException e) {
+        logger.error("Unexpected error on parallel deployment", e.getCause());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
     }
   }
 }
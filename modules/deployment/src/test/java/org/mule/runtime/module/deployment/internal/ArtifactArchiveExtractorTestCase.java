@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.module.deployment.internal;
+
+import static org.apache.commons.io.FileUtils.readFileToString;
+import static org.apache.commons.io.FileUtils.writeStringToFile;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.Matchers.arrayWithSize;
+import static org.junit.Assert.assertThat;
+
+import org.mule.runtime.core.api.util.compression.InvalidZipFileException;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+@SmallTest
+public class ArtifactArchiveExtractorTestCase extends AbstractMuleTestCase {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final ArtifactArchiveExtractor extractor = new ArtifactArchiveExtractor(4);
+  private File artifactDir;
+
+  @Before
+  public void setUp() throws Exception {
+    artifactDir = new File(temporaryFolder.getRoot(), "app");
+  }
+
+  @Test
+  public void extractsAllEntries() throws Exception {
+    File archive = createArchive("app-1.jar", "META-INF/", "", "config.xml", "<mule/>", "lib/a.jar", "a", "lib/b.jar", "b");
+
+    extractor.extract(archive, artifactDir);
+
+    assertThat(new File(artifactDir, "META-INF").isDirectory(), is(true));
+    assertThat(readFileToString(new File(artifactDir, "config.xml")), is("<mule/>"));
+    assertThat(readFileToString(new File(artifactDir, "lib/a.jar")), is("a"));
+    assertThat(readFileToString(new File(artifactDir, "lib/b.jar")), is("b"));
+  }
+
+  @Test
+  public void unchangedEntriesAreNotRewritten() throws Exception {
+    extractor.extract(createArchive("app-1.jar", "config.xml", "<mule/>", "lib/a.jar", "a"), artifactDir);
+    File config = new File(artifactDir, "config.xml");
+    File lib = new File(artifactDir, "lib/a.jar");
+    config.setLastModified(1000);
+    lib.setLastModified(1000);
+
+    extractor.extract(createArchive("app-2.jar", "config.xml", "<mule></mule>", "lib/a.jar", "a"), artifactDir);
+
+    assertThat(readFileToString(config), is("<mule></mule>"));
+    assertThat(config.lastModified() == 1000, is(false));
+    assertThat(readFileToString(lib), is("a"));
+    assertThat(lib.lastModified(), is(1000L));
+  }
+
+  @Test
+  public void entriesWithSameSizeAndDifferentContentAreRewritten() throws Exception {
+    extractor.extract(createArchive("app-1.jar", "lib/a.jar", "a"), artifactDir);
+
+    extractor.extract(createArchive("app-2.jar", "lib/a.jar", "b"), artifactDir);
+
+    assertThat(readFileToString(new File(artifactDir, "lib/a.jar")), is("b"));
+  }
+
+  @Test
+  public void changedFilesAreReplacedInsteadOfRewritten() throws Exception {
+    extractor.extract(createArchive("app-1.jar", "lib/a.jar", "a"), artifactDir);
+    File lib = new File(artifactDir, "lib/a.jar");
+
+    try (InputStream previous = new FileInputStream(lib)) {
+      extractor.extract(createArchive("app-2.jar", "lib/a.jar", "bb"), artifactDir);
+
+      // the file that was open still has the previous content, as it was replaced rather than truncated
+      assertThat(IOUtils.toString(previous), is("a"));
+    }
+    assertThat(readFileToString(lib), is("bb"));
+    assertThat(new File(artifactDir, "lib").list(), arrayWithSize(1));
+  }
+
+  @Test
+  public void filesNotInArchiveAreRemoved() throws Exception {
+    extractor.extract(createArchive("app-1.jar", "config.xml", "<mule/>", "lib/a.jar", "a", "classes/foo.properties", "foo"),
+                      artifactDir);
+    writeStringToFile(new File(artifactDir, "generated.txt"), "generated");
+
+    extractor.extract(createArchive("app-2.jar", "config.xml", "<mule/>"), artifactDir);
+
+    assertThat(new File(artifactDir, "config.xml").exists(), is(true));
+    assertThat(new File(artifactDir, "lib").exists(), is(false));
+    assertThat(new File(artifactDir, "classes").exists(), is(false));
+    assertThat(new File(artifactDir, "generated.txt").exists(), is(false));
+  }
+
+  @Test
+  public void folderReplacedByFile() throws Exception {
+    extractor.extract(createArchive("app-1.jar", "lib/a.jar", "a"), artifactDir);
+
+    extractor.extract(createArchive("app-2.jar", "lib", "lib"), artifactDir);
+
+    assertThat(readFileToString(new File(artifactDir, "lib")), is("lib"));
+  }
+
+  @Test(expected = InvalidZipFileException.class)
+  public void externalPathsAreRejected() throws Exception {
+    extractor.extract(createArchive("app-1.jar", "../config.xml", "<mule/>"), artifactDir);
+  }
+
+  private File createArchive(String name, String... entries) throws IOException {
+    File archive = new File(temporaryFolder.getRoot(), name);
+    try (ZipOutputStream zip = new ZipOutputStream(new FileOutputStream(archive))) {
+      for (int i = 0; i < entries.length; i += 2) {
+        zip.putNextEntry(new ZipEntry(entries[i]));
+        zip.write(entries[i + 1].getBytes());
+        zip.closeEntry();
+      }
+    }
+    return archive;
+  }
+}
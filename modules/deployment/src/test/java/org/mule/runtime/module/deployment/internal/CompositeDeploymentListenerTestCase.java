@@ -69,6 +69,14 @@ public class CompositeDeploymentListenerTestCase extends AbstractMuleTestCase {
     verify(listener2, times(1)).onDeploymentSuccess(APP_NAME);
   }
 
+  @Test
+  public void testNotifiesDeploymentFinished() throws Exception {
+    compositeDeploymentListener.onDeploymentFinished(APP_NAME, 10);
+
+    verify(listener1, times(1)).onDeploymentFinished(APP_NAME, 10);
+    verify(listener2, times(1)).onDeploymentFinished(APP_NAME, 10);
+  }
+
   @Test
   public void testNotifiesDeploymentFailure() throws Exception {
     compositeDeploymentListener.onDeploymentFailure(APP_NAME, DEPLOYMENT_EXCEPTION);
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.module.deployment.internal;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.apache.commons.io.FileUtils.writeStringToFile;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.probe.JUnitLambdaProbe;
+import org.mule.tck.probe.PollingProber;
+import org.mule.tck.size.SmallTest;
+
+import java.io.File;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+@SmallTest
+public class DeploymentDirectoryChangeDetectorTestCase extends AbstractMuleTestCase {
+
+  // WatchService falls back to polling on some platforms, which may take several seconds to detect a change
+  private static final int DETECTION_TIMEOUT = 30000;
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private DeploymentDirectoryChangeDetector changeDetector;
+
+  @Before
+  public void setUp() throws Exception {
+    changeDetector = new DeploymentDirectoryChangeDetector();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    changeDetector.close();
+  }
+
+  @Test
+  public void noChangesDetected() throws Exception {
+    changeDetector.register(temporaryFolder.getRoot());
+
+    assertThat(changeDetector.pollChanges(), is(false));
+  }
+
+  @Test
+  public void detectsCreatedFile() throws Exception {
+    changeDetector.register(temporaryFolder.getRoot());
+
+    writeStringToFile(new File(temporaryFolder.getRoot(), "app.jar"), "app");
+
+    assertChangesDetected();
+  }
+
+  @Test
+  public void detectsModifiedFile() throws Exception {
+    File config = temporaryFolder.newFile("mule-config.xml");
+    changeDetector.register(temporaryFolder.getRoot());
+
+    config.setLastModified(config.lastModified() + 1000);
+
+    assertChangesDetected();
+  }
+
+  @Test
+  public void missingFolderIgnored() throws Exception {
+    changeDetector.register(new File(temporaryFolder.getRoot(), "missing"));
+
+    assertThat(changeDetector.pollChanges(), is(false));
+  }
+
+  @Test
+  public void invalidKeyReportedAsChange() throws Exception {
+    WatchService watchService = mock(WatchService.class);
+    WatchKey key = mock(WatchKey.class);
+    when(watchService.poll()).thenReturn(key, (WatchKey) null);
+    when(key.pollEvents()).thenReturn(emptyList());
+    when(key.reset()).thenReturn(false);
+
+    assertThat(new DeploymentDirectoryChangeDetector(watchService).pollChanges(), is(true));
+  }
+
+  @Test
+  public void eventReportedAsChange() throws Exception {
+    WatchService watchService = mock(WatchService.class);
+    WatchKey key = mock(WatchKey.class);
+    WatchEvent<?> event = mock(WatchEvent.class);
+    when(watchService.poll()).thenReturn(key, (WatchKey) null);
+    when(key.pollEvents()).thenReturn(singletonList(event));
+    when(key.reset()).thenReturn(true);
+
+    assertThat(new DeploymentDirectoryChangeDetector(watchService).pollChanges(), is(true));
+  }
+
+  private void assertChangesDetected() {
+    new PollingProber(DETECTION_TIMEOUT, 100).check(new JUnitLambdaProbe(() -> changeDetector.pollChanges()));
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.module.deployment.internal;
+
+import static java.util.concurrent.CompletableFuture.runAsync;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.mule.runtime.deployment.model.api.domain.Domain;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Test;
+
+@SmallTest
+public class DomainDeploymentTrackerTestCase extends AbstractMuleTestCase {
+
+  private static final String DOMAIN_NAME = "domain";
+  private static final String OTHER_DOMAIN_NAME = "otherDomain";
+
+  private final DomainDeploymentTracker tracker = new DomainDeploymentTracker();
+
+  @Test
+  public void createdOnDeploymentStart() throws Exception {
+    tracker.expect(DOMAIN_NAME);
+    CompletableFuture<Void> created = runAsync(tracker::awaitAllCreated);
+    assertNotCompleted(created);
+
+    tracker.onDeploymentStart(DOMAIN_NAME);
+    created.get(5, SECONDS);
+  }
+
+  @Test
+  public void applicationWaitsOnlyForItsDomain() throws Exception {
+    tracker.expect(DOMAIN_NAME);
+    tracker.expect(OTHER_DOMAIN_NAME);
+    tracker.onDeploymentStart(DOMAIN_NAME);
+    tracker.onDeploymentStart(OTHER_DOMAIN_NAME);
+
+    CompletableFuture<Void> deployed = runAsync(() -> tracker.awaitDeployed(domain(DOMAIN_NAME)));
+    assertNotCompleted(deployed);
+
+    tracker.onDeploymentSuccess(DOMAIN_NAME);
+    deployed.get(5, SECONDS);
+    assertThat(tracker.isExpected(OTHER_DOMAIN_NAME), is(true));
+  }
+
+  @Test
+  public void failedDomainReleasesApplications() throws Exception {
+    tracker.expect(DOMAIN_NAME);
+    CompletableFuture<Void> deployed = runAsync(() -> tracker.awaitDeployed(domain(DOMAIN_NAME)));
+
+    tracker.onDeploymentFailure(DOMAIN_NAME, new RuntimeException());
+    deployed.get(5, SECONDS);
+  }
+
+  @Test
+  public void skippedDomainReleasesApplications() throws Exception {
+    tracker.expect(DOMAIN_NAME);
+    CompletableFuture<Void> deployed = runAsync(() -> tracker.awaitDeployed(domain(DOMAIN_NAME)));
+
+    tracker.finished(DOMAIN_NAME);
+    tracker.awaitAllCreated();
+    deployed.get(5, SECONDS);
+  }
+
+  @Test
+  public void notExpectedDomainDoesNotWait() throws Exception {
+    tracker.awaitDeployed(domain(DOMAIN_NAME));
+    tracker.awaitAllCreated();
+  }
+
+  @Test
+  public void clearReleasesApplications() throws Exception {
+    tracker.expect(DOMAIN_NAME);
+    CompletableFuture<Void> deployed = runAsync(() -> tracker.awaitDeployed(domain(DOMAIN_NAME)));
+
+    tracker.clear();
+    deployed.get(5, SECONDS);
+    assertThat(tracker.isExpected(DOMAIN_NAME), is(false));
+  }
+
+  private void assertNotCompleted(CompletableFuture<Void> future) throws Exception {
+    try {
+      future.get(100, MILLISECONDS);
+      throw new AssertionError("Was expecting the future not to be completed");
+    } catch (TimeoutException e) {
+      // expected
+    }
+  }
+
+  private Domain domain(String name) {
+    Domain domain = mock(Domain.class);
+    when(domain.getArtifactName()).thenReturn(name);
+    return domain;
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.module.deployment.internal;
+
+import static java.util.Optional.empty;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.mule.runtime.api.scheduler.Scheduler;
+import org.mule.runtime.api.scheduler.SchedulerConfig;
+import org.mule.runtime.api.scheduler.SchedulerService;
+import org.mule.runtime.deployment.model.api.application.Application;
+import org.mule.runtime.deployment.model.api.domain.Domain;
+import org.mule.runtime.module.deployment.internal.util.DebuggableReentrantLock;
+import org.mule.runtime.module.deployment.internal.util.ObservableList;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.io.File;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+@SmallTest
+public class ParallelDeploymentDirectoryWatcherTestCase extends AbstractMuleTestCase {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final ArchiveDeployer<Domain> domainArchiveDeployer = mock(ArchiveDeployer.class);
+  private final ArchiveDeployer<Application> applicationArchiveDeployer = mock(ArchiveDeployer.class);
+  private final DomainDeploymentTracker domainDeploymentTracker = mock(DomainDeploymentTracker.class);
+  private final SchedulerService schedulerService = mock(SchedulerService.class);
+  private final Scheduler scheduler = mock(Scheduler.class);
+
+  private File domainsDir;
+  private File appsDir;
+  private ParallelDeploymentDirectoryWatcher watcher;
+
+  @Before
+  public void setUp() throws Exception {
+    domainsDir = temporaryFolder.newFolder("domains");
+    appsDir = temporaryFolder.newFolder("apps");
+    when(domainArchiveDeployer.getDeploymentDirectory()).thenReturn(domainsDir);
+    when(applicationArchiveDeployer.getDeploymentDirectory()).thenReturn(appsDir);
+
+    when(schedulerService.ioScheduler(any(SchedulerConfig.class))).thenReturn(scheduler);
+    when(scheduler.submit(any(Runnable.class))).thenAnswer(invocation -> {
+      invocation.getArgumentAt(0, Runnable.class).run();
+      return completedFuture(null);
+    });
+
+    watcher = new ParallelDeploymentDirectoryWatcher(mock(DomainBundleArchiveDeployer.class), domainArchiveDeployer,
+                                                     applicationArchiveDeployer, new ObservableList<>(),
+                                                     new ObservableList<>(), () -> schedulerService,
+                                                     new DebuggableReentrantLock(), domainDeploymentTracker);
+  }
+
+  @After
+  public void tearDown() {
+    // the watcher preserves the interrupted flag of a failed cycle
+    Thread.interrupted();
+  }
+
+  @Test
+  public void releasesStateAfterDeploymentCycle() throws Exception {
+    new File(domainsDir, "domain.jar").createNewFile();
+    new File(appsDir, "app.jar").createNewFile();
+
+    watcher.run();
+
+    verify(domainArchiveDeployer).deployPackagedArtifact("domain.jar", empty());
+    verify(applicationArchiveDeployer).deployPackagedArtifact("app.jar", empty());
+    verify(domainDeploymentTracker).clear();
+    verify(scheduler).stop();
+  }
+
+  @Test
+  public void releasesStateWhenDeploymentCycleFails() throws Exception {
+    new File(domainsDir, "domain.jar").createNewFile();
+    doThrow(new IllegalStateException("Expected")).when(domainDeploymentTracker).awaitAllCreated();
+
+    watcher.run();
+
+    verify(domainArchiveDeployer).deployPackagedArtifact("domain.jar", empty());
+    verify(domainDeploymentTracker).clear();
+    verify(scheduler).stop();
+  }
+
+  @Test
+  public void newSchedulerOnEachDeploymentCycle() throws Exception {
+    new File(domainsDir, "domain.jar").createNewFile();
+    doThrow(new IllegalStateException("Expected")).when(domainDeploymentTracker).awaitAllCreated();
+    watcher.run();
+    Thread.interrupted();
+
+    watcher.run();
+
+    verify(schedulerService, times(2)).ioScheduler(any(SchedulerConfig.class));
+    verify(scheduler, times(2)).stop();
+  }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.module.deployment.internal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.reset;
+import static org.mule.runtime.deployment.model.api.application.ApplicationStatus.DESTROYED;
+import static org.mule.runtime.module.deployment.internal.DeploymentDirectoryWatcher.CHANGE_DETECTION_WATCH_SERVICE_PROPERTY;
+
+import org.mule.runtime.deployment.model.api.application.Application;
+import org.mule.tck.junit4.rule.SystemProperty;
+
+import java.io.File;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+/**
+ * Verifies the deployment of applications when the deployment folders are watched for changes instead of being scanned
+ * periodically.
+ */
+public class WatchServiceDeploymentTestCase extends AbstractDeploymentTestCase {
+
+  @Rule
+  public SystemProperty watchService = new SystemProperty(CHANGE_DETECTION_WATCH_SERVICE_PROPERTY, "true");
+
+  public WatchServiceDeploymentTestCase(boolean parallelDeployment) {
+    super(parallelDeployment);
+  }
+
+  @Test
+  public void deploysAppZipAfterStartup() throws Exception {
+    startDeployment();
+
+    addPackedAppFromBuilder(dummyAppDescriptorFileBuilder);
+
+    assertApplicationDeploymentSuccess(applicationDeploymentListener, dummyAppDescriptorFileBuilder.getId());
+    assertAppsDir(NONE, new String[] {dummyAppDescriptorFileBuilder.getId()}, true);
+  }
+
+  @Test
+  public void redeploysZipAppOnConfigChanges() throws Exception {
+    addPackedAppFromBuilder(dummyAppDescriptorFileBuilder);
+
+    startDeployment();
+
+    assertApplicationDeploymentSuccess(applicationDeploymentListener, dummyAppDescriptorFileBuilder.getId());
+    reset(applicationDeploymentListener);
+
+    File configFile = new File(appsDir + "/" + dummyAppDescriptorFileBuilder.getDeployedPath(),
+                               getConfigFilePathWithinArtifact(MULE_CONFIG_XML_FILE));
+    configFile.setLastModified(configFile.lastModified() + FILE_TIMESTAMP_PRECISION_MILLIS);
+
+    assertApplicationRedeploymentSuccess(dummyAppDescriptorFileBuilder.getId());
+    assertEquals("Application has not been properly registered with Mule", 1, deploymentService.getApplications().size());
+  }
+
+  @Test
+  public void undeploysApplicationRemovingAnchorFile() throws Exception {
+    addPackedAppFromBuilder(emptyAppFileBuilder);
+
+    startDeployment();
+
+    assertApplicationDeploymentSuccess(applicationDeploymentListener, emptyAppFileBuilder.getId());
+    Application app = findApp(emptyAppFileBuilder.getId(), 1);
+
+    assertTrue("Unable to remove anchor file", removeAppAnchorFile(emptyAppFileBuilder.getId()));
+
+    assertUndeploymentSuccess(applicationDeploymentListener, emptyAppFileBuilder.getId());
+    assertStatus(app, DESTROYED);
+  }
+}
@@ -9,6 +9,7 @@ package org.mule.runtime.module.extension.internal.runtime.config;
 import org.mule.runtime.api.time.TimeSupplier;
 
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Default implementation of {@link MutableConfigurationStats}
@@ -18,8 +19,11 @@ import java.util.concurrent.atomic.AtomicInteger;
 final class DefaultMutableConfigurationStats implements MutableConfigurationStats {
 
   private final AtomicInteger inflightOperations = new AtomicInteger(0);
+  private final AtomicLong cacheHits = new AtomicLong(0);
+  private final AtomicLong cacheMisses = new AtomicLong(0);
+  private final AtomicLong cacheEvictions = new AtomicLong(0);
   private final TimeSupplier timeSupplier;
-  private long lastUsedMillis;
+  private volatile long lastUsedMillis;
 
   /**
    * Creates a new instance using the given {@code timeSupplier} to obtain the current time and update the
@@ -73,4 +77,52 @@ final class DefaultMutableConfigurationStats implements MutableConfigurationStat
     updateLastUsed();
     return inflightOperations.decrementAndGet();
   }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long addCacheHit() {
+    return cacheHits.incrementAndGet();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long addCacheMiss() {
+    return cacheMisses.incrementAndGet();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long addCacheEviction() {
+    return cacheEvictions.incrementAndGet();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long getCacheHits() {
+    return cacheHits.get();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long getCacheMisses() {
+    return cacheMisses.get();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long getCacheEvictions() {
+    return cacheEvictions.get();
+  }
 }
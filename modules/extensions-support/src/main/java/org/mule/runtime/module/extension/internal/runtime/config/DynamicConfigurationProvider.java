@@ -6,15 +6,18 @@
  */
 package org.mule.runtime.module.extension.internal.runtime.config;
 
+import static java.lang.Integer.getInteger;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Comparator.comparingLong;
 import static java.util.Optional.ofNullable;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.mule.runtime.api.i18n.I18nMessageFactory.createStaticMessage;
+import static org.mule.runtime.core.api.config.MuleProperties.MULE_DYNAMIC_CONFIG_MAX_CACHED_INSTANCES;
 import static org.mule.runtime.core.api.lifecycle.LifecycleUtils.disposeIfNeeded;
 import static org.mule.runtime.core.api.lifecycle.LifecycleUtils.initialiseIfNeeded;
 import static org.mule.runtime.core.api.lifecycle.LifecycleUtils.startIfNeeded;
 import static org.mule.runtime.core.api.lifecycle.LifecycleUtils.stopIfNeeded;
 import static org.mule.runtime.core.api.util.ClassUtils.withContextClassLoader;
-import static org.mule.runtime.api.util.collection.Collectors.toImmutableList;
 import static org.mule.runtime.module.extension.internal.runtime.resolver.ValueResolvingContext.from;
 import static org.slf4j.LoggerFactory.getLogger;
 import org.mule.runtime.api.connection.ConnectionProvider;
@@ -28,6 +31,7 @@ import org.mule.runtime.api.meta.model.ExtensionModel;
 import org.mule.runtime.api.meta.model.config.ConfigurationModel;
 import org.mule.runtime.core.api.MuleContext;
 import org.mule.runtime.core.api.event.CoreEvent;
+import org.mule.runtime.core.privileged.event.BaseEventContext;
 import org.mule.runtime.api.util.Pair;
 import org.mule.runtime.extension.api.runtime.ExpirationPolicy;
 import org.mule.runtime.extension.api.runtime.config.ConfigurationInstance;
@@ -39,12 +43,17 @@ import org.mule.runtime.module.extension.internal.runtime.resolver.ResolverSet;
 import org.mule.runtime.module.extension.internal.runtime.resolver.ResolverSetResult;
 import org.mule.runtime.module.extension.internal.runtime.resolver.ValueResolver;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
 
 import org.slf4j.Logger;
 
@@ -56,6 +65,14 @@ import org.slf4j.Logger;
  * {@link #resolverSet#resolve(Object)}, the resulting {@link ResolverSetResult} might not end up generating a new instance. This
  * is so because {@link ResolverSetResult} instances are put in a cache to guarantee that equivalent evaluations of the
  * {@code resolverSet} return the same instance.
+ * <p>
+ * The cache takes no global lock. Instances are created at most once per key, and lookups of different keys never wait for each
+ * other. Each cached entry counts the events that are using its instance: the count is incremented before the instance is
+ * served and decremented when the event that obtained it terminates. An entry is only evicted by atomically replacing a count
+ * of zero with an eviction mark, so an instance is never handed out once it has been evicted, and an instance which was served
+ * to an event that is still being processed is never evicted. If the
+ * {@link org.mule.runtime.core.api.config.MuleProperties#MULE_DYNAMIC_CONFIG_MAX_CACHED_INSTANCES} system property is set, the
+ * least recently used idle instances are evicted when the cache grows beyond that size.
  *
  * @since 4.0.0
  */
@@ -69,10 +86,10 @@ public final class DynamicConfigurationProvider extends LifecycleAwareConfigurat
   private final ConnectionProviderValueResolver connectionProviderResolver;
   private final ExpirationPolicy expirationPolicy;
 
-  private final Map<Pair<ResolverSetResult, ResolverSetResult>, ConfigurationInstance> cache = new ConcurrentHashMap<>();
-  private final ReadWriteLock cacheLock = new ReentrantReadWriteLock();
-  private final Lock cacheReadLock = cacheLock.readLock();
-  private final Lock cacheWriteLock = cacheLock.writeLock();
+  private final int maxCachedInstances = getInteger(MULE_DYNAMIC_CONFIG_MAX_CACHED_INSTANCES, -1);
+
+  private final ConcurrentMap<Pair<ResolverSetResult, ResolverSetResult>, CacheEntry> cache = new ConcurrentHashMap<>();
+  private final Queue<ConfigurationInstance> evicted = new ConcurrentLinkedQueue<>();
 
   /**
    * Creates a new instance
@@ -121,39 +138,97 @@ public final class DynamicConfigurationProvider extends LifecycleAwareConfigurat
   private ConfigurationInstance getConfiguration(Pair<ResolverSetResult, ResolverSetResult> resolverSetResult,
                                                  CoreEvent event)
       throws Exception {
-    ConfigurationInstance configuration;
-    cacheReadLock.lock();
-    try {
-      configuration = cache.get(resolverSetResult);
-      if (configuration != null) {
-        // important to account between the boundaries of the lock to prevent race condition
-        updateUsageStatistic(configuration);
+    while (true) {
+      CacheEntry entry = cache.get(resolverSetResult);
+      if (entry == null) {
+        final CacheEntry created = new CacheEntry();
+        entry = cache.putIfAbsent(resolverSetResult, created);
+        if (entry == null) {
+          return populate(resolverSetResult, created, event);
+        }
+      }
+
+      ConfigurationInstance configuration = entry.await();
+      if (configuration != null && entry.acquire(configuration)) {
+        releaseOnTermination(entry, configuration, event);
+        getStats(configuration).addCacheHit();
         return configuration;
       }
-    } finally {
-      cacheReadLock.unlock();
+
+      // the entry was either evicted or failed to be created. Discard it and try again
+      cache.remove(resolverSetResult, entry);
     }
+  }
 
-    cacheWriteLock.lock();
+  private ConfigurationInstance populate(Pair<ResolverSetResult, ResolverSetResult> resolverSetResult, CacheEntry entry,
+                                         CoreEvent event)
+      throws Exception {
+    ConfigurationInstance configuration;
     try {
-      // re-check in case some other thread beat us to it...
-      configuration = cache.get(resolverSetResult);
-      if (configuration == null) {
-        configuration = createConfiguration(resolverSetResult, event);
-        cache.put(resolverSetResult, configuration);
+      configuration = createConfiguration(resolverSetResult, event);
+    } catch (Exception e) {
+      cache.remove(resolverSetResult, entry);
+      entry.fail(e);
+      throw e;
+    }
+
+    getStats(configuration).addCacheMiss();
+    entry.complete(configuration);
+    releaseOnTermination(entry, configuration, event);
+
+    if (maxCachedInstances > 0 && cache.size() > maxCachedInstances) {
+      evictOverflow(entry);
+    }
+    return configuration;
+  }
+
+  /**
+   * Releases the usage of the {@code entry} accounted when it was served for the given {@code event}, once the event terminates.
+   * If the event can't notify its termination, the usage is released right away.
+   */
+  private void releaseOnTermination(CacheEntry entry, ConfigurationInstance configuration, CoreEvent event) {
+    if (event != null && event.getContext() instanceof BaseEventContext) {
+      ((BaseEventContext) event.getContext()).onTerminated((response, throwable) -> entry.release(configuration));
+    } else {
+      entry.release(configuration);
+    }
+  }
+
+  /**
+   * Evicts the least recently used instances which are not being used, until the cache is back to its
+   * {@link #maxCachedInstances}. The bound is a soft one: instances in use are never evicted.
+   */
+  private void evictOverflow(CacheEntry justCreated) {
+    List<EvictionCandidate> candidates = new ArrayList<>();
+    for (Map.Entry<Pair<ResolverSetResult, ResolverSetResult>, CacheEntry> entry : cache.entrySet()) {
+      ConfigurationInstance configuration = entry.getValue().getIfPresent();
+      if (entry.getValue() != justCreated && configuration != null && entry.getValue().isIdle() && isIdle(configuration)) {
+        candidates.add(new EvictionCandidate(entry.getKey(), entry.getValue(),
+                                             configuration.getStatistics().getLastUsedMillis()));
       }
+    }
+    candidates.sort(comparingLong(candidate -> candidate.lastUsed));
 
-      // accounting here for the same reasons as above
-      updateUsageStatistic(configuration);
-      return configuration;
-    } finally {
-      cacheWriteLock.unlock();
+    int overflow = cache.size() - maxCachedInstances;
+    for (int i = 0; i < candidates.size() && overflow > 0; i++) {
+      EvictionCandidate candidate = candidates.get(i);
+      if (candidate.entry.evict(configuration -> isIdle(configuration)
+          && configuration.getStatistics().getLastUsedMillis() == candidate.lastUsed)) {
+        retire(candidate.key, candidate.entry);
+        overflow--;
+      }
     }
   }
 
-  private void updateUsageStatistic(ConfigurationInstance configuration) {
-    MutableConfigurationStats stats = (MutableConfigurationStats) configuration.getStatistics();
-    stats.updateLastUsed();
+  private void retire(Pair<ResolverSetResult, ResolverSetResult> key, CacheEntry entry) {
+    cache.remove(key, entry);
+    ConfigurationInstance configuration = entry.getIfPresent();
+    getStats(configuration).addCacheEviction();
+    evicted.add(configuration);
+  }
+
+  private MutableConfigurationStats getStats(ConfigurationInstance configuration) {
+    return (MutableConfigurationStats) configuration.getStatistics();
   }
 
   private ConfigurationInstance createConfiguration(Pair<ResolverSetResult, ResolverSetResult> values, CoreEvent event)
@@ -215,17 +290,26 @@ public final class DynamicConfigurationProvider extends LifecycleAwareConfigurat
     super.registerConfiguration(configuration);
   }
 
+  /**
+   * Evicts the instances which are expired according to the {@link #expirationPolicy}. Each entry is evicted independently, so
+   * this doesn't block concurrent invocations to {@link #get(Event)}.
+   *
+   * @return the expired instances, plus the ones evicted since the last invocation because the cache was full
+   */
   @Override
   public List<ConfigurationInstance> getExpired() {
-    cacheWriteLock.lock();
-    try {
-      return cache.entrySet().stream().filter(entry -> isExpired(entry.getValue())).map(entry -> {
-        cache.remove(entry.getKey());
-        return entry.getValue();
-      }).collect(toImmutableList());
-    } finally {
-      cacheWriteLock.unlock();
+    cache.forEach((key, entry) -> {
+      if (entry.evict(this::isExpired)) {
+        retire(key, entry);
+      }
+    });
+
+    List<ConfigurationInstance> expired = new ArrayList<>();
+    ConfigurationInstance configuration;
+    while ((configuration = evicted.poll()) != null) {
+      expired.add(configuration);
     }
+    return unmodifiableList(expired);
   }
 
   private boolean isExpired(ConfigurationInstance configuration) {
@@ -233,6 +317,10 @@ public final class DynamicConfigurationProvider extends LifecycleAwareConfigurat
     return stats.getInflightOperations() == 0 && expirationPolicy.isExpired(stats.getLastUsedMillis(), MILLISECONDS);
   }
 
+  private boolean isIdle(ConfigurationInstance configuration) {
+    return configuration.getStatistics().getInflightOperations() == 0;
+  }
+
   @Override
   protected void doInitialise() {
     try {
@@ -258,4 +346,107 @@ public final class DynamicConfigurationProvider extends LifecycleAwareConfigurat
   public boolean isDynamic() {
     return true;
   }
+
+  /**
+   * Holds a cached {@link ConfigurationInstance}, which may still be being created by another thread, along with the number of
+   * events using it.
+   */
+  private static final class CacheEntry {
+
+    private static final int EVICTED = -1;
+
+    private final CompletableFuture<ConfigurationInstance> configuration = new CompletableFuture<>();
+
+    // the thread creating the instance is its first user
+    private final AtomicInteger users = new AtomicInteger(1);
+
+    private void complete(ConfigurationInstance configuration) {
+      this.configuration.complete(configuration);
+    }
+
+    private void fail(Exception e) {
+      configuration.completeExceptionally(e);
+    }
+
+    /**
+     * Waits for the instance to be created
+     *
+     * @return the created instance, or {@code null} if its creation failed
+     */
+    private ConfigurationInstance await() throws InterruptedException {
+      try {
+        return configuration.get();
+      } catch (ExecutionException e) {
+        return null;
+      }
+    }
+
+    /**
+     * @return the created instance, or {@code null} if it's not created yet or its creation failed
+     */
+    private ConfigurationInstance getIfPresent() {
+      return configuration.isDone() && !configuration.isCompletedExceptionally() ? configuration.getNow(null) : null;
+    }
+
+    /**
+     * Accounts a new user of the instance, unless it was already evicted. Once this returns {@code true}, the instance can't be
+     * evicted until {@link #release(ConfigurationInstance)} is called.
+     *
+     * @return whether the instance may be used
+     */
+    private boolean acquire(ConfigurationInstance configuration) {
+      while (true) {
+        int current = users.get();
+        if (current == EVICTED) {
+          return false;
+        }
+
+        if (users.compareAndSet(current, current + 1)) {
+          ((MutableConfigurationStats) configuration.getStatistics()).updateLastUsed();
+          return true;
+        }
+      }
+    }
+
+    /**
+     * Discounts a user of the instance accounted by {@link #acquire(ConfigurationInstance)} or by the creation of the instance.
+     */
+    private void release(ConfigurationInstance configuration) {
+      ((MutableConfigurationStats) configuration.getStatistics()).updateLastUsed();
+      users.decrementAndGet();
+    }
+
+    /**
+     * @return whether no events are using the instance
+     */
+    private boolean isIdle() {
+      return users.get() == 0;
+    }
+
+    /**
+     * Evicts the instance if it satisfies the given {@code condition} and no events are using it
+     *
+     * @return whether the instance was evicted
+     */
+    private boolean evict(Predicate<ConfigurationInstance> condition) {
+      ConfigurationInstance configuration = getIfPresent();
+      return configuration != null && isIdle() && condition.test(configuration) && users.compareAndSet(0, EVICTED);
+    }
+  }
+
+  /**
+   * A snapshot of an entry chosen for eviction because the cache is full
+   */
+  private static final class EvictionCandidate {
+
+    private final Pair<ResolverSetResult, ResolverSetResult> key;
+    private final CacheEntry entry;
+    private final long lastUsed;
+
+    private EvictionCandidate(Pair<ResolverSetResult, ResolverSetResult> key, CacheEntry entry, long lastUsed) {
+      this.key = key;
+      this.entry = entry;
+      this.lastUsed = lastUsed;
+    }
+  }
 }
@@ -32,8 +32,8 @@ import org.mule.runtime.core.privileged.lifecycle.SimpleLifecycleManager;
 import org.mule.runtime.extension.api.runtime.config.ConfigurationInstance;
 import org.mule.runtime.extension.api.runtime.config.ConfigurationProvider;
 
-import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.slf4j.Logger;
 
@@ -54,7 +54,7 @@ public abstract class LifecycleAwareConfigurationProvider extends AbstractCompon
   private final String name;
   private final ExtensionModel extensionModel;
   private final ConfigurationModel configurationModel;
-  private final List<ConfigurationInstance> configurationInstances = new LinkedList<>();
+  private final List<ConfigurationInstance> configurationInstances = new CopyOnWriteArrayList<>();
   private final ClassLoader extensionClassLoader;
   protected final SimpleLifecycleManager lifecycleManager;
   protected final MuleContext muleContext;
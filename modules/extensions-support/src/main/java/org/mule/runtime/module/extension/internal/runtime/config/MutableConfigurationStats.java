@@ -35,4 +35,43 @@ public interface MutableConfigurationStats extends ConfigurationStats {
    * @return the new value
    */
   int discountInflightOperation();
+
+  /**
+   * Increments the return value of {@link #getCacheHits()} by one. Invoked each time {@code this} instance's configuration is
+   * served from a cache without having to create it
+   *
+   * @return the new value
+   */
+  long addCacheHit();
+
+  /**
+   * Increments the return value of {@link #getCacheMisses()} by one. Invoked when {@code this} instance's configuration had to
+   * be created because it was not found in a cache
+   *
+   * @return the new value
+   */
+  long addCacheMiss();
+
+  /**
+   * Increments the return value of {@link #getCacheEvictions()} by one. Invoked when {@code this} instance's configuration is
+   * removed from a cache, either because it expired or because the cache was full
+   *
+   * @return the new value
+   */
+  long addCacheEviction();
+
+  /**
+   * @return how many times the configuration was served from a cache
+   */
+  long getCacheHits();
+
+  /**
+   * @return how many times the configuration had to be created because it was not found in a cache
+   */
+  long getCacheMisses();
+
+  /**
+   * @return how many times the configuration was removed from a cache
+   */
+  long getCacheEvictions();
 }
@@ -105,6 +105,7 @@ public final class MethodArgumentResolverDelegate implements ArgumentResolverDel
   private final Method method;
   private final JavaTypeLoader typeLoader = new JavaTypeLoader(this.getClass().getClassLoader());
   private ArgumentResolver<?>[] argumentResolvers;
+  private Object[] defaultValues;
   private Map<java.lang.reflect.Parameter, ParameterGroupArgumentResolver<?>> parameterGroupResolvers;
 
   /**
@@ -123,10 +124,12 @@ public final class MethodArgumentResolverDelegate implements ArgumentResolverDel
 
     if (isEmpty(parameterTypes)) {
       argumentResolvers = new ArgumentResolver[] {};
+      defaultValues = new Object[] {};
       return;
     }
 
     argumentResolvers = new ArgumentResolver[parameterTypes.length];
+    defaultValues = new Object[parameterTypes.length];
     Annotation[][] parameterAnnotations = method.getParameterAnnotations();
     Parameter[] parameters = method.getParameters();
     parameterGroupResolvers = getParameterGroupResolvers(parameterGroupModels);
@@ -184,32 +187,25 @@ public final class MethodArgumentResolverDelegate implements ArgumentResolverDel
       }
 
       argumentResolvers[i] = argumentResolver;
+      defaultValues[i] = resolvePrimitiveTypeDefaultValue(parameterType);
     }
   }
 
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The resolvers and the default values for primitive arguments are computed when {@code this} instance is created, so the
+   * {@code parameterTypes} are not used.
+   */
   @Override
   public Object[] resolve(ExecutionContext executionContext, Class<?>[] parameterTypes) {
-
-    Object[] parameterValues = new Object[argumentResolvers.length];
-    int i = 0;
-    for (ArgumentResolver<?> argumentResolver : argumentResolvers) {
-      parameterValues[i++] = argumentResolver.resolve(executionContext);
+    final Object[] parameterValues = new Object[argumentResolvers.length];
+    for (int i = 0; i < argumentResolvers.length; i++) {
+      final Object value = argumentResolvers[i].resolve(executionContext);
+      parameterValues[i] = value != null ? value : defaultValues[i];
     }
 
-    return resolvePrimitiveTypes(parameterTypes, parameterValues);
-  }
-
-  private Object[] resolvePrimitiveTypes(Class<?>[] parametersType, Object[] parameterValues) {
-    Object[] resolvedParameters = new Object[parameterValues.length];
-    for (int i = 0; i < parameterValues.length; i++) {
-      Object parameterValue = parameterValues[i];
-      if (parameterValue == null) {
-        resolvedParameters[i] = resolvePrimitiveTypeDefaultValue(parametersType[i]);
-      } else {
-        resolvedParameters[i] = parameterValue;
-      }
-    }
-    return resolvedParameters;
+    return parameterValues;
   }
 
   private Object resolvePrimitiveTypeDefaultValue(Class<?> type) {
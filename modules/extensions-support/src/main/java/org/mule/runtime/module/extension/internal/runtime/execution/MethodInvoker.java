@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.module.extension.internal.runtime.execution;
+
+import java.lang.reflect.Method;
+
+/**
+ * Invokes a given {@link Method} on a target instance.
+ * <p>
+ * Exceptions thrown by the {@link Method} are propagated following the same rules as
+ * {@link org.springframework.util.ReflectionUtils#invokeMethod(Method, Object, Object...)}: unchecked exceptions are rethrown as
+ * they are, while checked ones are wrapped in an {@link java.lang.reflect.UndeclaredThrowableException}.
+ *
+ * @since 4.1
+ * @see MethodInvokerFactory
+ */
+@FunctionalInterface
+interface MethodInvoker {
+
+  /**
+   * Invokes the method
+   *
+   * @param target the instance on which the method is invoked
+   * @param args   the method arguments
+   * @return the value returned by the method
+   */
+  Object invoke(Object target, Object[] args);
+}
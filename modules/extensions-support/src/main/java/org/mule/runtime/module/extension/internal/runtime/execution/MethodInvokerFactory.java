@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.module.extension.internal.runtime.execution;
+
+import static java.lang.reflect.Modifier.isPublic;
+import static org.slf4j.LoggerFactory.getLogger;
+import static org.springframework.util.ReflectionUtils.handleReflectionException;
+import static org.springframework.util.ReflectionUtils.invokeMethod;
+import static org.springframework.util.ReflectionUtils.makeAccessible;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import net.sf.cglib.reflect.FastClass;
+import net.sf.cglib.reflect.FastMethod;
+import org.slf4j.Logger;
+
+/**
+ * Creates {@link MethodInvoker} instances.
+ * <p>
+ * When possible, the returned invoker calls the method through a class generated for its declaring type, which dispatches to
+ * the method with a plain invocation instead of going through reflection. The generated class is defined in the same
+ * {@link ClassLoader} as the declaring type and is shared by all the invokers of its methods.
+ * <p>
+ * If the class cannot be generated, for example because the method or its declaring class are not public, an invoker which
+ * uses reflection is returned instead.
+ *
+ * @since 4.1
+ */
+final class MethodInvokerFactory {
+
+  private static final Logger LOGGER = getLogger(MethodInvokerFactory.class);
+
+  private MethodInvokerFactory() {}
+
+  /**
+   * Creates an invoker for the given {@code method}. This is an expensive operation, so it should be done once per method at
+   * initialisation time rather than on each invocation.
+   *
+   * @param method the {@link Method} to be invoked
+   * @return a {@link MethodInvoker}
+   */
+  static MethodInvoker createInvoker(Method method) {
+    if (isPublic(method.getModifiers()) && isPublic(method.getDeclaringClass().getModifiers())) {
+      try {
+        return createGeneratedInvoker(method);
+      } catch (Exception | LinkageError e) {
+        if (LOGGER.isDebugEnabled()) {
+          LOGGER.debug("Could not generate invoker for method " + method + ". Reflection will be used instead", e);
+        }
+      }
+    }
+
+    makeAccessible(method);
+    return (target, args) -> invokeMethod(method, target, args);
+  }
+
+  private static MethodInvoker createGeneratedInvoker(Method method) {
+    final FastClass fastClass = FastClass.create(method.getDeclaringClass());
+    if (fastClass.getIndex(method.getName(), method.getParameterTypes()) < 0) {
+      throw new IllegalArgumentException("Method " + method + " is not accessible from generated class");
+    }
+
+    final FastMethod fastMethod = fastClass.getMethod(method);
+    return (target, args) -> {
+      try {
+        return fastMethod.invoke(target, args);
+      } catch (InvocationTargetException e) {
+        handleReflectionException(e);
+        throw new IllegalStateException("Should never get here");
+      }
+    };
+  }
+}
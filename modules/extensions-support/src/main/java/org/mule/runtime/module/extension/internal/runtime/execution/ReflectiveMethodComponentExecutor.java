@@ -12,8 +12,8 @@ import static org.mule.runtime.core.api.lifecycle.LifecycleUtils.initialiseIfNee
 import static org.mule.runtime.core.api.lifecycle.LifecycleUtils.startIfNeeded;
 import static org.mule.runtime.core.api.lifecycle.LifecycleUtils.stopIfNeeded;
 import static org.mule.runtime.core.api.util.ClassUtils.withContextClassLoader;
+import static org.mule.runtime.module.extension.internal.runtime.execution.MethodInvokerFactory.createInvoker;
 import static org.slf4j.LoggerFactory.getLogger;
-import static org.springframework.util.ReflectionUtils.invokeMethod;
 import org.mule.runtime.api.exception.MuleException;
 import org.mule.runtime.api.lifecycle.InitialisationException;
 import org.mule.runtime.api.lifecycle.Lifecycle;
@@ -25,15 +25,20 @@ import org.mule.runtime.extension.api.runtime.operation.ExecutionContext;
 import org.mule.runtime.module.extension.internal.runtime.operation.ReflectiveMethodOperationExecutor;
 
 import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
+import java.util.stream.Stream;
 
 import org.slf4j.Logger;
 
 /**
  * Executes a task associated to a {@link ExecutionContext} by invoking a given {@link Method}
+ * <p>
+ * The {@link Method} is invoked through a {@link MethodInvoker} created when {@code this} instance is, which avoids reflection
+ * whenever possible.
  *
  * @param <M> the generic type of the associated {@link ComponentModel}
  * @since 4.0
@@ -54,7 +59,9 @@ public class ReflectiveMethodComponentExecutor<M extends ComponentModel>
   private static final Logger LOGGER = getLogger(ReflectiveMethodOperationExecutor.class);
   private static final ArgumentResolverDelegate NO_ARGS_DELEGATE = new NoArgumentsResolverDelegate();
 
-  private final Method method;
+  private final Class<?>[] parameterTypes;
+  private final String[] parameterNames;
+  private final MethodInvoker invoker;
   private final Object componentInstance;
   private final ArgumentResolverDelegate argumentResolverDelegate;
   private final ClassLoader extensionClassLoader;
@@ -63,9 +70,11 @@ public class ReflectiveMethodComponentExecutor<M extends ComponentModel>
 
   public ReflectiveMethodComponentExecutor(List<ParameterGroupModel> parameterGroupModels, Method method,
                                            Object componentInstance) {
-    this.method = method;
     this.componentInstance = componentInstance;
-    argumentResolverDelegate = isEmpty(method.getParameterTypes())
+    parameterTypes = method.getParameterTypes();
+    parameterNames = Stream.of(method.getParameters()).map(Parameter::getName).toArray(String[]::new);
+    invoker = createInvoker(method);
+    argumentResolverDelegate = isEmpty(parameterTypes)
         ? NO_ARGS_DELEGATE
         : new MethodArgumentResolverDelegate(parameterGroupModels, method);
     extensionClassLoader = method.getDeclaringClass().getClassLoader();
@@ -73,11 +82,10 @@ public class ReflectiveMethodComponentExecutor<M extends ComponentModel>
 
   public Object execute(ExecutionContext<M> executionContext) throws Exception {
     return withContextClassLoader(extensionClassLoader,
-                                  () -> invokeMethod(method, componentInstance,
-                                                     getParameterValues(executionContext, method.getParameterTypes())));
+                                  () -> invoker.invoke(componentInstance, getParameterValues(executionContext)));
   }
 
-  private Object[] getParameterValues(ExecutionContext<M> executionContext, Class<?>[] parameterTypes) {
+  private Object[] getParameterValues(ExecutionContext<M> executionContext) {
     return argumentResolverDelegate.resolve(executionContext, parameterTypes);
   }
 
@@ -113,12 +121,11 @@ public class ReflectiveMethodComponentExecutor<M extends ComponentModel>
   public Function<ExecutionContext<M>, Map<String, Object>> createArgumentResolver(M operationModel) {
     return ec -> withContextClassLoader(extensionClassLoader,
                                         () -> {
-                                          final Object[] resolved =
-                                              getParameterValues(ec, method.getParameterTypes());
+                                          final Object[] resolved = getParameterValues(ec);
 
                                           final Map<String, Object> resolvedParams = new HashMap<>();
-                                          for (int i = 0; i < method.getParameterCount(); ++i) {
-                                            resolvedParams.put(method.getParameters()[i].getName(), resolved[i]);
+                                          for (int i = 0; i < parameterNames.length; ++i) {
+                                            resolvedParams.put(parameterNames[i], resolved[i]);
                                           }
                                           return resolvedParams;
                                         });
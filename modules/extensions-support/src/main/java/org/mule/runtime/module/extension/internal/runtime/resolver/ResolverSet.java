@@ -12,6 +12,8 @@ import static org.mule.runtime.module.extension.internal.runtime.resolver.Resolv
 import org.mule.runtime.api.exception.MuleException;
 import org.mule.runtime.api.exception.MuleRuntimeException;
 import org.mule.runtime.api.lifecycle.Initialisable;
+import org.mule.runtime.api.metadata.TypedValue;
+import org.mule.runtime.api.streaming.CursorProvider;
 import org.mule.runtime.core.api.MuleContext;
 import org.mule.runtime.core.api.lifecycle.LifecycleUtils;
 import org.mule.runtime.module.extension.internal.runtime.objectbuilder.ObjectBuilder;
@@ -39,6 +41,7 @@ public class ResolverSet implements ValueResolver<ResolverSetResult>, Initialisa
   private Map<String, ValueResolver<?>> resolvers = new LinkedHashMap<>();
   private boolean dynamic = false;
   private final MuleContext muleContext;
+  private volatile ResolutionPlan resolutionPlan;
 
   public ResolverSet(MuleContext muleContext) {
     this.muleContext = muleContext;
@@ -60,6 +63,7 @@ public class ResolverSet implements ValueResolver<ResolverSetResult>, Initialisa
     if (resolvers.put(key, resolver) != null) {
       throw new IllegalStateException("A value was already given for key " + key);
     }
+    resolutionPlan = null;
 
     if (!dynamic && resolver.isDynamic()) {
       dynamic = true;
@@ -95,6 +99,9 @@ public class ResolverSet implements ValueResolver<ResolverSetResult>, Initialisa
 
   /**
    * Evaluates all the added {@link ValueResolver}s and returns the results into a {@link ResolverSetResult}
+   * <p>
+   * Values of {@link StaticValueResolver}s are only obtained once. If every added resolver is a {@link StaticValueResolver}, the
+   * same {@link ResolverSetResult} is returned on each invocation.
    *
    * @param context a not {@code null} {@link ValueResolvingContext}
    * @return a {@link ResolverSetResult}
@@ -102,13 +109,67 @@ public class ResolverSet implements ValueResolver<ResolverSetResult>, Initialisa
    */
   @Override
   public ResolverSetResult resolve(ValueResolvingContext context) throws MuleException {
+    ResolutionPlan plan = resolutionPlan;
+    if (plan == null) {
+      plan = resolutionPlan = createResolutionPlan();
+    }
+
+    if (plan.staticResult != null) {
+      return plan.staticResult;
+    }
+
     ResolverSetResult.Builder builder = getResolverSetBuilder();
+    for (int i = 0; i < plan.keys.length; i++) {
+      Object value = plan.dynamicSlots[i] ? resolveValue(plan.resolvers[i], context) : plan.staticValues[i];
+      builder.add(plan.keys[i], value);
+    }
+
+    return builder.build();
+  }
+
+  private ResolutionPlan createResolutionPlan() throws MuleException {
+    final int size = resolvers.size();
+    final String[] keys = new String[size];
+    final ValueResolver<?>[] slotResolvers = new ValueResolver<?>[size];
+    final Object[] staticValues = new Object[size];
+    final boolean[] dynamicSlots = new boolean[size];
+    boolean fullyStatic = true;
 
+    int i = 0;
     for (Map.Entry<String, ValueResolver<?>> entry : resolvers.entrySet()) {
-      builder.add(entry.getKey(), resolveValue(entry.getValue(), context));
+      keys[i] = entry.getKey();
+      slotResolvers[i] = entry.getValue();
+
+      Object staticValue = entry.getValue() instanceof StaticValueResolver ? entry.getValue().resolve(null) : null;
+      if (entry.getValue() instanceof StaticValueResolver && isReusable(staticValue)) {
+        staticValues[i] = staticValue;
+      } else {
+        dynamicSlots[i] = true;
+        fullyStatic = false;
+      }
+      i++;
     }
 
-    return builder.build();
+    ResolverSetResult staticResult = null;
+    if (fullyStatic) {
+      ResolverSetResult.Builder builder = getResolverSetBuilder();
+      for (i = 0; i < size; i++) {
+        builder.add(keys[i], staticValues[i]);
+      }
+      staticResult = builder.build();
+    }
+
+    return new ResolutionPlan(keys, slotResolvers, staticValues, dynamicSlots, staticResult);
+  }
+
+  /**
+   * Values which need to be resolved or turned into a cursor each time cannot be obtained only once.
+   */
+  private boolean isReusable(Object value) {
+    if (value instanceof ValueResolver || value instanceof CursorProvider) {
+      return false;
+    }
+    return !(value instanceof TypedValue && ((TypedValue) value).getValue() instanceof CursorProvider);
   }
 
   /**
@@ -138,6 +199,7 @@ public class ResolverSet implements ValueResolver<ResolverSetResult>, Initialisa
         muleContext.getInjector().inject(valueResolver);
         LifecycleUtils.initialiseIfNeeded(valueResolver);
       }
+      resolutionPlan = createResolutionPlan();
     } catch (MuleException e) {
       throw new MuleRuntimeException(e);
     }
@@ -147,4 +209,25 @@ public class ResolverSet implements ValueResolver<ResolverSetResult>, Initialisa
     return ResolverSetResult.newBuilder();
   }
 
+  /**
+   * The outcome of classifying the resolvers of a {@link ResolverSet}, kept in the same order in which they were added. Values
+   * of the slots which are not dynamic are obtained only once.
+   */
+  private static final class ResolutionPlan {
+
+    private final String[] keys;
+    private final ValueResolver<?>[] resolvers;
+    private final Object[] staticValues;
+    private final boolean[] dynamicSlots;
+    private final ResolverSetResult staticResult;
+
+    private ResolutionPlan(String[] keys, ValueResolver<?>[] resolvers, Object[] staticValues, boolean[] dynamicSlots,
+                           ResolverSetResult staticResult) {
+      this.keys = keys;
+      this.resolvers = resolvers;
+      this.staticValues = staticValues;
+      this.dynamicSlots = dynamicSlots;
+      this.staticResult = staticResult;
+    }
+  }
 }
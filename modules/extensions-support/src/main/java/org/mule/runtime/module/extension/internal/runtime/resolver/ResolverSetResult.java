@@ -74,7 +74,7 @@ public class ResolverSetResult {
   private final Map<String, Object> evaluationResult;
 
   ResolverSetResult(Map<String, Object> evaluationResult) {
-    this.evaluationResult = new HashMap<>(evaluationResult);
+    this.evaluationResult = unmodifiableMap(new HashMap<>(evaluationResult));
   }
 
   /**
@@ -45,4 +45,17 @@ public class DefaultMutableConfigurationStatsTestCase extends AbstractMuleTestCa
     assertThat(stats.discountInflightOperation(), is(0));
     assertThat(stats.getInflightOperations(), is(0));
   }
+
+  @Test
+  public void cacheCounters() {
+    assertThat(stats.getCacheHits(), is(0L));
+    assertThat(stats.addCacheMiss(), is(1L));
+    assertThat(stats.addCacheHit(), is(1L));
+    assertThat(stats.addCacheHit(), is(2L));
+    assertThat(stats.addCacheEviction(), is(1L));
+
+    assertThat(stats.getCacheHits(), is(2L));
+    assertThat(stats.getCacheMisses(), is(1L));
+    assertThat(stats.getCacheEvictions(), is(1L));
+  }
 }
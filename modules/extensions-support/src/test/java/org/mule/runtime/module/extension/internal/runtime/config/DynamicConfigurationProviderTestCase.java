@@ -13,12 +13,14 @@ import static java.util.concurrent.TimeUnit.MINUTES;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.junit.Assert.assertThat;
 import static org.junit.internal.matchers.ThrowableMessageMatcher.hasMessage;
 import static org.junit.rules.ExpectedException.none;
 import static org.mockito.Answers.RETURNS_DEEP_STUBS;
 import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -28,7 +30,9 @@ import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.withSettings;
 import static org.mule.runtime.api.util.ExtensionModelTestUtils.visitableMock;
 import static org.mule.runtime.api.util.collection.Collectors.toImmutableList;
+import static org.mule.runtime.core.api.config.MuleProperties.MULE_DYNAMIC_CONFIG_MAX_CACHED_INSTANCES;
 import static org.mule.runtime.module.extension.internal.runtime.resolver.ValueResolvingContext.from;
+import static org.mule.tck.MuleTestUtils.testWithSystemProperty;
 import static org.mule.test.module.extension.internal.util.ExtensionsTestUtils.mockClassLoaderModelProperty;
 import static org.mule.test.module.extension.internal.util.ExtensionsTestUtils.mockConfigurationInstance;
 import static org.mule.test.module.extension.internal.util.ExtensionsTestUtils.mockInterceptors;
@@ -40,7 +44,9 @@ import org.mule.runtime.api.meta.model.operation.OperationModel;
 import org.mule.runtime.api.util.Pair;
 import org.mule.runtime.extension.api.runtime.ExpirationPolicy;
 import org.mule.runtime.extension.api.runtime.config.ConfigurationInstance;
+import org.mule.runtime.core.api.event.CoreEvent;
 import org.mule.runtime.core.internal.config.ImmutableExpirationPolicy;
+import org.mule.runtime.core.privileged.event.BaseEventContext;
 import org.mule.runtime.module.extension.internal.runtime.resolver.ConnectionProviderResolver;
 import org.mule.runtime.module.extension.internal.runtime.resolver.ResolverSet;
 import org.mule.runtime.module.extension.internal.runtime.resolver.ResolverSetResult;
@@ -49,8 +55,10 @@ import org.mule.test.heisenberg.extension.HeisenbergExtension;
 
 import com.google.common.collect.ImmutableList;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.function.BiConsumer;
 
 import org.junit.After;
 import org.junit.Before;
@@ -199,6 +207,74 @@ public class DynamicConfigurationProviderTestCase extends AbstractConfigurationP
     assertThat(configs, containsInAnyOrder(instance1, instance2));
   }
 
+  @Test
+  public void expiredInstanceNotServedAgain() throws Exception {
+    ConfigurationInstance instance = provider.get(event);
+    timeSupplier.move(10, MINUTES);
+
+    assertThat(((DynamicConfigurationProvider) provider).getExpired(), contains(sameInstance(instance)));
+    assertThat(provider.get(event), is(not(sameInstance(instance))));
+    assertThat(getStats(instance).getCacheEvictions(), is(1L));
+  }
+
+  @Test
+  public void instanceInUseByEventNotExpired() throws Exception {
+    List<BiConsumer<CoreEvent, Throwable>> terminationCallbacks = new ArrayList<>();
+    BaseEventContext eventContext = mock(BaseEventContext.class);
+    doAnswer(invocation -> terminationCallbacks.add((BiConsumer<CoreEvent, Throwable>) invocation.getArguments()[0]))
+        .when(eventContext).onTerminated(any());
+    when(event.getContext()).thenReturn(eventContext);
+
+    ConfigurationInstance instance = provider.get(event);
+    timeSupplier.move(10, MINUTES);
+
+    assertThat(((DynamicConfigurationProvider) provider).getExpired().isEmpty(), is(true));
+    assertThat(provider.get(event), is(sameInstance(instance)));
+    assertThat(terminationCallbacks.size(), is(2));
+
+    terminationCallbacks.forEach(callback -> callback.accept(event, null));
+    timeSupplier.move(10, MINUTES);
+
+    assertThat(((DynamicConfigurationProvider) provider).getExpired(), contains(sameInstance(instance)));
+  }
+
+  @Test
+  public void cacheStatistics() throws Exception {
+    ConfigurationInstance instance = provider.get(event);
+    provider.get(event);
+    provider.get(event);
+
+    MutableConfigurationStats stats = getStats(instance);
+    assertThat(stats.getCacheMisses(), is(1L));
+    assertThat(stats.getCacheHits(), is(2L));
+    assertThat(stats.getCacheEvictions(), is(0L));
+  }
+
+  @Test
+  public void boundedCacheEvictsLeastRecentlyUsed() throws Exception {
+    provider.stop();
+    provider.dispose();
+    testWithSystemProperty(MULE_DYNAMIC_CONFIG_MAX_CACHED_INSTANCES, "1", () -> {
+      provider = new DynamicConfigurationProvider(CONFIG_NAME, extensionModel, configurationModel, resolverSet,
+                                                  connectionProviderResolver, expirationPolicy, muleContext);
+    });
+    muleContext.getInjector().inject(provider);
+    provider.initialise();
+    provider.start();
+
+    HeisenbergExtension instance1 = (HeisenbergExtension) provider.get(event).getValue();
+    HeisenbergExtension instance2 = makeAlternateInstance();
+
+    List<Object> evicted = ((DynamicConfigurationProvider) provider).getExpired().stream()
+        .map(config -> config.getValue()).collect(toImmutableList());
+    assertThat(evicted, contains(instance1));
+    assertThat(provider.get(event).getValue(), is(sameInstance(instance2)));
+  }
+
+  private MutableConfigurationStats getStats(ConfigurationInstance instance) {
+    return (MutableConfigurationStats) instance.getStatistics();
+  }
+
   private HeisenbergExtension makeAlternateInstance() throws Exception {
     ResolverSetResult alternateResult = mock(ResolverSetResult.class, Mockito.RETURNS_DEEP_STUBS);
     when(alternateResult.asMap()).thenReturn(new HashMap<>());
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.module.extension.internal.runtime.execution;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mule.runtime.module.extension.internal.runtime.execution.MethodInvokerFactory.createInvoker;
+
+import org.mule.tck.junit4.AbstractMuleTestCase;
+import org.mule.tck.size.SmallTest;
+
+import java.io.IOException;
+import java.lang.reflect.UndeclaredThrowableException;
+
+import org.junit.Test;
+
+@SmallTest
+public class MethodInvokerFactoryTestCase extends AbstractMuleTestCase {
+
+  private static final IllegalStateException RUNTIME_EXCEPTION = new IllegalStateException();
+  private static final IOException CHECKED_EXCEPTION = new IOException();
+
+  @Test
+  public void invokePublicMethod() throws Exception {
+    MethodInvoker invoker = createInvoker(PublicOperations.class.getMethod("concat", String.class, int.class));
+    assertThat(invoker.invoke(new PublicOperations(), new Object[] {"mule", 4}), is("mule4"));
+  }
+
+  @Test
+  public void invokeVoidMethod() throws Exception {
+    PublicOperations operations = new PublicOperations();
+    MethodInvoker invoker = createInvoker(PublicOperations.class.getMethod("touch"));
+
+    assertThat(invoker.invoke(operations, new Object[] {}), is((Object) null));
+    assertThat(operations.touched, is(true));
+  }
+
+  @Test
+  public void invokeNonPublicMethod() throws Exception {
+    MethodInvoker invoker = createInvoker(PackageOperations.class.getDeclaredMethod("concat", String.class, int.class));
+    assertThat(invoker.invoke(new PackageOperations(), new Object[] {"mule", 4}), is("mule4"));
+  }
+
+  @Test
+  public void runtimeExceptionPropagated() throws Exception {
+    MethodInvoker invoker = createInvoker(PublicOperations.class.getMethod("fail", Exception.class));
+    try {
+      invoker.invoke(new PublicOperations(), new Object[] {RUNTIME_EXCEPTION});
+      fail("Was expecting the invocation to fail");
+    } catch (IllegalStateException e) {
+      assertThat(e, is(sameInstance(RUNTIME_EXCEPTION)));
+    }
+  }
+
+  @Test
+  public void checkedExceptionWrapped() throws Exception {
+    MethodInvoker invoker = createInvoker(PublicOperations.class.getMethod("fail", Exception.class));
+    try {
+      invoker.invoke(new PublicOperations(), new Object[] {CHECKED_EXCEPTION});
+      fail("Was expecting the invocation to fail");
+    } catch (UndeclaredThrowableException e) {
+      assertThat(e.getCause(), is(instanceOf(IOException.class)));
+    }
+  }
+
+  public static class PublicOperations {
+
+    private boolean touched = false;
+
+    public String concat(String value, int times) {
+      return value + times;
+    }
+
+    public void touch() {
+      touched = true;
+    }
+
+    public void fail(Exception exception) throws Exception {
+      throw exception;
+    }
+  }
+
+  static class PackageOperations {
+
+    String concat(String value, int times) {
+      return value + times;
+    }
+  }
+}
@@ -7,8 +7,12 @@
 package org.mule.runtime.module.extension.internal.runtime.resolver;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mule.test.module.extension.internal.util.ExtensionsTestUtils.getParameter;
 import org.mule.runtime.api.lifecycle.Lifecycle;
@@ -100,6 +104,44 @@ public class ResolverSetTestCase extends AbstractMuleTestCase {
     assertThat(set.isDynamic(), is(true));
   }
 
+  @Test
+  public void staticResultReused() throws Exception {
+    ResolverSet staticSet = new ResolverSet(muleContext);
+    staticSet.add("myName", new StaticValueResolver<>(NAME));
+    staticSet.add("age", new StaticValueResolver<>(AGE));
+
+    ResolverSetResult result = staticSet.resolve(resolvingContext);
+    assertThat(result.get("myName"), is(NAME));
+    assertThat(result.get("age"), is(AGE));
+    assertThat(staticSet.resolve(resolvingContext), is(sameInstance(result)));
+  }
+
+  @Test
+  public void partiallyDynamicOnlyEvaluatesDynamicResolvers() throws Exception {
+    ValueResolver dynamicResolver = getResolver(AGE);
+    when(dynamicResolver.isDynamic()).thenReturn(true);
+
+    ResolverSet partialSet = new ResolverSet(muleContext);
+    partialSet.add("myName", new StaticValueResolver<>(NAME));
+    partialSet.add("age", dynamicResolver);
+
+    ResolverSetResult result = partialSet.resolve(resolvingContext);
+    ResolverSetResult otherResult = partialSet.resolve(resolvingContext);
+
+    assertThat(otherResult, is(not(sameInstance(result))));
+    assertThat(otherResult.get("myName"), is(NAME));
+    assertThat(otherResult.get("age"), is(AGE));
+    verify(dynamicResolver, times(2)).resolve(resolvingContext);
+  }
+
+  @Test
+  public void resolversAddedAfterResolutionAreEvaluated() throws Exception {
+    set.resolve(resolvingContext);
+    set.add("nickname", new StaticValueResolver<>("Heisenberg"));
+
+    assertThat(set.resolve(resolvingContext).get("nickname"), is("Heisenberg"));
+  }
+
   private void assertResult(ResolverSetResult result, Map<ParameterModel, ValueResolver> mapping) throws Exception {
     assertThat(result, is(notNullValue()));
     for (Map.Entry<ParameterModel, ValueResolver> entry : mapping.entrySet()) {
@@ -7,6 +7,7 @@
 package org.mule.runtime.config.internal;
 
 import java.util.Collection;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -24,4 +25,11 @@ public interface BeanDependencyResolver {
    */
   Collection<Object> resolveBeanDependencies(Set<String> beanNames);
 
+  /**
+   * @param beanNames the names of the beans to resolve the dependencies for
+   * @return for each of the given bean names, the beans on which it depends, either directly or through other beans.
+   * @since 4.1
+   */
+  Map<String, Collection<Object>> resolveTransitiveDependencies(Set<String> beanNames);
+
 }
@@ -14,7 +14,11 @@ import org.mule.runtime.core.internal.lifecycle.InjectedDependenciesProvider;
 
 import com.google.common.collect.TreeTraverser;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -87,36 +91,69 @@ public class DefaultBeanDependencyResolver implements BeanDependencyResolver {
       return;
     }
 
-    addAutoDiscoveredDependencies(key, processedKeys, node);
-    addConfigurationDependencies(key, processedKeys, node);
-    addDeclaredDependencies(object, processedKeys, node);
+    for (Pair<String, Object> dependency : getDirectDependencies(key, object)) {
+      addDependency(node, dependency.getFirst(), dependency.getSecond(), processedKeys);
+    }
+  }
+
+  @Override
+  public Map<String, Collection<Object>> resolveTransitiveDependencies(Set<String> beanNames) {
+    // the direct dependencies of each bean are resolved only once, since most beans are reached from several others
+    final Map<String, List<Pair<String, Object>>> directDependencies = new HashMap<>();
+    final Map<String, Collection<Object>> dependencies = new HashMap<>();
+
+    for (String beanName : beanNames) {
+      final Set<String> processedKeys = new HashSet<>();
+      processedKeys.add(beanName);
+      final Deque<String> pending = new ArrayDeque<>();
+      pending.push(beanName);
+      final List<Object> beanDependencies = new ArrayList<>();
+
+      while (!pending.isEmpty()) {
+        final String key = pending.pop();
+        for (Pair<String, Object> dependency : directDependencies
+            .computeIfAbsent(key, k -> getDirectDependencies(k, springRegistry.get(k)))) {
+          if (processedKeys.add(dependency.getFirst())) {
+            beanDependencies.add(dependency.getSecond());
+            pending.push(dependency.getFirst());
+          }
+        }
+      }
+      dependencies.put(beanName, beanDependencies);
+    }
+    return dependencies;
+  }
+
+  private List<Pair<String, Object>> getDirectDependencies(String key, Object object) {
+    final List<Pair<String, Object>> dependencies = new LinkedList<>();
+    addAutoDiscoveredDependencies(key, dependencies);
+    addConfigurationDependencies(key, dependencies);
+    addDeclaredDependencies(object, dependencies);
+    return dependencies;
   }
 
   /**
    * If the target object implements {@link InjectedDependenciesProvider}, then the custom dependencies
    * declared by it are added.
    */
-  private void addDeclaredDependencies(Object object, Set<String> processedKeys,
-                                       DependencyNode node) {
+  private void addDeclaredDependencies(Object object, List<Pair<String, Object>> dependencies) {
     if (object instanceof InjectedDependenciesProvider) {
       ((InjectedDependenciesProvider) object).getInjectedDependencies()
           .forEach(dependency -> dependency
               .reduce(type -> Stream.of(springRegistry.applicationContext.getBeanNamesForType(dependency.getLeft()))
                   .map(name -> new Pair<>(name, springRegistry.get(name)))
                   .collect(toList()), name -> asList(new Pair<>(name, springRegistry.get(name))))
-              .forEach(pair -> addDependency(node, pair.getFirst(), pair.getSecond(), processedKeys)));
+              .forEach(dependencies::add));
     }
   }
 
   /**
    * These are obtained through the {@link #configurationDependencyResolver}
    */
-  private void addConfigurationDependencies(String key, Set<String> processedKeys,
-                                            DependencyNode node) {
-    Collection<String> dependencies = configurationDependencyResolver.resolveComponentDependencies(key);
-    for (String dependency : dependencies) {
+  private void addConfigurationDependencies(String key, List<Pair<String, Object>> dependencies) {
+    for (String dependency : configurationDependencyResolver.resolveComponentDependencies(key)) {
       if (springRegistry.isSingleton(dependency)) {
-        addDependency(node, dependency, springRegistry.get(dependency), processedKeys);
+        dependencies.add(new Pair<>(dependency, springRegistry.get(dependency)));
       }
     }
   }
@@ -125,10 +162,9 @@ public class DefaultBeanDependencyResolver implements BeanDependencyResolver {
    * Adds the dependencies that are explicit on the {@link BeanDefinition}. These were inferred from
    * introspecting fields annotated with {@link Inject} or were programatically added to the definition
    */
-  private void addAutoDiscoveredDependencies(String key, Set<String> processedKeys,
-                                             DependencyNode node) {
+  private void addAutoDiscoveredDependencies(String key, List<Pair<String, Object>> dependencies) {
     for (Map.Entry<String, Object> dependency : springRegistry.getDependencies(key).entrySet()) {
-      addDependency(node, dependency.getKey(), dependency.getValue(), processedKeys);
+      dependencies.add(new Pair<>(dependency.getKey(), dependency.getValue()));
     }
   }
 
@@ -0,0 +1,24 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.config.internal;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Activates the components of an artifact that were not created when it was deployed.
+ *
+ * @since 4.1
+ */
+public interface DeferredComponentActivator {
+
+  /**
+   * @return a future completed once every deferred component has been created, initialised and started, or the activation
+   *         failed.
+   */
+  CompletableFuture<Void> getActivation();
+
+}
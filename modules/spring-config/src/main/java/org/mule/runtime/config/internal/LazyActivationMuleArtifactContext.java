@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.config.internal;
+
+import static org.mule.runtime.config.api.dsl.CoreDslConstants.FLOW_IDENTIFIER;
+import static org.mule.runtime.core.api.context.notification.MuleContextNotification.CONTEXT_STARTED;
+import static org.mule.runtime.core.api.util.ClassUtils.withContextClassLoader;
+import static org.slf4j.LoggerFactory.getLogger;
+
+import org.mule.runtime.api.component.ConfigurationProperties;
+import org.mule.runtime.api.component.location.Location;
+import org.mule.runtime.api.exception.MuleException;
+import org.mule.runtime.api.exception.MuleRuntimeException;
+import org.mule.runtime.api.ioc.ConfigurableObjectProvider;
+import org.mule.runtime.api.lifecycle.Initialisable;
+import org.mule.runtime.api.lifecycle.Startable;
+import org.mule.runtime.api.notification.IntegerAction;
+import org.mule.runtime.api.scheduler.Scheduler;
+import org.mule.runtime.api.util.Reference;
+import org.mule.runtime.app.declaration.api.ArtifactDeclaration;
+import org.mule.runtime.config.internal.dsl.model.ConfigurationDependencyResolver;
+import org.mule.runtime.config.internal.dsl.model.MinimalApplicationModelGenerator;
+import org.mule.runtime.config.internal.dsl.spring.ComponentModelHelper;
+import org.mule.runtime.config.internal.model.ApplicationModel;
+import org.mule.runtime.config.internal.model.ComponentModel;
+import org.mule.runtime.core.api.MuleContext;
+import org.mule.runtime.core.api.config.ConfigResource;
+import org.mule.runtime.core.api.config.bootstrap.ArtifactType;
+import org.mule.runtime.core.api.context.notification.MuleContextNotification;
+import org.mule.runtime.core.api.context.notification.MuleContextNotificationListener;
+import org.mule.runtime.dsl.api.component.config.DefaultComponentLocation;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+/**
+ * Implementation of {@link MuleArtifactContext} for production deployments which only creates the flows that have a message
+ * source, along with their dependencies, when the artifact is deployed. Those dependencies include the flows and sub-flows
+ * targeted by a static {@code flow-ref}.
+ * <p/>
+ * Every other flow, sub-flow or named global element is created, initialised and started on an IO thread once the
+ * {@link MuleContext} is started, so the message sources start without waiting for them. Until that activation completes, they
+ * are not found by registry lookups, the DataWeave {@code lookup} function or the name of an extension config, while a dynamic
+ * {@code flow-ref} waits for it without blocking its thread. The outcome of the activation is exposed through
+ * {@link #getActivation()}, so that failing to activate any of them fails the deployment of the artifact. Unlike
+ * {@link LazyMuleArtifactContext}, components that were already created are never disposed in order to create new ones.
+ *
+ * @since 4.1
+ */
+public class LazyActivationMuleArtifactContext extends MuleArtifactContext
+    implements LazyComponentInitializerAdapter, DeferredComponentActivator {
+
+  private static final Logger LOGGER = getLogger(LazyActivationMuleArtifactContext.class);
+
+  private final CompletableFuture<Void> activation = new CompletableFuture<>();
+  private final AtomicBoolean activationScheduled = new AtomicBoolean(false);
+  private volatile Scheduler activationScheduler;
+
+  /**
+   * Parses configuration files creating a spring ApplicationContext which is used as a parent registry using the SpringRegistry
+   * registry implementation to wraps the spring ApplicationContext
+   *
+   * @param muleContext the {@link MuleContext} that own this context
+   * @param artifactDeclaration the mule configuration defined programmatically
+   * @param optionalObjectsController the {@link OptionalObjectsController} to use. Cannot be {@code null} @see
+   *        org.mule.runtime.config.internal.SpringRegistry
+   * @param parentConfigurationProperties
+   * @param disableXmlValidations {@code true} when loading XML configs it will not apply validations.
+   */
+  public LazyActivationMuleArtifactContext(MuleContext muleContext, ConfigResource[] artifactConfigResources,
+                                           ArtifactDeclaration artifactDeclaration,
+                                           OptionalObjectsController optionalObjectsController,
+                                           Map<String, String> artifactProperties, ArtifactType artifactType,
+                                           List<ClassLoader> pluginsClassLoaders,
+                                           Optional<ConfigurationProperties> parentConfigurationProperties,
+                                           boolean disableXmlValidations)
+      throws BeansException {
+    super(muleContext, artifactConfigResources, artifactDeclaration, optionalObjectsController, artifactProperties,
+          artifactType, pluginsClassLoaders, parentConfigurationProperties, disableXmlValidations);
+
+    this.applicationModel.executeOnEveryMuleComponentTree(componentModel -> componentModel.setEnabled(false));
+    enableEagerComponents();
+
+    muleContext.getCustomizationService().overrideDefaultServiceImpl(LAZY_COMPONENT_INITIALIZER_SERVICE_KEY, this);
+    muleContext.getNotificationManager().addListener(new MuleContextNotificationListener<MuleContextNotification>() {
+
+      @Override
+      public void onNotification(MuleContextNotification notification) {
+        if (new IntegerAction(CONTEXT_STARTED).equals(notification.getAction())) {
+          scheduleActivation();
+        }
+      }
+    });
+  }
+
+  /**
+   * Enables the flows with a message source and the global elements without a name, since those cannot be referenced, along
+   * with all their dependencies.
+   */
+  private void enableEagerComponents() {
+    final Set<String> eagerLocations = new HashSet<>();
+    for (ComponentModel componentModel : applicationModel.getRootComponentModel().getInnerComponents()) {
+      if (!isEager(componentModel)) {
+        continue;
+      }
+
+      DefaultComponentLocation componentLocation = componentModel.getComponentLocation();
+      if (componentLocation != null) {
+        eagerLocations.add(componentLocation.getLocation());
+      } else {
+        componentModel.setEnabled(true);
+        componentModel.executedOnEveryInnerComponent(innerComponent -> innerComponent.setEnabled(true));
+      }
+    }
+
+    newMinimalApplicationModelGenerator()
+        .getMinimalModel(componentLocation -> eagerLocations.contains(componentLocation.getLocation()));
+  }
+
+  private boolean isEager(ComponentModel componentModel) {
+    if (FLOW_IDENTIFIER.equals(componentModel.getIdentifier())) {
+      return componentModel.getInnerComponents().stream().anyMatch(ComponentModelHelper::isMessageSource);
+    }
+    return componentModel.getNameAttribute() == null;
+  }
+
+  /**
+   * Creates, initialises and starts every component that was not created when the artifact was deployed. It runs on an IO
+   * thread the first time the {@link MuleContext} is started, since applying the lifecycle requires its lifecycle lock.
+   */
+  private void scheduleActivation() {
+    if (!activationScheduled.compareAndSet(false, true)) {
+      return;
+    }
+
+    activationScheduler = muleContext.getSchedulerService()
+        .ioScheduler(muleContext.getSchedulerBaseConfig().withName("lazy.activation"));
+    activationScheduler.execute(() -> {
+      try {
+        initializeComponents(componentLocation -> isDeferred(componentLocation.getRootContainerName()));
+        activation.complete(null);
+      } catch (Throwable t) {
+        LOGGER.error("Could not activate the deferred components", t);
+        activation.completeExceptionally(t);
+      }
+    });
+  }
+
+  private boolean isDeferred(String rootContainerName) {
+    return applicationModel.findTopLevelNamedComponent(rootContainerName).isPresent()
+        && !getBeanFactory().containsBeanDefinition(rootContainerName);
+  }
+
+  @Override
+  public CompletableFuture<Void> getActivation() {
+    return activation;
+  }
+
+  @Override
+  public void close() {
+    if (activationScheduler != null) {
+      activationScheduler.stop();
+    }
+    // release the flow-refs waiting for an activation that will never complete
+    activation.cancel(false);
+    super.close();
+  }
+
+  @Override
+  public void initializeComponent(Location location) {
+    initializeComponent(location, true);
+  }
+
+  @Override
+  public void initializeComponents(ComponentLocationFilter filter) {
+    initializeComponents(filter, true);
+  }
+
+  @Override
+  public void initializeComponent(Location location, boolean applyStartPhase) {
+    applyLifecycle(createComponents(generator -> generator.getMinimalModel(location)), applyStartPhase);
+  }
+
+  @Override
+  public void initializeComponents(ComponentLocationFilter filter, boolean applyStartPhase) {
+    applyLifecycle(createComponents(generator -> generator.getMinimalModel(filter)), applyStartPhase);
+  }
+
+  private synchronized List<String> createComponents(Function<MinimalApplicationModelGenerator, ApplicationModel> minimalModel) {
+    Reference<List<String>> createdComponents = new Reference<>();
+    withContextClassLoader(muleContext.getExecutionClassLoader(), () -> {
+      applicationModel.executeOnEveryMuleComponentTree(componentModel -> componentModel.setEnabled(false));
+      ApplicationModel minimalApplicationModel = minimalModel.apply(newMinimalApplicationModelGenerator());
+      disableCreatedComponents(minimalApplicationModel);
+
+      // Only the object providers of the new components have to be configured
+      List<ConfigurableObjectProvider> preparedObjectProviders = new ArrayList<>(objectProviders);
+      objectProviders.clear();
+      List<String> applicationComponents =
+          createApplicationComponents((DefaultListableBeanFactory) this.getBeanFactory(), minimalApplicationModel, false);
+      prepareObjectProviders();
+      objectProviders.addAll(0, preparedObjectProviders);
+
+      // This is required to force the execution of postProcessAfterInitialization() for each created component
+      applicationComponents.forEach(component -> getRegistry().lookupByName(component).get());
+      createdComponents.set(applicationComponents);
+    });
+    return createdComponents.get();
+  }
+
+  /**
+   * Disables the top level components which were already created so their bean definitions are not replaced.
+   */
+  private void disableCreatedComponents(ApplicationModel minimalApplicationModel) {
+    for (ComponentModel componentModel : minimalApplicationModel.getRootComponentModel().getInnerComponents()) {
+      String name = componentModel.getNameAttribute();
+      if (componentModel.isEnabled() && name != null && getBeanFactory().containsBeanDefinition(name)) {
+        componentModel.setEnabled(false);
+        componentModel.executedOnEveryInnerComponent(innerComponent -> innerComponent.setEnabled(false));
+      }
+    }
+  }
+
+  private void applyLifecycle(List<String> createdComponentModels, boolean applyStartPhase) {
+    muleContext.withLifecycleLock(() -> {
+      for (String createdComponentModelName : createdComponentModels) {
+        Object object = getRegistry().lookupByName(createdComponentModelName).get();
+        try {
+          if (applyStartPhase && muleContext.isStarted()) {
+            muleContext.getRegistry().applyLifecycle(object, Initialisable.PHASE_NAME, Startable.PHASE_NAME);
+          } else if (muleContext.isInitialised()) {
+            muleContext.getRegistry().applyLifecycle(object, Initialisable.PHASE_NAME);
+          }
+        } catch (MuleException e) {
+          throw new MuleRuntimeException(e);
+        }
+      }
+    });
+  }
+
+  private MinimalApplicationModelGenerator newMinimalApplicationModelGenerator() {
+    return new MinimalApplicationModelGenerator(new ConfigurationDependencyResolver(applicationModel,
+                                                                                    componentBuildingDefinitionRegistry));
+  }
+
+}
@@ -7,6 +7,8 @@
 package org.mule.runtime.config.internal;
 
 import static java.lang.String.format;
+import static java.util.Collections.newSetFromMap;
+import static java.util.stream.Collectors.toList;
 import static org.apache.commons.lang3.StringUtils.EMPTY;
 import static org.mule.runtime.api.i18n.I18nMessageFactory.createStaticMessage;
 import static org.springframework.beans.factory.support.BeanDefinitionBuilder.genericBeanDefinition;
@@ -21,6 +23,7 @@ import org.mule.runtime.core.api.MuleContext;
 import org.mule.runtime.core.api.lifecycle.LifecycleManager;
 import org.mule.runtime.core.api.util.StringUtils;
 import org.mule.runtime.core.api.util.func.CheckedRunnable;
+import org.mule.runtime.core.internal.lifecycle.LifecycleDependencyResolver;
 import org.mule.runtime.core.internal.lifecycle.LifecycleInterceptor;
 import org.mule.runtime.core.internal.lifecycle.phases.NotInLifecyclePhase;
 import org.mule.runtime.core.internal.registry.AbstractRegistry;
@@ -43,10 +46,13 @@ import org.springframework.context.support.AbstractApplicationContext;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 
-public class SpringRegistry extends AbstractRegistry implements LifecycleRegistry, Injector {
+public class SpringRegistry extends AbstractRegistry implements LifecycleRegistry, Injector, LifecycleDependencyResolver {
 
   public static final String REGISTRY_ID = "org.mule.Registry.Spring";
 
@@ -347,6 +353,35 @@ public class SpringRegistry extends AbstractRegistry implements LifecycleRegistr
     return internalLookupByTypeWithoutAncestorsAndObjectProviders(type, false, false);
   }
 
+  /**
+   * Resolves the dependencies of the singleton beans among the given {@code objects} through the
+   * {@link #getBeanDependencyResolver() bean dependency resolver}. Dependencies through beans which are not part of
+   * {@code objects} are followed, so that the order between two of the {@code objects} is kept even if they are related through
+   * other beans.
+   */
+  @Override
+  public Map<Object, Collection<Object>> resolveLifecycleDependencies(Collection<?> objects) {
+    final Map<Object, String> beanNames = new IdentityHashMap<>();
+    lookupEntriesForLifecycle(Object.class).forEach((name, object) -> beanNames.put(object, name));
+
+    final Set<Object> targets = newSetFromMap(new IdentityHashMap<>());
+    final Map<String, Object> targetsByName = new LinkedHashMap<>();
+    for (Object object : objects) {
+      targets.add(object);
+      String beanName = beanNames.get(object);
+      if (beanName != null) {
+        targetsByName.put(beanName, object);
+      }
+    }
+
+    final Map<Object, Collection<Object>> dependencies = new IdentityHashMap<>();
+    getBeanDependencyResolver().resolveTransitiveDependencies(targetsByName.keySet())
+        .forEach((beanName, beanDependencies) -> dependencies.put(targetsByName.get(beanName), beanDependencies.stream()
+            .filter(targets::contains)
+            .collect(toList())));
+    return dependencies;
+  }
+
   // TODO(pablo.kraan): MULE-12609 - making public to be able to use it from a different package
   public Map<String, Object> getDependencies(String key) {
     if (!readOnly) {
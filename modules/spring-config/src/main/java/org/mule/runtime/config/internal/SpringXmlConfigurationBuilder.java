@@ -6,9 +6,11 @@
  */
 package org.mule.runtime.config.internal;
 
+import static java.lang.Boolean.parseBoolean;
 import static java.util.Collections.emptyMap;
 import static java.util.Optional.empty;
 import static java.util.Optional.of;
+import static org.mule.runtime.core.api.config.MuleDeploymentProperties.MULE_LAZY_ACTIVATION_DEPLOYMENT_PROPERTY;
 import static org.mule.runtime.core.api.config.bootstrap.ArtifactType.APP;
 import static org.mule.runtime.core.internal.lifecycle.DefaultLifecycleInterceptor.createInitDisposeLifecycleInterceptor;
 import static org.mule.runtime.core.internal.lifecycle.DefaultLifecycleInterceptor.createStartStopLifecycleInterceptor;
@@ -154,6 +156,14 @@ public class SpringXmlConfigurationBuilder extends AbstractResourceConfiguration
                                          resolveParentConfigurationProperties(), disableXmlValidations);
     }
 
+    if (artifactType == APP && parseBoolean(getArtifactProperties().get(MULE_LAZY_ACTIVATION_DEPLOYMENT_PROPERTY))) {
+      return new LazyActivationMuleArtifactContext(muleContext, resolveArtifactConfigResources(), artifactDeclaration,
+                                                   optionalObjectsController,
+                                                   getArtifactProperties(), artifactType,
+                                                   resolveContextArtifactPluginClassLoaders(),
+                                                   resolveParentConfigurationProperties(), disableXmlValidations);
+    }
+
     return new MuleArtifactContext(muleContext, resolveArtifactConfigResources(), artifactDeclaration, optionalObjectsController,
                                    getArtifactProperties(), artifactType, resolveContextArtifactPluginClassLoaders(),
                                    resolveParentConfigurationProperties(), disableXmlValidations);
@@ -7,11 +7,14 @@
 package org.mule.runtime.config.internal.artifact;
 
 import org.mule.runtime.api.artifact.Registry;
+import org.mule.runtime.config.internal.DeferredComponentActivator;
 import org.mule.runtime.config.internal.MuleArtifactContext;
 import org.mule.runtime.core.api.MuleContext;
 import org.mule.runtime.deployment.model.api.artifact.ArtifactContext;
 import org.mule.runtime.module.artifact.api.Artifact;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * An artifact context contains all the information related to an {@link Artifact} that contains
  * configuration.
@@ -47,4 +50,12 @@ public class SpringArtifactContext implements ArtifactContext {
     return this.muleArtifactContext.getRegistry();
   }
 
+  @Override
+  public CompletableFuture<Void> getActivation() {
+    if (muleArtifactContext instanceof DeferredComponentActivator) {
+      return ((DeferredComponentActivator) muleArtifactContext).getActivation();
+    }
+    return ArtifactContext.super.getActivation();
+  }
+
 }
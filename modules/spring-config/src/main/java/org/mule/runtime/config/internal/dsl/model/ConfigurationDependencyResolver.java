@@ -8,6 +8,7 @@ package org.mule.runtime.config.internal.dsl.model;
 
 import static java.util.Arrays.stream;
 import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
 import static java.util.Optional.empty;
 import static java.util.Optional.of;
 import static org.mule.runtime.api.i18n.I18nMessageFactory.createStaticMessage;
@@ -32,6 +33,7 @@ import java.util.Collection;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -189,6 +191,11 @@ public class ConfigurationDependencyResolver implements BeanDependencyResolver {
     return null;
   }
 
+  @Override
+  public Map<String, Collection<Object>> resolveTransitiveDependencies(Set<String> beanNames) {
+    return emptyMap();
+  }
+
   public List<ComponentModel> findRequiredComponentModels(LazyComponentInitializer.ComponentLocationFilter filter) {
     List<ComponentModel> components = new ArrayList<>();
     applicationModel.executeOnEveryComponentTree(componentModel -> {
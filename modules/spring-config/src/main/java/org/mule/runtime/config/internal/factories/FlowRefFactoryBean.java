@@ -15,9 +15,11 @@ import static org.mule.runtime.core.api.lifecycle.LifecycleUtils.stopIfNeeded;
 import static org.mule.runtime.core.privileged.processor.MessageProcessors.processToApply;
 import static org.mule.runtime.core.privileged.processor.MessageProcessors.processWithChildContext;
 import static org.slf4j.LoggerFactory.getLogger;
+import static reactor.core.publisher.Flux.defer;
 import static reactor.core.publisher.Flux.error;
 import static reactor.core.publisher.Flux.from;
 import static reactor.core.publisher.Flux.just;
+import static reactor.core.publisher.Mono.fromFuture;
 
 import org.mule.runtime.api.component.AbstractComponent;
 import org.mule.runtime.api.component.Component;
@@ -27,6 +29,7 @@ import org.mule.runtime.api.exception.MuleException;
 import org.mule.runtime.api.exception.MuleRuntimeException;
 import org.mule.runtime.api.lifecycle.Disposable;
 import org.mule.runtime.api.lifecycle.Stoppable;
+import org.mule.runtime.config.internal.DeferredComponentActivator;
 import org.mule.runtime.config.internal.MuleArtifactContext;
 import org.mule.runtime.core.api.MuleContext;
 import org.mule.runtime.core.api.construct.Flow;
@@ -53,6 +56,7 @@ import com.google.common.util.concurrent.UncheckedExecutionException;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import javax.inject.Inject;
 import javax.xml.namespace.QName;
@@ -178,26 +182,38 @@ public class FlowRefFactoryBean extends AbstractComponentFactory<Processor> impl
     @Override
     public Publisher<CoreEvent> apply(Publisher<CoreEvent> publisher) {
       return from(publisher).flatMap(event -> {
-        Processor referencedProcessor;
-        try {
-          referencedProcessor = resolveReferencedProcessor(event);
-        } catch (MuleException e) {
-          return error(e);
-        }
-
-        // If referenced processor is a Flow use a child EventContext and wait for completion else simply compose
-        if (referencedProcessor instanceof Flow) {
-          return just(event)
-              .flatMap(request -> Mono
-                  .from(processWithChildContext(request, referencedProcessor,
-                                                ofNullable(FlowRefFactoryBean.this.getLocation()),
-                                                ((Flow) referencedProcessor).getExceptionListener())));
-        } else {
-          return just(event).transform(referencedProcessor);
+        if (isExpression && applicationContext instanceof DeferredComponentActivator) {
+          CompletableFuture<Void> activation = ((DeferredComponentActivator) applicationContext).getActivation();
+          if (!activation.isDone()) {
+            // Unlike static ones, a dynamic reference may target a flow that was not created yet, so wait for it without blocking
+            // this thread. If the activation fails, resolving the flow reports that it does not exist.
+            return fromFuture(activation.exceptionally(e -> null)).thenMany(defer(() -> route(event)));
+          }
         }
+        return route(event);
       });
     }
 
+    private Publisher<CoreEvent> route(CoreEvent event) {
+      Processor referencedProcessor;
+      try {
+        referencedProcessor = resolveReferencedProcessor(event);
+      } catch (MuleException e) {
+        return error(e);
+      }
+
+      // If referenced processor is a Flow use a child EventContext and wait for completion else simply compose
+      if (referencedProcessor instanceof Flow) {
+        return just(event)
+            .flatMap(request -> Mono
+                .from(processWithChildContext(request, referencedProcessor,
+                                              ofNullable(FlowRefFactoryBean.this.getLocation()),
+                                              ((Flow) referencedProcessor).getExceptionListener())));
+      } else {
+        return just(event).transform(referencedProcessor);
+      }
+    }
+
     protected Processor resolveReferencedProcessor(CoreEvent event) throws MuleException {
       String flowName;
       if (isExpression) {
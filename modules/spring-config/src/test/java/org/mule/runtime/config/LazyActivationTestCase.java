@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.config;
+
+import static java.util.Collections.singletonMap;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mule.runtime.core.api.config.MuleDeploymentProperties.MULE_LAZY_ACTIVATION_DEPLOYMENT_PROPERTY;
+
+import org.mule.runtime.config.internal.SpringXmlConfigurationBuilder;
+import org.mule.runtime.core.api.config.ConfigurationBuilder;
+import org.mule.runtime.core.api.construct.FlowConstruct;
+import org.mule.runtime.core.internal.context.MuleContextWithRegistries;
+import org.mule.tck.junit4.AbstractMuleContextTestCase;
+import org.mule.tck.probe.JUnitLambdaProbe;
+import org.mule.tck.probe.PollingProber;
+
+import org.junit.Test;
+
+public class LazyActivationTestCase extends AbstractMuleContextTestCase {
+
+  public LazyActivationTestCase() {
+    setStartContext(false);
+  }
+
+  @Override
+  protected ConfigurationBuilder getBuilder() throws Exception {
+    return new SpringXmlConfigurationBuilder(new String[] {"lazy-activation-config.xml"},
+                                             singletonMap(MULE_LAZY_ACTIVATION_DEPLOYMENT_PROPERTY, "true"));
+  }
+
+  @Test
+  public void onlyFlowsWithSourceAndTheirDependenciesCreatedOnDeploy() {
+    assertThat(lookup("flowWithSource"), is(notNullValue()));
+    assertThat(lookup("staticTarget"), is(notNullValue()));
+    assertThat(lookup("deferredFlow"), is(nullValue()));
+  }
+
+  @Test
+  public void deferredFlowsActivatedOnStart() throws Exception {
+    muleContext.start();
+
+    new PollingProber(RECEIVE_TIMEOUT, 50).check(new JUnitLambdaProbe(() -> {
+      FlowConstruct deferredFlow = (FlowConstruct) lookup("deferredFlow");
+      assertThat(deferredFlow, is(notNullValue()));
+      assertThat(deferredFlow.getLifecycleState().isStarted(), is(true));
+      return true;
+    }));
+  }
+
+  private Object lookup(String name) {
+    return ((MuleContextWithRegistries) muleContext).getRegistry().lookupObject(name);
+  }
+}
@@ -6,12 +6,15 @@
  */
 package org.mule.runtime.config.internal;
 
+import static java.util.Collections.singletonMap;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
+import static org.mule.runtime.core.api.config.MuleProperties.MULE_LIFECYCLE_PARALLEL;
+import static org.mule.tck.MuleTestUtils.testWithSystemProperty;
 import static org.mule.tck.util.MuleContextUtils.mockContextWithServices;
 import org.mule.runtime.api.lifecycle.Initialisable;
 import org.mule.runtime.api.lifecycle.InitialisationException;
@@ -91,6 +94,69 @@ public class SpringLifecycleCallbackTestCase extends AbstractMuleTestCase {
     verifyInitialisation(inOrder, objects, "2", "3", "1", "5", "4");
   }
 
+  @Test
+  public void parallelPhaseAppliesInDependencyOrder() throws Exception {
+    Map<String, Initialisable> objects = new LinkedHashMap<>();
+    for (int i = 1; i <= 5; i++) {
+      final String key = String.valueOf(i);
+      Initialisable object = newInitialisable();
+      objects.put(key, object);
+      when(springRegistry.get(key)).thenReturn(object);
+    }
+
+    Map<String, Object> childsOf1 = new LinkedHashMap<>();
+    childsOf1.put("2", objects.get("2"));
+    childsOf1.put("3", objects.get("3"));
+
+    Map<String, Object> childsOf4 = new LinkedHashMap<>();
+    childsOf4.put("5", objects.get("5"));
+
+    when(springRegistry.getBeanDependencyResolver())
+        .thenReturn(new DefaultBeanDependencyResolver(mock(ConfigurationDependencyResolver.class, RETURNS_DEEP_STUBS),
+                                                      springRegistry));
+    when(springRegistry.getDependencies("1")).thenReturn(childsOf1);
+    when(springRegistry.getDependencies("4")).thenReturn(childsOf4);
+    when(springRegistry.lookupEntriesForLifecycle(Initialisable.class)).thenReturn(objects);
+    when(springRegistry.lookupEntriesForLifecycle(Object.class)).thenReturn((Map) objects);
+    when(springRegistry.resolveLifecycleDependencies(any())).thenCallRealMethod();
+
+    testWithSystemProperty(MULE_LIFECYCLE_PARALLEL, "true",
+                           () -> callback.onTransition(Initialisable.PHASE_NAME, springRegistry));
+
+    verifyInitialisation(inOrder(objects.get("2"), objects.get("1")), objects, "2", "1");
+    verifyInitialisation(inOrder(objects.get("3"), objects.get("1")), objects, "3", "1");
+    verifyInitialisation(inOrder(objects.get("5"), objects.get("4")), objects, "5", "4");
+  }
+
+  @Test
+  public void parallelPhaseFollowsDependenciesThroughOtherObjects() throws Exception {
+    Map<String, Initialisable> objects = new LinkedHashMap<>();
+    for (int i = 1; i <= 2; i++) {
+      final String key = String.valueOf(i);
+      Initialisable object = newInitialisable();
+      objects.put(key, object);
+      when(springRegistry.get(key)).thenReturn(object);
+    }
+    Object intermediate = new Object();
+    when(springRegistry.get("intermediate")).thenReturn(intermediate);
+
+    when(springRegistry.getBeanDependencyResolver())
+        .thenReturn(new DefaultBeanDependencyResolver(mock(ConfigurationDependencyResolver.class, RETURNS_DEEP_STUBS),
+                                                      springRegistry));
+    when(springRegistry.getDependencies("1")).thenReturn(singletonMap("intermediate", intermediate));
+    when(springRegistry.getDependencies("intermediate")).thenReturn(singletonMap("2", (Object) objects.get("2")));
+    when(springRegistry.lookupEntriesForLifecycle(Initialisable.class)).thenReturn(objects);
+    Map<String, Object> allObjects = new LinkedHashMap<>(objects);
+    allObjects.put("intermediate", intermediate);
+    when(springRegistry.lookupEntriesForLifecycle(Object.class)).thenReturn(allObjects);
+    when(springRegistry.resolveLifecycleDependencies(any())).thenCallRealMethod();
+
+    testWithSystemProperty(MULE_LIFECYCLE_PARALLEL, "true",
+                           () -> callback.onTransition(Initialisable.PHASE_NAME, springRegistry));
+
+    verifyInitialisation(inOrder(objects.get("2"), objects.get("1")), objects, "2", "1");
+  }
+
   private void verifyInitialisation(InOrder inOrder, Map<String, Initialisable> objects, String... keys)
       throws InitialisationException {
     for (String key : keys) {
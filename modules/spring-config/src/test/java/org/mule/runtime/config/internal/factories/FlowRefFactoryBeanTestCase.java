@@ -10,8 +10,10 @@ import static java.util.Arrays.asList;
 import static java.util.Collections.singletonList;
 import static java.util.Collections.singletonMap;
 import static java.util.Optional.of;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.not;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertSame;
@@ -22,6 +24,7 @@ import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -34,6 +37,7 @@ import static org.mule.runtime.core.api.lifecycle.LifecycleUtils.setMuleContextI
 import static org.mule.runtime.core.api.lifecycle.LifecycleUtils.startIfNeeded;
 import static org.mule.runtime.core.api.lifecycle.LifecycleUtils.stopIfNeeded;
 import static org.mule.runtime.dsl.api.component.config.DefaultComponentLocation.fromSingleComponent;
+import static org.mule.tck.junit4.AbstractMuleContextTestCase.RECEIVE_TIMEOUT;
 import static org.mule.tck.util.MuleContextUtils.mockContextWithServices;
 import static reactor.core.publisher.Mono.from;
 import static reactor.core.publisher.Mono.just;
@@ -48,6 +52,7 @@ import org.mule.runtime.api.lifecycle.Initialisable;
 import org.mule.runtime.api.lifecycle.InitialisationException;
 import org.mule.runtime.api.lifecycle.Startable;
 import org.mule.runtime.api.lifecycle.Stoppable;
+import org.mule.runtime.config.internal.DeferredComponentActivator;
 import org.mule.runtime.core.api.MuleContext;
 import org.mule.runtime.core.api.construct.Flow;
 import org.mule.runtime.core.api.context.MuleContextAware;
@@ -72,6 +77,7 @@ import org.reactivestreams.Publisher;
 import org.springframework.context.ApplicationContext;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import javax.inject.Inject;
 
@@ -212,6 +218,45 @@ public class FlowRefFactoryBeanTestCase extends AbstractMuleTestCase {
     verify((MuleContextAware) targetMuleContextAwareAware, atLeastOnce()).setMuleContext(mockMuleContext);
   }
 
+  @Test
+  public void dynamicFlowRefWaitsForDeferredActivation() throws Exception {
+    CompletableFuture<Void> activation = new CompletableFuture<>();
+    applicationContext = mock(ApplicationContext.class, withSettings().extraInterfaces(DeferredComponentActivator.class));
+    when(((DeferredComponentActivator) applicationContext).getActivation()).thenReturn(activation);
+
+    FlowRefFactoryBean flowRefFactoryBean = createDynamicFlowRefFactoryBean(targetFlow, null);
+    Processor flowRefProcessor = getFlowRefProcessor(flowRefFactoryBean);
+    initialiseIfNeeded(flowRefProcessor);
+    startIfNeeded(flowRefProcessor);
+
+    CompletableFuture<CoreEvent> processed = just(newEvent()).cast(CoreEvent.class).transform(flowRefProcessor).toFuture();
+    assertThat(processed.isDone(), is(false));
+    verify(applicationContext, never()).getBean(anyString());
+
+    activation.complete(null);
+    assertSame(result.getMessage(), processed.get(RECEIVE_TIMEOUT, MILLISECONDS).getMessage());
+
+    stopIfNeeded(flowRefProcessor);
+    disposeIfNeeded(flowRefProcessor, null);
+  }
+
+  @Test
+  public void dynamicFlowRefAfterFailedDeferredActivation() throws Exception {
+    CompletableFuture<Void> activation = new CompletableFuture<>();
+    applicationContext = mock(ApplicationContext.class, withSettings().extraInterfaces(DeferredComponentActivator.class));
+    when(((DeferredComponentActivator) applicationContext).getActivation()).thenReturn(activation);
+    doReturn(true).when(expressionManager).isExpression(anyString());
+    doReturn("other").when(expressionManager).parse(eq(DYNAMIC_NON_EXISTANT), any(CoreEvent.class),
+                                                    any(ComponentLocation.class));
+
+    CompletableFuture<CoreEvent> processed = just(newEvent()).cast(CoreEvent.class)
+        .transform(getFlowRefProcessor(createFlowRefFactoryBean(DYNAMIC_NON_EXISTANT))).toFuture();
+    activation.completeExceptionally(new IllegalStateException("activation failed"));
+
+    expectedException.expectCause(instanceOf(RoutePathNotFoundException.class));
+    processed.get(RECEIVE_TIMEOUT, MILLISECONDS);
+  }
+
   private Processor getFlowRefProcessor(FlowRefFactoryBean factoryBean) throws Exception {
     Processor processor = factoryBean.getObject();
     setMuleContextIfNeeded(processor, mockMuleContext);
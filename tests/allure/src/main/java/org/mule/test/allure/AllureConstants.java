@@ -361,6 +361,11 @@ public interface AllureConstants {
       String SCATTER_GATHER = "Scatter Gather";
     }
 
+    interface ParallelForeachStory {
+
+      String PARALLEL_FOREACH = "Parallel Foreach";
+    }
+
     interface RoundRobinStory {
 
       String ROUND_ROBIN = "Round Robin";
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule;
+
+import static org.mule.runtime.core.api.event.EventContextFactory.create;
+import static org.mule.runtime.core.api.lifecycle.LifecycleUtils.stopIfNeeded;
+import static org.mule.runtime.core.privileged.registry.LegacyRegistryUtils.lookupObject;
+import static org.mule.runtime.core.privileged.registry.LegacyRegistryUtils.registerObject;
+
+import org.mule.runtime.api.exception.MuleException;
+import org.mule.runtime.api.message.Message;
+import org.mule.runtime.api.scheduler.SchedulerService;
+import org.mule.runtime.core.api.MuleContext;
+import org.mule.runtime.core.api.construct.Flow;
+import org.mule.runtime.core.api.construct.FlowConstruct;
+import org.mule.runtime.core.api.event.CoreEvent;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures deriving events with modified variables, as done by each {@code set-variable} along a flow, for events with different
+ * amounts of variables.
+ */
+public class EventVariablesBenchmark extends AbstractBenchmark {
+
+  private static final int FLOW_LENGTH = 20;
+
+  @Param({"10", "100", "1000"})
+  public int variables;
+
+  private MuleContext muleContext;
+  private CoreEvent event;
+
+  @Setup
+  public void setup() throws Exception {
+    muleContext = createMuleContextWithServices();
+    muleContext.start();
+    Flow flow = createFlow(muleContext);
+    registerObject(muleContext, FLOW_NAME, flow, FlowConstruct.class);
+
+    CoreEvent.Builder builder = CoreEvent.builder(create(flow, CONNECTOR_LOCATION)).message(Message.of(PAYLOAD));
+    for (int i = 0; i < variables; i++) {
+      builder.addVariable("FlOwVaRiAbLeKeY" + i, VALUE);
+    }
+    event = builder.build();
+  }
+
+  @TearDown
+  public void teardown() throws MuleException {
+    stopIfNeeded(lookupObject(muleContext, SchedulerService.class));
+    muleContext.dispose();
+  }
+
+  @Benchmark
+  public CoreEvent addVariable() {
+    return CoreEvent.builder(event).addVariable(KEY, VALUE).build();
+  }
+
+  @Benchmark
+  public CoreEvent replaceVariable() {
+    return CoreEvent.builder(event).addVariable("flowvariablekey0", KEY).build();
+  }
+
+  @Benchmark
+  public CoreEvent removeVariable() {
+    return CoreEvent.builder(event).removeVariable("flowvariablekey0").build();
+  }
+
+  @Benchmark
+  public Object getVariable() {
+    return event.getVariables().get("flowvariablekey0");
+  }
+
+  @Benchmark
+  public CoreEvent setVariablesAlongFlow() {
+    CoreEvent current = event;
+    for (int i = 0; i < FLOW_LENGTH; i++) {
+      current = CoreEvent.builder(current).addVariable(KEY + i, VALUE).build();
+    }
+    return current;
+  }
+}
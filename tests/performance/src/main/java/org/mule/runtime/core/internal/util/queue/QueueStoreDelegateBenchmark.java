@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) MuleSoft, Inc.  All rights reserved.  http://www.mulesoft.com
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.runtime.core.internal.util.queue;
+
+import static org.openjdk.jmh.annotations.Mode.Throughput;
+
+import org.mule.AbstractBenchmark;
+
+import java.io.Serializable;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Compares the throughput of the transient {@link QueueStoreDelegate}s with several producers and consumers sharing a queue.
+ */
+@BenchmarkMode(Throughput)
+public class QueueStoreDelegateBenchmark extends AbstractBenchmark {
+
+  private static final long TIMEOUT = 10;
+
+  @Param({"default", "ringBuffer"})
+  public String delegate;
+
+  @Param({"0", "1024"})
+  public int capacity;
+
+  private QueueStoreDelegate queueStore;
+
+  @Setup
+  public void setup() {
+    queueStore = "ringBuffer".equals(delegate) ? new RingBufferQueueStoreDelegate(capacity)
+        : new DefaultQueueStoreDelegate(capacity);
+  }
+
+  @TearDown
+  public void teardown() {
+    queueStore.dispose();
+  }
+
+  @Benchmark
+  @Group("mpmc")
+  @GroupThreads(4)
+  public boolean offer() throws InterruptedException {
+    return queueStore.offer(VALUE, 0, TIMEOUT);
+  }
+
+  @Benchmark
+  @Group("mpmc")
+  @GroupThreads(4)
+  public Serializable poll() throws InterruptedException {
+    return queueStore.poll(TIMEOUT);
+  }
+
+  @Benchmark
+  @Group("spsc")
+  @GroupThreads(1)
+  public boolean offerSingle() throws InterruptedException {
+    return queueStore.offer(VALUE, 0, TIMEOUT);
+  }
+
+  @Benchmark
+  @Group("spsc")
+  @GroupThreads(1)
+  public Serializable pollSingle() throws InterruptedException {
+    return queueStore.poll(TIMEOUT);
+  }
+}